@@ -0,0 +1,77 @@
+package com.martianpay.sdk;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.martianpay.developer.PaymentIntent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures decoding a {@code {code, error_code, msg, data}} response envelope: binding it to
+ * CommonResponse and then re-binding the data tree, as the client used to, against the
+ * streaming EnvelopeDecoder.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnvelopeParsingBenchmark {
+    private static final Type PAYMENT_INTENT_LIST = new TypeToken<List<PaymentIntent>>() { }.getType();
+
+    /** Number of payment intents in the data field; 1 decodes a single object */
+    @Param({"1", "20"})
+    public int items;
+
+    private Gson gson;
+    private EnvelopeDecoder decoder;
+    private Type dataType;
+    private String payload;
+
+    @Setup
+    public void setup() {
+        gson = ModelGson.create();
+        decoder = new EnvelopeDecoder(gson);
+        Object data;
+        if (items == 1) {
+            dataType = PaymentIntent.class;
+            data = ModelFixtures.create(PaymentIntent.class, 2);
+        } else {
+            dataType = PAYMENT_INTENT_LIST;
+            List<PaymentIntent> list = new ArrayList<>();
+            for (int i = 0; i < items; i++) {
+                list.add(ModelFixtures.create(PaymentIntent.class, 2));
+            }
+            data = list;
+        }
+        payload = "{\"code\":0,\"error_code\":\"success\",\"msg\":\"success\",\"data\":" + gson.toJson(data) + "}";
+    }
+
+    @Benchmark
+    public Object buffered() {
+        MartianPayClient.CommonResponse envelope = gson.fromJson(payload, MartianPayClient.CommonResponse.class);
+        return gson.fromJson(envelope.getData(), dataType);
+    }
+
+    @Benchmark
+    public Object streaming() throws IOException {
+        return decoder.decode(new StringReader(payload), dataType);
+    }
+}
@@ -0,0 +1,71 @@
+package com.martianpay.sdk;
+
+import com.google.gson.Gson;
+import com.martianpay.developer.InvoiceDetails;
+import com.martianpay.developer.PaymentIntent;
+import com.martianpay.developer.Subscription;
+import com.martianpay.developer.SubscriptionDetails;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Gson serialization and deserialization of the heaviest models, with plain reflective
+ * Gson against the SDK's wire Gson (compact output, generated TypeAdapters).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GsonRoundTripBenchmark {
+    @Param({"PaymentIntent", "Subscription", "SubscriptionDetails", "InvoiceDetails"})
+    public String model;
+
+    @Param({"reflective", "generated"})
+    public String binding;
+
+    private Gson gson;
+    private Class<?> type;
+    private Object value;
+    private String json;
+
+    @Setup
+    public void setup() {
+        gson = "generated".equals(binding) ? ModelGson.create() : new Gson();
+        type = modelClass(model);
+        value = ModelFixtures.create(type, 3);
+        json = gson.toJson(value);
+    }
+
+    @Benchmark
+    public String serialize() {
+        return gson.toJson(value);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return gson.fromJson(json, type);
+    }
+
+    static Class<?> modelClass(String model) {
+        switch (model) {
+            case "PaymentIntent": return PaymentIntent.class;
+            case "Subscription": return Subscription.class;
+            case "SubscriptionDetails": return SubscriptionDetails.class;
+            case "InvoiceDetails": return InvoiceDetails.class;
+            default: throw new IllegalArgumentException("Unknown model: " + model);
+        }
+    }
+}
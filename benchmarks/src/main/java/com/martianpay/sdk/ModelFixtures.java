@@ -0,0 +1,98 @@
+package com.martianpay.sdk;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ModelFixtures builds fully populated developer model instances for benchmarks.
+ *
+ * Every field is filled with a deterministic value; lists get {@code listSize} elements and
+ * nested models are populated down to a fixed depth, so a PaymentIntent carries its Charge list
+ * and each Charge its refunds and transaction details.
+ */
+final class ModelFixtures {
+    private static final int MAX_DEPTH = 4;
+
+    private final int listSize;
+    private int counter;
+
+    private ModelFixtures(int listSize) {
+        this.listSize = listSize;
+    }
+
+    static <T> T create(Class<T> type, int listSize) {
+        try {
+            return type.cast(new ModelFixtures(listSize).value(type, 0));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot build fixture for " + type.getName(), e);
+        }
+    }
+
+    private Object value(Type type, int depth) throws ReflectiveOperationException {
+        Class<?> raw = type instanceof ParameterizedType
+                ? (Class<?>) ((ParameterizedType) type).getRawType()
+                : (Class<?>) type;
+        int n = ++counter;
+        if (raw == String.class) {
+            return "value_" + n;
+        }
+        if (raw == Integer.class) {
+            return n;
+        }
+        if (raw == Long.class) {
+            return 1700000000L + n;
+        }
+        if (raw == Boolean.class) {
+            return n % 2 == 0;
+        }
+        if (raw == Double.class) {
+            return n + 0.25;
+        }
+        if (raw == BigDecimal.class) {
+            return new BigDecimal(n + ".125");
+        }
+        if (raw == Object.class) {
+            return "value_" + n;
+        }
+        if (List.class.isAssignableFrom(raw)) {
+            List<Object> list = new ArrayList<>();
+            if (depth < MAX_DEPTH) {
+                Type element = ((ParameterizedType) type).getActualTypeArguments()[0];
+                for (int i = 0; i < listSize; i++) {
+                    list.add(value(element, depth + 1));
+                }
+            }
+            return list;
+        }
+        if (Map.class.isAssignableFrom(raw)) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            Type valueType = ((ParameterizedType) type).getActualTypeArguments()[1];
+            map.put("key_" + n, value(valueType, depth + 1));
+            return map;
+        }
+        if (depth >= MAX_DEPTH) {
+            return null;
+        }
+        Constructor<?> constructor = raw.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        Object instance = constructor.newInstance();
+        for (Class<?> c = raw; c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                field.setAccessible(true);
+                field.set(instance, value(field.getGenericType(), depth + 1));
+            }
+        }
+        return instance;
+    }
+}
@@ -0,0 +1,110 @@
+package com.martianpay.sdk;
+
+import com.google.gson.annotations.SerializedName;
+import com.martianpay.developer.ListMerchantSubscriptionsRequest;
+import com.martianpay.developer.PaymentIntentListRequest;
+import okhttp3.HttpUrl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures encoding list request objects into query parameters: the reflective field walk the
+ * pipeline used to do on every call, against the cached per-class QueryEncoder.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryEncoderBenchmark {
+    private final HttpUrl baseUrl = HttpUrl.get("https://api.martianpay.com/v1/payment_intents");
+
+    private PaymentIntentListRequest paymentIntents;
+    private ListMerchantSubscriptionsRequest subscriptions;
+
+    @Setup
+    public void setup() {
+        paymentIntents = new PaymentIntentListRequest();
+        paymentIntents.setPage(3);
+        paymentIntents.setPageSize(50);
+        paymentIntents.setCustomer("cus_01HZX3K7Q9V2M4N6P8R0T2W4Y6");
+        paymentIntents.setCustomerEmail("buyer@example.com");
+        paymentIntents.setPermanentDeposit(Boolean.FALSE);
+
+        subscriptions = new ListMerchantSubscriptionsRequest();
+        subscriptions.setCustomerId("cus_01HZX3K7Q9V2M4N6P8R0T2W4Y6");
+        subscriptions.setStatus("active");
+        subscriptions.setOffset(100);
+        subscriptions.setLimit(50);
+    }
+
+    @Benchmark
+    public HttpUrl paymentIntentsReflective() {
+        HttpUrl.Builder urlBuilder = baseUrl.newBuilder();
+        reflectiveAddQueryParams(urlBuilder, paymentIntents);
+        return urlBuilder.build();
+    }
+
+    @Benchmark
+    public HttpUrl paymentIntentsEncoder() {
+        HttpUrl.Builder urlBuilder = baseUrl.newBuilder();
+        QueryEncoder.encode(urlBuilder, paymentIntents);
+        return urlBuilder.build();
+    }
+
+    @Benchmark
+    public HttpUrl subscriptionsReflective() {
+        HttpUrl.Builder urlBuilder = baseUrl.newBuilder();
+        reflectiveAddQueryParams(urlBuilder, subscriptions);
+        return urlBuilder.build();
+    }
+
+    @Benchmark
+    public HttpUrl subscriptionsEncoder() {
+        HttpUrl.Builder urlBuilder = baseUrl.newBuilder();
+        QueryEncoder.encode(urlBuilder, subscriptions);
+        return urlBuilder.build();
+    }
+
+    /**
+     * The previous per-call implementation, kept here as the baseline
+     */
+    private static void reflectiveAddQueryParams(HttpUrl.Builder urlBuilder, Object params) {
+        for (Field field : params.getClass().getDeclaredFields()) {
+            field.setAccessible(true);
+            try {
+                Object value = field.get(params);
+                if (value == null) {
+                    continue;
+                }
+                String fieldName = field.getName();
+                SerializedName annotation = field.getAnnotation(SerializedName.class);
+                if (annotation != null) {
+                    fieldName = annotation.value();
+                }
+                if (value instanceof String && ((String) value).isEmpty()) {
+                    continue;
+                }
+                if (value instanceof Integer || value instanceof Long || value instanceof Boolean) {
+                    urlBuilder.addQueryParameter(fieldName, String.valueOf(value));
+                } else if (value instanceof String) {
+                    urlBuilder.addQueryParameter(fieldName, (String) value);
+                }
+            } catch (IllegalAccessException e) {
+                // Skip this field
+            }
+        }
+    }
+}
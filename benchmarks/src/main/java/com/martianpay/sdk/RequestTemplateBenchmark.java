@@ -0,0 +1,65 @@
+package com.martianpay.sdk;
+
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building an OkHttp request for {@code GET /v1/payment_intents/{id}}: the per-call
+ * string formatting and Base64 encoding the client used to do, against the precomputed
+ * RequestTemplate and a pre-parsed PathTemplate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestTemplateBenchmark {
+    private static final PathTemplate PAYMENT_INTENTS_ID = PathTemplate.of("/v1/payment_intents/%s");
+
+    private final String apiKey = "sk_test_4f9c2a7d1b8e6f3a0c5d9e2b7a1f4c8d";
+    private final String baseUrl = "https://api.martianpay.com";
+    private final String id = "pi_01HZX3K7Q9V2M4N6P8R0T2W4Y6";
+
+    private RequestTemplate template;
+
+    @Setup
+    public void setup() {
+        template = new RequestTemplate(apiKey, baseUrl);
+    }
+
+    @Benchmark
+    public Request perCallFormatting() {
+        String path = String.format("/v1/payment_intents/%s", id);
+        HttpUrl url = HttpUrl.parse(baseUrl + path);
+        String auth = apiKey + ":";
+        String encodedAuth = Base64.getEncoder().encodeToString(auth.getBytes(StandardCharsets.UTF_8));
+        return new Request.Builder()
+                .url(url.newBuilder().build())
+                .addHeader("Authorization", "Basic " + encodedAuth)
+                .addHeader("Content-Type", "application/json")
+                .get()
+                .build();
+    }
+
+    @Benchmark
+    public Request precomputedTemplate() {
+        return template.newRequest(template.url(PAYMENT_INTENTS_ID.expand(id)))
+                .get()
+                .build();
+    }
+}
@@ -0,0 +1,96 @@
+package com.martianpay.sdk;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures verifying a {@code Martian-Pay-Signature} header ({@code t=<timestamp>,v1=<hex>},
+ * HMAC-SHA256 over {@code timestamp + "." + payload}) the way the webhook example did it, with
+ * a new Mac per call and a hex string comparison, against {@link WebhookSignatureVerifier}, which
+ * pools initialized Macs and compares decoded bytes over the raw payload.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WebhookSignatureBenchmark {
+    static final String SECRET = "whsec_5f2b8c1e9d4a7f3b6e0c2d8a1f9b4e7c";
+
+    /** Payload size in bytes */
+    @Param({"1024", "16384"})
+    public int size;
+
+    String payload;
+    byte[] payloadBytes;
+    String header;
+    WebhookSignatureVerifier verifier;
+
+    @Setup
+    public void setup() throws GeneralSecurityException {
+        char[] filler = new char[size - 64];
+        Arrays.fill(filler, 'x');
+        payload = "{\"id\":\"evt_01HZX3K7Q9V2M4N6P8R0T2W4Y6\",\"data\":\"" + new String(filler) + "\"}";
+        long timestamp = System.currentTimeMillis() / 1000;
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        mac.update((timestamp + "." + payload).getBytes(StandardCharsets.UTF_8));
+        header = "t=" + timestamp + ",v1=" + toHex(mac.doFinal());
+        payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        verifier = new WebhookSignatureVerifier(SECRET);
+    }
+
+    @Benchmark
+    public boolean perCallMac() throws GeneralSecurityException {
+        long timestamp = 0;
+        String signature = null;
+        for (String pair : header.split(",")) {
+            String[] parts = pair.split("=", 2);
+            if ("t".equals(parts[0].trim())) {
+                timestamp = Long.parseLong(parts[1].trim());
+            } else if ("v1".equals(parts[0].trim())) {
+                signature = parts[1].trim();
+            }
+        }
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        mac.update(String.valueOf(timestamp).getBytes(StandardCharsets.UTF_8));
+        mac.update(".".getBytes(StandardCharsets.UTF_8));
+        mac.update(payload.getBytes(StandardCharsets.UTF_8));
+        return toHex(mac.doFinal()).equals(signature);
+    }
+
+    @Benchmark
+    public boolean pooledVerifier() {
+        return verifier.verify(payloadBytes, header);
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            String h = Integer.toHexString(0xff & b);
+            if (h.length() == 1) {
+                hex.append('0');
+            }
+            hex.append(h);
+        }
+        return hex.toString();
+    }
+}
@@ -3,17 +3,14 @@ package com.martianpay.examples;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.martianpay.developer.Event;
+import com.martianpay.sdk.WebhookSignatureVerifier;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import java.io.*;
 import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -28,6 +25,7 @@ public class WebhookExample {
     private static final String MARTIANPAY_SIGNATURE_HEADER = Event.MARTIAN_PAY_SIGNATURE;
     private static final int PORT = 8080;
     private static final Gson gson = new Gson();
+    private static final WebhookSignatureVerifier VERIFIER = new WebhookSignatureVerifier(WEBHOOK_SECRET);
 
     /**
      * Webhook event data structure
@@ -57,7 +55,7 @@ public class WebhookExample {
 
             try {
                 // Read request body
-                String requestBody = readRequestBody(exchange.getRequestBody());
+                byte[] requestBody = readRequestBody(exchange.getRequestBody());
 
                 // Get signature from header
                 String signature = exchange.getRequestHeaders().getFirst(MARTIANPAY_SIGNATURE_HEADER);
@@ -88,14 +86,14 @@ public class WebhookExample {
             }
         }
 
-        private String readRequestBody(InputStream inputStream) throws IOException {
+        private byte[] readRequestBody(InputStream inputStream) throws IOException {
             ByteArrayOutputStream result = new ByteArrayOutputStream();
-            byte[] buffer = new byte[1024];
+            byte[] buffer = new byte[8192];
             int length;
             while ((length = inputStream.read(buffer)) != -1) {
                 result.write(buffer, 0, length);
             }
-            return result.toString(StandardCharsets.UTF_8.name());
+            return result.toByteArray();
         }
 
         private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
@@ -125,119 +123,12 @@ public class WebhookExample {
     /**
      * Verifies webhook signature and parses event
      */
-    private static WebhookEvent verifyAndParseWebhook(String payload, String signatureHeader) {
-        try {
-            // Parse signature header: "t=timestamp,v1=signature"
-            SignatureData sigData = parseSignatureHeader(signatureHeader);
-            if (sigData == null) {
-                System.out.println("✗ Invalid signature header format");
-                return null;
-            }
-
-            // Verify HMAC signature
-            if (!verifySignature(payload, sigData, WEBHOOK_SECRET)) {
-                return null;
-            }
-
-            // Parse webhook event
-            return gson.fromJson(payload, WebhookEvent.class);
-        } catch (Exception e) {
-            System.out.println("✗ Error verifying webhook: " + e.getMessage());
-            return null;
-        }
-    }
-
-    /**
-     * SignatureData holds parsed signature information
-     */
-    private static class SignatureData {
-        long timestamp;
-        String signature;
-    }
-
-    /**
-     * Parses signature header in format "t=timestamp,v1=signature"
-     */
-    private static SignatureData parseSignatureHeader(String header) {
-        if (header == null || header.isEmpty()) {
-            return null;
-        }
-
-        SignatureData data = new SignatureData();
-        String[] pairs = header.split(",");
-
-        for (String pair : pairs) {
-            String[] parts = pair.split("=", 2);
-            if (parts.length != 2) {
-                continue;
-            }
-
-            String key = parts[0].trim();
-            String value = parts[1].trim();
-
-            if ("t".equals(key)) {
-                try {
-                    data.timestamp = Long.parseLong(value);
-                } catch (NumberFormatException e) {
-                    return null;
-                }
-            } else if ("v1".equals(key)) {
-                data.signature = value;
-            }
-        }
-
-        if (data.timestamp == 0 || data.signature == null) {
+    private static WebhookEvent verifyAndParseWebhook(byte[] payload, String signatureHeader) {
+        // Checks HMAC-SHA256(timestamp + "." + payload, secret) and the timestamp tolerance
+        if (!VERIFIER.verify(payload, signatureHeader)) {
             return null;
         }
-
-        return data;
-    }
-
-    /**
-     * Verifies HMAC-SHA256 signature
-     * Computes: HMAC-SHA256(timestamp + "." + payload, secret)
-     */
-    private static boolean verifySignature(String payload, SignatureData sigData, String secret) {
-        try {
-            // Compute expected signature: HMAC-SHA256(timestamp + "." + payload, secret)
-            Mac mac = Mac.getInstance("HmacSHA256");
-            SecretKeySpec secretKeySpec = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-            mac.init(secretKeySpec);
-
-            // Add timestamp
-            mac.update(String.valueOf(sigData.timestamp).getBytes(StandardCharsets.UTF_8));
-            // Add separator
-            mac.update(".".getBytes(StandardCharsets.UTF_8));
-            // Add payload
-            mac.update(payload.getBytes(StandardCharsets.UTF_8));
-
-            byte[] hmacBytes = mac.doFinal();
-
-            // Convert to hex string
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hmacBytes) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
-            }
-
-            String expectedSignature = hexString.toString();
-
-            // Compare signatures
-            boolean isValid = expectedSignature.equals(sigData.signature);
-            if (!isValid) {
-                System.out.println("✗ Signature mismatch");
-                System.out.println("  Expected: " + expectedSignature);
-                System.out.println("  Received: " + sigData.signature);
-            }
-
-            return isValid;
-        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
-            System.out.println("✗ Error computing signature: " + e.getMessage());
-            return false;
-        }
+        return gson.fromJson(new String(payload, StandardCharsets.UTF_8), WebhookEvent.class);
     }
 
     /**
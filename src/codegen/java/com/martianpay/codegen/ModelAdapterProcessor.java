@@ -0,0 +1,618 @@
+package com.martianpay.codegen;
+
+import com.sun.source.tree.AssignmentTree;
+import com.sun.source.tree.BlockTree;
+import com.sun.source.tree.ExpressionStatementTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.ReturnTree;
+import com.sun.source.tree.StatementTree;
+import com.sun.source.util.Trees;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * ModelAdapterProcessor generates Gson TypeAdapters for the model classes in
+ * {@code com.martianpay.developer}.
+ *
+ * It runs over every source file of the build and writes one class,
+ * {@code com.martianpay.developer.GeneratedTypeAdapters}, holding an adapter per eligible model and a
+ * TypeAdapterFactory that serves them. The adapters read and write the same JSON as Gson's
+ * reflective binding: field names from {@code @SerializedName} (including alternates), transient
+ * and static fields excluded, nulls omitted on write, unknown names skipped on read.
+ *
+ * Adapters go through the model's getters and setters, so a class is only generated when every
+ * serialized field has a public accessor pair whose body is a plain field read or write. Classes
+ * that do not qualify (primitive fields, missing or non-trivial accessors, no public no-arg
+ * constructor, {@code @JsonAdapter}, duplicate JSON names) are left to Gson's reflection.
+ */
+@SupportedAnnotationTypes("*")
+public class ModelAdapterProcessor extends AbstractProcessor {
+    static final String MODEL_PACKAGE = "com.martianpay.developer";
+    static final String FACTORY_NAME = "GeneratedTypeAdapters";
+
+    private static final String SERIALIZED_NAME = "com.google.gson.annotations.SerializedName";
+    private static final String JSON_ADAPTER = "com.google.gson.annotations.JsonAdapter";
+
+    private boolean generated;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (generated || roundEnv.processingOver()) {
+            return false;
+        }
+        Trees trees;
+        try {
+            trees = Trees.instance(processingEnv);
+        } catch (IllegalArgumentException e) {
+            // Not running inside javac; every model keeps reflective binding
+            return false;
+        }
+
+        Map<String, TypeElement> models = new TreeMap<>();
+        for (Element element : roundEnv.getRootElements()) {
+            if (element.getKind() == ElementKind.CLASS && MODEL_PACKAGE.equals(packageOf(element))) {
+                models.put(element.getSimpleName().toString(), (TypeElement) element);
+            }
+        }
+        if (models.isEmpty()) {
+            return false;
+        }
+        generated = true;
+
+        List<Model> eligible = new ArrayList<>();
+        List<String> skipped = new ArrayList<>();
+        for (TypeElement type : models.values()) {
+            Model model = new ModelAnalyzer(trees, type).analyze();
+            if (model.rejection == null) {
+                eligible.add(model);
+            } else {
+                skipped.add(type.getSimpleName() + " (" + model.rejection + ")");
+            }
+        }
+
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(
+                    MODEL_PACKAGE + "." + FACTORY_NAME, models.values().toArray(new Element[0]));
+            try (Writer writer = file.openWriter()) {
+                new AdapterWriter(new PrintWriter(writer)).write(eligible);
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Cannot write " + FACTORY_NAME + ": " + e.getMessage());
+            return false;
+        }
+
+        StringBuilder note = new StringBuilder()
+                .append("Generated Gson adapters for ").append(eligible.size()).append(" model classes");
+        if (!skipped.isEmpty()) {
+            note.append("; using reflection for ").append(String.join(", ", skipped));
+        }
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, note);
+        return false;
+    }
+
+    private static String packageOf(Element element) {
+        Element e = element;
+        while (e != null && e.getKind() != ElementKind.PACKAGE) {
+            e = e.getEnclosingElement();
+        }
+        return e == null ? "" : ((PackageElement) e).getQualifiedName().toString();
+    }
+
+    /** One serialized field of a model */
+    static final class Property {
+        String field;
+        String jsonName;
+        List<String> alternates = new ArrayList<>();
+        String type;
+        /** Expression for the delegate adapter's type: a class literal or a java.lang.reflect.Type */
+        String typeExpression;
+        String getter;
+        String setter;
+    }
+
+    /** A model class and its serialized properties, or the reason it was rejected */
+    static final class Model {
+        String simpleName;
+        List<Property> properties = new ArrayList<>();
+        String rejection;
+    }
+
+    private final class ModelAnalyzer {
+        private final Trees trees;
+        private final TypeElement type;
+
+        ModelAnalyzer(Trees trees, TypeElement type) {
+            this.trees = trees;
+            this.type = type;
+        }
+
+        Model analyze() {
+            Model model = new Model();
+            model.simpleName = type.getSimpleName().toString();
+            model.rejection = check(model);
+            return model;
+        }
+
+        private String check(Model model) {
+            Set<Modifier> modifiers = type.getModifiers();
+            if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.ABSTRACT)) {
+                return "not a public concrete class";
+            }
+            if (!type.getTypeParameters().isEmpty()) {
+                return "generic";
+            }
+            if (annotation(type, JSON_ADAPTER) != null) {
+                return "@JsonAdapter";
+            }
+            if (!hasPublicNoArgConstructor()) {
+                return "no public no-arg constructor";
+            }
+
+            List<ExecutableElement> methods = ElementFilter.methodsIn(
+                    processingEnv.getElementUtils().getAllMembers(type));
+            Set<String> jsonNames = new LinkedHashSet<>();
+
+            // Same order as Gson's reflective binding: the class's own fields, then each superclass
+            TypeElement current = type;
+            while (current != null && !"java.lang.Object".equals(current.getQualifiedName().toString())) {
+                if (!MODEL_PACKAGE.equals(packageOf(current))) {
+                    return "superclass " + current.getQualifiedName();
+                }
+                for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                    Set<Modifier> fieldModifiers = field.getModifiers();
+                    if (fieldModifiers.contains(Modifier.STATIC) || fieldModifiers.contains(Modifier.TRANSIENT)) {
+                        continue;
+                    }
+                    Property property = new Property();
+                    String rejection = describe(field, property, methods);
+                    if (rejection != null) {
+                        return rejection;
+                    }
+                    if (!jsonNames.add(property.jsonName)) {
+                        return "duplicate JSON name " + property.jsonName;
+                    }
+                    for (String alternate : property.alternates) {
+                        if (!jsonNames.add(alternate)) {
+                            return "duplicate JSON name " + alternate;
+                        }
+                    }
+                    model.properties.add(property);
+                }
+                TypeMirror superclass = current.getSuperclass();
+                current = superclass.getKind() == TypeKind.DECLARED
+                        ? (TypeElement) ((DeclaredType) superclass).asElement()
+                        : null;
+            }
+            return null;
+        }
+
+        private boolean hasPublicNoArgConstructor() {
+            for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+                if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private String describe(VariableElement field, Property property, List<ExecutableElement> methods) {
+            String name = field.getSimpleName().toString();
+            TypeMirror fieldType = field.asType();
+            if (fieldType.getKind().isPrimitive()) {
+                return "primitive field " + name;
+            }
+            if (fieldType.getKind() != TypeKind.DECLARED && fieldType.getKind() != TypeKind.ARRAY) {
+                return "field type of " + name;
+            }
+            if (annotation(field, JSON_ADAPTER) != null) {
+                return "@JsonAdapter on " + name;
+            }
+            property.field = name;
+            property.type = fieldType.toString();
+            property.typeExpression = typeExpression(fieldType);
+            property.jsonName = name;
+
+            AnnotationMirror serializedName = annotation(field, SERIALIZED_NAME);
+            if (serializedName != null) {
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                        : serializedName.getElementValues().entrySet()) {
+                    String key = entry.getKey().getSimpleName().toString();
+                    if ("value".equals(key)) {
+                        property.jsonName = (String) entry.getValue().getValue();
+                    } else if ("alternate".equals(key)) {
+                        @SuppressWarnings("unchecked")
+                        List<? extends AnnotationValue> values = (List<? extends AnnotationValue>) entry.getValue().getValue();
+                        for (AnnotationValue value : values) {
+                            property.alternates.add((String) value.getValue());
+                        }
+                    }
+                }
+            }
+
+            String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            ExecutableElement getter = findGetter(methods, "get" + capitalized, fieldType);
+            if (getter == null && "java.lang.Boolean".equals(property.type)) {
+                getter = findGetter(methods, "is" + capitalized, fieldType);
+            }
+            if (getter == null || !isPlainGetter(getter, name)) {
+                return "accessor for " + name;
+            }
+            ExecutableElement setter = findSetter(methods, "set" + capitalized, fieldType);
+            if (setter == null || !isPlainSetter(setter, name)) {
+                return "mutator for " + name;
+            }
+            property.getter = getter.getSimpleName().toString();
+            property.setter = setter.getSimpleName().toString();
+            return null;
+        }
+
+        /**
+         * Builds the delegate type without an anonymous TypeToken subclass, so that no extra class
+         * is loaded per generic field. Returns null where that is not possible (wildcards, arrays).
+         */
+        private String typeExpression(TypeMirror type) {
+            if (type.getKind() != TypeKind.DECLARED) {
+                return null;
+            }
+            DeclaredType declared = (DeclaredType) type;
+            String raw = ((TypeElement) declared.asElement()).getQualifiedName() + ".class";
+            if (declared.getTypeArguments().isEmpty()) {
+                return raw;
+            }
+            StringBuilder sb = new StringBuilder("TypeToken.getParameterized(").append(raw);
+            for (TypeMirror argument : declared.getTypeArguments()) {
+                String expression = typeExpression(argument);
+                if (expression == null) {
+                    return null;
+                }
+                sb.append(", ").append(expression);
+            }
+            return sb.append(").getType()").toString();
+        }
+
+        private ExecutableElement findGetter(List<ExecutableElement> methods, String name, TypeMirror type) {
+            for (ExecutableElement method : methods) {
+                if (method.getSimpleName().contentEquals(name)
+                        && method.getParameters().isEmpty()
+                        && method.getModifiers().contains(Modifier.PUBLIC)
+                        && !method.getModifiers().contains(Modifier.STATIC)
+                        && processingEnv.getTypeUtils().isSameType(method.getReturnType(), type)) {
+                    return method;
+                }
+            }
+            return null;
+        }
+
+        private ExecutableElement findSetter(List<ExecutableElement> methods, String name, TypeMirror type) {
+            for (ExecutableElement method : methods) {
+                if (method.getSimpleName().contentEquals(name)
+                        && method.getParameters().size() == 1
+                        && method.getModifiers().contains(Modifier.PUBLIC)
+                        && !method.getModifiers().contains(Modifier.STATIC)
+                        && processingEnv.getTypeUtils().isSameType(method.getParameters().get(0).asType(), type)) {
+                    return method;
+                }
+            }
+            return null;
+        }
+
+        /** True if the body is {@code return field;} or {@code return this.field;} */
+        private boolean isPlainGetter(ExecutableElement method, String field) {
+            StatementTree statement = singleStatement(method);
+            return statement instanceof ReturnTree && refersToField(((ReturnTree) statement).getExpression(), field);
+        }
+
+        /** True if the body is {@code this.field = param;} or {@code field = param;} */
+        private boolean isPlainSetter(ExecutableElement method, String field) {
+            StatementTree statement = singleStatement(method);
+            if (!(statement instanceof ExpressionStatementTree)) {
+                return false;
+            }
+            ExpressionTree expression = ((ExpressionStatementTree) statement).getExpression();
+            if (!(expression instanceof AssignmentTree)) {
+                return false;
+            }
+            AssignmentTree assignment = (AssignmentTree) expression;
+            String parameter = method.getParameters().get(0).getSimpleName().toString();
+            if (!refersToField(assignment.getVariable(), field)
+                    || !(assignment.getExpression() instanceof IdentifierTree)) {
+                return false;
+            }
+            // "field = field" would assign the field to itself when the parameter is named otherwise
+            return ((IdentifierTree) assignment.getExpression()).getName().contentEquals(parameter)
+                    && (assignment.getVariable() instanceof MemberSelectTree || !parameter.equals(field));
+        }
+
+        private StatementTree singleStatement(ExecutableElement method) {
+            MethodTree tree = trees.getTree(method);
+            BlockTree body = tree == null ? null : tree.getBody();
+            if (body == null || body.getStatements().size() != 1) {
+                return null;
+            }
+            return body.getStatements().get(0);
+        }
+
+        private boolean refersToField(ExpressionTree expression, String field) {
+            if (expression instanceof IdentifierTree) {
+                return ((IdentifierTree) expression).getName().contentEquals(field);
+            }
+            if (expression instanceof MemberSelectTree) {
+                MemberSelectTree select = (MemberSelectTree) expression;
+                return select.getIdentifier().contentEquals(field)
+                        && select.getExpression() instanceof IdentifierTree
+                        && ((IdentifierTree) select.getExpression()).getName().contentEquals("this");
+            }
+            return false;
+        }
+    }
+
+    private static AnnotationMirror annotation(Element element, String annotationType) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            Element annotation = mirror.getAnnotationType().asElement();
+            if (annotation instanceof TypeElement
+                    && ((TypeElement) annotation).getQualifiedName().contentEquals(annotationType)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    /** Writes the GeneratedTypeAdapters source */
+    static final class AdapterWriter {
+        private final PrintWriter out;
+
+        AdapterWriter(PrintWriter out) {
+            this.out = out;
+        }
+
+        void write(List<Model> models) {
+            out.println("package " + MODEL_PACKAGE + ";");
+            out.println();
+            out.println("import com.google.gson.Gson;");
+            out.println("import com.google.gson.JsonSyntaxException;");
+            out.println("import com.google.gson.TypeAdapter;");
+            out.println("import com.google.gson.TypeAdapterFactory;");
+            out.println("import com.google.gson.reflect.TypeToken;");
+            out.println("import com.google.gson.stream.JsonReader;");
+            out.println("import com.google.gson.stream.JsonToken;");
+            out.println("import com.google.gson.stream.JsonWriter;");
+            out.println();
+            out.println("import java.io.IOException;");
+            out.println();
+            out.println("/**");
+            out.println(" * Gson TypeAdapters for the developer models, generated by ModelAdapterProcessor. Do not edit.");
+            out.println(" */");
+            out.println("public final class " + FACTORY_NAME + " implements TypeAdapterFactory {");
+            out.println("    /** Number of model classes with a generated adapter */");
+            out.println("    public static final int ADAPTER_COUNT = " + models.size() + ";");
+            out.println();
+            out.println("    @Override");
+            out.println("    @SuppressWarnings(\"unchecked\")");
+            out.println("    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {");
+            out.println("        // Dispatch on the name so that loading this factory does not load every model and adapter class");
+            out.println("        Class<? super T> raw = type.getRawType();");
+            out.println("        switch (raw.getName()) {");
+            for (Model model : models) {
+                String name = model.simpleName;
+                out.println("            case \"" + MODEL_PACKAGE + "." + name + "\":");
+                out.println("                return raw == " + name + ".class ? (TypeAdapter<T>) " + name + "Adapter.create(gson) : null;");
+            }
+            out.println("            default:");
+            out.println("                return null;");
+            out.println("        }");
+            out.println("    }");
+            for (Model model : models) {
+                out.println();
+                writeAdapter(model);
+            }
+            out.println();
+            writeHelpers();
+            out.println("}");
+            out.flush();
+        }
+
+        private void writeAdapter(Model model) {
+            String name = model.simpleName;
+            Map<String, String> delegates = new LinkedHashMap<>();
+            Map<String, String> delegateTypes = new LinkedHashMap<>();
+            for (Property property : model.properties) {
+                if (inlineKind(property.type) == null && !delegates.containsKey(property.type)) {
+                    delegates.put(property.type, "adapter" + delegates.size());
+                    delegateTypes.put(property.type, property.typeExpression);
+                }
+            }
+
+            out.println("    static final class " + name + "Adapter extends TypeAdapter<" + name + "> {");
+            for (Map.Entry<String, String> delegate : delegates.entrySet()) {
+                out.println("        private final TypeAdapter<" + delegate.getKey() + "> " + delegate.getValue() + ";");
+            }
+            out.println();
+            // Created through a static method so that verifying the factory does not load this class
+            out.println("        static TypeAdapter<?> create(Gson gson) {");
+            out.println("            return new " + name + "Adapter(gson);");
+            out.println("        }");
+            out.println();
+            if (delegateTypes.containsValue(null) || delegateTypes.toString().contains("getParameterized")) {
+                out.println("        @SuppressWarnings(\"unchecked\")");
+            }
+            out.println("        " + name + "Adapter(Gson gson) {");
+            for (Map.Entry<String, String> delegate : delegates.entrySet()) {
+                String type = delegate.getKey();
+                String expression = delegateTypes.get(type);
+                String adapter;
+                if (expression == null) {
+                    adapter = "gson.getAdapter(new TypeToken<" + type + ">() { })";
+                } else if (expression.endsWith(".class")) {
+                    adapter = "gson.getAdapter(" + expression + ")";
+                } else {
+                    String token = expression.substring(0, expression.length() - ".getType()".length());
+                    adapter = "(TypeAdapter<" + type + ">) gson.getAdapter(" + token + ")";
+                }
+                out.println("            this." + delegate.getValue() + " = " + adapter + ";");
+            }
+            out.println("        }");
+            out.println();
+
+            out.println("        @Override");
+            out.println("        public void write(JsonWriter out, " + name + " value) throws IOException {");
+            out.println("            if (value == null) {");
+            out.println("                out.nullValue();");
+            out.println("                return;");
+            out.println("            }");
+            out.println("            out.beginObject();");
+            int v = 0;
+            for (Property property : model.properties) {
+                String local = "v" + v++;
+                out.println("            " + property.type + " " + local + " = value." + property.getter + "();");
+                out.println("            if (" + local + " != null) {");
+                String kind = inlineKind(property.type);
+                if (kind != null) {
+                    out.println("                out.name(" + literal(property.jsonName) + ").value(" + local + ");");
+                } else {
+                    out.println("                out.name(" + literal(property.jsonName) + ");");
+                    out.println("                " + delegates.get(property.type) + ".write(out, " + local + ");");
+                }
+                out.println("            }");
+            }
+            out.println("            out.endObject();");
+            out.println("        }");
+            out.println();
+
+            out.println("        @Override");
+            out.println("        public " + name + " read(JsonReader in) throws IOException {");
+            out.println("            if (in.peek() == JsonToken.NULL) {");
+            out.println("                in.nextNull();");
+            out.println("                return null;");
+            out.println("            }");
+            out.println("            " + name + " value = new " + name + "();");
+            out.println("            in.beginObject();");
+            out.println("            while (in.hasNext()) {");
+            out.println("                switch (in.nextName()) {");
+            for (Property property : model.properties) {
+                out.println("                    case " + literal(property.jsonName) + ":");
+                for (String alternate : property.alternates) {
+                    out.println("                    case " + literal(alternate) + ":");
+                }
+                String kind = inlineKind(property.type);
+                String read = kind != null
+                        ? "read" + kind + "(in)"
+                        : delegates.get(property.type) + ".read(in)";
+                out.println("                        value." + property.setter + "(" + read + ");");
+                out.println("                        break;");
+            }
+            out.println("                    default:");
+            out.println("                        in.skipValue();");
+            out.println("                        break;");
+            out.println("                }");
+            out.println("            }");
+            out.println("            in.endObject();");
+            out.println("            return value;");
+            out.println("        }");
+            out.println("    }");
+        }
+
+        /** Same coercions as Gson's built-in String, Integer, Long and Boolean adapters */
+        private void writeHelpers() {
+            out.println("    private static String readString(JsonReader in) throws IOException {");
+            out.println("        JsonToken token = in.peek();");
+            out.println("        if (token == JsonToken.NULL) {");
+            out.println("            in.nextNull();");
+            out.println("            return null;");
+            out.println("        }");
+            out.println("        return token == JsonToken.BOOLEAN ? Boolean.toString(in.nextBoolean()) : in.nextString();");
+            out.println("    }");
+            out.println();
+            out.println("    private static Integer readInteger(JsonReader in) throws IOException {");
+            out.println("        if (in.peek() == JsonToken.NULL) {");
+            out.println("            in.nextNull();");
+            out.println("            return null;");
+            out.println("        }");
+            out.println("        try {");
+            out.println("            return in.nextInt();");
+            out.println("        } catch (NumberFormatException e) {");
+            out.println("            throw new JsonSyntaxException(e);");
+            out.println("        }");
+            out.println("    }");
+            out.println();
+            out.println("    private static Long readLong(JsonReader in) throws IOException {");
+            out.println("        if (in.peek() == JsonToken.NULL) {");
+            out.println("            in.nextNull();");
+            out.println("            return null;");
+            out.println("        }");
+            out.println("        try {");
+            out.println("            return in.nextLong();");
+            out.println("        } catch (NumberFormatException e) {");
+            out.println("            throw new JsonSyntaxException(e);");
+            out.println("        }");
+            out.println("    }");
+            out.println();
+            out.println("    private static Boolean readBoolean(JsonReader in) throws IOException {");
+            out.println("        JsonToken token = in.peek();");
+            out.println("        if (token == JsonToken.NULL) {");
+            out.println("            in.nextNull();");
+            out.println("            return null;");
+            out.println("        }");
+            out.println("        return token == JsonToken.STRING ? Boolean.parseBoolean(in.nextString()) : in.nextBoolean();");
+            out.println("    }");
+        }
+
+        /** Suffix of the inline read helper for the type, or null to delegate to Gson */
+        private static String inlineKind(String type) {
+            switch (type) {
+                case "java.lang.String": return "String";
+                case "java.lang.Integer": return "Integer";
+                case "java.lang.Long": return "Long";
+                case "java.lang.Boolean": return "Boolean";
+                default: return null;
+            }
+        }
+
+        private static String literal(String value) {
+            StringBuilder sb = new StringBuilder("\"");
+            for (char c : value.toCharArray()) {
+                if (c == '"' || c == '\\') {
+                    sb.append('\\');
+                }
+                sb.append(c);
+            }
+            return sb.append('"').toString();
+        }
+    }
+}
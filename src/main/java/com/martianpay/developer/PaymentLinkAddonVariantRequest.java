@@ -0,0 +1,36 @@
+package com.martianpay.developer;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * Configuration for addon variants in a payment link.
+ */
+class PaymentLinkAddonVariantRequest {
+    /**
+     * Variant ID that can be added as an addon.
+     */
+    @SerializedName("variant_id")
+    private String variantID;
+
+    /**
+     * Minimum quantity of this addon that can be selected.
+     */
+    @SerializedName("min_quantity")
+    private Integer minQuantity;
+
+    /**
+     * Maximum quantity of this addon that can be selected.
+     */
+    @SerializedName("max_quantity")
+    private Integer maxQuantity;
+
+    // Getters and Setters
+    public String getVariantID() { return variantID; }
+    public void setVariantID(String variantID) { this.variantID = variantID; }
+
+    public Integer getMinQuantity() { return minQuantity; }
+    public void setMinQuantity(Integer minQuantity) { this.minQuantity = minQuantity; }
+
+    public Integer getMaxQuantity() { return maxQuantity; }
+    public void setMaxQuantity(Integer maxQuantity) { this.maxQuantity = maxQuantity; }
+}
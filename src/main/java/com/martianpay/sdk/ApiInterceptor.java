@@ -0,0 +1,49 @@
+package com.martianpay.sdk;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * ApiInterceptor is a stage of the request pipeline shared by every service call.
+ *
+ * Interceptors run in registration order around the built-in exchange stage, which applies
+ * authentication, serializes the request, executes it, maps HTTP and API errors to
+ * {@link MartianPayException} and decodes the response. Each interceptor may inspect or replace
+ * the request, call {@link Chain#proceed} zero or more times, and observe or replace the result.
+ *
+ * Blocking calls go through {@link #intercept} and asynchronous calls through {@link #interceptAsync};
+ * an interceptor implements both so that its behaviour is the same on either path.
+ */
+public interface ApiInterceptor {
+
+    /**
+     * Intercepts a blocking call
+     *
+     * @param chain Chain positioned at this interceptor
+     * @return Decoded response data (null for Void responses)
+     * @throws IOException if the call fails
+     */
+    Object intercept(Chain chain) throws IOException;
+
+    /**
+     * Intercepts an asynchronous call. Implementations must not block.
+     *
+     * @param chain Chain positioned at this interceptor
+     * @return Future completing with the decoded response data
+     */
+    CompletableFuture<Object> interceptAsync(Chain chain);
+
+    /**
+     * Chain gives an interceptor access to the request and the remaining pipeline stages
+     */
+    interface Chain {
+        /** Request as seen by this stage */
+        ApiRequest request();
+
+        /** Runs the remaining stages synchronously */
+        Object proceed(ApiRequest request) throws IOException;
+
+        /** Runs the remaining stages asynchronously */
+        CompletableFuture<Object> proceedAsync(ApiRequest request);
+    }
+}
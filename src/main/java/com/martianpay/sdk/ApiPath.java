@@ -0,0 +1,93 @@
+package com.martianpay.sdk;
+
+import okhttp3.HttpUrl;
+
+/**
+ * ApiPath is a PathTemplate bound to its arguments.
+ *
+ * The textual form is only built when {@link #toString()} is called; the request pipeline
+ * appends segments straight to the base URL instead. Literal paths from {@link #parse} are sent
+ * as written, already percent-encoded.
+ */
+public final class ApiPath {
+    private final PathTemplate template;
+    private final String[] args;
+    /** Encoded path of a literal path, without its leading '/' or query; null for templates */
+    private final String encodedPath;
+    /** Encoded query of a literal path, or null */
+    private final String encodedQuery;
+    private String path;
+
+    ApiPath(PathTemplate template, String[] args) {
+        this.template = template;
+        this.args = args;
+        this.encodedPath = null;
+        this.encodedQuery = null;
+    }
+
+    private ApiPath(String path) {
+        int queryStart = path.indexOf('?');
+        String pathPart = queryStart >= 0 ? path.substring(0, queryStart) : path;
+        this.template = PathTemplate.literal(pathPart);
+        this.args = new String[0];
+        this.encodedPath = pathPart.startsWith("/") ? pathPart.substring(1) : pathPart;
+        this.encodedQuery = queryStart >= 0 ? path.substring(queryStart + 1) : null;
+        this.path = path;
+    }
+
+    /**
+     * Wraps a literal path, such as {@code /v1/payment_intents/pi_123}, without parsing it as a
+     * template. It is sent as written, so segments must already be percent-encoded; a query
+     * after '?' is kept.
+     *
+     * @param path Path relative to the base URL
+     * @return Path with no arguments
+     */
+    public static ApiPath parse(String path) {
+        if (path == null) {
+            throw new IllegalArgumentException("path == null");
+        }
+        return new ApiPath(path);
+    }
+
+    public PathTemplate getTemplate() {
+        return template;
+    }
+
+    /**
+     * Appends this path's segments to a URL builder, percent-encoding the arguments
+     */
+    void appendTo(HttpUrl.Builder urlBuilder) {
+        if (encodedPath != null) {
+            urlBuilder.addEncodedPathSegments(encodedPath);
+            if (encodedQuery != null) {
+                urlBuilder.encodedQuery(encodedQuery);
+            }
+            return;
+        }
+        String[] segments = template.segments();
+        int arg = 0;
+        for (String segment : segments) {
+            if (segment != null) {
+                urlBuilder.addEncodedPathSegment(segment);
+            } else {
+                urlBuilder.addPathSegment(args[arg++]);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        String result = path;
+        if (result == null) {
+            StringBuilder sb = new StringBuilder(template.getPattern().length() + 32);
+            int arg = 0;
+            for (String segment : template.segments()) {
+                sb.append('/').append(segment != null ? segment : args[arg++]);
+            }
+            result = sb.length() == 0 ? "/" : sb.toString();
+            path = result;
+        }
+        return result;
+    }
+}
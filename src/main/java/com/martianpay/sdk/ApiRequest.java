@@ -0,0 +1,207 @@
+package com.martianpay.sdk;
+
+import java.lang.reflect.Type;
+import java.util.UUID;
+
+/**
+ * ApiRequest describes one logical MartianPay API call as it travels through the request pipeline.
+ *
+ * Instances are immutable; interceptors derive modified copies with {@link #newBuilder()}.
+ */
+public final class ApiRequest {
+    /** Header carrying the idempotency key of a mutating call */
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private final String method;
+    private final ApiPath path;
+    private final Object query;
+    private final Object body;
+    private final Type responseType;
+    private final String idempotencyKey;
+    private final String operation;
+
+    private ApiRequest(Builder builder) {
+        this.method = builder.method;
+        this.path = builder.path;
+        this.query = builder.query;
+        this.body = builder.body;
+        this.responseType = builder.responseType;
+        this.idempotencyKey = builder.idempotencyKey;
+        this.operation = builder.operation;
+    }
+
+    /**
+     * Returns a new random idempotency key
+     */
+    public static String newIdempotencyKey() {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * Creates a builder for a request
+     *
+     * @param method HTTP method (GET, POST, PUT or DELETE)
+     * @param path   API endpoint path, relative to the client base URL
+     * @return New builder
+     */
+    public static Builder builder(String method, ApiPath path) {
+        return new Builder(method, path);
+    }
+
+    /**
+     * Creates a builder for a request with a literal path, sent as written (see {@link ApiPath#parse})
+     *
+     * @param method HTTP method (GET, POST, PUT or DELETE)
+     * @param path   API endpoint path, relative to the client base URL, already percent-encoded
+     * @return New builder
+     */
+    public static Builder builder(String method, String path) {
+        return new Builder(method, ApiPath.parse(path));
+    }
+
+    /**
+     * Returns a builder initialised with this request's values
+     *
+     * @return Builder copy
+     */
+    public Builder newBuilder() {
+        return new Builder(this);
+    }
+
+    /** HTTP method, upper case */
+    public String getMethod() { return method; }
+
+    /** API endpoint path, relative to the client base URL */
+    public String getPath() { return path.toString(); }
+
+    /** API endpoint path with its template and arguments */
+    public ApiPath getApiPath() { return path; }
+
+    /** Endpoint template with its method, such as {@code GET /v1/payouts/%s}; labels metrics */
+    public String getEndpoint() { return path.getTemplate().endpoint(method); }
+
+    /**
+     * Logical operation name, such as {@code createRefund}: set on the request, else declared on
+     * the path template, else the endpoint name
+     */
+    public String getOperation() {
+        return operation != null ? operation : path.getTemplate().operationName(method);
+    }
+
+    /** Query parameters object or Map, encoded into the URL (may be null) */
+    public Object getQuery() { return query; }
+
+    /** Request body object, serialized as JSON (may be null) */
+    public Object getBody() { return body; }
+
+    /** Type the response data field is bound to; Void.class discards it */
+    public Type getResponseType() { return responseType; }
+
+    /** Key sent in the {@value #IDEMPOTENCY_KEY_HEADER} header, or null */
+    public String getIdempotencyKey() { return idempotencyKey; }
+
+    /**
+     * Returns true for methods that can be repeated without changing server state
+     */
+    public boolean isIdempotent() {
+        return "GET".equals(method) || "PUT".equals(method) || "DELETE".equals(method);
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + path;
+    }
+
+    /**
+     * Builder for ApiRequest
+     */
+    public static final class Builder {
+        private String method;
+        private ApiPath path;
+        private Object query;
+        private Object body;
+        private Type responseType = Void.class;
+        private String idempotencyKey;
+        private String operation;
+
+        private Builder(String method, ApiPath path) {
+            method(method);
+            path(path);
+        }
+
+        private Builder(ApiRequest request) {
+            this.method = request.method;
+            this.path = request.path;
+            this.query = request.query;
+            this.body = request.body;
+            this.responseType = request.responseType;
+            this.idempotencyKey = request.idempotencyKey;
+            this.operation = request.operation;
+        }
+
+        public Builder method(String method) {
+            if (method == null) {
+                throw new IllegalArgumentException("method == null");
+            }
+            String normalized = method.toUpperCase();
+            switch (normalized) {
+                case "GET":
+                case "POST":
+                case "PUT":
+                case "DELETE":
+                    this.method = normalized;
+                    return this;
+                default:
+                    throw new IllegalArgumentException("Unsupported HTTP method: " + method);
+            }
+        }
+
+        public Builder path(ApiPath path) {
+            if (path == null) {
+                throw new IllegalArgumentException("path == null");
+            }
+            this.path = path;
+            return this;
+        }
+
+        public Builder query(Object query) {
+            this.query = query;
+            return this;
+        }
+
+        public Builder body(Object body) {
+            this.body = body;
+            return this;
+        }
+
+        public Builder responseType(Type responseType) {
+            this.responseType = responseType == null ? Void.class : responseType;
+            return this;
+        }
+
+        /**
+         * Sets the idempotency key. The server applies requests sharing a key once and replays
+         * the first response, so the call can be retried safely. Null sends no key.
+         */
+        public Builder idempotencyKey(String idempotencyKey) {
+            if (idempotencyKey != null && idempotencyKey.isEmpty()) {
+                throw new IllegalArgumentException("idempotencyKey is empty");
+            }
+            this.idempotencyKey = idempotencyKey;
+            return this;
+        }
+
+        /**
+         * Names the logical operation reported in traces, overriding the name declared on the
+         * path template. Null restores the default.
+         */
+        public Builder operation(String operation) {
+            this.operation = operation;
+            return this;
+        }
+
+        public ApiRequest build() {
+            return new ApiRequest(this);
+        }
+    }
+}
@@ -4,11 +4,18 @@ import com.martianpay.developer.ApprovalGetRequest;
 import com.martianpay.developer.ApprovalInstance;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * ApprovalService provides methods for managing approvals
  */
 public class ApprovalService extends MartianPayClient {
+    private static final PathTemplate APPROVAL_ID_APPROVE = PathTemplate.of("/v1/approval/%s/approve")
+            .operation("POST", "approveApproval");
+    private static final PathTemplate APPROVAL_ID_REJECT = PathTemplate.of("/v1/approval/%s/reject")
+            .operation("POST", "rejectApproval");
+    private static final PathTemplate APPROVAL_DETAIL = PathTemplate.of("/v1/approval/detail")
+            .operation("GET", "getApprovalDetail");
 
     public ApprovalService(String apiKey) {
         super(apiKey);
@@ -18,6 +25,14 @@ public class ApprovalService extends MartianPayClient {
         super(apiKey, baseUrl);
     }
 
+    public ApprovalService(String apiKey, String baseUrl, TransportContext transport) {
+        super(apiKey, baseUrl, transport);
+    }
+
+    public ApprovalService(MartianPayClient client) {
+        super(client);
+    }
+
     /**
      * Gets approval details
      *
@@ -26,7 +41,18 @@ public class ApprovalService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public ApprovalInstance getApprovalDetail(ApprovalGetRequest params) throws IOException {
-        return sendRequestWithQuery("GET", "/v1/approval/detail", params, ApprovalInstance.class);
+        return sendRequestWithQuery("GET", APPROVAL_DETAIL.expand(), params, ApprovalInstance.class);
+    }
+
+    /**
+     * Gets approval details asynchronously
+     *
+     * @param params Approval get request parameters
+     * @return Future completing with the approval instance details
+     * @see #getApprovalDetail
+     */
+    public CompletableFuture<ApprovalInstance> getApprovalDetailAsync(ApprovalGetRequest params) {
+        return sendRequestWithQueryAsync("GET", APPROVAL_DETAIL.expand(), params, ApprovalInstance.class);
     }
 
     /**
@@ -37,8 +63,18 @@ public class ApprovalService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public ApprovalInstance approveApproval(String approvalID) throws IOException {
-        String path = String.format("/v1/approval/%s/approve", approvalID);
-        return sendRequest("POST", path, null, ApprovalInstance.class);
+        return sendRequest("POST", APPROVAL_ID_APPROVE.expand(approvalID), null, ApprovalInstance.class);
+    }
+
+    /**
+     * Approves approval asynchronously
+     *
+     * @param approvalID Approval ID to approve
+     * @return Future completing with the updated approval instance
+     * @see #approveApproval
+     */
+    public CompletableFuture<ApprovalInstance> approveApprovalAsync(String approvalID) {
+        return sendRequestAsync("POST", APPROVAL_ID_APPROVE.expand(approvalID), null, ApprovalInstance.class);
     }
 
     /**
@@ -49,7 +85,17 @@ public class ApprovalService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public ApprovalInstance rejectApproval(String approvalID) throws IOException {
-        String path = String.format("/v1/approval/%s/reject", approvalID);
-        return sendRequest("POST", path, null, ApprovalInstance.class);
+        return sendRequest("POST", APPROVAL_ID_REJECT.expand(approvalID), null, ApprovalInstance.class);
+    }
+
+    /**
+     * Rejects approval asynchronously
+     *
+     * @param approvalID Approval ID to reject
+     * @return Future completing with the updated approval instance
+     * @see #rejectApproval
+     */
+    public CompletableFuture<ApprovalInstance> rejectApprovalAsync(String approvalID) {
+        return sendRequestAsync("POST", APPROVAL_ID_REJECT.expand(approvalID), null, ApprovalInstance.class);
     }
 }
@@ -0,0 +1,415 @@
+package com.martianpay.sdk;
+
+import com.martianpay.developer.Asset;
+import com.martianpay.developer.AssetListResponse;
+import com.martianpay.developer.NetworkFee;
+import com.martianpay.developer.NetworkFeesResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AssetCatalog caches the asset list and network fees, which change rarely, and indexes them
+ * for constant-time lookups by asset id, coin and network.
+ *
+ * The catalog loads {@code getAllAssets}, {@code listAssets} and {@code listAssetFees} together
+ * on first use. For {@code ttl} after a load, lookups are answered from memory. During the
+ * following {@code staleWindow}, lookups still answer from memory and start one background
+ * refresh; a failed refresh is logged and retried by a later lookup. Only the first lookup, and
+ * lookups after the stale window has passed, wait for the network, and concurrent waiters share
+ * one load.
+ *
+ * <pre>{@code
+ * AssetCatalog catalog = AssetCatalog.builder(assetsService)
+ *         .ttl(10, TimeUnit.MINUTES)
+ *         .build();
+ * Asset usdc = catalog.getAsset("USDC", "Ethereum");
+ * NetworkFee fee = catalog.getNetworkFee(usdc.getId());
+ * }</pre>
+ *
+ * Returned lists are unmodifiable, and returned assets and fees are shared by every caller, so
+ * they must not be modified. Instances are thread-safe.
+ */
+public final class AssetCatalog {
+    private static final Logger logger = LoggerFactory.getLogger(AssetCatalog.class);
+
+    private final AssetsService service;
+    private final long ttlNanos;
+    private final long staleWindowNanos;
+
+    private volatile Snapshot snapshot;
+    private final AtomicReference<CompletableFuture<Snapshot>> loading = new AtomicReference<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+
+    private AssetCatalog(Builder builder) {
+        this.service = builder.service;
+        this.ttlNanos = builder.ttlNanos;
+        this.staleWindowNanos = builder.staleWindowNanos;
+    }
+
+    /**
+     * Creates a builder for a catalog loading through the given service
+     *
+     * @param service Assets service the catalog calls; its transport settings apply to loads
+     */
+    public static Builder builder(AssetsService service) {
+        if (service == null) {
+            throw new IllegalArgumentException("service == null");
+        }
+        return new Builder(service);
+    }
+
+    /**
+     * Returns every asset, as from {@link AssetsService#getAllAssets()}
+     *
+     * @throws IOException if the catalog must be loaded and the load fails
+     */
+    public List<Asset> getAllAssets() throws IOException {
+        return snapshot().allAssets;
+    }
+
+    /**
+     * Returns the assets enabled for the merchant, as from {@link AssetsService#listAssets()}
+     *
+     * @throws IOException if the catalog must be loaded and the load fails
+     */
+    public List<Asset> getEnabledAssets() throws IOException {
+        return snapshot().enabledAssets;
+    }
+
+    /**
+     * Returns an asset by id, such as {@code USDC_ETH}
+     *
+     * @return Asset, or null if unknown
+     * @throws IOException if the catalog must be loaded and the load fails
+     */
+    public Asset getAsset(String id) throws IOException {
+        return snapshot().byId.get(id);
+    }
+
+    /**
+     * Returns the asset of a coin on a network, such as USDC on Ethereum
+     *
+     * @return Asset, or null if unknown
+     * @throws IOException if the catalog must be loaded and the load fails
+     */
+    public Asset getAsset(String coin, String network) throws IOException {
+        return snapshot().byCoinAndNetwork.get(coinAndNetwork(coin, network));
+    }
+
+    /**
+     * Returns the assets of a coin on every network
+     *
+     * @return Assets, empty if none
+     * @throws IOException if the catalog must be loaded and the load fails
+     */
+    public List<Asset> getAssetsByCoin(String coin) throws IOException {
+        return orEmpty(snapshot().byCoin.get(coin));
+    }
+
+    /**
+     * Returns the assets of a network
+     *
+     * @return Assets, empty if none
+     * @throws IOException if the catalog must be loaded and the load fails
+     */
+    public List<Asset> getAssetsByNetwork(String network) throws IOException {
+        return orEmpty(snapshot().byNetwork.get(network));
+    }
+
+    /**
+     * Returns the payout fee and minimum of an asset. Fees are keyed by asset id, or by network
+     * name when the API reports them per network.
+     *
+     * @param assetId Asset id
+     * @return Network fee, or null if unknown
+     * @throws IOException if the catalog must be loaded and the load fails
+     */
+    public NetworkFee getNetworkFee(String assetId) throws IOException {
+        Snapshot current = snapshot();
+        NetworkFee fee = current.fees.get(assetId);
+        if (fee == null) {
+            Asset asset = current.byId.get(assetId);
+            if (asset != null && asset.getNetwork() != null) {
+                fee = current.fees.get(asset.getNetwork());
+            }
+        }
+        return fee;
+    }
+
+    /**
+     * Returns the network fees as from {@link AssetsService#listAssetFees()}
+     *
+     * @throws IOException if the catalog must be loaded and the load fails
+     */
+    public Map<String, NetworkFee> getNetworkFees() throws IOException {
+        return snapshot().fees;
+    }
+
+    /**
+     * Reloads the catalog now, waiting for the result
+     *
+     * @throws IOException if the load fails; the previous data is kept
+     */
+    public void refresh() throws IOException {
+        await(load());
+    }
+
+    /**
+     * Reloads the catalog in the background
+     *
+     * @return Future completing when the new data is in place
+     */
+    public CompletableFuture<Void> refreshAsync() {
+        return load().thenApply(loaded -> null);
+    }
+
+    /**
+     * Drops the cached data; the next lookup waits for a new load
+     */
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    /**
+     * Returns the age of the cached data in nanoseconds, or -1 if nothing is cached
+     */
+    public long getAgeNanos() {
+        Snapshot current = snapshot;
+        return current != null ? System.nanoTime() - current.loadedAtNanos : -1;
+    }
+
+    /**
+     * Returns a snapshot of the cache counters
+     */
+    public Stats getStats() {
+        return new Stats(hits.sum(), staleHits.sum(), loads.sum(), loadFailures.sum());
+    }
+
+    @Override
+    public String toString() {
+        return "AssetCatalog{ttl=" + TimeUnit.NANOSECONDS.toSeconds(ttlNanos) + "s, staleWindow="
+                + TimeUnit.NANOSECONDS.toSeconds(staleWindowNanos) + "s}";
+    }
+
+    private Snapshot snapshot() throws IOException {
+        Snapshot current = snapshot;
+        if (current != null) {
+            long age = System.nanoTime() - current.loadedAtNanos;
+            if (age < ttlNanos) {
+                hits.increment();
+                return current;
+            }
+            if (age < ttlNanos + staleWindowNanos) {
+                staleHits.increment();
+                load();
+                return current;
+            }
+        }
+        return await(load());
+    }
+
+    /**
+     * Starts a load unless one is in flight, and returns the load in flight
+     */
+    private CompletableFuture<Snapshot> load() {
+        CompletableFuture<Snapshot> own = new CompletableFuture<>();
+        for (;;) {
+            CompletableFuture<Snapshot> inFlight = loading.get();
+            if (inFlight != null) {
+                return inFlight;
+            }
+            if (loading.compareAndSet(null, own)) {
+                break;
+            }
+        }
+        loads.increment();
+        CompletableFuture<List<Asset>> all = service.getAllAssetsAsync();
+        CompletableFuture<AssetListResponse> enabled = service.listAssetsAsync();
+        CompletableFuture<NetworkFeesResponse> fees = service.listAssetFeesAsync();
+        CompletableFuture.allOf(all, enabled, fees).whenComplete((ignored, error) -> {
+            if (error != null) {
+                loadFailures.increment();
+                logger.warn("Asset catalog load failed: {}", RequestPipeline.unwrap(error).toString());
+                loading.set(null);
+                own.completeExceptionally(RequestPipeline.unwrap(error));
+                return;
+            }
+            Snapshot loaded = new Snapshot(all.join(), enabled.join(), fees.join());
+            snapshot = loaded;
+            loading.set(null);
+            own.complete(loaded);
+        });
+        return own;
+    }
+
+    private static Snapshot await(CompletableFuture<Snapshot> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading the asset catalog");
+        } catch (ExecutionException e) {
+            Throwable cause = RequestPipeline.unwrap(e.getCause());
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static String coinAndNetwork(String coin, String network) {
+        return coin + '\n' + network;
+    }
+
+    private static List<Asset> orEmpty(List<Asset> assets) {
+        return assets != null ? assets : Collections.<Asset>emptyList();
+    }
+
+    /**
+     * Immutable catalog contents with their indexes, replaced as a whole on each load
+     */
+    private static final class Snapshot {
+        final long loadedAtNanos = System.nanoTime();
+        final List<Asset> allAssets;
+        final List<Asset> enabledAssets;
+        final Map<String, NetworkFee> fees;
+        final Map<String, Asset> byId = new HashMap<>();
+        final Map<String, Asset> byCoinAndNetwork = new HashMap<>();
+        final Map<String, List<Asset>> byCoin = new HashMap<>();
+        final Map<String, List<Asset>> byNetwork = new HashMap<>();
+
+        Snapshot(List<Asset> all, AssetListResponse enabled, NetworkFeesResponse fees) {
+            this.allAssets = unmodifiable(all);
+            this.enabledAssets = unmodifiable(enabled != null ? enabled.getAssets() : null);
+            this.fees = fees != null && fees.getNetworkFees() != null
+                    ? Collections.unmodifiableMap(new HashMap<>(fees.getNetworkFees()))
+                    : Collections.<String, NetworkFee>emptyMap();
+            index(allAssets);
+            // Enabled assets are normally a subset of all assets; index any that are not
+            index(enabledAssets);
+            for (Map.Entry<String, List<Asset>> entry : byCoin.entrySet()) {
+                entry.setValue(Collections.unmodifiableList(entry.getValue()));
+            }
+            for (Map.Entry<String, List<Asset>> entry : byNetwork.entrySet()) {
+                entry.setValue(Collections.unmodifiableList(entry.getValue()));
+            }
+        }
+
+        private void index(List<Asset> assets) {
+            for (Asset asset : assets) {
+                if (asset == null || asset.getId() == null || byId.containsKey(asset.getId())) {
+                    continue;
+                }
+                byId.put(asset.getId(), asset);
+                byCoinAndNetwork.putIfAbsent(coinAndNetwork(asset.getCoin(), asset.getNetwork()), asset);
+                if (asset.getCoin() != null) {
+                    byCoin.computeIfAbsent(asset.getCoin(), k -> new ArrayList<>()).add(asset);
+                }
+                if (asset.getNetwork() != null) {
+                    byNetwork.computeIfAbsent(asset.getNetwork(), k -> new ArrayList<>()).add(asset);
+                }
+            }
+        }
+
+        private static List<Asset> unmodifiable(List<Asset> assets) {
+            return assets != null ? Collections.unmodifiableList(new ArrayList<>(assets))
+                    : Collections.<Asset>emptyList();
+        }
+    }
+
+    /**
+     * Stats is a point-in-time snapshot of the cache counters
+     */
+    public static final class Stats {
+        private final long hits;
+        private final long staleHits;
+        private final long loads;
+        private final long loadFailures;
+
+        Stats(long hits, long staleHits, long loads, long loadFailures) {
+            this.hits = hits;
+            this.staleHits = staleHits;
+            this.loads = loads;
+            this.loadFailures = loadFailures;
+        }
+
+        /** Lookups answered from fresh data */
+        public long getHits() { return hits; }
+
+        /** Lookups answered from stale data while a refresh was started */
+        public long getStaleHits() { return staleHits; }
+
+        /** Loads started, each fetching assets, enabled assets and fees */
+        public long getLoads() { return loads; }
+
+        /** Loads that failed */
+        public long getLoadFailures() { return loadFailures; }
+
+        @Override
+        public String toString() {
+            return "AssetCatalog.Stats{hits=" + hits +
+                    ", staleHits=" + staleHits +
+                    ", loads=" + loads +
+                    ", loadFailures=" + loadFailures + "}";
+        }
+    }
+
+    /**
+     * Builder for AssetCatalog
+     */
+    public static final class Builder {
+        private final AssetsService service;
+        private long ttlNanos = TimeUnit.MINUTES.toNanos(10);
+        private long staleWindowNanos = TimeUnit.HOURS.toNanos(1);
+
+        private Builder(AssetsService service) {
+            this.service = service;
+        }
+
+        /**
+         * Sets how long loaded data is served without refreshing; defaults to 10 minutes
+         */
+        public Builder ttl(long ttl, TimeUnit unit) {
+            if (ttl <= 0) {
+                throw new IllegalArgumentException("ttl <= 0");
+            }
+            this.ttlNanos = unit.toNanos(ttl);
+            return this;
+        }
+
+        /**
+         * Sets how long expired data is still served while a background refresh runs; defaults
+         * to 1 hour. After it, lookups wait for a new load; 0 always waits.
+         */
+        public Builder staleWindow(long staleWindow, TimeUnit unit) {
+            if (staleWindow < 0) {
+                throw new IllegalArgumentException("staleWindow < 0");
+            }
+            this.staleWindowNanos = unit.toNanos(staleWindow);
+            return this;
+        }
+
+        public AssetCatalog build() {
+            return new AssetCatalog(this);
+        }
+    }
+}
@@ -6,11 +6,18 @@ import com.martianpay.developer.NetworkFeesResponse;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * AssetsService provides methods for querying available assets
  */
 public class AssetsService extends MartianPayClient {
+    private static final PathTemplate ASSETS = PathTemplate.of("/v1/assets")
+            .operation("GET", "listAssets");
+    private static final PathTemplate ASSETS_ALL = PathTemplate.of("/v1/assets/all")
+            .operation("GET", "getAllAssets");
+    private static final PathTemplate ASSETS_FEES = PathTemplate.of("/v1/assets/fees")
+            .operation("GET", "listAssetFees");
 
     public AssetsService(String apiKey) {
         super(apiKey);
@@ -20,6 +27,14 @@ public class AssetsService extends MartianPayClient {
         super(apiKey, baseUrl);
     }
 
+    public AssetsService(String apiKey, String baseUrl, TransportContext transport) {
+        super(apiKey, baseUrl, transport);
+    }
+
+    public AssetsService(MartianPayClient client) {
+        super(client);
+    }
+
     /**
      * Retrieves all available assets
      *
@@ -27,7 +42,17 @@ public class AssetsService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public AssetListResponse listAssets() throws IOException {
-        return sendRequest("GET", "/v1/assets", null, AssetListResponse.class);
+        return sendRequest("GET", ASSETS.expand(), null, AssetListResponse.class);
+    }
+
+    /**
+     * Retrieves all available assets asynchronously
+     *
+     * @return Future completing with the asset list response
+     * @see #listAssets
+     */
+    public CompletableFuture<AssetListResponse> listAssetsAsync() {
+        return sendRequestAsync("GET", ASSETS.expand(), null, AssetListResponse.class);
     }
 
     /**
@@ -39,7 +64,19 @@ public class AssetsService extends MartianPayClient {
     public List<Asset> getAllAssets() throws IOException {
         com.google.gson.reflect.TypeToken<List<Asset>> typeToken =
             new com.google.gson.reflect.TypeToken<List<Asset>>() {};
-        return sendRequestWithTypeToken("GET", "/v1/assets/all", null, typeToken);
+        return sendRequestWithTypeToken("GET", ASSETS_ALL.expand(), null, typeToken);
+    }
+
+    /**
+     * Gets all available assets asynchronously
+     *
+     * @return Future completing with the list of all assets
+     * @see #getAllAssets
+     */
+    public CompletableFuture<List<Asset>> getAllAssetsAsync() {
+        com.google.gson.reflect.TypeToken<List<Asset>> typeToken =
+            new com.google.gson.reflect.TypeToken<List<Asset>>() {};
+        return sendRequestWithTypeTokenAsync("GET", ASSETS_ALL.expand(), null, typeToken);
     }
 
     /**
@@ -49,6 +86,16 @@ public class AssetsService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public NetworkFeesResponse listAssetFees() throws IOException {
-        return sendRequest("GET", "/v1/assets/fees", null, NetworkFeesResponse.class);
+        return sendRequest("GET", ASSETS_FEES.expand(), null, NetworkFeesResponse.class);
+    }
+
+    /**
+     * Lists asset network fees asynchronously
+     *
+     * @return Future completing with the network fees response
+     * @see #listAssetFees
+     */
+    public CompletableFuture<NetworkFeesResponse> listAssetFeesAsync() {
+        return sendRequestAsync("GET", ASSETS_FEES.expand(), null, NetworkFeesResponse.class);
     }
 }
@@ -0,0 +1,192 @@
+package com.martianpay.sdk;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bulkhead bounds the calls in flight per API resource, so that one slow endpoint cannot take
+ * every connection and dispatcher slot of a shared TransportContext.
+ *
+ * Calls are grouped by the top-level resource of their path ({@link PathTemplate#getResource()}),
+ * which matches the service boundaries: {@code payouts} for PayoutService, {@code payrolls} for
+ * PayrollService, {@code payment_intents} for PaymentIntentService, and so on. Each resource gets
+ * {@link Builder#maxConcurrentCalls(int)} slots unless given its own limit.
+ *
+ * A call that finds its compartment full fails at once with {@link BulkheadFullException}
+ * instead of queueing: blocked callers are what a bulkhead exists to prevent. Blocking and
+ * asynchronous calls hold a slot from the moment they are sent until their response is decoded.
+ * Retries take a slot per attempt, and waits for a rate limit token or between retries hold none.
+ */
+public final class Bulkhead {
+    /** Default maximum calls in flight per resource */
+    public static final int DEFAULT_MAX_CONCURRENT_CALLS = 32;
+
+    private final int defaultLimit;
+    private final Map<String, Integer> limits;
+    private final ConcurrentMap<String, Compartment> compartments = new ConcurrentHashMap<>();
+
+    private Bulkhead(Builder builder) {
+        this.defaultLimit = builder.defaultLimit;
+        this.limits = new HashMap<>(builder.limits);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the maximum calls in flight allowed for a resource
+     */
+    public int getMaxConcurrentCalls(String resource) {
+        Integer limit = limits.get(resource);
+        return limit != null ? limit : defaultLimit;
+    }
+
+    Compartment compartment(String resource) {
+        Compartment compartment = compartments.get(resource);
+        if (compartment == null) {
+            compartment = compartments.computeIfAbsent(resource,
+                    r -> new Compartment(r, getMaxConcurrentCalls(r)));
+        }
+        return compartment;
+    }
+
+    /**
+     * Returns a snapshot of the counters of a resource
+     *
+     * @param resource Resource name, such as {@code payouts}
+     * @return Compartment statistics
+     */
+    public Stats getStats(String resource) {
+        Compartment compartment = compartment(resource);
+        return new Stats(resource, compartment.limit, compartment.inFlight.get(),
+                compartment.permitted.sum(), compartment.rejected.sum());
+    }
+
+    @Override
+    public String toString() {
+        return "Bulkhead{maxConcurrentCalls=" + defaultLimit + ", limits=" + limits + "}";
+    }
+
+    /**
+     * Slots of one resource; taking one is a compare-and-set on the in-flight count
+     */
+    static final class Compartment {
+        final String resource;
+        final int limit;
+        final AtomicInteger inFlight = new AtomicInteger();
+        final LongAdder permitted = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+
+        Compartment(String resource, int limit) {
+            this.resource = resource;
+            this.limit = limit;
+        }
+
+        void acquire() throws BulkheadFullException {
+            for (;;) {
+                int current = inFlight.get();
+                if (current >= limit) {
+                    rejected.increment();
+                    throw new BulkheadFullException(resource, limit);
+                }
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    permitted.increment();
+                    return;
+                }
+            }
+        }
+
+        void release() {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Stats is a point-in-time snapshot of the bulkhead counters of one resource
+     */
+    public static final class Stats {
+        private final String resource;
+        private final int maxConcurrentCalls;
+        private final int inFlight;
+        private final long permitted;
+        private final long rejected;
+
+        Stats(String resource, int maxConcurrentCalls, int inFlight, long permitted, long rejected) {
+            this.resource = resource;
+            this.maxConcurrentCalls = maxConcurrentCalls;
+            this.inFlight = inFlight;
+            this.permitted = permitted;
+            this.rejected = rejected;
+        }
+
+        public String getResource() { return resource; }
+
+        public int getMaxConcurrentCalls() { return maxConcurrentCalls; }
+
+        /** Number of calls currently holding a slot */
+        public int getInFlight() { return inFlight; }
+
+        /** Number of calls that obtained a slot */
+        public long getPermitted() { return permitted; }
+
+        /** Number of calls rejected with BulkheadFullException */
+        public long getRejected() { return rejected; }
+
+        @Override
+        public String toString() {
+            return "Bulkhead.Stats{resource=" + resource +
+                    ", inFlight=" + inFlight + "/" + maxConcurrentCalls +
+                    ", permitted=" + permitted +
+                    ", rejected=" + rejected + "}";
+        }
+    }
+
+    /**
+     * Builder for Bulkhead
+     */
+    public static final class Builder {
+        private int defaultLimit = DEFAULT_MAX_CONCURRENT_CALLS;
+        private final Map<String, Integer> limits = new HashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the maximum calls in flight for every resource without its own limit
+         */
+        public Builder maxConcurrentCalls(int maxConcurrentCalls) {
+            this.defaultLimit = check(maxConcurrentCalls);
+            return this;
+        }
+
+        /**
+         * Sets the maximum calls in flight for one resource
+         *
+         * @param resource           Resource name, such as {@code payouts} or {@code payrolls}
+         * @param maxConcurrentCalls Maximum calls in flight
+         */
+        public Builder maxConcurrentCalls(String resource, int maxConcurrentCalls) {
+            if (resource == null) {
+                throw new IllegalArgumentException("resource == null");
+            }
+            limits.put(resource, check(maxConcurrentCalls));
+            return this;
+        }
+
+        public Bulkhead build() {
+            return new Bulkhead(this);
+        }
+
+        private static int check(int maxConcurrentCalls) {
+            if (maxConcurrentCalls < 1) {
+                throw new IllegalArgumentException("maxConcurrentCalls < 1: " + maxConcurrentCalls);
+            }
+            return maxConcurrentCalls;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.martianpay.sdk;
+
+/**
+ * BulkheadFullException reports a call rejected because its resource already has the maximum
+ * number of calls in flight allowed by the {@link Bulkhead}
+ */
+public class BulkheadFullException extends CallRejectedException {
+    private static final long serialVersionUID = 1L;
+
+    /** Error code of bulkhead rejections */
+    public static final String ERROR_CODE = "bulkhead_full";
+
+    private final String resource;
+
+    public BulkheadFullException(String resource, int maxConcurrentCalls) {
+        super("Bulkhead full for " + resource + ": " + maxConcurrentCalls + " calls in flight", 503, ERROR_CODE, -1);
+        this.resource = resource;
+    }
+
+    /**
+     * Returns the resource whose compartment was full, such as {@code payouts}
+     */
+    public String getResource() {
+        return resource;
+    }
+}
@@ -0,0 +1,48 @@
+package com.martianpay.sdk;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * BulkheadInterceptor holds a slot of its resource's {@link Bulkhead} compartment for the
+ * duration of each attempt
+ */
+final class BulkheadInterceptor implements ApiInterceptor {
+    private final Bulkhead bulkhead;
+
+    BulkheadInterceptor(Bulkhead bulkhead) {
+        this.bulkhead = bulkhead;
+    }
+
+    @Override
+    public Object intercept(Chain chain) throws IOException {
+        ApiRequest request = chain.request();
+        Bulkhead.Compartment compartment = bulkhead.compartment(request.getApiPath().getTemplate().getResource());
+        compartment.acquire();
+        try {
+            return chain.proceed(request);
+        } finally {
+            compartment.release();
+        }
+    }
+
+    @Override
+    public CompletableFuture<Object> interceptAsync(Chain chain) {
+        ApiRequest request = chain.request();
+        Bulkhead.Compartment compartment = bulkhead.compartment(request.getApiPath().getTemplate().getResource());
+        try {
+            compartment.acquire();
+        } catch (BulkheadFullException e) {
+            return RequestPipeline.failedFuture(e);
+        }
+        CompletableFuture<Object> inFlight;
+        try {
+            inFlight = chain.proceedAsync(request);
+        } catch (RuntimeException e) {
+            compartment.release();
+            throw e;
+        }
+        inFlight.whenComplete((value, error) -> compartment.release());
+        return inFlight;
+    }
+}
@@ -0,0 +1,16 @@
+package com.martianpay.sdk;
+
+/**
+ * CallRejectedException reports a call refused by a client-side protection (rate limiter,
+ * bulkhead or circuit breaker) before anything was sent to the server.
+ *
+ * Rejections are never retried by the {@link RetryPolicy}: the protection that refused the call
+ * has already decided the client should back off.
+ */
+public class CallRejectedException extends MartianPayException {
+    private static final long serialVersionUID = 1L;
+
+    public CallRejectedException(String message, int statusCode, String errorCode, long retryAfterMillis) {
+        super(message, statusCode, errorCode, null, retryAfterMillis);
+    }
+}
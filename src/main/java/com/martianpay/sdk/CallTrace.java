@@ -0,0 +1,143 @@
+package com.martianpay.sdk;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CallTrace holds the timings of one HTTP attempt, split into phases.
+ *
+ * Phases that did not happen, such as DNS, connect and TLS on a pooled connection, report -1.
+ * Time to first byte runs from the end of the request write to the start of the response
+ * headers, so it covers network round trip and server processing. While tracing is enabled the
+ * response body is read in full before decoding, so that {@link Phase#BODY_READ} and
+ * {@link Phase#JSON_DECODE} are measured separately.
+ */
+public final class CallTrace {
+    private static final Logger logger = LoggerFactory.getLogger(CallTrace.class);
+
+    /**
+     * Phase of an HTTP attempt
+     */
+    public enum Phase {
+        DNS,
+        CONNECT,
+        TLS,
+        REQUEST_WRITE,
+        TIME_TO_FIRST_BYTE,
+        BODY_READ,
+        JSON_DECODE
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final CallTraceListener listener;
+    private final String operation;
+    private final String endpoint;
+    private final long startNanos;
+    private final long[] starts = new long[PHASES.length];
+    private final long[] durations = new long[PHASES.length];
+    private boolean connectionReused = true;
+    private long totalNanos = -1;
+    private Throwable error;
+
+    CallTrace(CallTraceListener listener, ApiRequest request) {
+        this.listener = listener;
+        this.operation = request.getOperation();
+        this.endpoint = request.getEndpoint();
+        this.startNanos = System.nanoTime();
+        Arrays.fill(durations, -1);
+    }
+
+    /** Logical operation, such as {@code createRefund} */
+    public String getOperation() { return operation; }
+
+    /** Endpoint template, such as {@code POST /v1/refunds} */
+    public String getEndpoint() { return endpoint; }
+
+    /**
+     * Returns the time spent in a phase, in nanoseconds, or -1 if the phase did not happen
+     */
+    public long getNanos(Phase phase) {
+        return durations[phase.ordinal()];
+    }
+
+    /** Time from sending the attempt to the end of decoding or the failure, in nanoseconds */
+    public long getTotalNanos() { return totalNanos; }
+
+    /** True if the attempt used a pooled connection instead of opening one */
+    public boolean isConnectionReused() { return connectionReused; }
+
+    /** Failure of the attempt, or null if it succeeded */
+    public Throwable getError() { return error; }
+
+    void start(Phase phase) {
+        starts[phase.ordinal()] = System.nanoTime();
+        if (phase == Phase.CONNECT) {
+            connectionReused = false;
+        }
+    }
+
+    void end(Phase phase) {
+        int index = phase.ordinal();
+        if (starts[index] != 0) {
+            durations[index] = System.nanoTime() - starts[index];
+        }
+    }
+
+    /** Records a phase measured by the caller */
+    void record(Phase phase, long nanos) {
+        durations[phase.ordinal()] = nanos;
+    }
+
+    /**
+     * Ends the request write and starts time to first byte; called after the headers, and again
+     * after the body if there is one
+     */
+    void requestWritten() {
+        end(Phase.REQUEST_WRITE);
+        start(Phase.TIME_TO_FIRST_BYTE);
+    }
+
+    /**
+     * Ends the attempt and reports it; later calls are ignored. A failing listener is logged and
+     * never affects the call.
+     */
+    void finish(Throwable error) {
+        if (totalNanos >= 0) {
+            return;
+        }
+        totalNanos = System.nanoTime() - startNanos;
+        this.error = error;
+        long tls = durations[Phase.TLS.ordinal()];
+        long connect = durations[Phase.CONNECT.ordinal()];
+        if (tls > 0 && connect > 0) {
+            // OkHttp's connect span includes the TLS handshake; report TCP connect alone
+            durations[Phase.CONNECT.ordinal()] = Math.max(0, connect - tls);
+        }
+        try {
+            listener.onCallEnd(this);
+        } catch (RuntimeException e) {
+            logger.warn("CallTraceListener failed for {}", endpoint, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("CallTrace{").append(operation).append(", ").append(endpoint);
+        for (Phase phase : PHASES) {
+            long nanos = durations[phase.ordinal()];
+            if (nanos >= 0) {
+                sb.append(", ").append(phase.name().toLowerCase()).append('=')
+                        .append(TimeUnit.NANOSECONDS.toMicros(nanos)).append("us");
+            }
+        }
+        sb.append(", total=").append(TimeUnit.NANOSECONDS.toMicros(totalNanos)).append("us");
+        if (error != null) {
+            sb.append(", error=").append(error.getClass().getSimpleName());
+        }
+        return sb.append('}').toString();
+    }
+}
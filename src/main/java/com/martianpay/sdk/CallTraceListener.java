@@ -0,0 +1,23 @@
+package com.martianpay.sdk;
+
+/**
+ * CallTraceListener receives the phase timings of every HTTP attempt made through a TransportContext.
+ *
+ * Each attempt produces one {@link CallTrace}, named after the logical operation (such as
+ * {@code createRefund} or {@code getPayroll}), with the time spent in DNS lookup, connect, TLS,
+ * request write, time to first byte, body read and JSON decode. Use it to tell whether a latency
+ * spike came from the network, the server or deserialization.
+ *
+ * The listener is called once per attempt, after the response is decoded or the attempt failed,
+ * on the thread that ran it. It must be thread-safe and return quickly. A RuntimeException it
+ * throws is logged and ignored, so a failing listener never fails the call.
+ */
+public interface CallTraceListener {
+
+    /**
+     * Called when an attempt ends
+     *
+     * @param trace Timings of the attempt
+     */
+    void onCallEnd(CallTrace trace);
+}
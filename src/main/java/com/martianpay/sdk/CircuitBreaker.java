@@ -0,0 +1,396 @@
+package com.martianpay.sdk;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * CircuitBreaker fails calls fast while an API resource is unhealthy, and probes it to recover.
+ *
+ * Each resource ({@link PathTemplate#getResource()}, such as {@code payouts}) has its own circuit.
+ * A closed circuit records the outcome of its last {@code windowSize} calls. Once at least
+ * {@code minimumCalls} are recorded, it opens when the share of failed calls reaches
+ * {@code failureRateThreshold} or the share of calls slower than {@code slowCallDuration}
+ * reaches {@code slowCallRateThreshold}. Failures are network errors, HTTP 408 and HTTP 5xx;
+ * other API errors show the endpoint is answering and count as successes.
+ *
+ * An open circuit rejects calls with {@link CircuitOpenException} for {@code openDuration}, then
+ * turns half-open and lets {@code halfOpenProbes} calls through. If they all succeed in time the
+ * circuit closes with an empty window; a failed or slow probe opens it again.
+ *
+ * The check on a closed circuit is a volatile read; recording an outcome takes a short lock on
+ * the resource's circuit. The breaker runs inside the retry stage, so each attempt is recorded
+ * and retries stop as soon as the circuit opens.
+ */
+public final class CircuitBreaker {
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    /**
+     * Circuit state
+     */
+    public enum State {
+        /** Calls flow and outcomes are recorded */
+        CLOSED,
+        /** Calls are rejected until the open duration elapses */
+        OPEN,
+        /** A limited number of probe calls decide whether to close or reopen */
+        HALF_OPEN
+    }
+
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final long openNanos;
+    private final int halfOpenProbes;
+    private final ConcurrentMap<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+    private CircuitBreaker(Builder builder) {
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.slowCallRateThreshold = builder.slowCallRateThreshold;
+        this.slowCallNanos = builder.slowCallNanos;
+        this.windowSize = builder.windowSize;
+        this.minimumCalls = Math.min(builder.minimumCalls, builder.windowSize);
+        this.openNanos = builder.openNanos;
+        this.halfOpenProbes = builder.halfOpenProbes;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    Circuit circuit(String resource) {
+        Circuit circuit = circuits.get(resource);
+        if (circuit == null) {
+            circuit = circuits.computeIfAbsent(resource, Circuit::new);
+        }
+        return circuit;
+    }
+
+    /**
+     * Returns the state of a resource's circuit
+     *
+     * @param resource Resource name, such as {@code payouts}
+     */
+    public State getState(String resource) {
+        Circuit circuit = circuits.get(resource);
+        return circuit != null ? circuit.state : State.CLOSED;
+    }
+
+    /**
+     * Returns a snapshot of a resource's circuit
+     *
+     * @param resource Resource name, such as {@code payouts}
+     */
+    public Stats getStats(String resource) {
+        return circuit(resource).stats();
+    }
+
+    /**
+     * Returns true if an error shows the resource is unhealthy
+     */
+    static boolean isFailure(Throwable error) {
+        if (error instanceof MartianPayException) {
+            MartianPayException e = (MartianPayException) error;
+            return e.isHttpError() && (e.getStatusCode() >= 500 || e.getStatusCode() == 408);
+        }
+        return error instanceof IOException;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CircuitBreaker{failureRate=%.2f, slowCallRate=%.2f, slowCall=%dms, window=%d, "
+                        + "minimumCalls=%d, open=%dms, halfOpenProbes=%d}",
+                failureRateThreshold, slowCallRateThreshold, TimeUnit.NANOSECONDS.toMillis(slowCallNanos),
+                windowSize, minimumCalls, TimeUnit.NANOSECONDS.toMillis(openNanos), halfOpenProbes);
+    }
+
+    /**
+     * Circuit of one resource. Outcomes are kept in a ring of the last windowSize calls, with
+     * running totals so that checking the rates is constant time.
+     */
+    final class Circuit {
+        /** Permit for a call admitted while closed */
+        static final int CALL = 0;
+        /** Permit for a half-open probe */
+        static final int PROBE = 1;
+
+        private static final byte FAILED = 1;
+        private static final byte SLOW = 2;
+
+        final String resource;
+        volatile State state = State.CLOSED;
+        private final byte[] outcomes = new byte[windowSize];
+        private int next;
+        private int recorded;
+        private int failures;
+        private int slowCalls;
+        private long openUntil;
+        private int probesInFlight;
+        private int probeSuccesses;
+        private final LongAdder rejected = new LongAdder();
+
+        Circuit(String resource) {
+            this.resource = resource;
+        }
+
+        /**
+         * Admits a call
+         *
+         * @return {@link #CALL} or {@link #PROBE}
+         * @throws CircuitOpenException if the circuit rejects the call
+         */
+        int acquire() throws CircuitOpenException {
+            if (state == State.CLOSED) {
+                return CALL;
+            }
+            synchronized (this) {
+                long now = System.nanoTime();
+                if (state == State.OPEN) {
+                    if (now - openUntil < 0) {
+                        rejected.increment();
+                        throw new CircuitOpenException(resource, TimeUnit.NANOSECONDS.toMillis(openUntil - now));
+                    }
+                    state = State.HALF_OPEN;
+                    probesInFlight = 0;
+                    probeSuccesses = 0;
+                    logger.info("Circuit for {} half-open, sending up to {} probe(s)", resource, halfOpenProbes);
+                }
+                if (state == State.HALF_OPEN) {
+                    if (probesInFlight + probeSuccesses >= halfOpenProbes) {
+                        rejected.increment();
+                        throw new CircuitOpenException(resource, -1);
+                    }
+                    probesInFlight++;
+                    return PROBE;
+                }
+                return CALL;
+            }
+        }
+
+        /**
+         * Records the outcome of an admitted call
+         *
+         * @param permit       Value returned by acquire
+         * @param elapsedNanos Call duration
+         * @param error        Failure, or null on success
+         */
+        void record(int permit, long elapsedNanos, Throwable error) {
+            if (error instanceof CallRejectedException || error instanceof CancellationException) {
+                // Rejected further in (bulkhead), or abandoned by the caller (a hedge or
+                // coalesced call that lost, or a cancel): says nothing about the resource
+                release(permit);
+                return;
+            }
+            boolean failed = error != null && isFailure(error);
+            boolean slow = elapsedNanos >= slowCallNanos;
+            synchronized (this) {
+                if (permit == PROBE) {
+                    if (state != State.HALF_OPEN) {
+                        return;
+                    }
+                    probesInFlight--;
+                    if (failed || slow) {
+                        open(failed ? "probe failed" : "probe slow");
+                    } else if (++probeSuccesses >= halfOpenProbes) {
+                        close();
+                    }
+                    return;
+                }
+                if (state != State.CLOSED) {
+                    return;
+                }
+                if (recorded == windowSize) {
+                    byte evicted = outcomes[next];
+                    failures -= evicted & FAILED;
+                    slowCalls -= (evicted & SLOW) >> 1;
+                } else {
+                    recorded++;
+                }
+                outcomes[next] = (byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0));
+                failures += failed ? 1 : 0;
+                slowCalls += slow ? 1 : 0;
+                next = next + 1 == windowSize ? 0 : next + 1;
+
+                if (recorded >= minimumCalls) {
+                    if (failures >= failureRateThreshold * recorded) {
+                        open(String.format("failure rate %d/%d", failures, recorded));
+                    } else if (slowCalls >= slowCallRateThreshold * recorded) {
+                        open(String.format("slow call rate %d/%d", slowCalls, recorded));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns a permit without recording an outcome
+         *
+         * @param permit Value returned by acquire
+         */
+        void release(int permit) {
+            if (permit == PROBE) {
+                synchronized (this) {
+                    if (state == State.HALF_OPEN) {
+                        probesInFlight--;
+                    }
+                }
+            }
+        }
+
+        private void open(String reason) {
+            state = State.OPEN;
+            openUntil = System.nanoTime() + openNanos;
+            logger.warn("Circuit for {} opened for {}ms: {}", resource, TimeUnit.NANOSECONDS.toMillis(openNanos), reason);
+        }
+
+        private void close() {
+            state = State.CLOSED;
+            next = 0;
+            recorded = 0;
+            failures = 0;
+            slowCalls = 0;
+            logger.info("Circuit for {} closed", resource);
+        }
+
+        synchronized Stats stats() {
+            return new Stats(resource, state, recorded, failures, slowCalls, rejected.sum());
+        }
+    }
+
+    /**
+     * Stats is a point-in-time snapshot of one resource's circuit
+     */
+    public static final class Stats {
+        private final String resource;
+        private final State state;
+        private final int recordedCalls;
+        private final int failedCalls;
+        private final int slowCalls;
+        private final long rejected;
+
+        Stats(String resource, State state, int recordedCalls, int failedCalls, int slowCalls, long rejected) {
+            this.resource = resource;
+            this.state = state;
+            this.recordedCalls = recordedCalls;
+            this.failedCalls = failedCalls;
+            this.slowCalls = slowCalls;
+            this.rejected = rejected;
+        }
+
+        public String getResource() { return resource; }
+
+        public State getState() { return state; }
+
+        /** Number of calls in the window */
+        public int getRecordedCalls() { return recordedCalls; }
+
+        /** Number of failed calls in the window */
+        public int getFailedCalls() { return failedCalls; }
+
+        /** Number of slow calls in the window */
+        public int getSlowCalls() { return slowCalls; }
+
+        /** Number of calls rejected with CircuitOpenException since the breaker was created */
+        public long getRejected() { return rejected; }
+
+        @Override
+        public String toString() {
+            return "CircuitBreaker.Stats{resource=" + resource +
+                    ", state=" + state +
+                    ", recorded=" + recordedCalls +
+                    ", failed=" + failedCalls +
+                    ", slow=" + slowCalls +
+                    ", rejected=" + rejected + "}";
+        }
+    }
+
+    /**
+     * Builder for CircuitBreaker
+     */
+    public static final class Builder {
+        private double failureRateThreshold = 0.5;
+        private double slowCallRateThreshold = 0.8;
+        private long slowCallNanos = TimeUnit.SECONDS.toNanos(10);
+        private int windowSize = 50;
+        private int minimumCalls = 20;
+        private long openNanos = TimeUnit.SECONDS.toNanos(30);
+        private int halfOpenProbes = 3;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the share of failed calls, between 0 and 1, that opens the circuit; defaults to 0.5
+         */
+        public Builder failureRateThreshold(double threshold) {
+            this.failureRateThreshold = checkRate(threshold);
+            return this;
+        }
+
+        /**
+         * Sets what counts as a slow call and the share of slow calls that opens the circuit;
+         * defaults to 80% of calls over 10 seconds
+         */
+        public Builder slowCalls(long duration, TimeUnit unit, double rateThreshold) {
+            if (duration <= 0) {
+                throw new IllegalArgumentException("slow call duration must be positive");
+            }
+            this.slowCallNanos = unit.toNanos(duration);
+            this.slowCallRateThreshold = checkRate(rateThreshold);
+            return this;
+        }
+
+        /**
+         * Sets the number of recent calls the rates are computed over, and how many must be
+         * recorded before the circuit may open; defaults to 50 and 20
+         */
+        public Builder window(int windowSize, int minimumCalls) {
+            if (windowSize < 1 || minimumCalls < 1) {
+                throw new IllegalArgumentException("windowSize and minimumCalls must be positive");
+            }
+            this.windowSize = windowSize;
+            this.minimumCalls = minimumCalls;
+            return this;
+        }
+
+        /**
+         * Sets how long an open circuit rejects calls before probing; defaults to 30 seconds
+         */
+        public Builder openDuration(long duration, TimeUnit unit) {
+            if (duration < 0) {
+                throw new IllegalArgumentException("openDuration < 0");
+            }
+            this.openNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Sets the number of successful probes that close a half-open circuit; defaults to 3
+         */
+        public Builder halfOpenProbes(int probes) {
+            if (probes < 1) {
+                throw new IllegalArgumentException("halfOpenProbes < 1: " + probes);
+            }
+            this.halfOpenProbes = probes;
+            return this;
+        }
+
+        public CircuitBreaker build() {
+            return new CircuitBreaker(this);
+        }
+
+        private static double checkRate(double rate) {
+            if (!(rate > 0 && rate <= 1)) {
+                throw new IllegalArgumentException("rate threshold must be in (0, 1]: " + rate);
+            }
+            return rate;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.martianpay.sdk;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * CircuitBreakerInterceptor admits each attempt through its resource's {@link CircuitBreaker}
+ * circuit and records how it ended. Cancelled attempts return their permit without recording an
+ * outcome.
+ */
+final class CircuitBreakerInterceptor implements ApiInterceptor {
+    private final CircuitBreaker breaker;
+
+    CircuitBreakerInterceptor(CircuitBreaker breaker) {
+        this.breaker = breaker;
+    }
+
+    @Override
+    public Object intercept(Chain chain) throws IOException {
+        ApiRequest request = chain.request();
+        CircuitBreaker.Circuit circuit = breaker.circuit(request.getApiPath().getTemplate().getResource());
+        int permit = circuit.acquire();
+        long startNanos = System.nanoTime();
+        try {
+            Object result = chain.proceed(request);
+            circuit.record(permit, System.nanoTime() - startNanos, null);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            circuit.record(permit, System.nanoTime() - startNanos, e);
+            throw e;
+        } catch (Error e) {
+            circuit.release(permit);
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Object> interceptAsync(Chain chain) {
+        ApiRequest request = chain.request();
+        CircuitBreaker.Circuit circuit = breaker.circuit(request.getApiPath().getTemplate().getResource());
+        int permit;
+        try {
+            permit = circuit.acquire();
+        } catch (CircuitOpenException e) {
+            return RequestPipeline.failedFuture(e);
+        }
+        long startNanos = System.nanoTime();
+        CompletableFuture<Object> inFlight;
+        try {
+            inFlight = chain.proceedAsync(request);
+        } catch (RuntimeException | Error e) {
+            circuit.release(permit);
+            throw e;
+        }
+        inFlight.whenComplete((value, error) -> circuit.record(permit, System.nanoTime() - startNanos,
+                error != null ? RequestPipeline.unwrap(error) : null));
+        return inFlight;
+    }
+}
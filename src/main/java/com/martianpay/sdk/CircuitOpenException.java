@@ -0,0 +1,30 @@
+package com.martianpay.sdk;
+
+/**
+ * CircuitOpenException reports a call rejected because the {@link CircuitBreaker} of its resource
+ * is open, or half-open with all probe slots taken.
+ *
+ * {@link #getRetryAfterMillis()} tells when the circuit will let a probe through, or is -1 while
+ * probes are in flight.
+ */
+public class CircuitOpenException extends CallRejectedException {
+    private static final long serialVersionUID = 1L;
+
+    /** Error code of circuit breaker rejections */
+    public static final String ERROR_CODE = "circuit_open";
+
+    private final String resource;
+
+    public CircuitOpenException(String resource, long retryAfterMillis) {
+        super("Circuit open for " + resource + (retryAfterMillis >= 0 ? "; retry in " + retryAfterMillis + "ms" : ""),
+                503, ERROR_CODE, retryAfterMillis);
+        this.resource = resource;
+    }
+
+    /**
+     * Returns the resource whose circuit is open, such as {@code payouts}
+     */
+    public String getResource() {
+        return resource;
+    }
+}
@@ -0,0 +1,132 @@
+package com.martianpay.sdk;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * CoalescingInterceptor lets one call of a group of identical reads go through the pipeline and
+ * hands its result to the others, as configured by a {@link RequestCoalescer}.
+ *
+ * The decoded response is kept untouched and every caller, including the one that sent the
+ * request, receives a copy of it when the result is shared. Asynchronous callers get dependent
+ * futures; the request is cancelled only once every caller has cancelled.
+ *
+ * It runs before the metrics stage, so merged calls are not counted as separate HTTP calls.
+ */
+final class CoalescingInterceptor implements ApiInterceptor {
+    private final RequestCoalescer coalescer;
+    private final Gson gson;
+    /** Separates clients with different API keys or base URLs */
+    private final String scope;
+
+    CoalescingInterceptor(RequestCoalescer coalescer, Gson gson, String apiKey, String baseUrl) {
+        this.coalescer = coalescer;
+        this.gson = gson;
+        this.scope = apiKey + '\n' + baseUrl + '\n';
+    }
+
+    @Override
+    public Object intercept(Chain chain) throws IOException {
+        ApiRequest request = chain.request();
+        if (!coalescer.appliesTo(request)) {
+            return chain.proceed(request);
+        }
+        String key = keyOf(request);
+        RequestCoalescer.Flight own = new RequestCoalescer.Flight();
+        RequestCoalescer.Flight flight = coalescer.join(key, own);
+        if (flight == null) {
+            Object value;
+            try {
+                value = chain.proceed(request);
+            } catch (Throwable e) {
+                // Errors too, or later identical calls would wait on this flight forever
+                finish(key, own, null, e);
+                throw e;
+            }
+            finish(key, own, value, null);
+            return copy(request, own, value);
+        }
+        try {
+            return copy(request, flight, flight.result.get());
+        } catch (InterruptedException e) {
+            flight.release();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + request);
+        } catch (ExecutionException e) {
+            Throwable cause = RequestPipeline.unwrap(e.getCause());
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Object> interceptAsync(Chain chain) {
+        ApiRequest request = chain.request();
+        if (!coalescer.appliesTo(request)) {
+            return chain.proceedAsync(request);
+        }
+        String key = keyOf(request);
+        RequestCoalescer.Flight own = new RequestCoalescer.Flight();
+        RequestCoalescer.Flight flight = coalescer.join(key, own);
+        if (flight == null) {
+            flight = own;
+            CompletableFuture<Object> inFlight;
+            try {
+                inFlight = chain.proceedAsync(request);
+            } catch (Throwable e) {
+                finish(key, own, null, e);
+                throw e;
+            }
+            own.setCall(inFlight);
+            inFlight.whenComplete((value, error) -> finish(key, own, value, error));
+        }
+        return dependent(request, flight);
+    }
+
+    /**
+     * Returns a future of this caller's copy; cancelling it leaves the request running for the
+     * other callers
+     */
+    private CompletableFuture<Object> dependent(ApiRequest request, RequestCoalescer.Flight flight) {
+        CompletableFuture<Object> result = flight.result.thenApply(value -> copy(request, flight, value));
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                flight.release();
+            }
+        });
+        return result;
+    }
+
+    private void finish(String key, RequestCoalescer.Flight own, Object value, Throwable error) {
+        own.close();
+        coalescer.leave(key, own);
+        if (error == null) {
+            own.result.complete(value);
+        } else {
+            own.result.completeExceptionally(RequestPipeline.unwrap(error));
+        }
+    }
+
+    private String keyOf(ApiRequest request) {
+        return scope + request.getPath() + '\n' + request.getResponseType().getTypeName();
+    }
+
+    /**
+     * Returns the caller's copy of a result; a result nobody else receives is returned as is
+     */
+    private Object copy(ApiRequest request, RequestCoalescer.Flight flight, Object value) {
+        if (value == null || !coalescer.isCopyResults() || !flight.isShared()) {
+            return value;
+        }
+        return gson.fromJson(gson.toJsonTree(value, request.getResponseType()), request.getResponseType());
+    }
+}
@@ -11,11 +11,23 @@ import com.martianpay.developer.EphemeralTokenRequest;
 import com.martianpay.developer.EphemeralTokenResponse;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * CustomerService provides methods for managing customers
  */
 public class CustomerService extends MartianPayClient {
+    private static final PathTemplate CUSTOMERS_ID = PathTemplate.of("/v1/customers/%s")
+            .operation("GET", "getCustomer")
+            .operation("POST", "updateCustomer")
+            .operation("DELETE", "deleteCustomer");
+    private static final PathTemplate CUSTOMERS = PathTemplate.of("/v1/customers")
+            .operation("GET", "listCustomers")
+            .operation("POST", "createCustomer");
+    private static final PathTemplate CUSTOMERS_PAYMENT_METHODS = PathTemplate.of("/v1/customers/payment_methods")
+            .operation("GET", "listCustomerPaymentMethods");
+    private static final PathTemplate CUSTOMERS_EPHEMERAL_TOKENS = PathTemplate.of("/v1/customers/ephemeral_tokens")
+            .operation("POST", "generateEphemeralToken");
 
     public CustomerService(String apiKey) {
         super(apiKey);
@@ -25,15 +37,65 @@ public class CustomerService extends MartianPayClient {
         super(apiKey, baseUrl);
     }
 
+    public CustomerService(String apiKey, String baseUrl, TransportContext transport) {
+        super(apiKey, baseUrl, transport);
+    }
+
+    public CustomerService(MartianPayClient client) {
+        super(client);
+    }
+
     /**
      * Creates a new customer
      *
+     * A new idempotency key is generated for the call, so a retried attempt cannot create a
+     * second customer.
+     *
      * @param request Customer creation parameters
      * @return Created customer
      * @throws IOException if request fails
      */
     public Customer createCustomer(CustomerCreateRequest request) throws IOException {
-        return sendRequest("POST", "/v1/customers", request, Customer.class);
+        return sendIdempotentRequest("POST", CUSTOMERS.expand(), request, Customer.class, null);
+    }
+
+    /**
+     * Creates a new customer asynchronously
+     *
+     * @param request Customer creation parameters
+     * @return Future completing with the created customer
+     * @see #createCustomer
+     */
+    public CompletableFuture<Customer> createCustomerAsync(CustomerCreateRequest request) {
+        return sendIdempotentRequestAsync("POST", CUSTOMERS.expand(), request, Customer.class, null);
+    }
+
+    /**
+     * Creates a customer with a caller-supplied idempotency key
+     *
+     * The key is sent in the Idempotency-Key header; a server that deduplicates on it returns the
+     * original result to a repeat instead of creating another customer. Derive the key from your own
+     * operation id so that repeats after process restarts and redeliveries carry it too.
+     *
+     * @param request        Creation parameters
+     * @param idempotencyKey Idempotency key of this logical operation, or null to generate one
+     * @return Same response as {@link #createCustomer(CustomerCreateRequest)}
+     * @throws IOException if request fails
+     */
+    public Customer createCustomer(CustomerCreateRequest request, String idempotencyKey) throws IOException {
+        return sendIdempotentRequest("POST", CUSTOMERS.expand(), request, Customer.class, idempotencyKey);
+    }
+
+    /**
+     * Creates a customer with a caller-supplied idempotency key asynchronously
+     *
+     * @param request        Creation parameters
+     * @param idempotencyKey Idempotency key of this logical operation, or null to generate one
+     * @return Future completing with the same response as {@link #createCustomerAsync(CustomerCreateRequest)}
+     * @see #createCustomer(CustomerCreateRequest, String)
+     */
+    public CompletableFuture<Customer> createCustomerAsync(CustomerCreateRequest request, String idempotencyKey) {
+        return sendIdempotentRequestAsync("POST", CUSTOMERS.expand(), request, Customer.class, idempotencyKey);
     }
 
     /**
@@ -45,8 +107,19 @@ public class CustomerService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public Customer updateCustomer(String customerID, CustomerUpdateRequest request) throws IOException {
-        String path = String.format("/v1/customers/%s", customerID);
-        return sendRequest("POST", path, request, Customer.class);
+        return sendRequest("POST", CUSTOMERS_ID.expand(customerID), request, Customer.class);
+    }
+
+    /**
+     * Updates an existing customer asynchronously
+     *
+     * @param customerID Customer ID
+     * @param request Customer update parameters
+     * @return Future completing with the updated customer
+     * @see #updateCustomer
+     */
+    public CompletableFuture<Customer> updateCustomerAsync(String customerID, CustomerUpdateRequest request) {
+        return sendRequestAsync("POST", CUSTOMERS_ID.expand(customerID), request, Customer.class);
     }
 
     /**
@@ -57,8 +130,18 @@ public class CustomerService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public Customer getCustomer(String customerID) throws IOException {
-        String path = String.format("/v1/customers/%s", customerID);
-        return sendRequest("GET", path, null, Customer.class);
+        return sendRequest("GET", CUSTOMERS_ID.expand(customerID), null, Customer.class);
+    }
+
+    /**
+     * Retrieves a specific customer by ID asynchronously
+     *
+     * @param customerID Customer ID
+     * @return Future completing with the customer details
+     * @see #getCustomer
+     */
+    public CompletableFuture<Customer> getCustomerAsync(String customerID) {
+        return sendRequestAsync("GET", CUSTOMERS_ID.expand(customerID), null, Customer.class);
     }
 
     /**
@@ -69,7 +152,33 @@ public class CustomerService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public CustomerListResponse listCustomers(CustomerListRequest request) throws IOException {
-        return sendRequestWithQuery("GET", "/v1/customers", request, CustomerListResponse.class);
+        return sendRequestWithQuery("GET", CUSTOMERS.expand(), request, CustomerListResponse.class);
+    }
+
+    /**
+     * Retrieves a list of customers based on the provided parameters asynchronously
+     *
+     * @param request List parameters
+     * @return Future completing with the customer list response
+     * @see #listCustomers
+     */
+    public CompletableFuture<CustomerListResponse> listCustomersAsync(CustomerListRequest request) {
+        return sendRequestWithQueryAsync("GET", CUSTOMERS.expand(), request, CustomerListResponse.class);
+    }
+
+    /**
+     * Iterates over all customers matching the list parameters, fetching pages lazily
+     *
+     * The walk starts at the request's page and uses its page size (or {@link Pager#DEFAULT_PAGE_SIZE}).
+     *
+     * @param request List parameters; the paging fields are not modified
+     * @return Pager over the matching customers
+     * @see #listCustomers
+     */
+    public Pager<Customer> paginateCustomers(CustomerListRequest request) {
+        return Pager.byPage(this, CUSTOMERS.expand(), request,
+                request != null ? request.getPage() : null, request != null ? request.getPageSize() : null,
+                CustomerListResponse.class, CustomerListResponse::getCustomers, CustomerListResponse::getTotal);
     }
 
     /**
@@ -79,8 +188,18 @@ public class CustomerService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public void deleteCustomer(String customerID) throws IOException {
-        String path = String.format("/v1/customers/%s", customerID);
-        sendRequest("DELETE", path, null, Void.class);
+        sendRequest("DELETE", CUSTOMERS_ID.expand(customerID), null, Void.class);
+    }
+
+    /**
+     * Deletes a customer by ID asynchronously
+     *
+     * @param customerID Customer ID to delete
+     * @return Future completing when the request succeeds
+     * @see #deleteCustomer
+     */
+    public CompletableFuture<Void> deleteCustomerAsync(String customerID) {
+        return sendRequestAsync("DELETE", CUSTOMERS_ID.expand(customerID), null, Void.class);
     }
 
     /**
@@ -93,7 +212,20 @@ public class CustomerService extends MartianPayClient {
     public PaymentMethodListResponse listCustomerPaymentMethods(String customerID) throws IOException {
         CustomerPaymentMethodListRequest request = new CustomerPaymentMethodListRequest();
         request.setCustomerID(customerID);
-        return sendRequestWithQuery("GET", "/v1/customers/payment_methods", request, PaymentMethodListResponse.class);
+        return sendRequestWithQuery("GET", CUSTOMERS_PAYMENT_METHODS.expand(), request, PaymentMethodListResponse.class);
+    }
+
+    /**
+     * Retrieves a list of saved payment methods for a customer asynchronously
+     *
+     * @param customerID Customer ID
+     * @return Future completing with the payment methods list response
+     * @see #listCustomerPaymentMethods
+     */
+    public CompletableFuture<PaymentMethodListResponse> listCustomerPaymentMethodsAsync(String customerID) {
+        CustomerPaymentMethodListRequest request = new CustomerPaymentMethodListRequest();
+        request.setCustomerID(customerID);
+        return sendRequestWithQueryAsync("GET", CUSTOMERS_PAYMENT_METHODS.expand(), request, PaymentMethodListResponse.class);
     }
 
     /**
@@ -112,6 +244,17 @@ public class CustomerService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public EphemeralTokenResponse generateEphemeralToken(EphemeralTokenRequest request) throws IOException {
-        return sendRequest("POST", "/v1/customers/ephemeral_tokens", request, EphemeralTokenResponse.class);
+        return sendRequest("POST", CUSTOMERS_EPHEMERAL_TOKENS.expand(), request, EphemeralTokenResponse.class);
+    }
+
+    /**
+     * Generates an ephemeral token for customer authentication in checkout flows asynchronously
+     *
+     * @param request Request containing identity provider info (idp_key, idp_subject), provider, return URL, etc.
+     * @return Future completing with the ephemeral token response with token and expiration time
+     * @see #generateEphemeralToken
+     */
+    public CompletableFuture<EphemeralTokenResponse> generateEphemeralTokenAsync(EphemeralTokenRequest request) {
+        return sendRequestAsync("POST", CUSTOMERS_EPHEMERAL_TOKENS.expand(), request, EphemeralTokenResponse.class);
     }
 }
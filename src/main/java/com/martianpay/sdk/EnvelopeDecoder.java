@@ -0,0 +1,124 @@
+package com.martianpay.sdk;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+
+/**
+ * EnvelopeDecoder reads the MartianPay response envelope ({@code code}, {@code error_code},
+ * {@code msg}, {@code data}) straight from the response stream.
+ *
+ * The {@code data} field is bound to the target type as it is read, without first buffering the
+ * body into a String or building a JsonElement tree. When an error field precedes {@code data},
+ * the payload is skipped instead of bound.
+ */
+final class EnvelopeDecoder {
+    private final Gson gson;
+
+    EnvelopeDecoder(Gson gson) {
+        this.gson = gson;
+    }
+
+    /**
+     * Decodes an envelope and returns its data bound to the given type
+     *
+     * @param reader   Response body character stream
+     * @param dataType Target type of the data field, or Void.class to discard it
+     * @return Bound data, or null if absent or discarded
+     * @throws IOException if the stream fails or the envelope is malformed
+     * @throws MartianPayException if the envelope reports an API error
+     */
+    <T> T decode(Reader reader, Type dataType) throws IOException {
+        JsonReader in = new JsonReader(reader);
+        in.setLenient(true);
+
+        int code = 0;
+        String errorCode = null;
+        String msg = null;
+        T data = null;
+        boolean discardData = dataType == Void.class || dataType == void.class;
+
+        try {
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "code":
+                        code = in.peek() == JsonToken.NULL ? skipNull(in, 0) : in.nextInt();
+                        break;
+                    case "error_code":
+                        errorCode = nextStringOrNull(in);
+                        break;
+                    case "msg":
+                        msg = nextStringOrNull(in);
+                        break;
+                    case "data":
+                        if (discardData || isError(code, errorCode)) {
+                            in.skipValue();
+                        } else {
+                            data = gson.fromJson(in, dataType);
+                        }
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+        } catch (EOFException e) {
+            throw new MalformedResponseException("Malformed API response: unexpected end of body", e);
+        } catch (MalformedJsonException | IllegalStateException | NumberFormatException e) {
+            throw new MalformedResponseException("Malformed API response: " + e.getMessage(), e);
+        } catch (JsonParseException e) {
+            // Gson wraps stream failures too; only a payload it could not bind is malformed
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException && !(cause instanceof MalformedJsonException)
+                    && !(cause instanceof EOFException)) {
+                throw (IOException) cause;
+            }
+            throw new MalformedResponseException("Malformed API response: " + e.getMessage(), e);
+        }
+
+        // Check for business-level errors
+        if (isBusinessError(errorCode)) {
+            throw new MartianPayException(String.format("API error [%s]: %s", errorCode, msg), 0, errorCode, msg);
+        }
+
+        // Legacy: check deprecated Code field
+        if (code != 0) {
+            throw new MartianPayException("API error: " + msg, 0, errorCode, msg);
+        }
+
+        return data;
+    }
+
+    private static boolean isError(int code, String errorCode) {
+        return code != 0 || isBusinessError(errorCode);
+    }
+
+    private static boolean isBusinessError(String errorCode) {
+        return errorCode != null &&
+                !errorCode.isEmpty() &&
+                !"ok".equals(errorCode) &&
+                !"success".equals(errorCode);
+    }
+
+    private static String nextStringOrNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    private static int skipNull(JsonReader in, int defaultValue) throws IOException {
+        in.nextNull();
+        return defaultValue;
+    }
+}
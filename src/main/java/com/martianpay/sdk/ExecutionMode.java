@@ -0,0 +1,23 @@
+package com.martianpay.sdk;
+
+/**
+ * ExecutionMode selects the threads a TransportContext uses to run HTTP calls
+ */
+public enum ExecutionMode {
+    /**
+     * OkHttp dispatcher runs asynchronous calls on its platform thread pool (default)
+     */
+    PLATFORM,
+
+    /**
+     * Asynchronous calls run on virtual threads, one per call, and concurrency is bounded by a
+     * per-host semaphore instead of the dispatcher limits. Requires JDK 21 or later at runtime;
+     * building a context in this mode on an older JDK fails with IllegalStateException.
+     */
+    VIRTUAL_THREADS,
+
+    /**
+     * Uses VIRTUAL_THREADS when the runtime supports them and PLATFORM otherwise
+     */
+    AUTO
+}
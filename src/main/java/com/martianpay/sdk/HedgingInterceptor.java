@@ -0,0 +1,140 @@
+package com.martianpay.sdk;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HedgingInterceptor applies a {@link HedgingPolicy} to the calls it covers.
+ *
+ * It runs outside the retry stage, so each of the two requests is retried, paced, and counted by
+ * the breaker and bulkhead on its own. Blocking calls are executed on the asynchronous path and
+ * awaited, since both requests must be in flight at once.
+ */
+final class HedgingInterceptor implements ApiInterceptor {
+    private final HedgingPolicy policy;
+
+    HedgingInterceptor(HedgingPolicy policy) {
+        this.policy = policy;
+    }
+
+    @Override
+    public Object intercept(Chain chain) throws IOException {
+        ApiRequest request = chain.request();
+        if (!policy.appliesTo(request)) {
+            return chain.proceed(request);
+        }
+        CompletableFuture<Object> result = hedge(chain, request);
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + request);
+        } catch (ExecutionException e) {
+            Throwable cause = RequestPipeline.unwrap(e.getCause());
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Object> interceptAsync(Chain chain) {
+        ApiRequest request = chain.request();
+        if (!policy.appliesTo(request)) {
+            return chain.proceedAsync(request);
+        }
+        return hedge(chain, request);
+    }
+
+    private CompletableFuture<Object> hedge(Chain chain, ApiRequest request) {
+        HedgingPolicy.EndpointLatency latency = policy.latencyFor(request.getEndpoint());
+        long delay = latency.delayNanos();
+        policy.callStarted();
+
+        HedgedCall call = new HedgedCall(latency);
+        call.primary = call.start(chain, request, false);
+        if (delay >= 0 && !call.result.isDone()) {
+            SdkTimer.schedule(() -> {
+                if (call.result.isDone() || !policy.tryAcquireHedge()) {
+                    return;
+                }
+                call.pending.incrementAndGet();
+                call.hedge = call.start(chain, request, true);
+                if (call.result.isDone()) {
+                    call.hedge.cancel(false);
+                }
+            }, delay);
+        }
+        call.result.whenComplete((value, error) -> call.cancelLegs());
+        return call.result;
+    }
+
+    /**
+     * The first request and, once its delay has passed, the hedge of one logical call
+     */
+    private final class HedgedCall {
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+        /** Requests started and not yet failed; the call fails when the last one does */
+        final AtomicInteger pending = new AtomicInteger(1);
+        final HedgingPolicy.EndpointLatency latency;
+        final long startNanos = System.nanoTime();
+        volatile CompletableFuture<Object> primary;
+        volatile CompletableFuture<Object> hedge;
+
+        HedgedCall(HedgingPolicy.EndpointLatency latency) {
+            this.latency = latency;
+        }
+
+        CompletableFuture<Object> start(Chain chain, ApiRequest request, boolean isHedge) {
+            long startNanos = System.nanoTime();
+            CompletableFuture<Object> leg;
+            try {
+                leg = chain.proceedAsync(request);
+            } catch (RuntimeException e) {
+                leg = RequestPipeline.failedFuture(e);
+            }
+            leg.whenComplete((value, error) -> {
+                long now = System.nanoTime();
+                if (error == null) {
+                    latency.record(now - startNanos);
+                    if (result.complete(value) && isHedge) {
+                        policy.hedgeWon();
+                        // The overtaken primary took at least this long; sampling only winners
+                        // would bias the delay low exactly when the endpoint slows down
+                        latency.record(now - HedgedCall.this.startNanos);
+                    }
+                    return;
+                }
+                Throwable cause = RequestPipeline.unwrap(error);
+                if (!(cause instanceof CancellationException) && !(cause instanceof CallRejectedException)) {
+                    // Failed requests are part of the endpoint's latency too
+                    latency.record(now - startNanos);
+                }
+                if (pending.decrementAndGet() == 0) {
+                    result.completeExceptionally(cause);
+                }
+            });
+            return leg;
+        }
+
+        void cancelLegs() {
+            CompletableFuture<Object> first = primary;
+            CompletableFuture<Object> second = hedge;
+            if (first != null) {
+                first.cancel(false);
+            }
+            if (second != null) {
+                second.cancel(false);
+            }
+        }
+    }
+}
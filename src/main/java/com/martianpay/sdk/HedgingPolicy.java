@@ -0,0 +1,302 @@
+package com.martianpay.sdk;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HedgingPolicy cuts the tail latency of idempotent reads by sending a second request when the
+ * first one is slow, and taking whichever answers first.
+ *
+ * Hedging applies to GET calls of the configured operations, by default {@code getPaymentIntent},
+ * {@code getPayout}, {@code getRefund} and {@code getSubscription}. The hedge is sent once the
+ * first request has been outstanding longer than a percentile (p95 by default) of the latency
+ * recently observed for that endpoint, kept within {@code minDelay} and {@code maxDelay}. Failed
+ * requests are sampled as well as successful ones, and a first request overtaken by its hedge
+ * counts with the time it had been outstanding, so a slowing endpoint raises the delay. No
+ * hedge is sent until {@code minSamples} calls of the endpoint have completed. The slower
+ * request is cancelled as soon as the other one succeeds; if one fails, the other one still
+ * decides the result.
+ *
+ * A budget shared by all calls bounds the extra load: each eligible call earns {@code budgetRatio}
+ * of a hedge, up to {@code budgetBurst} saved hedges, and each hedge spends one. With the default
+ * ratio of 0.05, hedging adds at most about 5% more requests to the API whatever the latency.
+ *
+ * Instances keep latency samples and the budget, and are installed with
+ * {@link TransportContext.Builder#hedging(HedgingPolicy)}. Hedged blocking calls run both
+ * requests on the asynchronous path and wait for the winner.
+ */
+public final class HedgingPolicy {
+    /** Operations hedged by default: the latency-sensitive polling reads */
+    public static final Set<String> DEFAULT_OPERATIONS = Collections.unmodifiableSet(new HashSet<>(
+            Arrays.asList("getPaymentIntent", "getPayout", "getRefund", "getSubscription")));
+
+    /** Samples recorded between recomputations of an endpoint's hedge delay */
+    private static final int RECOMPUTE_INTERVAL = 64;
+    /** Samples after which an endpoint's histogram is cleared, so the delay follows recent latency */
+    private static final int WINDOW = 4096;
+    private static final long MILLI = 1000;
+
+    private final Set<String> operations;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long maxDelayNanos;
+    private final int minSamples;
+    private final long budgetEarnMillis;
+    private final long budgetCapMillis;
+
+    private final AtomicLong budgetMillis;
+    private final ConcurrentMap<String, EndpointLatency> latencies = new ConcurrentHashMap<>();
+    private final LongAdder eligible = new LongAdder();
+    private final LongAdder hedged = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder budgetExhausted = new LongAdder();
+
+    private HedgingPolicy(Builder builder) {
+        this.operations = Collections.unmodifiableSet(new HashSet<>(builder.operations));
+        this.percentile = builder.percentile;
+        this.minDelayNanos = builder.minDelayNanos;
+        this.maxDelayNanos = Math.max(builder.maxDelayNanos, builder.minDelayNanos);
+        this.minSamples = builder.minSamples;
+        this.budgetEarnMillis = Math.round(builder.budgetRatio * MILLI);
+        this.budgetCapMillis = builder.budgetBurst * MILLI;
+        this.budgetMillis = new AtomicLong(budgetCapMillis);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Set<String> getOperations() { return operations; }
+
+    /**
+     * Returns true if calls of a request may be hedged
+     */
+    public boolean appliesTo(ApiRequest request) {
+        return "GET".equals(request.getMethod()) && operations.contains(request.getOperation());
+    }
+
+    /**
+     * Returns the current hedge delay of an endpoint, in nanoseconds, or -1 while too few
+     * calls have completed to estimate it
+     *
+     * @param endpoint Endpoint name, such as {@code GET /v1/payouts/%s}
+     */
+    public long getHedgeDelayNanos(String endpoint) {
+        EndpointLatency latency = latencies.get(endpoint);
+        return latency != null ? latency.delayNanos() : -1;
+    }
+
+    EndpointLatency latencyFor(String endpoint) {
+        EndpointLatency latency = latencies.get(endpoint);
+        if (latency == null) {
+            latency = latencies.computeIfAbsent(endpoint, e -> new EndpointLatency());
+        }
+        return latency;
+    }
+
+    /**
+     * Counts an eligible call and adds its share to the budget
+     */
+    void callStarted() {
+        eligible.increment();
+        for (;;) {
+            long current = budgetMillis.get();
+            if (current >= budgetCapMillis) {
+                return;
+            }
+            if (budgetMillis.compareAndSet(current, Math.min(budgetCapMillis, current + budgetEarnMillis))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Spends one hedge from the budget
+     *
+     * @return false if the budget is exhausted
+     */
+    boolean tryAcquireHedge() {
+        for (;;) {
+            long current = budgetMillis.get();
+            if (current < MILLI) {
+                budgetExhausted.increment();
+                return false;
+            }
+            if (budgetMillis.compareAndSet(current, current - MILLI)) {
+                hedged.increment();
+                return true;
+            }
+        }
+    }
+
+    void hedgeWon() {
+        hedgeWins.increment();
+    }
+
+    /**
+     * Returns a snapshot of the hedging counters
+     */
+    public Stats getStats() {
+        return new Stats(eligible.sum(), hedged.sum(), hedgeWins.sum(), budgetExhausted.sum());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("HedgingPolicy{operations=%s, percentile=%.1f, delay=%d..%dms, minSamples=%d, "
+                        + "budget=%.3f/%d}", operations, percentile, TimeUnit.NANOSECONDS.toMillis(minDelayNanos),
+                TimeUnit.NANOSECONDS.toMillis(maxDelayNanos), minSamples, budgetEarnMillis / (double) MILLI,
+                budgetCapMillis / MILLI);
+    }
+
+    /**
+     * Recent latency of one endpoint and the hedge delay derived from it
+     */
+    final class EndpointLatency {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final AtomicInteger samples = new AtomicInteger();
+        private volatile long delayNanos = -1;
+
+        long delayNanos() {
+            return delayNanos;
+        }
+
+        /**
+         * Records the latency of a successful request. The delay is first computed once
+         * minSamples requests have completed, then every RECOMPUTE_INTERVAL samples.
+         */
+        void record(long nanos) {
+            histogram.record(nanos);
+            int count = samples.incrementAndGet();
+            if (count < minSamples || (delayNanos >= 0 && count % RECOMPUTE_INTERVAL != 0)) {
+                return;
+            }
+            long delay = histogram.getValueAtPercentile(percentile);
+            delayNanos = Math.max(minDelayNanos, Math.min(maxDelayNanos, delay));
+            if (count >= WINDOW) {
+                samples.set(0);
+                histogram.reset();
+            }
+        }
+    }
+
+    /**
+     * Stats is a point-in-time snapshot of the hedging counters
+     */
+    public static final class Stats {
+        private final long eligible;
+        private final long hedged;
+        private final long hedgeWins;
+        private final long budgetExhausted;
+
+        Stats(long eligible, long hedged, long hedgeWins, long budgetExhausted) {
+            this.eligible = eligible;
+            this.hedged = hedged;
+            this.hedgeWins = hedgeWins;
+            this.budgetExhausted = budgetExhausted;
+        }
+
+        /** Number of calls that could be hedged */
+        public long getEligible() { return eligible; }
+
+        /** Number of hedge requests sent */
+        public long getHedged() { return hedged; }
+
+        /** Number of calls answered by the hedge rather than the first request */
+        public long getHedgeWins() { return hedgeWins; }
+
+        /** Number of hedges not sent because the budget was exhausted */
+        public long getBudgetExhausted() { return budgetExhausted; }
+
+        @Override
+        public String toString() {
+            return "HedgingPolicy.Stats{eligible=" + eligible +
+                    ", hedged=" + hedged +
+                    ", hedgeWins=" + hedgeWins +
+                    ", budgetExhausted=" + budgetExhausted + "}";
+        }
+    }
+
+    /**
+     * Builder for HedgingPolicy
+     */
+    public static final class Builder {
+        private Set<String> operations = DEFAULT_OPERATIONS;
+        private double percentile = 95;
+        private long minDelayNanos = TimeUnit.MILLISECONDS.toNanos(10);
+        private long maxDelayNanos = TimeUnit.SECONDS.toNanos(2);
+        private int minSamples = 50;
+        private double budgetRatio = 0.05;
+        private int budgetBurst = 10;
+
+        private Builder() {
+        }
+
+        /**
+         * Replaces the hedged operations, named as in traces (for example {@code getPayroll});
+         * only their GET calls are hedged
+         */
+        public Builder operations(String... operations) {
+            this.operations = new HashSet<>(Arrays.asList(operations));
+            return this;
+        }
+
+        /**
+         * Sets the latency percentile after which the hedge is sent; defaults to 95
+         */
+        public Builder percentile(double percentile) {
+            if (!(percentile > 0 && percentile < 100)) {
+                throw new IllegalArgumentException("percentile must be between 0 and 100: " + percentile);
+            }
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * Bounds the hedge delay; defaults to 10ms and 2s
+         */
+        public Builder delayBounds(long minDelay, long maxDelay, TimeUnit unit) {
+            if (minDelay < 0 || maxDelay < 0) {
+                throw new IllegalArgumentException("delay bounds < 0");
+            }
+            this.minDelayNanos = unit.toNanos(minDelay);
+            this.maxDelayNanos = unit.toNanos(maxDelay);
+            return this;
+        }
+
+        /**
+         * Sets the number of completed calls of an endpoint needed before it is hedged; defaults to 50
+         */
+        public Builder minSamples(int minSamples) {
+            if (minSamples < 1) {
+                throw new IllegalArgumentException("minSamples < 1: " + minSamples);
+            }
+            this.minSamples = minSamples;
+            return this;
+        }
+
+        /**
+         * Sets the hedge budget: the fraction of a hedge earned per eligible call, and the number
+         * of hedges that can be saved up; defaults to 0.05 and 10
+         */
+        public Builder budget(double ratio, int burst) {
+            if (!(ratio > 0 && ratio <= 1) || burst < 1) {
+                throw new IllegalArgumentException("budget ratio must be in (0, 1] and burst positive");
+            }
+            this.budgetRatio = ratio;
+            this.budgetBurst = burst;
+            return this;
+        }
+
+        public HedgingPolicy build() {
+            return new HedgingPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.martianpay.sdk;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * HostConcurrencyLimiter bounds the number of in-flight calls per host with a semaphore.
+ *
+ * It runs as an OkHttp application interceptor, so it applies to both blocking calls and calls
+ * enqueued on the dispatcher. A permit is held until the response headers are received.
+ */
+final class HostConcurrencyLimiter implements Interceptor {
+    private final int permitsPerHost;
+    private final ConcurrentMap<String, Semaphore> semaphores = new ConcurrentHashMap<>();
+
+    HostConcurrencyLimiter(int permitsPerHost) {
+        this.permitsPerHost = permitsPerHost;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String host = request.url().host();
+        Semaphore semaphore = semaphores.get(host);
+        if (semaphore == null) {
+            semaphore = semaphores.computeIfAbsent(host, h -> new Semaphore(permitsPerHost));
+        }
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a request slot to " + host);
+        }
+        try {
+            return chain.proceed(request);
+        } finally {
+            semaphore.release();
+        }
+    }
+}
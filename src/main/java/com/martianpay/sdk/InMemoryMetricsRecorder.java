@@ -0,0 +1,152 @@
+package com.martianpay.sdk;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * InMemoryMetricsRecorder keeps per-endpoint counters and latency histograms in memory.
+ *
+ * Recording is lock-free: counters are LongAdders and latencies go into a
+ * {@link LatencyHistogram}. The per-endpoint state is created on an endpoint's first call and
+ * kept for the recorder's lifetime. Read it with {@link #getEndpoint(String)} or
+ * {@link #getEndpoints()}, for example from a scheduled exporter.
+ *
+ * <pre>{@code
+ * InMemoryMetricsRecorder metrics = new InMemoryMetricsRecorder();
+ * TransportContext transport = TransportContext.builder().metricsRecorder(metrics).build();
+ * ...
+ * EndpointMetrics create = metrics.getEndpoint("POST /v1/payment_intents");
+ * long p99 = create.getLatency().getValueAtPercentile(99);
+ * }</pre>
+ */
+public final class InMemoryMetricsRecorder implements MetricsRecorder {
+    private final ConcurrentMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordCall(String endpoint, long latencyNanos, String errorCode) {
+        EndpointMetrics metrics = metricsFor(endpoint);
+        metrics.latency.record(latencyNanos);
+        metrics.calls.increment();
+        if (errorCode != null) {
+            LongAdder count = metrics.errors.get(errorCode);
+            if (count == null) {
+                count = metrics.errors.computeIfAbsent(errorCode, code -> new LongAdder());
+            }
+            count.increment();
+        }
+    }
+
+    @Override
+    public void recordRetry(String endpoint) {
+        metricsFor(endpoint).retries.increment();
+    }
+
+    @Override
+    public void recordBytesSent(String endpoint, long bytes) {
+        metricsFor(endpoint).bytesSent.add(bytes);
+    }
+
+    @Override
+    public void recordBytesReceived(String endpoint, long bytes) {
+        metricsFor(endpoint).bytesReceived.add(bytes);
+    }
+
+    /**
+     * Returns the metrics of an endpoint, or null if it has not been called
+     *
+     * @param endpoint Endpoint name, such as {@code POST /v1/payment_intents}
+     */
+    public EndpointMetrics getEndpoint(String endpoint) {
+        return endpoints.get(endpoint);
+    }
+
+    /**
+     * Returns the metrics of every endpoint called so far, sorted by name
+     */
+    public Map<String, EndpointMetrics> getEndpoints() {
+        return Collections.unmodifiableMap(new TreeMap<>(endpoints));
+    }
+
+    /**
+     * Forgets all recorded values
+     */
+    public void reset() {
+        endpoints.clear();
+    }
+
+    private EndpointMetrics metricsFor(String endpoint) {
+        EndpointMetrics metrics = endpoints.get(endpoint);
+        if (metrics == null) {
+            metrics = endpoints.computeIfAbsent(endpoint, EndpointMetrics::new);
+        }
+        return metrics;
+    }
+
+    /**
+     * EndpointMetrics holds the live counters of one endpoint
+     */
+    public static final class EndpointMetrics {
+        private final String endpoint;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder calls = new LongAdder();
+        private final ConcurrentMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder bytesSent = new LongAdder();
+        private final LongAdder bytesReceived = new LongAdder();
+
+        EndpointMetrics(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        public String getEndpoint() { return endpoint; }
+
+        /** Latency distribution of completed calls, successful or not */
+        public LatencyHistogram getLatency() { return latency; }
+
+        /** Number of completed calls */
+        public long getCalls() { return calls.sum(); }
+
+        /** Number of failed calls */
+        public long getErrors() {
+            long total = 0;
+            for (LongAdder count : errors.values()) {
+                total += count.sum();
+            }
+            return total;
+        }
+
+        /** Failed calls by error code */
+        public Map<String, Long> getErrorsByCode() {
+            Map<String, Long> result = new HashMap<>();
+            for (Map.Entry<String, LongAdder> entry : errors.entrySet()) {
+                result.put(entry.getKey(), entry.getValue().sum());
+            }
+            return result;
+        }
+
+        /** Number of retry attempts */
+        public long getRetries() { return retries.sum(); }
+
+        /** Request body bytes written */
+        public long getBytesSent() { return bytesSent.sum(); }
+
+        /** Response body bytes read */
+        public long getBytesReceived() { return bytesReceived.sum(); }
+
+        @Override
+        public String toString() {
+            return "EndpointMetrics{" + endpoint +
+                    ", calls=" + getCalls() +
+                    ", errors=" + getErrorsByCode() +
+                    ", retries=" + getRetries() +
+                    ", bytesSent=" + getBytesSent() +
+                    ", bytesReceived=" + getBytesReceived() +
+                    ", latency=" + latency + "}";
+        }
+    }
+}
@@ -6,11 +6,22 @@ import com.martianpay.developer.ListInvoicesResponse;
 import com.martianpay.developer.PaymentIntent;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * InvoiceService provides methods for managing invoices
  */
 public class InvoiceService extends MartianPayClient {
+    private static final PathTemplate INVOICES_ID = PathTemplate.of("/v1/invoices/%s")
+            .operation("GET", "getInvoice");
+    private static final PathTemplate INVOICES_ID_PAYMENT_INTENT = PathTemplate.of("/v1/invoices/%s/payment_intent")
+            .operation("GET", "getInvoicePaymentIntent");
+    private static final PathTemplate INVOICES_ID_SEND = PathTemplate.of("/v1/invoices/%s/send")
+            .operation("POST", "sendInvoice");
+    private static final PathTemplate INVOICES_ID_VOID = PathTemplate.of("/v1/invoices/%s/void")
+            .operation("POST", "voidInvoice");
+    private static final PathTemplate INVOICES = PathTemplate.of("/v1/invoices")
+            .operation("GET", "listInvoices");
 
     public InvoiceService(String apiKey) {
         super(apiKey);
@@ -20,6 +31,14 @@ public class InvoiceService extends MartianPayClient {
         super(apiKey, baseUrl);
     }
 
+    public InvoiceService(String apiKey, String baseUrl, TransportContext transport) {
+        super(apiKey, baseUrl, transport);
+    }
+
+    public InvoiceService(MartianPayClient client) {
+        super(client);
+    }
+
     /**
      * Lists merchant invoices
      *
@@ -28,7 +47,33 @@ public class InvoiceService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public ListInvoicesResponse listInvoices(ListMerchantInvoicesRequest params) throws IOException {
-        return sendRequestWithQuery("GET", "/v1/invoices", params, ListInvoicesResponse.class);
+        return sendRequestWithQuery("GET", INVOICES.expand(), params, ListInvoicesResponse.class);
+    }
+
+    /**
+     * Lists merchant invoices asynchronously
+     *
+     * @param params Invoice list request parameters
+     * @return Future completing with the invoice list response
+     * @see #listInvoices
+     */
+    public CompletableFuture<ListInvoicesResponse> listInvoicesAsync(ListMerchantInvoicesRequest params) {
+        return sendRequestWithQueryAsync("GET", INVOICES.expand(), params, ListInvoicesResponse.class);
+    }
+
+    /**
+     * Iterates over all invoices matching the list parameters, fetching pages lazily
+     *
+     * The walk starts at the request's offset and fetches {@code limit} items per call (or {@link Pager#DEFAULT_PAGE_SIZE}).
+     *
+     * @param params List parameters; the paging fields are not modified
+     * @return Pager over the matching invoices
+     * @see #listInvoices
+     */
+    public Pager<InvoiceDetails> paginateInvoices(ListMerchantInvoicesRequest params) {
+        return Pager.byOffset(this, INVOICES.expand(), params,
+                params != null ? params.getOffset() : null, params != null ? params.getLimit() : null,
+                ListInvoicesResponse.class, ListInvoicesResponse::getData, ListInvoicesResponse::getTotal);
     }
 
     /**
@@ -39,8 +84,18 @@ public class InvoiceService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public InvoiceDetails getInvoice(String invoiceID) throws IOException {
-        String path = String.format("/v1/invoices/%s", invoiceID);
-        return sendRequest("GET", path, null, InvoiceDetails.class);
+        return sendRequest("GET", INVOICES_ID.expand(invoiceID), null, InvoiceDetails.class);
+    }
+
+    /**
+     * Gets merchant invoice asynchronously
+     *
+     * @param invoiceID Invoice ID
+     * @return Future completing with the invoice details
+     * @see #getInvoice
+     */
+    public CompletableFuture<InvoiceDetails> getInvoiceAsync(String invoiceID) {
+        return sendRequestAsync("GET", INVOICES_ID.expand(invoiceID), null, InvoiceDetails.class);
     }
 
     /**
@@ -51,8 +106,18 @@ public class InvoiceService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public PaymentIntent getInvoicePaymentIntent(String invoiceID) throws IOException {
-        String path = String.format("/v1/invoices/%s/payment_intent", invoiceID);
-        return sendRequest("GET", path, null, PaymentIntent.class);
+        return sendRequest("GET", INVOICES_ID_PAYMENT_INTENT.expand(invoiceID), null, PaymentIntent.class);
+    }
+
+    /**
+     * Gets invoice payment intent asynchronously
+     *
+     * @param invoiceID Invoice ID
+     * @return Future completing with the payment intent details
+     * @see #getInvoicePaymentIntent
+     */
+    public CompletableFuture<PaymentIntent> getInvoicePaymentIntentAsync(String invoiceID) {
+        return sendRequestAsync("GET", INVOICES_ID_PAYMENT_INTENT.expand(invoiceID), null, PaymentIntent.class);
     }
 
     /**
@@ -75,8 +140,18 @@ public class InvoiceService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public InvoiceDetails sendInvoice(String invoiceID) throws IOException {
-        String path = String.format("/v1/invoices/%s/send", invoiceID);
-        return sendRequest("POST", path, null, InvoiceDetails.class);
+        return sendRequest("POST", INVOICES_ID_SEND.expand(invoiceID), null, InvoiceDetails.class);
+    }
+
+    /**
+     * Sends invoice to customer asynchronously
+     *
+     * @param invoiceID Invoice ID
+     * @return Future completing with the updated invoice details
+     * @see #sendInvoice
+     */
+    public CompletableFuture<InvoiceDetails> sendInvoiceAsync(String invoiceID) {
+        return sendRequestAsync("POST", INVOICES_ID_SEND.expand(invoiceID), null, InvoiceDetails.class);
     }
 
     /**
@@ -87,7 +162,17 @@ public class InvoiceService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public InvoiceDetails voidInvoice(String invoiceID) throws IOException {
-        String path = String.format("/v1/invoices/%s/void", invoiceID);
-        return sendRequest("POST", path, null, InvoiceDetails.class);
+        return sendRequest("POST", INVOICES_ID_VOID.expand(invoiceID), null, InvoiceDetails.class);
+    }
+
+    /**
+     * Voids invoice asynchronously
+     *
+     * @param invoiceID Invoice ID
+     * @return Future completing with the updated invoice details
+     * @see #voidInvoice
+     */
+    public CompletableFuture<InvoiceDetails> voidInvoiceAsync(String invoiceID) {
+        return sendRequestAsync("POST", INVOICES_ID_VOID.expand(invoiceID), null, InvoiceDetails.class);
     }
 }
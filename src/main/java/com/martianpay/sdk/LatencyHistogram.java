@@ -0,0 +1,133 @@
+package com.martianpay.sdk;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram records durations into log-linear buckets, in the style of HdrHistogram.
+ *
+ * Values are kept in microseconds. Below 64us every value has its own bucket; above, each power
+ * of two is split into 32 linear sub-buckets, so a reported percentile is within about 1.6% of
+ * the recorded value, from 1us up to several days. Recording is lock-free (one atomic increment
+ * on a fixed array of 1,184 counters) and never allocates, so it is safe on the call path.
+ * Reads scan the counters without stopping writers, and may miss values recorded meanwhile.
+ */
+public final class LatencyHistogram {
+    private static final int LINEAR_BUCKETS = 64;
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /** Exponent of the first log bucket: values from 64us */
+    private static final int FIRST_EXPONENT = 6;
+    /** Exponent of the last log bucket; larger values are clamped (2^41us is about 25 days) */
+    private static final int LAST_EXPONENT = 40;
+    private static final int BUCKETS = LINEAR_BUCKETS + (LAST_EXPONENT - FIRST_EXPONENT + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Records a duration
+     *
+     * @param nanos Duration in nanoseconds; negative values count as zero
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        counts.incrementAndGet(indexOf(micros));
+        totalCount.increment();
+        totalMicros.add(micros);
+        long max = maxMicros.get();
+        while (micros > max && !maxMicros.compareAndSet(max, micros)) {
+            max = maxMicros.get();
+        }
+    }
+
+    /** Number of recorded values */
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    /** Largest recorded value, in nanoseconds */
+    public long getMaxNanos() {
+        return TimeUnit.MICROSECONDS.toNanos(maxMicros.get());
+    }
+
+    /** Mean of the recorded values, in nanoseconds, or 0 if there are none */
+    public long getMeanNanos() {
+        long count = totalCount.sum();
+        return count == 0 ? 0 : TimeUnit.MICROSECONDS.toNanos(totalMicros.sum() / count);
+    }
+
+    /**
+     * Returns the value at a percentile, in nanoseconds, or 0 if nothing was recorded
+     *
+     * @param percentile Percentile between 0 and 100, such as 99.9
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return TimeUnit.MICROSECONDS.toNanos(Math.min(valueOf(i), maxMicros.get()));
+            }
+        }
+        return getMaxNanos();
+    }
+
+    /**
+     * Clears all recorded values
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.reset();
+        totalMicros.reset();
+        maxMicros.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LatencyHistogram{count=%d, p50=%dus, p99=%dus, max=%dus}", getCount(),
+                TimeUnit.NANOSECONDS.toMicros(getValueAtPercentile(50)),
+                TimeUnit.NANOSECONDS.toMicros(getValueAtPercentile(99)), maxMicros.get());
+    }
+
+    static int indexOf(long micros) {
+        if (micros < LINEAR_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > LAST_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_BUCKETS + (exponent - FIRST_EXPONENT) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Returns the midpoint of a bucket, in microseconds
+     */
+    static long valueOf(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+        int exponent = (index - LINEAR_BUCKETS) / SUB_BUCKETS + FIRST_EXPONENT;
+        int subBucket = (index - LINEAR_BUCKETS) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (SUB_BUCKETS + subBucket) * width + width / 2;
+    }
+}
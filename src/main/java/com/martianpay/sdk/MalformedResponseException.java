@@ -0,0 +1,22 @@
+package com.martianpay.sdk;
+
+import java.io.IOException;
+
+/**
+ * MalformedResponseException reports a successful HTTP response whose body could not be decoded
+ * as an API envelope.
+ *
+ * The server has received and processed the request by then, so the {@link RetryPolicy} never
+ * retries it: sending a write again could apply it twice.
+ */
+public class MalformedResponseException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    public MalformedResponseException(String message) {
+        super(message);
+    }
+
+    public MalformedResponseException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -1,30 +1,27 @@
 package com.martianpay.sdk;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import okhttp3.*;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.util.Base64;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
 
 /**
  * MartianPayClient is the main client for interacting with the MartianPay API
  */
 public class MartianPayClient {
-    private static final Logger logger = LoggerFactory.getLogger(MartianPayClient.class);
     private static final String DEFAULT_API_URL = "https://api.martianpay.com";
-    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
 
     private final String apiKey;
     private final String baseUrl;
-    private final OkHttpClient httpClient;
+    private final TransportContext transport;
     private final Gson gson;
+    private final RequestPipeline pipeline;
+    private final MartianPayClient root;
+    private final ConcurrentMap<Class<?>, MartianPayClient> services;
 
     /**
      * Creates a new MartianPayClient with the given API key
@@ -42,16 +39,39 @@ public class MartianPayClient {
      * @param baseUrl Custom API base URL
      */
     public MartianPayClient(String apiKey, String baseUrl) {
+        this(apiKey, baseUrl, TransportContext.getDefault());
+    }
+
+    /**
+     * Creates a new MartianPayClient on a dedicated transport context
+     *
+     * @param apiKey    Your MartianPay API key
+     * @param baseUrl   Custom API base URL
+     * @param transport Transport context providing the connection pool, dispatcher and Gson instance
+     */
+    public MartianPayClient(String apiKey, String baseUrl, TransportContext transport) {
         this.apiKey = apiKey;
         this.baseUrl = baseUrl;
-        this.httpClient = new OkHttpClient.Builder()
-                .connectTimeout(30, TimeUnit.SECONDS)
-                .readTimeout(30, TimeUnit.SECONDS)
-                .writeTimeout(30, TimeUnit.SECONDS)
-                .build();
-        this.gson = new GsonBuilder()
-                .setPrettyPrinting()
-                .create();
+        this.transport = transport;
+        this.gson = transport.getGson();
+        this.pipeline = new RequestPipeline(apiKey, baseUrl, transport);
+        this.root = this;
+        this.services = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Creates a service sharing the API key, base URL, transport and service cache of a parent client
+     *
+     * @param parent Client whose configuration is shared
+     */
+    protected MartianPayClient(MartianPayClient parent) {
+        this.apiKey = parent.apiKey;
+        this.baseUrl = parent.baseUrl;
+        this.transport = parent.transport;
+        this.gson = parent.gson;
+        this.pipeline = parent.pipeline;
+        this.root = parent.root;
+        this.services = parent.services;
     }
 
     /**
@@ -92,82 +112,119 @@ public class MartianPayClient {
      * @throws IOException if request fails
      */
     protected <T> T sendRequest(String method, String path, Object requestBody, Class<T> responseType) throws IOException {
-        String url = baseUrl + path;
-        Request.Builder requestBuilder = new Request.Builder().url(url);
-
-        // Add authorization header
-        String auth = apiKey + ":";
-        String encodedAuth = Base64.getEncoder().encodeToString(auth.getBytes(StandardCharsets.UTF_8));
-        requestBuilder.header("Authorization", "Basic " + encodedAuth);
-        requestBuilder.header("Content-Type", "application/json");
-
-        // Build request body
-        RequestBody body = null;
-        if (requestBody != null) {
-            String jsonBody = gson.toJson(requestBody);
-            body = RequestBody.create(jsonBody, JSON);
+        return execute(ApiRequest.builder(method, path)
+                .body(requestBody)
+                .responseType(responseType)
+                .build());
+    }
+
+    /**
+     * Sends an HTTP request to the MartianPay API
+     *
+     * @param method       HTTP method (GET, POST, DELETE, etc.)
+     * @param path         API endpoint path expanded from a PathTemplate
+     * @param requestBody  Request body object (can be null for GET requests)
+     * @param responseType Response type class
+     * @param <T>          Response type
+     * @return Parsed response object
+     * @throws IOException if request fails
+     */
+    protected <T> T sendRequest(String method, ApiPath path, Object requestBody, Class<T> responseType) throws IOException {
+        return execute(ApiRequest.builder(method, path)
+                .body(requestBody)
+                .responseType(responseType)
+                .build());
+    }
+
+    /**
+     * Sends an HTTP request to the MartianPay API without blocking the calling thread
+     *
+     * @param method       HTTP method (GET, POST, DELETE, etc.)
+     * @param path         API endpoint path
+     * @param requestBody  Request body object (can be null for GET requests)
+     * @param responseType Response type class
+     * @param <T>          Response type
+     * @return Future completing with the parsed response object, or exceptionally with an IOException
+     */
+    protected <T> CompletableFuture<T> sendRequestAsync(String method, String path, Object requestBody, Class<T> responseType) {
+        try {
+            return executeAsync(ApiRequest.builder(method, path)
+                    .body(requestBody)
+                    .responseType(responseType)
+                    .build());
+        } catch (RuntimeException e) {
+            return failedFuture(e);
         }
+    }
 
-        // Set HTTP method
-        switch (method.toUpperCase()) {
-            case "GET":
-                requestBuilder.get();
-                break;
-            case "POST":
-                requestBuilder.post(body != null ? body : RequestBody.create("", null));
-                break;
-            case "DELETE":
-                requestBuilder.delete(body);
-                break;
-            case "PUT":
-                requestBuilder.put(body != null ? body : RequestBody.create("", null));
-                break;
-            default:
-                throw new IllegalArgumentException("Unsupported HTTP method: " + method);
+    /**
+     * Sends an HTTP request to the MartianPay API without blocking the calling thread
+     *
+     * @param method       HTTP method (GET, POST, DELETE, etc.)
+     * @param path         API endpoint path expanded from a PathTemplate
+     * @param requestBody  Request body object (can be null for GET requests)
+     * @param responseType Response type class
+     * @param <T>          Response type
+     * @return Future completing with the parsed response object, or exceptionally with an IOException
+     */
+    protected <T> CompletableFuture<T> sendRequestAsync(String method, ApiPath path, Object requestBody, Class<T> responseType) {
+        try {
+            return executeAsync(ApiRequest.builder(method, path)
+                    .body(requestBody)
+                    .responseType(responseType)
+                    .build());
+        } catch (RuntimeException e) {
+            return failedFuture(e);
         }
+    }
 
-        Request request = requestBuilder.build();
-
-        try (Response response = httpClient.newCall(request).execute()) {
-            String responseBody = response.body() != null ? response.body().string() : "";
-
-            // Check HTTP status code
-            if (!response.isSuccessful()) {
-                String statusText = getHTTPStatusText(response.code());
-                if (!responseBody.isEmpty()) {
-                    throw new IOException(String.format("HTTP %d %s: %s", response.code(), statusText, responseBody));
-                }
-                throw new IOException(String.format("HTTP %d %s", response.code(), statusText));
-            }
-
-            // Parse common response
-            CommonResponse commonResponse = gson.fromJson(responseBody, CommonResponse.class);
-
-            // Check for business-level errors
-            if (commonResponse.getErrorCode() != null &&
-                    !commonResponse.getErrorCode().isEmpty() &&
-                    !"ok".equals(commonResponse.getErrorCode()) &&
-                    !"success".equals(commonResponse.getErrorCode())) {
-                throw new IOException(String.format("API error [%s]: %s",
-                        commonResponse.getErrorCode(), commonResponse.getMsg()));
-            }
-
-            // Legacy: check deprecated Code field
-            if (commonResponse.getCode() != 0) {
-                throw new IOException("API error: " + commonResponse.getMsg());
-            }
-
-            // Parse data field
-            if (responseType == Void.class || responseType == void.class) {
-                return null;
-            }
-
-            return gson.fromJson(commonResponse.getData(), responseType);
+    /**
+     * Sends a mutating HTTP request with an idempotency key, so that retries cannot apply it twice
+     *
+     * @param method         HTTP method (usually POST)
+     * @param path           API endpoint path expanded from a PathTemplate
+     * @param requestBody    Request body object
+     * @param responseType   Response type class
+     * @param idempotencyKey Caller-supplied key, or null to generate one for this call
+     * @param <T>            Response type
+     * @return Parsed response object
+     * @throws IOException if request fails
+     */
+    protected <T> T sendIdempotentRequest(String method, ApiPath path, Object requestBody, Class<T> responseType,
+                                          String idempotencyKey) throws IOException {
+        return execute(ApiRequest.builder(method, path)
+                .body(requestBody)
+                .responseType(responseType)
+                .idempotencyKey(idempotencyKey != null ? idempotencyKey : ApiRequest.newIdempotencyKey())
+                .build());
+    }
+
+    /**
+     * Sends a mutating HTTP request with an idempotency key without blocking the calling thread
+     *
+     * @param method         HTTP method (usually POST)
+     * @param path           API endpoint path expanded from a PathTemplate
+     * @param requestBody    Request body object
+     * @param responseType   Response type class
+     * @param idempotencyKey Caller-supplied key, or null to generate one for this call
+     * @param <T>            Response type
+     * @return Future completing with the parsed response object, or exceptionally with an IOException
+     */
+    protected <T> CompletableFuture<T> sendIdempotentRequestAsync(String method, ApiPath path, Object requestBody,
+                                                                  Class<T> responseType, String idempotencyKey) {
+        try {
+            return executeAsync(ApiRequest.builder(method, path)
+                    .body(requestBody)
+                    .responseType(responseType)
+                    .idempotencyKey(idempotencyKey != null ? idempotencyKey : ApiRequest.newIdempotencyKey())
+                    .build());
+        } catch (RuntimeException e) {
+            return failedFuture(e);
         }
     }
 
     /**
-     * Sends an HTTP GET request with query parameters
+     * Sends an HTTP request with query parameters
      *
      * @param method       HTTP method (usually GET)
      * @param path         API endpoint path
@@ -178,62 +235,69 @@ public class MartianPayClient {
      * @throws IOException if request fails
      */
     protected <T> T sendRequestWithQuery(String method, String path, Object params, Class<T> responseType) throws IOException {
-        HttpUrl.Builder urlBuilder = HttpUrl.parse(baseUrl + path).newBuilder();
+        return execute(ApiRequest.builder(method, path)
+                .query(params)
+                .responseType(responseType)
+                .build());
+    }
+
+    /**
+     * Sends an HTTP request with query parameters
+     *
+     * @param method       HTTP method (usually GET)
+     * @param path         API endpoint path expanded from a PathTemplate
+     * @param params       Query parameters object (can be null)
+     * @param responseType Response type class
+     * @param <T>          Response type
+     * @return Parsed response object
+     * @throws IOException if request fails
+     */
+    protected <T> T sendRequestWithQuery(String method, ApiPath path, Object params, Class<T> responseType) throws IOException {
+        return execute(ApiRequest.builder(method, path)
+                .query(params)
+                .responseType(responseType)
+                .build());
+    }
 
-        // Build query parameters from object using reflection
-        if (params != null) {
-            addQueryParams(urlBuilder, params);
+    /**
+     * Sends an HTTP request with query parameters without blocking the calling thread
+     *
+     * @param method       HTTP method (usually GET)
+     * @param path         API endpoint path
+     * @param params       Query parameters object (can be null)
+     * @param responseType Response type class
+     * @param <T>          Response type
+     * @return Future completing with the parsed response object, or exceptionally with an IOException
+     */
+    protected <T> CompletableFuture<T> sendRequestWithQueryAsync(String method, String path, Object params, Class<T> responseType) {
+        try {
+            return executeAsync(ApiRequest.builder(method, path)
+                    .query(params)
+                    .responseType(responseType)
+                    .build());
+        } catch (RuntimeException e) {
+            return failedFuture(e);
         }
+    }
 
-        String url = urlBuilder.build().toString();
-        Request.Builder requestBuilder = new Request.Builder().url(url);
-
-        // Add authorization header
-        String auth = apiKey + ":";
-        String encodedAuth = Base64.getEncoder().encodeToString(auth.getBytes(StandardCharsets.UTF_8));
-        requestBuilder.header("Authorization", "Basic " + encodedAuth);
-        requestBuilder.header("Content-Type", "application/json");
-
-        // Set HTTP method (usually GET for query params)
-        requestBuilder.get();
-
-        Request request = requestBuilder.build();
-
-        try (Response response = httpClient.newCall(request).execute()) {
-            String responseBody = response.body() != null ? response.body().string() : "";
-
-            // Check HTTP status code
-            if (!response.isSuccessful()) {
-                String statusText = getHTTPStatusText(response.code());
-                if (!responseBody.isEmpty()) {
-                    throw new IOException(String.format("HTTP %d %s: %s", response.code(), statusText, responseBody));
-                }
-                throw new IOException(String.format("HTTP %d %s", response.code(), statusText));
-            }
-
-            // Parse common response
-            CommonResponse commonResponse = gson.fromJson(responseBody, CommonResponse.class);
-
-            // Check for business-level errors
-            if (commonResponse.getErrorCode() != null &&
-                    !commonResponse.getErrorCode().isEmpty() &&
-                    !"ok".equals(commonResponse.getErrorCode()) &&
-                    !"success".equals(commonResponse.getErrorCode())) {
-                throw new IOException(String.format("API error [%s]: %s",
-                        commonResponse.getErrorCode(), commonResponse.getMsg()));
-            }
-
-            // Legacy: check deprecated Code field
-            if (commonResponse.getCode() != 0) {
-                throw new IOException("API error: " + commonResponse.getMsg());
-            }
-
-            // Parse data field
-            if (responseType == Void.class || responseType == void.class) {
-                return null;
-            }
-
-            return gson.fromJson(commonResponse.getData(), responseType);
+    /**
+     * Sends an HTTP request with query parameters without blocking the calling thread
+     *
+     * @param method       HTTP method (usually GET)
+     * @param path         API endpoint path expanded from a PathTemplate
+     * @param params       Query parameters object (can be null)
+     * @param responseType Response type class
+     * @param <T>          Response type
+     * @return Future completing with the parsed response object, or exceptionally with an IOException
+     */
+    protected <T> CompletableFuture<T> sendRequestWithQueryAsync(String method, ApiPath path, Object params, Class<T> responseType) {
+        try {
+            return executeAsync(ApiRequest.builder(method, path)
+                    .query(params)
+                    .responseType(responseType)
+                    .build());
+        } catch (RuntimeException e) {
+            return failedFuture(e);
         }
     }
 
@@ -250,144 +314,102 @@ public class MartianPayClient {
      */
     protected <T> T sendRequestWithTypeToken(String method, String path, Object requestBody,
                                              com.google.gson.reflect.TypeToken<T> typeToken) throws IOException {
-        Request.Builder requestBuilder = new Request.Builder()
-                .url(baseUrl + path);
-
-        // Add authorization header
-        String auth = apiKey + ":";
-        String encodedAuth = Base64.getEncoder().encodeToString(auth.getBytes(StandardCharsets.UTF_8));
-        requestBuilder.header("Authorization", "Basic " + encodedAuth);
-        requestBuilder.header("Content-Type", "application/json");
-
-        // Add request body if present
-        if (requestBody != null) {
-            String json = gson.toJson(requestBody);
-            requestBuilder.method(method, RequestBody.create(json, JSON));
-        } else {
-            if ("GET".equals(method) || "DELETE".equals(method)) {
-                requestBuilder.method(method, null);
-            } else {
-                requestBuilder.method(method, RequestBody.create("", JSON));
-            }
-        }
+        return execute(ApiRequest.builder(method, path)
+                .body(requestBody)
+                .responseType(typeToken.getType())
+                .build());
+    }
 
-        try (Response response = httpClient.newCall(requestBuilder.build()).execute()) {
-            String responseBody = response.body().string();
-
-            if (!response.isSuccessful()) {
-                String statusText = getHTTPStatusText(response.code());
-                if (!responseBody.isEmpty()) {
-                    throw new IOException(String.format("HTTP %d %s: %s", response.code(), statusText, responseBody));
-                }
-                throw new IOException(String.format("HTTP %d %s", response.code(), statusText));
-            }
-
-            // Parse common response
-            CommonResponse commonResponse = gson.fromJson(responseBody, CommonResponse.class);
-
-            // Check for business-level errors
-            if (commonResponse.getErrorCode() != null &&
-                    !commonResponse.getErrorCode().isEmpty() &&
-                    !"ok".equals(commonResponse.getErrorCode()) &&
-                    !"success".equals(commonResponse.getErrorCode())) {
-                throw new IOException(String.format("API error [%s]: %s",
-                        commonResponse.getErrorCode(), commonResponse.getMsg()));
-            }
-
-            // Legacy: check deprecated Code field
-            if (commonResponse.getCode() != 0) {
-                throw new IOException("API error: " + commonResponse.getMsg());
-            }
-
-            // Parse data field using TypeToken
-            return gson.fromJson(commonResponse.getData(), typeToken.getType());
-        }
+    /**
+     * Sends an HTTP request and returns a list response using TypeToken for proper generic type handling
+     *
+     * @param method       HTTP method (GET, POST, DELETE, etc.)
+     * @param path         API endpoint path expanded from a PathTemplate
+     * @param requestBody  Request body (can be null for GET requests)
+     * @param typeToken    TypeToken for the list type
+     * @param <T>          Response type
+     * @return Parsed list response
+     * @throws IOException if request fails
+     */
+    protected <T> T sendRequestWithTypeToken(String method, ApiPath path, Object requestBody,
+                                             com.google.gson.reflect.TypeToken<T> typeToken) throws IOException {
+        return execute(ApiRequest.builder(method, path)
+                .body(requestBody)
+                .responseType(typeToken.getType())
+                .build());
     }
 
     /**
-     * Adds query parameters from an object using reflection
-     * Supports Map or fields tagged with @SerializedName or using field names directly
+     * Sends an HTTP request using TypeToken for the response type without blocking the calling thread
+     *
+     * @param method       HTTP method (GET, POST, DELETE, etc.)
+     * @param path         API endpoint path
+     * @param requestBody  Request body (can be null for GET requests)
+     * @param typeToken    TypeToken for the list type
+     * @param <T>          Response type
+     * @return Future completing with the parsed list response, or exceptionally with an IOException
      */
-    private void addQueryParams(HttpUrl.Builder urlBuilder, Object params) {
-        // Handle Map type directly
-        if (params instanceof java.util.Map) {
-            java.util.Map<?, ?> map = (java.util.Map<?, ?>) params;
-            for (java.util.Map.Entry<?, ?> entry : map.entrySet()) {
-                String key = String.valueOf(entry.getKey());
-                Object value = entry.getValue();
-                if (value != null) {
-                    // Skip empty strings
-                    if (value instanceof String && ((String) value).isEmpty()) {
-                        continue;
-                    }
-                    urlBuilder.addQueryParameter(key, String.valueOf(value));
-                }
-            }
-            return;
+    protected <T> CompletableFuture<T> sendRequestWithTypeTokenAsync(String method, String path, Object requestBody,
+                                                                     com.google.gson.reflect.TypeToken<T> typeToken) {
+        try {
+            return executeAsync(ApiRequest.builder(method, path)
+                    .body(requestBody)
+                    .responseType(typeToken.getType())
+                    .build());
+        } catch (RuntimeException e) {
+            return failedFuture(e);
         }
+    }
 
-        // Handle regular objects using reflection
-        java.lang.reflect.Field[] fields = params.getClass().getDeclaredFields();
-
-        for (java.lang.reflect.Field field : fields) {
-            field.setAccessible(true);
-            try {
-                Object value = field.get(params);
-                if (value == null) {
-                    continue;
-                }
-
-                // Get field name from @SerializedName annotation or field name
-                String fieldName = field.getName();
-                com.google.gson.annotations.SerializedName annotation =
-                    field.getAnnotation(com.google.gson.annotations.SerializedName.class);
-                if (annotation != null) {
-                    fieldName = annotation.value();
-                }
-
-                // Skip empty strings
-                if (value instanceof String && ((String) value).isEmpty()) {
-                    continue;
-                }
-
-                // Add to query params
-                if (value instanceof Integer || value instanceof Long || value instanceof Boolean) {
-                    urlBuilder.addQueryParameter(fieldName, String.valueOf(value));
-                } else if (value instanceof String) {
-                    urlBuilder.addQueryParameter(fieldName, (String) value);
-                }
-            } catch (IllegalAccessException e) {
-                // Skip this field
-            }
+    /**
+     * Sends an HTTP request using TypeToken for the response type without blocking the calling thread
+     *
+     * @param method       HTTP method (GET, POST, DELETE, etc.)
+     * @param path         API endpoint path expanded from a PathTemplate
+     * @param requestBody  Request body (can be null for GET requests)
+     * @param typeToken    TypeToken for the list type
+     * @param <T>          Response type
+     * @return Future completing with the parsed list response, or exceptionally with an IOException
+     */
+    protected <T> CompletableFuture<T> sendRequestWithTypeTokenAsync(String method, ApiPath path, Object requestBody,
+                                                                     com.google.gson.reflect.TypeToken<T> typeToken) {
+        try {
+            return executeAsync(ApiRequest.builder(method, path)
+                    .body(requestBody)
+                    .responseType(typeToken.getType())
+                    .build());
+        } catch (RuntimeException e) {
+            return failedFuture(e);
         }
     }
 
     /**
-     * Returns human-readable text for HTTP status codes
+     * Executes a request through the request pipeline
+     *
+     * @param request Request to execute
+     * @param <T>     Response type, matching the request's response type
+     * @return Decoded response data
+     * @throws IOException if request fails
      */
-    private String getHTTPStatusText(int statusCode) {
-        switch (statusCode) {
-            case 400: return "Bad Request";
-            case 401: return "Unauthorized";
-            case 402: return "Payment Required";
-            case 403: return "Forbidden";
-            case 404: return "Not Found";
-            case 405: return "Method Not Allowed";
-            case 409: return "Conflict";
-            case 422: return "Unprocessable Entity";
-            case 429: return "Too Many Requests";
-            case 500: return "Internal Server Error";
-            case 502: return "Bad Gateway";
-            case 503: return "Service Unavailable";
-            case 504: return "Gateway Timeout";
-            default:
-                if (statusCode >= 400 && statusCode < 500) {
-                    return "Client Error";
-                } else if (statusCode >= 500) {
-                    return "Server Error";
-                }
-                return "Unknown Status";
-        }
+    @SuppressWarnings("unchecked")
+    protected <T> T execute(ApiRequest request) throws IOException {
+        return (T) pipeline.execute(request);
+    }
+
+    /**
+     * Executes a request through the request pipeline without blocking the calling thread
+     *
+     * @param request Request to execute
+     * @param <T>     Response type, matching the request's response type
+     * @return Future completing with the decoded response data
+     */
+    @SuppressWarnings("unchecked")
+    protected <T> CompletableFuture<T> executeAsync(ApiRequest request) {
+        return (CompletableFuture<T>) (CompletableFuture<?>) pipeline.executeAsync(request);
+    }
+
+    protected static <T> CompletableFuture<T> failedFuture(Throwable error) {
+        return RequestPipeline.failedFuture(error);
     }
 
     public String getApiKey() {
@@ -402,64 +424,89 @@ public class MartianPayClient {
         return gson;
     }
 
+    public TransportContext getTransport() {
+        return transport;
+    }
+
+    /**
+     * Returns connection pool and dispatcher statistics of the shared transport
+     *
+     * @return Pool statistics snapshot
+     */
+    public TransportContext.PoolStats getPoolStats() {
+        return transport.getPoolStats();
+    }
+
+    /**
+     * Returns the cached service of the given type, creating it from the root client on first use
+     */
+    @SuppressWarnings("unchecked")
+    private <S extends MartianPayClient> S service(Class<S> type, Function<MartianPayClient, S> factory) {
+        MartianPayClient cached = services.get(type);
+        if (cached == null) {
+            cached = services.computeIfAbsent(type, k -> factory.apply(root));
+        }
+        return (S) cached;
+    }
+
     // Service getters
     public ApprovalService getApprovalService() {
-        return new ApprovalService(this.apiKey, this.baseUrl);
+        return service(ApprovalService.class, ApprovalService::new);
     }
 
     public AssetsService getAssetsService() {
-        return new AssetsService(this.apiKey, this.baseUrl);
+        return service(AssetsService.class, AssetsService::new);
     }
 
     public CustomerService getCustomerService() {
-        return new CustomerService(this.apiKey, this.baseUrl);
+        return service(CustomerService.class, CustomerService::new);
     }
 
     public InvoiceService getInvoiceService() {
-        return new InvoiceService(this.apiKey, this.baseUrl);
+        return service(InvoiceService.class, InvoiceService::new);
     }
 
     public MerchantAddressService getMerchantAddressService() {
-        return new MerchantAddressService(this.apiKey, this.baseUrl);
+        return service(MerchantAddressService.class, MerchantAddressService::new);
     }
 
     public OrderService getOrderService() {
-        return new OrderService(this.apiKey, this.baseUrl);
+        return service(OrderService.class, OrderService::new);
     }
 
     public PaymentIntentService getPaymentIntentService() {
-        return new PaymentIntentService(this.apiKey, this.baseUrl);
+        return service(PaymentIntentService.class, PaymentIntentService::new);
     }
 
     public PaymentLinkService getPaymentLinkService() {
-        return new PaymentLinkService(this.apiKey, this.baseUrl);
+        return service(PaymentLinkService.class, PaymentLinkService::new);
     }
 
     public PayoutService getPayoutService() {
-        return new PayoutService(this.apiKey, this.baseUrl);
+        return service(PayoutService.class, PayoutService::new);
     }
 
     public PayrollService getPayrollService() {
-        return new PayrollService(this.apiKey, this.baseUrl);
+        return service(PayrollService.class, PayrollService::new);
     }
 
     public ProductService getProductService() {
-        return new ProductService(this.apiKey, this.baseUrl);
+        return service(ProductService.class, ProductService::new);
     }
 
     public RefundService getRefundService() {
-        return new RefundService(this.apiKey, this.baseUrl);
+        return service(RefundService.class, RefundService::new);
     }
 
     public SellingPlanService getSellingPlanService() {
-        return new SellingPlanService(this.apiKey, this.baseUrl);
+        return service(SellingPlanService.class, SellingPlanService::new);
     }
 
     public StatsService getStatsService() {
-        return new StatsService(this.apiKey, this.baseUrl);
+        return service(StatsService.class, StatsService::new);
     }
 
     public SubscriptionService getSubscriptionService() {
-        return new SubscriptionService(this.apiKey, this.baseUrl);
+        return service(SubscriptionService.class, SubscriptionService::new);
     }
 }
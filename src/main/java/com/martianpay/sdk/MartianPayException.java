@@ -0,0 +1,66 @@
+package com.martianpay.sdk;
+
+import java.io.IOException;
+
+/**
+ * MartianPayException reports a failed API call: either a non-2xx HTTP status or an error
+ * reported in the response envelope.
+ *
+ * It extends IOException so existing callers catching IOException keep working.
+ */
+public class MartianPayException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+    private final String errorCode;
+    private final String apiMessage;
+    private final long retryAfterMillis;
+
+    public MartianPayException(String message, int statusCode, String errorCode, String apiMessage) {
+        this(message, statusCode, errorCode, apiMessage, -1);
+    }
+
+    public MartianPayException(String message, int statusCode, String errorCode, String apiMessage, long retryAfterMillis) {
+        super(message);
+        this.statusCode = statusCode;
+        this.errorCode = errorCode;
+        this.apiMessage = apiMessage;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * Returns the HTTP status code, or 0 if the error was reported in a 2xx response envelope
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Returns the envelope error_code, or null if the server did not provide one
+     */
+    public String getErrorCode() {
+        return errorCode;
+    }
+
+    /**
+     * Returns the envelope msg, or the raw response body for HTTP errors
+     */
+    public String getApiMessage() {
+        return apiMessage;
+    }
+
+    /**
+     * Returns the wait requested by the response's Retry-After header, in milliseconds, or -1 if
+     * there was none
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+
+    /**
+     * Returns true if the failure is an HTTP-level error (non-2xx status)
+     */
+    public boolean isHttpError() {
+        return statusCode != 0;
+    }
+}
@@ -8,11 +8,21 @@ import com.martianpay.developer.MerchantAddressListRequest;
 import com.martianpay.developer.MerchantAddressListResponse;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * MerchantAddressService provides methods for managing merchant addresses (wallets)
  */
 public class MerchantAddressService extends MartianPayClient {
+    private static final PathTemplate ADDRESSES_ID = PathTemplate.of("/v1/addresses/%s")
+            .operation("GET", "getMerchantAddress")
+            .operation("POST", "updateMerchantAddress")
+            .operation("DELETE", "deleteMerchantAddress");
+    private static final PathTemplate ADDRESSES_ID_VERIFY = PathTemplate.of("/v1/addresses/%s/verify")
+            .operation("POST", "verifyMerchantAddress");
+    private static final PathTemplate ADDRESSES = PathTemplate.of("/v1/addresses")
+            .operation("GET", "listMerchantAddresses")
+            .operation("POST", "createMerchantAddress");
 
     public MerchantAddressService(String apiKey) {
         super(apiKey);
@@ -22,6 +32,14 @@ public class MerchantAddressService extends MartianPayClient {
         super(apiKey, baseUrl);
     }
 
+    public MerchantAddressService(String apiKey, String baseUrl, TransportContext transport) {
+        super(apiKey, baseUrl, transport);
+    }
+
+    public MerchantAddressService(MartianPayClient client) {
+        super(client);
+    }
+
     /**
      * Creates a new merchant address
      *
@@ -30,7 +48,18 @@ public class MerchantAddressService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public MerchantAddress createMerchantAddress(MerchantAddressCreateRequest request) throws IOException {
-        return sendRequest("POST", "/v1/addresses", request, MerchantAddress.class);
+        return sendRequest("POST", ADDRESSES.expand(), request, MerchantAddress.class);
+    }
+
+    /**
+     * Creates a new merchant address asynchronously
+     *
+     * @param request Merchant address creation parameters
+     * @return Future completing with the created merchant address
+     * @see #createMerchantAddress
+     */
+    public CompletableFuture<MerchantAddress> createMerchantAddressAsync(MerchantAddressCreateRequest request) {
+        return sendRequestAsync("POST", ADDRESSES.expand(), request, MerchantAddress.class);
     }
 
     /**
@@ -41,7 +70,18 @@ public class MerchantAddressService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public MerchantAddress getMerchantAddress(String id) throws IOException {
-        return sendRequest("GET", "/v1/addresses/" + id, null, MerchantAddress.class);
+        return sendRequest("GET", ADDRESSES_ID.expand(id), null, MerchantAddress.class);
+    }
+
+    /**
+     * Retrieves a merchant address by ID asynchronously
+     *
+     * @param id Merchant address ID
+     * @return Future completing with the merchant address details
+     * @see #getMerchantAddress
+     */
+    public CompletableFuture<MerchantAddress> getMerchantAddressAsync(String id) {
+        return sendRequestAsync("GET", ADDRESSES_ID.expand(id), null, MerchantAddress.class);
     }
 
     /**
@@ -53,8 +93,19 @@ public class MerchantAddressService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public MerchantAddress updateMerchantAddress(String id, MerchantAddressUpdateRequest request) throws IOException {
-        String path = String.format("/v1/addresses/%s", id);
-        return sendRequest("POST", path, request, MerchantAddress.class);
+        return sendRequest("POST", ADDRESSES_ID.expand(id), request, MerchantAddress.class);
+    }
+
+    /**
+     * Updates a merchant address asynchronously
+     *
+     * @param id Address ID to update
+     * @param request Update parameters
+     * @return Future completing with the updated merchant address
+     * @see #updateMerchantAddress
+     */
+    public CompletableFuture<MerchantAddress> updateMerchantAddressAsync(String id, MerchantAddressUpdateRequest request) {
+        return sendRequestAsync("POST", ADDRESSES_ID.expand(id), request, MerchantAddress.class);
     }
 
     /**
@@ -66,8 +117,19 @@ public class MerchantAddressService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public MerchantAddress verifyMerchantAddress(String id, MerchantAddressVerifyRequest request) throws IOException {
-        String path = String.format("/v1/addresses/%s/verify", id);
-        return sendRequest("POST", path, request, MerchantAddress.class);
+        return sendRequest("POST", ADDRESSES_ID_VERIFY.expand(id), request, MerchantAddress.class);
+    }
+
+    /**
+     * Verifies a merchant address asynchronously
+     *
+     * @param id Address ID to verify
+     * @param request Verification parameters
+     * @return Future completing with the verified merchant address
+     * @see #verifyMerchantAddress
+     */
+    public CompletableFuture<MerchantAddress> verifyMerchantAddressAsync(String id, MerchantAddressVerifyRequest request) {
+        return sendRequestAsync("POST", ADDRESSES_ID_VERIFY.expand(id), request, MerchantAddress.class);
     }
 
     /**
@@ -77,7 +139,18 @@ public class MerchantAddressService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public void deleteMerchantAddress(String id) throws IOException {
-        sendRequest("DELETE", "/v1/addresses/" + id, null, Void.class);
+        sendRequest("DELETE", ADDRESSES_ID.expand(id), null, Void.class);
+    }
+
+    /**
+     * Deletes a merchant address by ID asynchronously
+     *
+     * @param id Address ID to delete
+     * @return Future completing when the request succeeds
+     * @see #deleteMerchantAddress
+     */
+    public CompletableFuture<Void> deleteMerchantAddressAsync(String id) {
+        return sendRequestAsync("DELETE", ADDRESSES_ID.expand(id), null, Void.class);
     }
 
     /**
@@ -88,6 +161,32 @@ public class MerchantAddressService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public MerchantAddressListResponse listMerchantAddresses(MerchantAddressListRequest request) throws IOException {
-        return sendRequestWithQuery("GET", "/v1/addresses", request, MerchantAddressListResponse.class);
+        return sendRequestWithQuery("GET", ADDRESSES.expand(), request, MerchantAddressListResponse.class);
+    }
+
+    /**
+     * Retrieves a paginated list of merchant addresses asynchronously
+     *
+     * @param request List parameters
+     * @return Future completing with the merchant address list response
+     * @see #listMerchantAddresses
+     */
+    public CompletableFuture<MerchantAddressListResponse> listMerchantAddressesAsync(MerchantAddressListRequest request) {
+        return sendRequestWithQueryAsync("GET", ADDRESSES.expand(), request, MerchantAddressListResponse.class);
+    }
+
+    /**
+     * Iterates over all merchant addresses matching the list parameters, fetching pages lazily
+     *
+     * The walk starts at the request's page and uses its page size (or {@link Pager#DEFAULT_PAGE_SIZE}).
+     *
+     * @param request List parameters; the paging fields are not modified
+     * @return Pager over the matching merchant addresses
+     * @see #listMerchantAddresses
+     */
+    public Pager<MerchantAddress> paginateMerchantAddresses(MerchantAddressListRequest request) {
+        return Pager.byPage(this, ADDRESSES.expand(), request,
+                request != null ? request.getPage() : null, request != null ? request.getPageSize() : null,
+                MerchantAddressListResponse.class, MerchantAddressListResponse::getMerchantAddresses, MerchantAddressListResponse::getTotal);
     }
 }
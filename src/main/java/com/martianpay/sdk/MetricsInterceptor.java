@@ -0,0 +1,56 @@
+package com.martianpay.sdk;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * MetricsInterceptor reports the latency and outcome of each logical call to a {@link MetricsRecorder}.
+ *
+ * It runs outside the retry stage, so a call is recorded once however many attempts it took. A
+ * recorder that throws is logged and does not change the call's outcome.
+ */
+final class MetricsInterceptor implements ApiInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger(MetricsInterceptor.class);
+
+    private final MetricsRecorder recorder;
+
+    MetricsInterceptor(MetricsRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Override
+    public Object intercept(Chain chain) throws IOException {
+        ApiRequest request = chain.request();
+        long startNanos = System.nanoTime();
+        Object result;
+        try {
+            result = chain.proceed(request);
+        } catch (IOException | RuntimeException e) {
+            record(request, startNanos, MetricsRecorder.errorCodeOf(e));
+            throw e;
+        }
+        record(request, startNanos, null);
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<Object> interceptAsync(Chain chain) {
+        ApiRequest request = chain.request();
+        long startNanos = System.nanoTime();
+        CompletableFuture<Object> inFlight = chain.proceedAsync(request);
+        inFlight.whenComplete((value, error) -> record(request, startNanos,
+                error != null ? MetricsRecorder.errorCodeOf(RequestPipeline.unwrap(error)) : null));
+        return inFlight;
+    }
+
+    private void record(ApiRequest request, long startNanos, String errorCode) {
+        try {
+            recorder.recordCall(request.getEndpoint(), System.nanoTime() - startNanos, errorCode);
+        } catch (RuntimeException e) {
+            logger.warn("MetricsRecorder failed for {}", request.getEndpoint(), e);
+        }
+    }
+}
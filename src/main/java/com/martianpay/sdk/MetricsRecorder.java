@@ -0,0 +1,90 @@
+package com.martianpay.sdk;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CancellationException;
+
+/**
+ * MetricsRecorder receives per-endpoint measurements of every call made through a TransportContext.
+ *
+ * Endpoints are named by method and path template, such as {@code POST /v1/payment_intents} or
+ * {@code GET /v1/payouts/%s}, so the number of distinct names is bounded by the API surface and
+ * safe to use as a metric tag. Implement this interface to feed Micrometer, Prometheus or any
+ * other registry; {@link InMemoryMetricsRecorder} is a lock-free implementation with latency
+ * histograms, and {@link #NOOP} discards everything.
+ *
+ * Methods are called on the calling thread or an OkHttp thread, on every call, and must be
+ * thread-safe, fast and non-blocking. A RuntimeException they throw is logged and ignored, so a
+ * failing recorder never fails the call.
+ */
+public interface MetricsRecorder {
+    /** Recorder that discards all measurements */
+    MetricsRecorder NOOP = new MetricsRecorder() {
+        @Override
+        public void recordCall(String endpoint, long latencyNanos, String errorCode) {
+        }
+
+        @Override
+        public void recordRetry(String endpoint) {
+        }
+
+        @Override
+        public void recordBytesSent(String endpoint, long bytes) {
+        }
+
+        @Override
+        public void recordBytesReceived(String endpoint, long bytes) {
+        }
+    };
+
+    /**
+     * Records a completed logical call, including its retries and rate limit waits
+     *
+     * @param endpoint     Endpoint name
+     * @param latencyNanos Time from the call entering the pipeline to its result
+     * @param errorCode    Error code of a failed call (see {@link #errorCodeOf}), or null on success
+     */
+    void recordCall(String endpoint, long latencyNanos, String errorCode);
+
+    /**
+     * Records that a call is being attempted again
+     */
+    void recordRetry(String endpoint);
+
+    /**
+     * Records the size of a request body written to the network
+     */
+    void recordBytesSent(String endpoint, long bytes);
+
+    /**
+     * Records the size of a response body read from the network
+     */
+    void recordBytesReceived(String endpoint, long bytes);
+
+    /**
+     * Returns the error code a failure is counted under: the API {@code error_code} when the
+     * server sent one, {@code http_<status>} for other HTTP errors, {@code api_error} for envelope
+     * errors without a code, {@code malformed_response} for bodies that could not be decoded, and
+     * {@code timeout}, {@code cancelled}, {@code network_error} or {@code sdk_error} for failures
+     * without a response
+     */
+    static String errorCodeOf(Throwable error) {
+        if (error instanceof MartianPayException) {
+            MartianPayException e = (MartianPayException) error;
+            if (e.getErrorCode() != null && !e.getErrorCode().isEmpty()) {
+                return e.getErrorCode();
+            }
+            return e.isHttpError() ? "http_" + e.getStatusCode() : "api_error";
+        }
+        if (error instanceof MalformedResponseException) {
+            return "malformed_response";
+        }
+        if (error instanceof InterruptedIOException) {
+            return "timeout";
+        }
+        if (error instanceof CancellationException) {
+            return "cancelled";
+        }
+        return error instanceof IOException ? "network_error" : "sdk_error";
+    }
+}
@@ -0,0 +1,45 @@
+package com.martianpay.sdk;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapterFactory;
+
+/**
+ * ModelGson builds the Gson instance used on the wire.
+ *
+ * Output is compact. The TypeAdapters generated at build time for the developer models are
+ * registered when present, so those models are bound without reflection; any other type, or all
+ * of them when the generated class is missing (for example when compiled without annotation
+ * processing), falls back to Gson's reflective binding with the same JSON.
+ */
+final class ModelGson {
+    static final String GENERATED_ADAPTERS = "com.martianpay.developer.GeneratedTypeAdapters";
+
+    private static final TypeAdapterFactory GENERATED = loadGenerated();
+
+    private ModelGson() {
+    }
+
+    static Gson create() {
+        GsonBuilder builder = new GsonBuilder();
+        if (GENERATED != null) {
+            builder.registerTypeAdapterFactory(GENERATED);
+        }
+        return builder.create();
+    }
+
+    /**
+     * Returns true if the generated model adapters are on the classpath
+     */
+    static boolean hasGeneratedAdapters() {
+        return GENERATED != null;
+    }
+
+    private static TypeAdapterFactory loadGenerated() {
+        try {
+            return (TypeAdapterFactory) Class.forName(GENERATED_ADAPTERS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+            return null;
+        }
+    }
+}
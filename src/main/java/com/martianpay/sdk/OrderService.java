@@ -1,15 +1,21 @@
 package com.martianpay.sdk;
 
 import com.martianpay.developer.OrderDetail;
+import com.martianpay.developer.OrderListItem;
 import com.martianpay.developer.OrderListRequest;
 import com.martianpay.developer.OrderListResponse;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * OrderService provides methods for managing orders
  */
 public class OrderService extends MartianPayClient {
+    private static final PathTemplate ORDERS_ID = PathTemplate.of("/v1/orders/%s")
+            .operation("GET", "getOrder");
+    private static final PathTemplate ORDERS = PathTemplate.of("/v1/orders")
+            .operation("GET", "listOrders");
 
     public OrderService(String apiKey) {
         super(apiKey);
@@ -19,6 +25,14 @@ public class OrderService extends MartianPayClient {
         super(apiKey, baseUrl);
     }
 
+    public OrderService(String apiKey, String baseUrl, TransportContext transport) {
+        super(apiKey, baseUrl, transport);
+    }
+
+    public OrderService(MartianPayClient client) {
+        super(client);
+    }
+
     /**
      * Lists orders
      *
@@ -27,7 +41,33 @@ public class OrderService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public OrderListResponse listOrders(OrderListRequest params) throws IOException {
-        return sendRequestWithQuery("GET", "/v1/orders", params, OrderListResponse.class);
+        return sendRequestWithQuery("GET", ORDERS.expand(), params, OrderListResponse.class);
+    }
+
+    /**
+     * Lists orders asynchronously
+     *
+     * @param params Order list request parameters
+     * @return Future completing with the order list response
+     * @see #listOrders
+     */
+    public CompletableFuture<OrderListResponse> listOrdersAsync(OrderListRequest params) {
+        return sendRequestWithQueryAsync("GET", ORDERS.expand(), params, OrderListResponse.class);
+    }
+
+    /**
+     * Iterates over all orders matching the list parameters, fetching pages lazily
+     *
+     * The walk starts at the request's page and uses its page size (or {@link Pager#DEFAULT_PAGE_SIZE}).
+     *
+     * @param params List parameters; the paging fields are not modified
+     * @return Pager over the matching orders
+     * @see #listOrders
+     */
+    public Pager<OrderListItem> paginateOrders(OrderListRequest params) {
+        return Pager.byPage(this, ORDERS.expand(), params,
+                params != null ? params.getPage() : null, params != null ? params.getPageSize() : null,
+                OrderListResponse.class, OrderListResponse::getOrders, OrderListResponse::getTotal);
     }
 
     /**
@@ -38,7 +78,17 @@ public class OrderService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public OrderDetail getOrder(String orderNumber) throws IOException {
-        String path = String.format("/v1/orders/%s", orderNumber);
-        return sendRequest("GET", path, null, OrderDetail.class);
+        return sendRequest("GET", ORDERS_ID.expand(orderNumber), null, OrderDetail.class);
+    }
+
+    /**
+     * Gets order details asynchronously
+     *
+     * @param orderNumber Order number
+     * @return Future completing with the order details
+     * @see #getOrder
+     */
+    public CompletableFuture<OrderDetail> getOrderAsync(String orderNumber) {
+        return sendRequestAsync("GET", ORDERS_ID.expand(orderNumber), null, OrderDetail.class);
     }
 }
@@ -0,0 +1,33 @@
+package com.martianpay.sdk;
+
+import okhttp3.HttpUrl;
+
+/**
+ * PageQuery is a list request with its paging parameters replaced.
+ *
+ * Pager sends one per page, so the caller's request object is encoded as-is and never modified;
+ * the position and size parameters are then set over whatever the request carried.
+ */
+final class PageQuery {
+    private final Object base;
+    private final String positionName;
+    private final long position;
+    private final String sizeName;
+    private final int size;
+
+    PageQuery(Object base, String positionName, long position, String sizeName, int size) {
+        this.base = base;
+        this.positionName = positionName;
+        this.position = position;
+        this.sizeName = sizeName;
+        this.size = size;
+    }
+
+    void encode(HttpUrl.Builder urlBuilder) {
+        if (base != null) {
+            QueryEncoder.encode(urlBuilder, base);
+        }
+        urlBuilder.setQueryParameter(positionName, String.valueOf(position));
+        urlBuilder.setQueryParameter(sizeName, String.valueOf(size));
+    }
+}
@@ -0,0 +1,350 @@
+package com.martianpay.sdk;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Pager walks every result of a list endpoint, fetching pages lazily as iteration proceeds.
+ *
+ * Only the current page is held in memory, so arbitrarily long result sets can be processed in
+ * constant space. Iteration starts at the page (or offset) set on the list request, uses its page
+ * size (or {@link #DEFAULT_PAGE_SIZE}), and stops once the response's {@code total} is reached or
+ * a page comes back empty. The request object itself is never modified.
+ *
+ * For bulk exports, {@link #prefetch(int)} returns a pager that keeps several page requests in
+ * flight and still emits items in page order.
+ *
+ * Each call to {@link #iterator()} or {@link #stream()} starts a new walk from the first page.
+ * The SDK's list methods are checked, but iterators are not: a failed page fetch is thrown as
+ * {@link UncheckedIOException} whose cause is the original IOException (usually a
+ * {@link MartianPayException}).
+ *
+ * <pre>{@code
+ * service.paginatePaymentIntents(request).stream()
+ *         .filter(pi -> PaymentIntent.STATUS_PAID.equals(pi.getStatus()))
+ *         .forEach(this::reconcile);
+ * }</pre>
+ *
+ * @param <T> Item type
+ */
+public final class Pager<T> implements Iterable<T> {
+    /** Page size used when the list request does not set one; the API's maximum page size */
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    private final MartianPayClient client;
+    private final ApiPath path;
+    private final Object request;
+    private final boolean offsetBased;
+    private final long start;
+    private final int pageSize;
+    private final Class<?> responseType;
+    private final Function<Object, List<T>> items;
+    private final Function<Object, ? extends Number> total;
+    private final int window;
+
+    @SuppressWarnings("unchecked")
+    private <R> Pager(MartianPayClient client, ApiPath path, Object request, boolean offsetBased, Integer start,
+                      Integer pageSize, Class<R> responseType, Function<? super R, List<T>> items,
+                      Function<? super R, ? extends Number> total) {
+        this.client = client;
+        this.path = path;
+        this.request = request;
+        this.offsetBased = offsetBased;
+        this.start = start != null && start > 0 ? start : 0;
+        this.pageSize = pageSize != null && pageSize > 0 ? pageSize : DEFAULT_PAGE_SIZE;
+        this.responseType = responseType;
+        this.items = (Function<Object, List<T>>) items;
+        this.total = (Function<Object, ? extends Number>) total;
+        this.window = 1;
+    }
+
+    private Pager(Pager<T> source, int window) {
+        this.client = source.client;
+        this.path = source.path;
+        this.request = source.request;
+        this.offsetBased = source.offsetBased;
+        this.start = source.start;
+        this.pageSize = source.pageSize;
+        this.responseType = source.responseType;
+        this.items = source.items;
+        this.total = source.total;
+        this.window = window;
+    }
+
+    /**
+     * Creates a pager for an endpoint paged with {@code page} (zero-based) and {@code page_size}
+     *
+     * @param request  List request carrying the filters; may be null
+     * @param page     First page to fetch, or null for the first
+     * @param pageSize Page size, or null for the default
+     */
+    static <T, R> Pager<T> byPage(MartianPayClient client, ApiPath path, Object request, Integer page, Integer pageSize,
+                                  Class<R> responseType, Function<? super R, List<T>> items,
+                                  Function<? super R, ? extends Number> total) {
+        return new Pager<>(client, path, request, false, page, pageSize, responseType, items, total);
+    }
+
+    /**
+     * Creates a pager for an endpoint paged with {@code offset} and {@code limit}
+     *
+     * @param request List request carrying the filters; may be null
+     * @param offset  Offset of the first item, or null for 0
+     * @param limit   Page size, or null for the default
+     */
+    static <T, R> Pager<T> byOffset(MartianPayClient client, ApiPath path, Object request, Integer offset, Integer limit,
+                                    Class<R> responseType, Function<? super R, List<T>> items,
+                                    Function<? super R, ? extends Number> total) {
+        return new Pager<>(client, path, request, true, offset, limit, responseType, items, total);
+    }
+
+    /**
+     * Returns a pager that fetches up to {@code pages} pages concurrently, for bulk exports
+     *
+     * The first page is fetched on the iterating thread; its {@code total} fixes how many pages
+     * the walk covers, so items created after it starts are not included. A response without a
+     * total keeps requesting pages until one comes back empty, so the last window of requests may
+     * fetch pages past the end. Later pages are
+     * requested asynchronously, keeping at most {@code pages} requests in flight, and are
+     * emitted strictly in page order, so at most {@code pages} pages are buffered. Requests
+     * still count against the transport's per-host concurrency limit. If iteration stops early,
+     * requests already in flight complete and are discarded.
+     *
+     * @param pages Maximum page requests in flight; 1 disables prefetching
+     * @return Prefetching pager over the same items
+     */
+    public Pager<T> prefetch(int pages) {
+        if (pages < 1) {
+            throw new IllegalArgumentException("pages must be positive");
+        }
+        return new Pager<>(this, pages);
+    }
+
+    /**
+     * Returns a lazy iterator over all items; pages are fetched on demand
+     *
+     * @throws UncheckedIOException from hasNext or next if a page fetch fails
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return window > 1 ? new PrefetchIterator() : new SequentialIterator();
+    }
+
+    /**
+     * Returns a sequential, lazily populated stream over all items
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+
+    private PageQuery query(long position) {
+        return offsetBased
+                ? new PageQuery(request, "offset", position, "limit", pageSize)
+                : new PageQuery(request, "page", position, "page_size", pageSize);
+    }
+
+    private Object fetch(long position) {
+        try {
+            return client.sendRequestWithQuery("GET", path, query(position), responseType);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private CompletableFuture<?> fetchAsync(long position) {
+        return client.sendRequestWithQueryAsync("GET", path, query(position), responseType);
+    }
+
+    private List<T> itemsOf(Object response) {
+        List<T> page = response != null ? items.apply(response) : null;
+        return page != null ? page : Collections.<T>emptyList();
+    }
+
+    private Long totalOf(Object response) {
+        Number count = response != null ? total.apply(response) : null;
+        return count != null ? count.longValue() : null;
+    }
+
+    /**
+     * Iterates the items of the current page and asks for the next one when it runs out
+     */
+    private abstract class PageIterator implements Iterator<T> {
+        private List<T> page = Collections.emptyList();
+        private int index;
+        boolean exhausted;
+
+        @Override
+        public boolean hasNext() {
+            while (index >= page.size()) {
+                if (exhausted) {
+                    return false;
+                }
+                try {
+                    page = nextPage();
+                } catch (RuntimeException e) {
+                    exhausted = true;
+                    throw e;
+                }
+                index = 0;
+            }
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.get(index++);
+        }
+
+        /** Returns the next page, setting exhausted when it is the last */
+        abstract List<T> nextPage();
+    }
+
+    private final class SequentialIterator extends PageIterator {
+        /** Page number or offset of the next page to fetch */
+        private long position = start;
+        /** Items preceding the next page, for the stop-at-total check */
+        private long consumed = offsetBased ? start : start * pageSize;
+
+        @Override
+        List<T> nextPage() {
+            Object response = fetch(position);
+            List<T> page = itemsOf(response);
+            consumed += page.size();
+            // Offsets advance by what the server returned, in case it capped the limit; page
+            // numbers advance by one, and a capped page size stays consistent across pages
+            position = offsetBased ? position + page.size() : position + 1;
+
+            Long count = totalOf(response);
+            if (page.isEmpty() || (count != null && consumed >= count)) {
+                exhausted = true;
+            }
+            return page;
+        }
+    }
+
+    private final class PrefetchIterator extends PageIterator {
+        private final ArrayDeque<CompletableFuture<?>> inFlight = new ArrayDeque<>();
+        private boolean started;
+        /** Page number or offset of the next page to request */
+        private long nextPosition;
+        /** Number of pages left to request once the first page has fixed the total */
+        private long remaining;
+        /** Items per page as served, which may be less than requested if the server caps it */
+        private int servedPageSize;
+
+        @Override
+        List<T> nextPage() {
+            if (!started) {
+                started = true;
+                return firstPage();
+            }
+            fill();
+            CompletableFuture<?> head = inFlight.poll();
+            if (head == null) {
+                exhausted = true;
+                return Collections.emptyList();
+            }
+            List<T> page;
+            try {
+                page = itemsOf(await(head));
+            } catch (RuntimeException e) {
+                abandon();
+                throw e;
+            }
+            if (page.isEmpty()) {
+                // The result set shrank since the first page; later pages would be empty too
+                abandon();
+                exhausted = true;
+            } else {
+                fill();
+                exhausted = inFlight.isEmpty();
+            }
+            return page;
+        }
+
+        private List<T> firstPage() {
+            Object response = fetch(start);
+            List<T> page = itemsOf(response);
+            Long count = totalOf(response);
+            long before = offsetBased ? start : start * pageSize;
+            if (page.isEmpty() || count == null || before + page.size() >= count) {
+                // Nothing left, or no total to plan from: keep a window of requests in flight until
+                // a page comes back empty
+                exhausted = page.isEmpty() || count != null;
+                if (!exhausted) {
+                    remaining = Long.MAX_VALUE;
+                }
+            } else {
+                servedPageSize = page.size() < pageSize ? page.size() : pageSize;
+                if (!offsetBased) {
+                    before = start * servedPageSize;
+                }
+                long left = count - before - page.size();
+                remaining = (left + servedPageSize - 1) / servedPageSize;
+            }
+            if (servedPageSize == 0) {
+                servedPageSize = Math.max(page.size(), 1);
+            }
+            nextPosition = offsetBased ? start + page.size() : start + 1;
+            fill();
+            exhausted = exhausted || inFlight.isEmpty();
+            return page;
+        }
+
+        private void fill() {
+            while (inFlight.size() < window && remaining > 0) {
+                inFlight.add(fetchAsync(nextPosition));
+                nextPosition += offsetBased ? servedPageSize : 1;
+                remaining--;
+            }
+        }
+
+        private void abandon() {
+            remaining = 0;
+            for (CompletableFuture<?> future : inFlight) {
+                future.cancel(false);
+            }
+            inFlight.clear();
+        }
+
+        private Object await(CompletableFuture<?> future) {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UncheckedIOException(new InterruptedIOException("Interrupted while fetching page"));
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+                        ? e.getCause().getCause() : e.getCause();
+                if (cause instanceof IOException) {
+                    throw new UncheckedIOException((IOException) cause);
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new UncheckedIOException(new IOException(cause));
+            }
+        }
+    }
+}
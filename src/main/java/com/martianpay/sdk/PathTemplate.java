@@ -0,0 +1,212 @@
+package com.martianpay.sdk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PathTemplate is a pre-parsed API path such as {@code /v1/payment_intents/%s}.
+ *
+ * Templates are parsed once, typically into a static constant of a service, and expanded per call
+ * with {@link #expand}. Expansion stores the arguments without formatting a string; the request
+ * pipeline appends the segments directly to the base URL, percent-encoding each argument.
+ * Each {@code %s} placeholder must occupy a whole path segment.
+ */
+public final class PathTemplate {
+    private static final String PLACEHOLDER = "%s";
+
+    private final String pattern;
+    /** Literal segment text, or null where an argument is substituted */
+    private final String[] segments;
+    private final int placeholderCount;
+    private final String resource;
+    /** Endpoint names per method (GET, POST, PUT, DELETE), built on first use */
+    private final String[] endpoints = new String[4];
+    /** Operation names per method, as declared with {@link #operation}; null where undeclared */
+    private final String[] operations;
+    private final ApiPath noArgsPath;
+
+    private PathTemplate(String pattern, String[] segments, int placeholderCount, String[] operations) {
+        this.pattern = pattern;
+        this.segments = segments;
+        this.placeholderCount = placeholderCount;
+        this.resource = resourceOf(pattern, segments);
+        this.operations = operations;
+        this.noArgsPath = placeholderCount == 0 ? new ApiPath(this, new String[0]) : null;
+    }
+
+    /**
+     * Parses a path template
+     *
+     * @param pattern Path starting with '/', with {@code %s} for each argument segment
+     * @return Parsed template
+     * @throws IllegalArgumentException if the pattern is malformed
+     */
+    public static PathTemplate of(String pattern) {
+        if (pattern == null || !pattern.startsWith("/")) {
+            throw new IllegalArgumentException("Path template must start with '/': " + pattern);
+        }
+        List<String> parsed = new ArrayList<>();
+        int placeholders = 0;
+        int start = 1;
+        while (start <= pattern.length()) {
+            int end = pattern.indexOf('/', start);
+            if (end < 0) {
+                end = pattern.length();
+            }
+            String segment = pattern.substring(start, end);
+            if (segment.isEmpty()) {
+                if (end < pattern.length()) {
+                    throw new IllegalArgumentException("Empty segment in path template: " + pattern);
+                }
+            } else if (PLACEHOLDER.equals(segment)) {
+                parsed.add(null);
+                placeholders++;
+            } else if (segment.contains("%")) {
+                throw new IllegalArgumentException("Placeholder must be a whole segment: " + pattern);
+            } else {
+                parsed.add(segment);
+            }
+            start = end + 1;
+        }
+        return new PathTemplate(pattern, parsed.toArray(new String[0]), placeholders, new String[4]);
+    }
+
+    /**
+     * Describes a literal path sent as written, for {@link ApiPath#parse}; unlike {@link #of} it
+     * accepts encoded characters and empty segments
+     */
+    static PathTemplate literal(String path) {
+        List<String> parsed = new ArrayList<>();
+        int start = path.startsWith("/") ? 1 : 0;
+        while (start < path.length()) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            parsed.add(path.substring(start, end));
+            start = end + 1;
+        }
+        return new PathTemplate(path, parsed.toArray(new String[0]), 0, new String[4]);
+    }
+
+    /**
+     * Returns a copy of this template that names the operation served by a method, such as
+     * {@code createRefund} for POST; traces report calls under this name
+     *
+     * @param method HTTP method (GET, POST, PUT or DELETE)
+     * @param name   Operation name, usually the service method name
+     * @return Template with the operation declared
+     */
+    public PathTemplate operation(String method, String name) {
+        int index = methodIndex(method);
+        if (index < 0 || name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("Invalid operation " + method + " " + name + " for " + pattern);
+        }
+        String[] named = operations.clone();
+        named[index] = name;
+        return new PathTemplate(pattern, segments, placeholderCount, named);
+    }
+
+    /**
+     * Binds arguments to the template's placeholders, in order
+     *
+     * @param args One value per placeholder
+     * @return Path ready to be sent
+     * @throws IllegalArgumentException if the argument count does not match or an argument is null
+     */
+    public ApiPath expand(String... args) {
+        if (placeholderCount == 0 && args.length == 0) {
+            return noArgsPath;
+        }
+        if (args.length != placeholderCount) {
+            throw new IllegalArgumentException(String.format("Path template %s expects %d argument(s), got %d",
+                    pattern, placeholderCount, args.length));
+        }
+        for (String arg : args) {
+            if (arg == null) {
+                throw new IllegalArgumentException("Null path argument for " + pattern);
+            }
+        }
+        return new ApiPath(this, args);
+    }
+
+    /** Template as written, for example {@code /v1/payment_intents/%s} */
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Top-level resource the template addresses, for example {@code payouts} for
+     * {@code /v1/payouts/%s/cancel}; calls are isolated and paced per resource
+     */
+    public String getResource() {
+        return resource;
+    }
+
+    /**
+     * Returns the endpoint name used to label metrics, such as {@code POST /v1/payment_intents}
+     *
+     * @param method HTTP method, upper case
+     */
+    public String endpoint(String method) {
+        int index = methodIndex(method);
+        if (index < 0) {
+            return method + " " + pattern;
+        }
+        String name = endpoints[index];
+        if (name == null) {
+            // Racy but benign: every thread computes the same immutable string
+            name = method + " " + pattern;
+            endpoints[index] = name;
+        }
+        return name;
+    }
+
+    /**
+     * Returns the operation declared for a method, or the endpoint name if there is none
+     *
+     * @param method HTTP method, upper case
+     */
+    public String operationName(String method) {
+        int index = methodIndex(method);
+        String name = index >= 0 ? operations[index] : null;
+        return name != null ? name : endpoint(method);
+    }
+
+    private static int methodIndex(String method) {
+        switch (method) {
+            case "GET": return 0;
+            case "POST": return 1;
+            case "PUT": return 2;
+            case "DELETE": return 3;
+            default: return -1;
+        }
+    }
+
+    String[] segments() {
+        return segments;
+    }
+
+    private static String resourceOf(String pattern, String[] segments) {
+        // Skip the version segment (v1)
+        int index = segments.length > 1 && isVersion(segments[0]) ? 1 : 0;
+        return segments.length > index && segments[index] != null ? segments[index] : pattern;
+    }
+
+    private static boolean isVersion(String segment) {
+        if (segment == null || segment.length() < 2 || segment.charAt(0) != 'v') {
+            return false;
+        }
+        for (int i = 1; i < segment.length(); i++) {
+            if (!Character.isDigit(segment.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
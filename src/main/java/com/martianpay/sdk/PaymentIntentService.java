@@ -1,5 +1,6 @@
 package com.martianpay.sdk;
 
+import com.martianpay.developer.PaymentIntent;
 import com.martianpay.developer.PaymentIntentCreateRequest;
 import com.martianpay.developer.PaymentIntentCreateResp;
 import com.martianpay.developer.PaymentIntentUpdateRequest;
@@ -15,11 +16,26 @@ import com.martianpay.developer.PaymentIntentInvoiceCreateRequest;
 import com.martianpay.developer.PaymentIntentInvoiceCreateResponse;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * PaymentIntentService provides methods for managing payment intents
  */
 public class PaymentIntentService extends MartianPayClient {
+    private static final PathTemplate PAYMENT_INTENTS_ID = PathTemplate.of("/v1/payment_intents/%s")
+            .operation("GET", "getPaymentIntent")
+            .operation("POST", "updatePaymentIntent");
+    private static final PathTemplate PAYMENT_INTENTS_ID_CANCEL = PathTemplate.of("/v1/payment_intents/%s/cancel")
+            .operation("POST", "cancelPaymentIntent");
+    private static final PathTemplate PAYMENT_INTENTS_ID_LINK = PathTemplate.of("/v1/payment_intents/%s/link")
+            .operation("POST", "updatePaymentIntentLink");
+    private static final PathTemplate PAYMENT_INTENTS = PathTemplate.of("/v1/payment_intents")
+            .operation("GET", "listPaymentIntents")
+            .operation("POST", "createPaymentIntent");
+    private static final PathTemplate PAYMENT_INTENTS_LINK = PathTemplate.of("/v1/payment_intents/link")
+            .operation("POST", "createPaymentIntentLink");
+    private static final PathTemplate PAYMENT_INTENTS_INVOICE = PathTemplate.of("/v1/payment_intents/invoice")
+            .operation("POST", "createPaymentIntentInvoice");
 
     public PaymentIntentService(String apiKey) {
         super(apiKey);
@@ -29,15 +45,65 @@ public class PaymentIntentService extends MartianPayClient {
         super(apiKey, baseUrl);
     }
 
+    public PaymentIntentService(String apiKey, String baseUrl, TransportContext transport) {
+        super(apiKey, baseUrl, transport);
+    }
+
+    public PaymentIntentService(MartianPayClient client) {
+        super(client);
+    }
+
     /**
      * Creates a new payment intent
      *
+     * A new idempotency key is generated for the call, so a retried attempt cannot create a
+     * second payment intent.
+     *
      * @param request Payment intent creation parameters
      * @return Payment intent creation response
      * @throws IOException if request fails
      */
     public PaymentIntentCreateResp createPaymentIntent(PaymentIntentCreateRequest request) throws IOException {
-        return sendRequest("POST", "/v1/payment_intents", request, PaymentIntentCreateResp.class);
+        return sendIdempotentRequest("POST", PAYMENT_INTENTS.expand(), request, PaymentIntentCreateResp.class, null);
+    }
+
+    /**
+     * Creates a new payment intent asynchronously
+     *
+     * @param request Payment intent creation parameters
+     * @return Future completing with the payment intent creation response
+     * @see #createPaymentIntent
+     */
+    public CompletableFuture<PaymentIntentCreateResp> createPaymentIntentAsync(PaymentIntentCreateRequest request) {
+        return sendIdempotentRequestAsync("POST", PAYMENT_INTENTS.expand(), request, PaymentIntentCreateResp.class, null);
+    }
+
+    /**
+     * Creates a payment intent with a caller-supplied idempotency key
+     *
+     * The key is sent in the Idempotency-Key header; a server that deduplicates on it returns the
+     * original result to a repeat instead of creating another payment intent. Derive the key from your own
+     * operation id so that repeats after process restarts and redeliveries carry it too.
+     *
+     * @param request        Creation parameters
+     * @param idempotencyKey Idempotency key of this logical operation, or null to generate one
+     * @return Same response as {@link #createPaymentIntent(PaymentIntentCreateRequest)}
+     * @throws IOException if request fails
+     */
+    public PaymentIntentCreateResp createPaymentIntent(PaymentIntentCreateRequest request, String idempotencyKey) throws IOException {
+        return sendIdempotentRequest("POST", PAYMENT_INTENTS.expand(), request, PaymentIntentCreateResp.class, idempotencyKey);
+    }
+
+    /**
+     * Creates a payment intent with a caller-supplied idempotency key asynchronously
+     *
+     * @param request        Creation parameters
+     * @param idempotencyKey Idempotency key of this logical operation, or null to generate one
+     * @return Future completing with the same response as {@link #createPaymentIntentAsync(PaymentIntentCreateRequest)}
+     * @see #createPaymentIntent(PaymentIntentCreateRequest, String)
+     */
+    public CompletableFuture<PaymentIntentCreateResp> createPaymentIntentAsync(PaymentIntentCreateRequest request, String idempotencyKey) {
+        return sendIdempotentRequestAsync("POST", PAYMENT_INTENTS.expand(), request, PaymentIntentCreateResp.class, idempotencyKey);
     }
 
     /**
@@ -49,8 +115,19 @@ public class PaymentIntentService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public PaymentIntentUpdateResp updatePaymentIntent(String id, PaymentIntentUpdateRequest request) throws IOException {
-        String path = String.format("/v1/payment_intents/%s", id);
-        return sendRequest("POST", path, request, PaymentIntentUpdateResp.class);
+        return sendRequest("POST", PAYMENT_INTENTS_ID.expand(id), request, PaymentIntentUpdateResp.class);
+    }
+
+    /**
+     * Updates a payment intent asynchronously
+     *
+     * @param id Payment intent ID
+     * @param request Payment intent update parameters
+     * @return Future completing with the payment intent update response
+     * @see #updatePaymentIntent
+     */
+    public CompletableFuture<PaymentIntentUpdateResp> updatePaymentIntentAsync(String id, PaymentIntentUpdateRequest request) {
+        return sendRequestAsync("POST", PAYMENT_INTENTS_ID.expand(id), request, PaymentIntentUpdateResp.class);
     }
 
     /**
@@ -61,8 +138,18 @@ public class PaymentIntentService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public PaymentIntentGetResp getPaymentIntent(String id) throws IOException {
-        String path = String.format("/v1/payment_intents/%s", id);
-        return sendRequest("GET", path, null, PaymentIntentGetResp.class);
+        return sendRequest("GET", PAYMENT_INTENTS_ID.expand(id), null, PaymentIntentGetResp.class);
+    }
+
+    /**
+     * Retrieves a specific payment intent by ID asynchronously
+     *
+     * @param id Payment intent ID
+     * @return Future completing with the payment intent get response
+     * @see #getPaymentIntent
+     */
+    public CompletableFuture<PaymentIntentGetResp> getPaymentIntentAsync(String id) {
+        return sendRequestAsync("GET", PAYMENT_INTENTS_ID.expand(id), null, PaymentIntentGetResp.class);
     }
 
     /**
@@ -73,7 +160,33 @@ public class PaymentIntentService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public PaymentIntentListResponse listPaymentIntents(PaymentIntentListRequest request) throws IOException {
-        return sendRequestWithQuery("GET", "/v1/payment_intents", request, PaymentIntentListResponse.class);
+        return sendRequestWithQuery("GET", PAYMENT_INTENTS.expand(), request, PaymentIntentListResponse.class);
+    }
+
+    /**
+     * Retrieves a list of payment intents based on the provided parameters asynchronously
+     *
+     * @param request List parameters
+     * @return Future completing with the payment intent list response
+     * @see #listPaymentIntents
+     */
+    public CompletableFuture<PaymentIntentListResponse> listPaymentIntentsAsync(PaymentIntentListRequest request) {
+        return sendRequestWithQueryAsync("GET", PAYMENT_INTENTS.expand(), request, PaymentIntentListResponse.class);
+    }
+
+    /**
+     * Iterates over all payment intents matching the list parameters, fetching pages lazily
+     *
+     * The walk starts at the request's page and uses its page size (or {@link Pager#DEFAULT_PAGE_SIZE}).
+     *
+     * @param request List parameters; the paging fields are not modified
+     * @return Pager over the matching payment intents
+     * @see #listPaymentIntents
+     */
+    public Pager<PaymentIntent> paginatePaymentIntents(PaymentIntentListRequest request) {
+        return Pager.byPage(this, PAYMENT_INTENTS.expand(), request,
+                request != null ? request.getPage() : null, request != null ? request.getPageSize() : null,
+                PaymentIntentListResponse.class, PaymentIntentListResponse::getPaymentIntents, PaymentIntentListResponse::getTotal);
     }
 
     /**
@@ -85,8 +198,19 @@ public class PaymentIntentService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public PaymentIntentUpdateResp cancelPaymentIntent(String id, PaymentIntentCancelRequest request) throws IOException {
-        String path = String.format("/v1/payment_intents/%s/cancel", id);
-        return sendRequest("POST", path, request, PaymentIntentUpdateResp.class);
+        return sendRequest("POST", PAYMENT_INTENTS_ID_CANCEL.expand(id), request, PaymentIntentUpdateResp.class);
+    }
+
+    /**
+     * Cancels a payment intent asynchronously
+     *
+     * @param id Payment intent ID
+     * @param request Cancel request parameters
+     * @return Future completing with the payment intent update response
+     * @see #cancelPaymentIntent
+     */
+    public CompletableFuture<PaymentIntentUpdateResp> cancelPaymentIntentAsync(String id, PaymentIntentCancelRequest request) {
+        return sendRequestAsync("POST", PAYMENT_INTENTS_ID_CANCEL.expand(id), request, PaymentIntentUpdateResp.class);
     }
 
     /**
@@ -97,7 +221,18 @@ public class PaymentIntentService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public PaymentIntentLinkCreateResp createPaymentIntentLink(PaymentIntentLinkCreateRequest request) throws IOException {
-        return sendRequest("POST", "/v1/payment_intents/link", request, PaymentIntentLinkCreateResp.class);
+        return sendRequest("POST", PAYMENT_INTENTS_LINK.expand(), request, PaymentIntentLinkCreateResp.class);
+    }
+
+    /**
+     * Creates a payment intent with payment link asynchronously
+     *
+     * @param request Payment intent link creation parameters
+     * @return Future completing with the payment intent link creation response
+     * @see #createPaymentIntentLink
+     */
+    public CompletableFuture<PaymentIntentLinkCreateResp> createPaymentIntentLinkAsync(PaymentIntentLinkCreateRequest request) {
+        return sendRequestAsync("POST", PAYMENT_INTENTS_LINK.expand(), request, PaymentIntentLinkCreateResp.class);
     }
 
     /**
@@ -109,8 +244,19 @@ public class PaymentIntentService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public PaymentIntentUpdateResp updatePaymentIntentLink(String id, PaymentIntentLinkUpdateRequest request) throws IOException {
-        String path = String.format("/v1/payment_intents/%s/link", id);
-        return sendRequest("POST", path, request, PaymentIntentUpdateResp.class);
+        return sendRequest("POST", PAYMENT_INTENTS_ID_LINK.expand(id), request, PaymentIntentUpdateResp.class);
+    }
+
+    /**
+     * Updates a payment intent link asynchronously
+     *
+     * @param id Payment intent ID
+     * @param request Payment intent link update parameters
+     * @return Future completing with the payment intent update response
+     * @see #updatePaymentIntentLink
+     */
+    public CompletableFuture<PaymentIntentUpdateResp> updatePaymentIntentLinkAsync(String id, PaymentIntentLinkUpdateRequest request) {
+        return sendRequestAsync("POST", PAYMENT_INTENTS_ID_LINK.expand(id), request, PaymentIntentUpdateResp.class);
     }
 
     /**
@@ -121,6 +267,17 @@ public class PaymentIntentService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public PaymentIntentInvoiceCreateResponse createPaymentIntentInvoice(PaymentIntentInvoiceCreateRequest request) throws IOException {
-        return sendRequest("POST", "/v1/payment_intents/invoice", request, PaymentIntentInvoiceCreateResponse.class);
+        return sendRequest("POST", PAYMENT_INTENTS_INVOICE.expand(), request, PaymentIntentInvoiceCreateResponse.class);
+    }
+
+    /**
+     * Creates a payment intent with invoice asynchronously
+     *
+     * @param request Payment intent invoice creation parameters
+     * @return Future completing with the payment intent invoice creation response
+     * @see #createPaymentIntentInvoice
+     */
+    public CompletableFuture<PaymentIntentInvoiceCreateResponse> createPaymentIntentInvoiceAsync(PaymentIntentInvoiceCreateRequest request) {
+        return sendRequestAsync("POST", PAYMENT_INTENTS_INVOICE.expand(), request, PaymentIntentInvoiceCreateResponse.class);
     }
 }
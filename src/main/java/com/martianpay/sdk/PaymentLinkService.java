@@ -7,11 +7,19 @@ import com.martianpay.developer.PaymentLinkListResponse;
 import com.martianpay.developer.PaymentLinkUpdateRequest;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * PaymentLinkService provides methods for managing payment links
  */
 public class PaymentLinkService extends MartianPayClient {
+    private static final PathTemplate PAYMENT_LINKS_ID = PathTemplate.of("/v1/payment_links/%s")
+            .operation("GET", "getPaymentLink")
+            .operation("POST", "updatePaymentLink")
+            .operation("DELETE", "deletePaymentLink");
+    private static final PathTemplate PAYMENT_LINKS = PathTemplate.of("/v1/payment_links")
+            .operation("GET", "listPaymentLinks")
+            .operation("POST", "createPaymentLink");
 
     public PaymentLinkService(String apiKey) {
         super(apiKey);
@@ -21,6 +29,14 @@ public class PaymentLinkService extends MartianPayClient {
         super(apiKey, baseUrl);
     }
 
+    public PaymentLinkService(String apiKey, String baseUrl, TransportContext transport) {
+        super(apiKey, baseUrl, transport);
+    }
+
+    public PaymentLinkService(MartianPayClient client) {
+        super(client);
+    }
+
     /**
      * Lists payment links with pagination
      *
@@ -29,7 +45,33 @@ public class PaymentLinkService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public PaymentLinkListResponse listPaymentLinks(PaymentLinkListRequest params) throws IOException {
-        return sendRequestWithQuery("GET", "/v1/payment_links", params, PaymentLinkListResponse.class);
+        return sendRequestWithQuery("GET", PAYMENT_LINKS.expand(), params, PaymentLinkListResponse.class);
+    }
+
+    /**
+     * Lists payment links with pagination asynchronously
+     *
+     * @param params Payment link list request parameters
+     * @return Future completing with the payment link list response
+     * @see #listPaymentLinks
+     */
+    public CompletableFuture<PaymentLinkListResponse> listPaymentLinksAsync(PaymentLinkListRequest params) {
+        return sendRequestWithQueryAsync("GET", PAYMENT_LINKS.expand(), params, PaymentLinkListResponse.class);
+    }
+
+    /**
+     * Iterates over all payment links matching the list parameters, fetching pages lazily
+     *
+     * The walk starts at the request's page and uses its page size (or {@link Pager#DEFAULT_PAGE_SIZE}).
+     *
+     * @param params List parameters; the paging fields are not modified
+     * @return Pager over the matching payment links
+     * @see #listPaymentLinks
+     */
+    public Pager<PaymentLink> paginatePaymentLinks(PaymentLinkListRequest params) {
+        return Pager.byPage(this, PAYMENT_LINKS.expand(), params,
+                params != null ? params.getPage() : null, params != null ? params.getPageSize() : null,
+                PaymentLinkListResponse.class, PaymentLinkListResponse::getPaymentLinks, PaymentLinkListResponse::getTotal);
     }
 
     /**
@@ -40,7 +82,18 @@ public class PaymentLinkService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public PaymentLink createPaymentLink(PaymentLinkCreateRequest params) throws IOException {
-        return sendRequest("POST", "/v1/payment_links", params, PaymentLink.class);
+        return sendRequest("POST", PAYMENT_LINKS.expand(), params, PaymentLink.class);
+    }
+
+    /**
+     * Creates a payment link asynchronously
+     *
+     * @param params Payment link creation parameters
+     * @return Future completing with the created payment link
+     * @see #createPaymentLink
+     */
+    public CompletableFuture<PaymentLink> createPaymentLinkAsync(PaymentLinkCreateRequest params) {
+        return sendRequestAsync("POST", PAYMENT_LINKS.expand(), params, PaymentLink.class);
     }
 
     /**
@@ -51,8 +104,18 @@ public class PaymentLinkService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public PaymentLink getPaymentLink(String linkID) throws IOException {
-        String path = String.format("/v1/payment_links/%s", linkID);
-        return sendRequest("GET", path, null, PaymentLink.class);
+        return sendRequest("GET", PAYMENT_LINKS_ID.expand(linkID), null, PaymentLink.class);
+    }
+
+    /**
+     * Retrieves payment link details asynchronously
+     *
+     * @param linkID Payment link ID
+     * @return Future completing with the payment link details
+     * @see #getPaymentLink
+     */
+    public CompletableFuture<PaymentLink> getPaymentLinkAsync(String linkID) {
+        return sendRequestAsync("GET", PAYMENT_LINKS_ID.expand(linkID), null, PaymentLink.class);
     }
 
     /**
@@ -64,8 +127,19 @@ public class PaymentLinkService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public PaymentLink updatePaymentLink(String linkID, PaymentLinkUpdateRequest params) throws IOException {
-        String path = String.format("/v1/payment_links/%s", linkID);
-        return sendRequest("POST", path, params, PaymentLink.class);
+        return sendRequest("POST", PAYMENT_LINKS_ID.expand(linkID), params, PaymentLink.class);
+    }
+
+    /**
+     * Updates payment link active status asynchronously
+     *
+     * @param linkID Payment link ID
+     * @param params Update parameters
+     * @return Future completing with the updated payment link
+     * @see #updatePaymentLink
+     */
+    public CompletableFuture<PaymentLink> updatePaymentLinkAsync(String linkID, PaymentLinkUpdateRequest params) {
+        return sendRequestAsync("POST", PAYMENT_LINKS_ID.expand(linkID), params, PaymentLink.class);
     }
 
     /**
@@ -75,7 +149,17 @@ public class PaymentLinkService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public void deletePaymentLink(String linkID) throws IOException {
-        String path = String.format("/v1/payment_links/%s", linkID);
-        sendRequest("DELETE", path, null, Void.class);
+        sendRequest("DELETE", PAYMENT_LINKS_ID.expand(linkID), null, Void.class);
+    }
+
+    /**
+     * Deletes inactive payment link asynchronously
+     *
+     * @param linkID Payment link ID
+     * @return Future completing when the request succeeds
+     * @see #deletePaymentLink
+     */
+    public CompletableFuture<Void> deletePaymentLinkAsync(String linkID) {
+        return sendRequestAsync("DELETE", PAYMENT_LINKS_ID.expand(linkID), null, Void.class);
     }
 }
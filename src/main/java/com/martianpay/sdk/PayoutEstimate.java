@@ -0,0 +1,94 @@
+package com.martianpay.sdk;
+
+import com.martianpay.developer.AssetAmount;
+import com.martianpay.developer.PayoutPreviewResp;
+
+import java.math.BigDecimal;
+
+/**
+ * PayoutEstimate is the outcome of checking a payout with a {@link PayoutEstimator}: the amounts
+ * and fee that apply, or the reason the API would refuse it.
+ *
+ * Estimates computed locally carry no preview. Estimates answered by the server carry the
+ * {@link PayoutPreviewResp} they were read from, unless the server refused the payout.
+ */
+public final class PayoutEstimate {
+    /**
+     * Error code of a payout below the asset's minimum or not covering the fee. The code is defined
+     * by the SDK for local estimates, not documented by the API; FakeMartianPayServer's preview uses it too.
+     */
+    public static final String AMOUNT_TOO_SMALL = "amount_too_small";
+
+    private final String assetId;
+    private final AssetAmount sourceAmount;
+    private final AssetAmount receiveAmount;
+    private final BigDecimal networkFee;
+    private final BigDecimal minPayoutAmount;
+    private final String errorCode;
+    private final String message;
+    private final PayoutPreviewResp preview;
+    private final boolean local;
+
+    PayoutEstimate(String assetId, AssetAmount sourceAmount, AssetAmount receiveAmount, BigDecimal networkFee,
+                   BigDecimal minPayoutAmount, String errorCode, String message, PayoutPreviewResp preview,
+                   boolean local) {
+        this.assetId = assetId;
+        this.sourceAmount = sourceAmount;
+        this.receiveAmount = receiveAmount;
+        this.networkFee = networkFee;
+        this.minPayoutAmount = minPayoutAmount;
+        this.errorCode = errorCode;
+        this.message = message;
+        this.preview = preview;
+        this.local = local;
+    }
+
+    /** Destination asset id */
+    public String getAssetId() { return assetId; }
+
+    /** Amount debited, including fees; null if the payout was refused before it was priced */
+    public AssetAmount getSourceAmount() { return sourceAmount; }
+
+    /** Net amount received after fees; null if the payout was refused before it was priced */
+    public AssetAmount getReceiveAmount() { return receiveAmount; }
+
+    /** Total fee charged */
+    public BigDecimal getNetworkFee() { return networkFee; }
+
+    /** Minimum payout amount of the asset, or null if the server answered without reporting it */
+    public BigDecimal getMinPayoutAmount() { return minPayoutAmount; }
+
+    /**
+     * Returns true if the API would accept the payout amounts
+     */
+    public boolean isValid() {
+        return errorCode == null;
+    }
+
+    /** API error code the payout would fail with, such as {@value #AMOUNT_TOO_SMALL}, or null if valid */
+    public String getErrorCode() { return errorCode; }
+
+    /** Explanation of the error, or null if valid */
+    public String getMessage() { return message; }
+
+    /**
+     * Returns true if the estimate was computed from cached asset and fee data, without a call
+     */
+    public boolean isLocal() {
+        return local;
+    }
+
+    /** Server preview the estimate was read from, or null if it was computed locally or refused */
+    public PayoutPreviewResp getPreview() { return preview; }
+
+    @Override
+    public String toString() {
+        return "PayoutEstimate{asset=" + assetId +
+                ", source=" + sourceAmount +
+                ", receive=" + receiveAmount +
+                ", fee=" + (networkFee != null ? networkFee.toPlainString() : null) +
+                ", min=" + (minPayoutAmount != null ? minPayoutAmount.toPlainString() : null) +
+                (errorCode != null ? ", error=" + errorCode : "") +
+                ", local=" + isLocal() + "}";
+    }
+}
@@ -0,0 +1,223 @@
+package com.martianpay.sdk;
+
+import com.martianpay.developer.Asset;
+import com.martianpay.developer.AssetAmount;
+import com.martianpay.developer.NetworkFee;
+import com.martianpay.developer.PayoutParams;
+import com.martianpay.developer.PayoutPreviewRequest;
+import com.martianpay.developer.PayoutPreviewResp;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * PayoutEstimator checks a payout's minimum amount and computes its fee and net amount from the
+ * cached asset and fee data of an {@link AssetCatalog}, saving a {@link PayoutService#previewPayout}
+ * round-trip per payout.
+ *
+ * A payout is estimated locally when it pays out the same coin it debits, to a crypto asset whose
+ * decimals are known and whose fee is keyed by its own id. Fees are denominated in the network's
+ * currency, so the asset must also be that currency: a native coin, with no contract address.
+ * The network fee is then the asset's {@link NetworkFee#getFeeAmount()}: a source amount is reduced
+ * by it, and a destination amount is increased by it. The source amount must reach
+ * {@link NetworkFee#getMinPayoutAmount()} and the net amount must be positive. Amounts are
+ * {@link AssetAmount}s in the asset's decimals.
+ *
+ * Any payout the local rules cannot settle is sent to {@link PayoutService#previewPayout}: swaps
+ * across coins or with quotes, fiat and bank payouts, which carry service fees, tokens, whose fee is
+ * paid in another currency, unknown assets, fees known only per network, and amounts with more
+ * decimals than the asset has. A preview refused with
+ * {@value PayoutEstimate#AMOUNT_TOO_SMALL} becomes an invalid estimate rather than an exception.
+ */
+public final class PayoutEstimator {
+    private final PayoutService payoutService;
+    private final AssetCatalog catalog;
+    private final LongAdder local = new LongAdder();
+    private final LongAdder remote = new LongAdder();
+
+    /**
+     * @param payoutService Service used for previews the local rules cannot settle
+     * @param catalog       Catalog providing assets and network fees
+     */
+    public PayoutEstimator(PayoutService payoutService, AssetCatalog catalog) {
+        if (payoutService == null || catalog == null) {
+            throw new IllegalArgumentException("payoutService and catalog are required");
+        }
+        this.payoutService = payoutService;
+        this.catalog = catalog;
+    }
+
+    /**
+     * Estimates a payout, locally when possible and with a server preview otherwise
+     *
+     * @param params Payout parameters, as for a preview or create request
+     * @return Estimate with the amounts and fee, or the error the API would return
+     * @throws IOException if the catalog or the preview request fails
+     */
+    public PayoutEstimate estimate(PayoutParams params) throws IOException {
+        PayoutEstimate estimate = estimateLocally(params);
+        if (estimate != null) {
+            local.increment();
+            return estimate;
+        }
+        remote.increment();
+        return preview(params);
+    }
+
+    /**
+     * Estimates a payout from cached data only
+     *
+     * @param params Payout parameters
+     * @return Estimate, or null if the local rules cannot settle this payout
+     * @throws IOException if the catalog must be loaded and the load fails
+     */
+    public PayoutEstimate estimateLocally(PayoutParams params) throws IOException {
+        String assetId = params.getDestinationAssetId();
+        if (assetId == null || params.getSourceCoin() == null
+                || (params.getQuoteIds() != null && !params.getQuoteIds().isEmpty())
+                || "bank".equals(params.getDestinationAccountType())) {
+            return null;
+        }
+        Asset asset = catalog.getAsset(assetId);
+        // Not getNetworkFee, which falls back to a fee keyed by network name
+        NetworkFee fee = catalog.getNetworkFees().get(assetId);
+        if (asset == null || fee == null || asset.isFiat() || asset.getDecimals() == null
+                || !params.getSourceCoin().equals(asset.getCoin()) || !isNativeCoin(asset)) {
+            return null;
+        }
+        int decimals = asset.getDecimals();
+        BigDecimal feeAmount = fee.getFeeAmount() != null ? fee.getFeeAmount() : BigDecimal.ZERO;
+        BigDecimal minimum = fee.getMinPayoutAmount() != null ? fee.getMinPayoutAmount() : BigDecimal.ZERO;
+
+        BigDecimal source;
+        BigDecimal receive;
+        if (params.getSourceAmount() != null) {
+            source = parse(params.getSourceAmount(), decimals);
+            if (source == null) {
+                return null;
+            }
+            receive = source.subtract(feeAmount);
+        } else if (params.getDestinationAmount() != null) {
+            receive = parse(params.getDestinationAmount(), decimals);
+            if (receive == null) {
+                return null;
+            }
+            source = receive.add(feeAmount);
+        } else {
+            return null;
+        }
+
+        String errorCode = null;
+        String message = null;
+        if (source.compareTo(minimum) < 0) {
+            errorCode = PayoutEstimate.AMOUNT_TOO_SMALL;
+            message = "Payout amount " + source.toPlainString() + " is below the minimum "
+                    + minimum.toPlainString() + " for " + assetId;
+        } else if (receive.signum() <= 0) {
+            errorCode = PayoutEstimate.AMOUNT_TOO_SMALL;
+            message = "Payout amount does not cover the network fee";
+        }
+        return new PayoutEstimate(assetId, new AssetAmount(source, assetId, decimals),
+                new AssetAmount(receive, assetId, decimals), feeAmount, minimum, errorCode, message, null, true);
+    }
+
+    /**
+     * Returns true if the asset is its network's own currency, the one fees are paid in
+     */
+    private static boolean isNativeCoin(Asset asset) {
+        return asset.getContractAddress() == null || asset.getContractAddress().isEmpty();
+    }
+
+    /**
+     * Returns a snapshot of how many estimates were local and how many needed a preview
+     */
+    public Stats getStats() {
+        return new Stats(local.sum(), remote.sum());
+    }
+
+    private PayoutEstimate preview(PayoutParams params) throws IOException {
+        String assetId = params.getDestinationAssetId();
+        PayoutPreviewResp preview;
+        try {
+            preview = payoutService.previewPayout(toPreviewRequest(params));
+        } catch (MartianPayException e) {
+            if (!PayoutEstimate.AMOUNT_TOO_SMALL.equals(e.getErrorCode())) {
+                throw e;
+            }
+            NetworkFee fee = assetId != null ? catalog.getNetworkFee(assetId) : null;
+            return new PayoutEstimate(assetId, null, null, null, fee != null ? fee.getMinPayoutAmount() : null,
+                    e.getErrorCode(), e.getApiMessage(), null, false);
+        }
+        Asset asset = preview.getReceiveAssetId() != null ? catalog.getAsset(preview.getReceiveAssetId()) : null;
+        Integer decimals = asset != null ? asset.getDecimals() : null;
+        NetworkFee fee = preview.getReceiveAssetId() != null ? catalog.getNetworkFee(preview.getReceiveAssetId()) : null;
+        return new PayoutEstimate(preview.getReceiveAssetId(),
+                new AssetAmount(preview.getSourceAmount(), preview.getSourceCoin(), null),
+                new AssetAmount(preview.getReceiveAmount(), preview.getReceiveAssetId(), decimals),
+                preview.getPaymentTotalFee(), fee != null ? fee.getMinPayoutAmount() : null,
+                null, null, preview, false);
+    }
+
+    private static PayoutPreviewRequest toPreviewRequest(PayoutParams params) {
+        if (params instanceof PayoutPreviewRequest) {
+            return (PayoutPreviewRequest) params;
+        }
+        PayoutPreviewRequest request = new PayoutPreviewRequest();
+        request.setSourceCoin(params.getSourceCoin());
+        request.setSourceAmount(params.getSourceAmount());
+        request.setQuoteIds(params.getQuoteIds());
+        request.setDestinationAssetId(params.getDestinationAssetId());
+        request.setDestinationAmount(params.getDestinationAmount());
+        request.setDestinationAccountType(params.getDestinationAccountType());
+        request.setDestinationAccountId(params.getDestinationAccountId());
+        request.setDestinationAddress(params.getDestinationAddress());
+        request.setToMerchantId(params.getToMerchantId());
+        request.setInternalNote(params.getInternalNote());
+        request.setStatementDescriptor(params.getStatementDescriptor());
+        request.setExternalId(params.getExternalId());
+        request.setMetadata(params.getMetadata());
+        return request;
+    }
+
+    /**
+     * Parses a decimal amount, or returns null if it is malformed or finer than the asset's
+     * decimals, leaving the decision to the server
+     */
+    private static BigDecimal parse(String amount, int decimals) {
+        BigDecimal value;
+        try {
+            value = new BigDecimal(amount);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (value.stripTrailingZeros().scale() > decimals) {
+            return null;
+        }
+        return value;
+    }
+
+    /**
+     * Stats is a point-in-time snapshot of the estimator counters
+     */
+    public static final class Stats {
+        private final long local;
+        private final long remote;
+
+        Stats(long local, long remote) {
+            this.local = local;
+            this.remote = remote;
+        }
+
+        /** Estimates computed from cached data */
+        public long getLocal() { return local; }
+
+        /** Estimates that needed a server preview */
+        public long getRemote() { return remote; }
+
+        @Override
+        public String toString() {
+            return "PayoutEstimator.Stats{local=" + local + ", remote=" + remote + "}";
+        }
+    }
+}
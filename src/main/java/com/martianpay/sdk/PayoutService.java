@@ -13,11 +13,27 @@ import com.martianpay.developer.PayoutListResp;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * PayoutService provides methods for managing payouts
  */
 public class PayoutService extends MartianPayClient {
+    private static final PathTemplate PAYOUTS_ID = PathTemplate.of("/v1/payouts/%s")
+            .operation("GET", "getPayout");
+    private static final PathTemplate PAYOUTS_ID_CANCEL = PathTemplate.of("/v1/payouts/%s/cancel")
+            .operation("POST", "cancelPayout");
+    private static final PathTemplate APPROVAL_ID_APPROVE = PathTemplate.of("/v1/approval/%s/approve")
+            .operation("POST", "approvePayout");
+    private static final PathTemplate APPROVAL_ID_REJECT = PathTemplate.of("/v1/approval/%s/reject")
+            .operation("POST", "rejectPayout");
+    private static final PathTemplate PAYOUTS_PREVIEW = PathTemplate.of("/v1/payouts/preview")
+            .operation("POST", "previewPayout");
+    private static final PathTemplate PAYOUTS = PathTemplate.of("/v1/payouts")
+            .operation("GET", "listPayouts")
+            .operation("POST", "createPayout");
+    private static final PathTemplate APPROVAL_DETAIL = PathTemplate.of("/v1/approval/detail")
+            .operation("GET", "getApprovalInstance");
 
     public PayoutService(String apiKey) {
         super(apiKey);
@@ -27,6 +43,14 @@ public class PayoutService extends MartianPayClient {
         super(apiKey, baseUrl);
     }
 
+    public PayoutService(String apiKey, String baseUrl, TransportContext transport) {
+        super(apiKey, baseUrl, transport);
+    }
+
+    public PayoutService(MartianPayClient client) {
+        super(client);
+    }
+
     /**
      * Previews a payout before creation
      *
@@ -35,18 +59,71 @@ public class PayoutService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public PayoutPreviewResp previewPayout(PayoutPreviewRequest request) throws IOException {
-        return sendRequest("POST", "/v1/payouts/preview", request, PayoutPreviewResp.class);
+        return sendRequest("POST", PAYOUTS_PREVIEW.expand(), request, PayoutPreviewResp.class);
+    }
+
+    /**
+     * Previews a payout before creation asynchronously
+     *
+     * @param request Preview request parameters
+     * @return Future completing with the payout preview response
+     * @see #previewPayout
+     */
+    public CompletableFuture<PayoutPreviewResp> previewPayoutAsync(PayoutPreviewRequest request) {
+        return sendRequestAsync("POST", PAYOUTS_PREVIEW.expand(), request, PayoutPreviewResp.class);
     }
 
     /**
      * Creates a new payout
      *
+     * A new idempotency key is generated for the call, so a retried attempt cannot create a
+     * second payout.
+     *
      * @param request Payout creation parameters
      * @return Payout creation response
      * @throws IOException if request fails
      */
     public PayoutCreateResp createPayout(PayoutCreateRequest request) throws IOException {
-        return sendRequest("POST", "/v1/payouts", request, PayoutCreateResp.class);
+        return sendIdempotentRequest("POST", PAYOUTS.expand(), request, PayoutCreateResp.class, null);
+    }
+
+    /**
+     * Creates a new payout asynchronously
+     *
+     * @param request Payout creation parameters
+     * @return Future completing with the payout creation response
+     * @see #createPayout
+     */
+    public CompletableFuture<PayoutCreateResp> createPayoutAsync(PayoutCreateRequest request) {
+        return sendIdempotentRequestAsync("POST", PAYOUTS.expand(), request, PayoutCreateResp.class, null);
+    }
+
+    /**
+     * Creates a payout with a caller-supplied idempotency key
+     *
+     * The key is sent in the Idempotency-Key header; a server that deduplicates on it returns the
+     * original result to a repeat instead of creating another payout. Derive the key from your own
+     * operation id so that repeats after process restarts and redeliveries carry it too.
+     *
+     * @param request        Creation parameters
+     * @param idempotencyKey Idempotency key of this logical operation, or null to generate one
+     * @return Same response as {@link #createPayout(PayoutCreateRequest)}
+     * @throws IOException if request fails
+     */
+    public PayoutCreateResp createPayout(PayoutCreateRequest request, String idempotencyKey) throws IOException {
+        return sendIdempotentRequest("POST", PAYOUTS.expand(), request, PayoutCreateResp.class, idempotencyKey);
+    }
+
+    /**
+     * Creates a payout with a caller-supplied idempotency key asynchronously
+     *
+     * @param request        Creation parameters
+     * @param idempotencyKey Idempotency key of this logical operation, or null to generate one
+     * @return Future completing with the same response as {@link #createPayoutAsync(PayoutCreateRequest)}
+     * @see #createPayout(PayoutCreateRequest, String)
+     */
+    public CompletableFuture<PayoutCreateResp> createPayoutAsync(PayoutCreateRequest request, String idempotencyKey) {
+        return sendIdempotentRequestAsync("POST", PAYOUTS.expand(), request, PayoutCreateResp.class, idempotencyKey);
     }
 
     /**
@@ -57,8 +134,18 @@ public class PayoutService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public PayoutGetResp getPayout(String payoutID) throws IOException {
-        String path = String.format("/v1/payouts/%s", payoutID);
-        return sendRequest("GET", path, null, PayoutGetResp.class);
+        return sendRequest("GET", PAYOUTS_ID.expand(payoutID), null, PayoutGetResp.class);
+    }
+
+    /**
+     * Retrieves payout details asynchronously
+     *
+     * @param payoutID Payout ID
+     * @return Future completing with the payout details
+     * @see #getPayout
+     */
+    public CompletableFuture<PayoutGetResp> getPayoutAsync(String payoutID) {
+        return sendRequestAsync("GET", PAYOUTS_ID.expand(payoutID), null, PayoutGetResp.class);
     }
 
     /**
@@ -69,7 +156,33 @@ public class PayoutService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public PayoutListResp listPayouts(PayoutListRequest request) throws IOException {
-        return sendRequestWithQuery("GET", "/v1/payouts", request, PayoutListResp.class);
+        return sendRequestWithQuery("GET", PAYOUTS.expand(), request, PayoutListResp.class);
+    }
+
+    /**
+     * Lists all payouts with pagination asynchronously
+     *
+     * @param request Payout list request parameters
+     * @return Future completing with the payout list response
+     * @see #listPayouts
+     */
+    public CompletableFuture<PayoutListResp> listPayoutsAsync(PayoutListRequest request) {
+        return sendRequestWithQueryAsync("GET", PAYOUTS.expand(), request, PayoutListResp.class);
+    }
+
+    /**
+     * Iterates over all payouts matching the list parameters, fetching pages lazily
+     *
+     * The walk starts at the request's page and uses its page size (or {@link Pager#DEFAULT_PAGE_SIZE}).
+     *
+     * @param request List parameters; the paging fields are not modified
+     * @return Pager over the matching payouts
+     * @see #listPayouts
+     */
+    public Pager<Payout> paginatePayouts(PayoutListRequest request) {
+        return Pager.byPage(this, PAYOUTS.expand(), request,
+                request != null ? request.getPage() : null, request != null ? request.getPageSize() : null,
+                PayoutListResp.class, PayoutListResp::getPayouts, PayoutListResp::getTotal);
     }
 
     /**
@@ -80,8 +193,18 @@ public class PayoutService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public Payout cancelPayout(String payoutID) throws IOException {
-        String path = String.format("/v1/payouts/%s/cancel", payoutID);
-        return sendRequest("POST", path, null, Payout.class);
+        return sendRequest("POST", PAYOUTS_ID_CANCEL.expand(payoutID), null, Payout.class);
+    }
+
+    /**
+     * Cancels a pending payout asynchronously
+     *
+     * @param payoutID Payout ID
+     * @return Future completing with the updated payout
+     * @see #cancelPayout
+     */
+    public CompletableFuture<Payout> cancelPayoutAsync(String payoutID) {
+        return sendRequestAsync("POST", PAYOUTS_ID_CANCEL.expand(payoutID), null, Payout.class);
     }
 
     /**
@@ -94,7 +217,20 @@ public class PayoutService extends MartianPayClient {
     public ApprovalInstance getApprovalInstance(String resourceID) throws IOException {
         Map<String, String> params = new HashMap<>();
         params.put("resource_id", resourceID);
-        return sendRequestWithQuery("GET", "/v1/approval/detail", params, ApprovalInstance.class);
+        return sendRequestWithQuery("GET", APPROVAL_DETAIL.expand(), params, ApprovalInstance.class);
+    }
+
+    /**
+     * Retrieves approval instance details asynchronously
+     *
+     * @param resourceID Resource ID
+     * @return Future completing with the approval instance
+     * @see #getApprovalInstance
+     */
+    public CompletableFuture<ApprovalInstance> getApprovalInstanceAsync(String resourceID) {
+        Map<String, String> params = new HashMap<>();
+        params.put("resource_id", resourceID);
+        return sendRequestWithQueryAsync("GET", APPROVAL_DETAIL.expand(), params, ApprovalInstance.class);
     }
 
     /**
@@ -107,8 +243,21 @@ public class PayoutService extends MartianPayClient {
     public void approvePayout(String approvalID, String comment) throws IOException {
         Map<String, String> requestBody = new HashMap<>();
         requestBody.put("comment", comment);
-        String path = String.format("/v1/approval/%s/approve", approvalID);
-        sendRequest("POST", path, requestBody, Void.class);
+        sendRequest("POST", APPROVAL_ID_APPROVE.expand(approvalID), requestBody, Void.class);
+    }
+
+    /**
+     * Approves a payout asynchronously
+     *
+     * @param approvalID Approval ID
+     * @param comment Comment explaining the approval
+     * @return Future completing when the request succeeds
+     * @see #approvePayout
+     */
+    public CompletableFuture<Void> approvePayoutAsync(String approvalID, String comment) {
+        Map<String, String> requestBody = new HashMap<>();
+        requestBody.put("comment", comment);
+        return sendRequestAsync("POST", APPROVAL_ID_APPROVE.expand(approvalID), requestBody, Void.class);
     }
 
     /**
@@ -121,7 +270,20 @@ public class PayoutService extends MartianPayClient {
     public void rejectPayout(String approvalID, String reason) throws IOException {
         Map<String, String> requestBody = new HashMap<>();
         requestBody.put("comment", reason);
-        String path = String.format("/v1/approval/%s/reject", approvalID);
-        sendRequest("POST", path, requestBody, Void.class);
+        sendRequest("POST", APPROVAL_ID_REJECT.expand(approvalID), requestBody, Void.class);
+    }
+
+    /**
+     * Rejects a payout asynchronously
+     *
+     * @param approvalID Approval ID
+     * @param reason Reason for rejection
+     * @return Future completing when the request succeeds
+     * @see #rejectPayout
+     */
+    public CompletableFuture<Void> rejectPayoutAsync(String approvalID, String reason) {
+        Map<String, String> requestBody = new HashMap<>();
+        requestBody.put("comment", reason);
+        return sendRequestAsync("POST", APPROVAL_ID_REJECT.expand(approvalID), requestBody, Void.class);
     }
 }
@@ -1,21 +1,34 @@
 package com.martianpay.sdk;
 
+import com.martianpay.developer.Payroll;
 import com.martianpay.developer.PayrollDirectCreateRequest;
 import com.martianpay.developer.PayrollDirectCreateResponse;
 import com.martianpay.developer.PayrollConfirmRequest;
 import com.martianpay.developer.PayrollConfirmResponse;
 import com.martianpay.developer.PayrollGetResponse;
+import com.martianpay.developer.PayrollItems;
 import com.martianpay.developer.PayrollListRequest;
 import com.martianpay.developer.PayrollListResponse;
 import com.martianpay.developer.PayrollItemsListRequest;
 import com.martianpay.developer.PayrollItemsListResponse;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * PayrollService provides methods for managing payrolls
  */
 public class PayrollService extends MartianPayClient {
+    private static final PathTemplate PAYROLLS_ID_CONFIRM = PathTemplate.of("/v1/payrolls/%s/confirm")
+            .operation("POST", "confirmPayroll");
+    private static final PathTemplate PAYROLLS_ID = PathTemplate.of("/v1/payrolls/%s")
+            .operation("GET", "getPayroll");
+    private static final PathTemplate PAYROLLS_DIRECT = PathTemplate.of("/v1/payrolls/direct")
+            .operation("POST", "createDirectPayroll");
+    private static final PathTemplate PAYROLLS = PathTemplate.of("/v1/payrolls")
+            .operation("GET", "listPayrolls");
+    private static final PathTemplate PAYROLLS_ITEMS_LIST = PathTemplate.of("/v1/payrolls/items/list")
+            .operation("GET", "listPayrollItems");
 
     public PayrollService(String apiKey) {
         super(apiKey);
@@ -25,15 +38,65 @@ public class PayrollService extends MartianPayClient {
         super(apiKey, baseUrl);
     }
 
+    public PayrollService(String apiKey, String baseUrl, TransportContext transport) {
+        super(apiKey, baseUrl, transport);
+    }
+
+    public PayrollService(MartianPayClient client) {
+        super(client);
+    }
+
     /**
      * Creates a direct payroll
      *
+     * A new idempotency key is generated for the call, so a retried attempt cannot create a
+     * second payroll.
+     *
      * @param request Payroll creation parameters
      * @return Payroll creation response
      * @throws IOException if request fails
      */
     public PayrollDirectCreateResponse createDirectPayroll(PayrollDirectCreateRequest request) throws IOException {
-        return sendRequest("POST", "/v1/payrolls/direct", request, PayrollDirectCreateResponse.class);
+        return sendIdempotentRequest("POST", PAYROLLS_DIRECT.expand(), request, PayrollDirectCreateResponse.class, null);
+    }
+
+    /**
+     * Creates a direct payroll asynchronously
+     *
+     * @param request Payroll creation parameters
+     * @return Future completing with the payroll creation response
+     * @see #createDirectPayroll
+     */
+    public CompletableFuture<PayrollDirectCreateResponse> createDirectPayrollAsync(PayrollDirectCreateRequest request) {
+        return sendIdempotentRequestAsync("POST", PAYROLLS_DIRECT.expand(), request, PayrollDirectCreateResponse.class, null);
+    }
+
+    /**
+     * Creates a payroll with a caller-supplied idempotency key
+     *
+     * The key is sent in the Idempotency-Key header; a server that deduplicates on it returns the
+     * original result to a repeat instead of creating another payroll. Derive the key from your own
+     * operation id so that repeats after process restarts and redeliveries carry it too.
+     *
+     * @param request        Creation parameters
+     * @param idempotencyKey Idempotency key of this logical operation, or null to generate one
+     * @return Same response as {@link #createDirectPayroll(PayrollDirectCreateRequest)}
+     * @throws IOException if request fails
+     */
+    public PayrollDirectCreateResponse createDirectPayroll(PayrollDirectCreateRequest request, String idempotencyKey) throws IOException {
+        return sendIdempotentRequest("POST", PAYROLLS_DIRECT.expand(), request, PayrollDirectCreateResponse.class, idempotencyKey);
+    }
+
+    /**
+     * Creates a payroll with a caller-supplied idempotency key asynchronously
+     *
+     * @param request        Creation parameters
+     * @param idempotencyKey Idempotency key of this logical operation, or null to generate one
+     * @return Future completing with the same response as {@link #createDirectPayrollAsync(PayrollDirectCreateRequest)}
+     * @see #createDirectPayroll(PayrollDirectCreateRequest, String)
+     */
+    public CompletableFuture<PayrollDirectCreateResponse> createDirectPayrollAsync(PayrollDirectCreateRequest request, String idempotencyKey) {
+        return sendIdempotentRequestAsync("POST", PAYROLLS_DIRECT.expand(), request, PayrollDirectCreateResponse.class, idempotencyKey);
     }
 
     /**
@@ -45,8 +108,19 @@ public class PayrollService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public PayrollConfirmResponse confirmPayroll(String payrollID, PayrollConfirmRequest request) throws IOException {
-        String path = String.format("/v1/payrolls/%s/confirm", payrollID);
-        return sendRequest("POST", path, request, PayrollConfirmResponse.class);
+        return sendRequest("POST", PAYROLLS_ID_CONFIRM.expand(payrollID), request, PayrollConfirmResponse.class);
+    }
+
+    /**
+     * Confirms a payroll asynchronously
+     *
+     * @param payrollID Payroll ID
+     * @param request Confirm request parameters
+     * @return Future completing with the payroll confirm response
+     * @see #confirmPayroll
+     */
+    public CompletableFuture<PayrollConfirmResponse> confirmPayrollAsync(String payrollID, PayrollConfirmRequest request) {
+        return sendRequestAsync("POST", PAYROLLS_ID_CONFIRM.expand(payrollID), request, PayrollConfirmResponse.class);
     }
 
     /**
@@ -57,8 +131,18 @@ public class PayrollService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public PayrollGetResponse getPayroll(String payrollID) throws IOException {
-        String path = String.format("/v1/payrolls/%s", payrollID);
-        return sendRequest("GET", path, null, PayrollGetResponse.class);
+        return sendRequest("GET", PAYROLLS_ID.expand(payrollID), null, PayrollGetResponse.class);
+    }
+
+    /**
+     * Retrieves payroll details asynchronously
+     *
+     * @param payrollID Payroll ID
+     * @return Future completing with the payroll details
+     * @see #getPayroll
+     */
+    public CompletableFuture<PayrollGetResponse> getPayrollAsync(String payrollID) {
+        return sendRequestAsync("GET", PAYROLLS_ID.expand(payrollID), null, PayrollGetResponse.class);
     }
 
     /**
@@ -69,7 +153,33 @@ public class PayrollService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public PayrollListResponse listPayrolls(PayrollListRequest request) throws IOException {
-        return sendRequestWithQuery("GET", "/v1/payrolls", request, PayrollListResponse.class);
+        return sendRequestWithQuery("GET", PAYROLLS.expand(), request, PayrollListResponse.class);
+    }
+
+    /**
+     * Lists all payrolls with pagination asynchronously
+     *
+     * @param request Payroll list request parameters
+     * @return Future completing with the payroll list response
+     * @see #listPayrolls
+     */
+    public CompletableFuture<PayrollListResponse> listPayrollsAsync(PayrollListRequest request) {
+        return sendRequestWithQueryAsync("GET", PAYROLLS.expand(), request, PayrollListResponse.class);
+    }
+
+    /**
+     * Iterates over all payrolls matching the list parameters, fetching pages lazily
+     *
+     * The walk starts at the request's page and uses its page size (or {@link Pager#DEFAULT_PAGE_SIZE}).
+     *
+     * @param request List parameters; the paging fields are not modified
+     * @return Pager over the matching payrolls
+     * @see #listPayrolls
+     */
+    public Pager<Payroll> paginatePayrolls(PayrollListRequest request) {
+        return Pager.byPage(this, PAYROLLS.expand(), request,
+                request != null ? request.getPage() : null, request != null ? request.getPageSize() : null,
+                PayrollListResponse.class, PayrollListResponse::getPayrolls, PayrollListResponse::getTotal);
     }
 
     /**
@@ -80,6 +190,32 @@ public class PayrollService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public PayrollItemsListResponse listPayrollItems(PayrollItemsListRequest request) throws IOException {
-        return sendRequestWithQuery("GET", "/v1/payrolls/items/list", request, PayrollItemsListResponse.class);
+        return sendRequestWithQuery("GET", PAYROLLS_ITEMS_LIST.expand(), request, PayrollItemsListResponse.class);
+    }
+
+    /**
+     * Lists payroll items with pagination asynchronously
+     *
+     * @param request Payroll items list request parameters
+     * @return Future completing with the payroll items list response
+     * @see #listPayrollItems
+     */
+    public CompletableFuture<PayrollItemsListResponse> listPayrollItemsAsync(PayrollItemsListRequest request) {
+        return sendRequestWithQueryAsync("GET", PAYROLLS_ITEMS_LIST.expand(), request, PayrollItemsListResponse.class);
+    }
+
+    /**
+     * Iterates over all payroll items matching the list parameters, fetching pages lazily
+     *
+     * The walk starts at the request's page and uses its page size (or {@link Pager#DEFAULT_PAGE_SIZE}).
+     *
+     * @param request List parameters; the paging fields are not modified
+     * @return Pager over the matching payroll items
+     * @see #listPayrollItems
+     */
+    public Pager<PayrollItems> paginatePayrollItems(PayrollItemsListRequest request) {
+        return Pager.byPage(this, PAYROLLS_ITEMS_LIST.expand(), request,
+                request != null ? request.getPage() : null, request != null ? request.getPageSize() : null,
+                PayrollItemsListResponse.class, PayrollItemsListResponse::getPayrollItems, PayrollItemsListResponse::getTotal);
     }
 }
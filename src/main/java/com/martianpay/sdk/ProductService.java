@@ -8,11 +8,19 @@ import com.martianpay.developer.ProductListResp;
 import com.martianpay.developer.ProductUpdateRequest;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * ProductService provides methods for managing products
  */
 public class ProductService extends MartianPayClient {
+    private static final PathTemplate PRODUCTS_ID = PathTemplate.of("/v1/products/%s")
+            .operation("GET", "getProduct")
+            .operation("POST", "updateProduct")
+            .operation("DELETE", "deleteProduct");
+    private static final PathTemplate PRODUCTS = PathTemplate.of("/v1/products")
+            .operation("GET", "listProducts")
+            .operation("POST", "createProduct");
 
     public ProductService(String apiKey) {
         super(apiKey);
@@ -22,6 +30,14 @@ public class ProductService extends MartianPayClient {
         super(apiKey, baseUrl);
     }
 
+    public ProductService(String apiKey, String baseUrl, TransportContext transport) {
+        super(apiKey, baseUrl, transport);
+    }
+
+    public ProductService(MartianPayClient client) {
+        super(client);
+    }
+
     /**
      * Lists products with pagination
      *
@@ -30,7 +46,33 @@ public class ProductService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public ProductListResp listProducts(ProductListRequest params) throws IOException {
-        return sendRequestWithQuery("GET", "/v1/products", params, ProductListResp.class);
+        return sendRequestWithQuery("GET", PRODUCTS.expand(), params, ProductListResp.class);
+    }
+
+    /**
+     * Lists products with pagination asynchronously
+     *
+     * @param params Product list request parameters
+     * @return Future completing with the product list response
+     * @see #listProducts
+     */
+    public CompletableFuture<ProductListResp> listProductsAsync(ProductListRequest params) {
+        return sendRequestWithQueryAsync("GET", PRODUCTS.expand(), params, ProductListResp.class);
+    }
+
+    /**
+     * Iterates over all products matching the list parameters, fetching pages lazily
+     *
+     * The walk starts at the request's page and uses its page size (or {@link Pager#DEFAULT_PAGE_SIZE}).
+     *
+     * @param params List parameters; the paging fields are not modified
+     * @return Pager over the matching products
+     * @see #listProducts
+     */
+    public Pager<Product> paginateProducts(ProductListRequest params) {
+        return Pager.byPage(this, PRODUCTS.expand(), params,
+                params != null ? params.getPage() : null, params != null ? params.getPageSize() : null,
+                ProductListResp.class, ProductListResp::getProducts, ProductListResp::getTotal);
     }
 
     /**
@@ -41,7 +83,18 @@ public class ProductService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public Product createProduct(ProductCreateRequest params) throws IOException {
-        return sendRequest("POST", "/v1/products", params, Product.class);
+        return sendRequest("POST", PRODUCTS.expand(), params, Product.class);
+    }
+
+    /**
+     * Creates a product with variants asynchronously
+     *
+     * @param params Product creation parameters
+     * @return Future completing with the created product
+     * @see #createProduct
+     */
+    public CompletableFuture<Product> createProductAsync(ProductCreateRequest params) {
+        return sendRequestAsync("POST", PRODUCTS.expand(), params, Product.class);
     }
 
     /**
@@ -55,6 +108,17 @@ public class ProductService extends MartianPayClient {
         return getProduct(productID, null);
     }
 
+    /**
+     * Retrieves product details asynchronously
+     *
+     * @param productID Product ID
+     * @return Future completing with the product details
+     * @see #getProduct
+     */
+    public CompletableFuture<Product> getProductAsync(String productID) {
+        return getProductAsync(productID, null);
+    }
+
     /**
      * Retrieves product details with optional expand parameter
      *
@@ -64,8 +128,19 @@ public class ProductService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public Product getProduct(String productID, ProductGetRequest params) throws IOException {
-        String path = String.format("/v1/products/%s", productID);
-        return sendRequestWithQuery("GET", path, params, Product.class);
+        return sendRequestWithQuery("GET", PRODUCTS_ID.expand(productID), params, Product.class);
+    }
+
+    /**
+     * Retrieves product details with optional expand parameter asynchronously
+     *
+     * @param productID Product ID
+     * @param params Optional query parameters (use null for defaults, or set expand="selling_plans" to include selling plan details)
+     * @return Future completing with the product details
+     * @see #getProduct
+     */
+    public CompletableFuture<Product> getProductAsync(String productID, ProductGetRequest params) {
+        return sendRequestWithQueryAsync("GET", PRODUCTS_ID.expand(productID), params, Product.class);
     }
 
     /**
@@ -77,8 +152,19 @@ public class ProductService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public Product updateProduct(String productID, ProductUpdateRequest params) throws IOException {
-        String path = String.format("/v1/products/%s", productID);
-        return sendRequest("POST", path, params, Product.class);
+        return sendRequest("POST", PRODUCTS_ID.expand(productID), params, Product.class);
+    }
+
+    /**
+     * Updates product configuration asynchronously
+     *
+     * @param productID Product ID
+     * @param params Update parameters
+     * @return Future completing with the updated product
+     * @see #updateProduct
+     */
+    public CompletableFuture<Product> updateProductAsync(String productID, ProductUpdateRequest params) {
+        return sendRequestAsync("POST", PRODUCTS_ID.expand(productID), params, Product.class);
     }
 
     /**
@@ -88,7 +174,17 @@ public class ProductService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public void deleteProduct(String productID) throws IOException {
-        String path = String.format("/v1/products/%s", productID);
-        sendRequest("DELETE", path, null, Void.class);
+        sendRequest("DELETE", PRODUCTS_ID.expand(productID), null, Void.class);
+    }
+
+    /**
+     * Deletes inactive product asynchronously
+     *
+     * @param productID Product ID
+     * @return Future completing when the request succeeds
+     * @see #deleteProduct
+     */
+    public CompletableFuture<Void> deleteProductAsync(String productID) {
+        return sendRequestAsync("DELETE", PRODUCTS_ID.expand(productID), null, Void.class);
     }
 }
@@ -0,0 +1,299 @@
+package com.martianpay.sdk;
+
+import com.google.gson.annotations.SerializedName;
+import okhttp3.HttpUrl;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * QueryEncoder writes a request object's fields as URL query parameters.
+ *
+ * One encoder is built per class, on first use, and cached for the life of the class. Building it
+ * does the reflective work once: it walks the class and its superclasses, resolves each field's
+ * {@code @SerializedName}, unreflects a getter MethodHandle and picks a value writer for the
+ * field's declared type. Encoding then only reads fields and appends parameters.
+ *
+ * Supported values: strings (empty strings are skipped), numbers and booleans, BigDecimal (plain
+ * notation), enums (their {@code @SerializedName} value, else the constant name), and
+ * collections or arrays of those, written as one repeated parameter per element. Null values
+ * are skipped. Static, transient and synthetic fields are ignored. Any other field type is
+ * rejected when the encoder is built rather than silently dropped.
+ */
+final class QueryEncoder {
+    private static final ClassValue<QueryEncoder> ENCODERS = new ClassValue<QueryEncoder>() {
+        @Override
+        protected QueryEncoder computeValue(Class<?> type) {
+            return build(type);
+        }
+    };
+
+    private static final ClassValue<ValueWriter> SCALAR_WRITERS = new ClassValue<ValueWriter>() {
+        @Override
+        protected ValueWriter computeValue(Class<?> type) {
+            return createScalarWriter(type);
+        }
+    };
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final FieldEncoder[] fields;
+
+    private QueryEncoder(FieldEncoder[] fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Returns the cached encoder for a class
+     *
+     * @throws IllegalArgumentException if a field has an unsupported type
+     */
+    static QueryEncoder forClass(Class<?> type) {
+        return ENCODERS.get(type);
+    }
+
+    /**
+     * Adds query parameters from a Map, a request object or a PageQuery
+     */
+    static void encode(HttpUrl.Builder urlBuilder, Object params) {
+        if (params instanceof PageQuery) {
+            ((PageQuery) params).encode(urlBuilder);
+            return;
+        }
+        if (params instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) params).entrySet()) {
+                String key = String.valueOf(entry.getKey());
+                Object value = entry.getValue();
+                if (value == null) {
+                    continue;
+                }
+                ValueWriter writer = value instanceof Collection || value.getClass().isArray()
+                        ? MultiValueWriter.INSTANCE
+                        : scalarWriter(value.getClass());
+                if (writer == null) {
+                    writer = StringValueWriter.INSTANCE;
+                }
+                writer.write(urlBuilder, key, value);
+            }
+            return;
+        }
+        forClass(params.getClass()).encodeObject(urlBuilder, params);
+    }
+
+    /**
+     * Adds one query parameter per non-null field of the object
+     */
+    void encodeObject(HttpUrl.Builder urlBuilder, Object params) {
+        for (FieldEncoder field : fields) {
+            Object value;
+            try {
+                value = field.getter.invokeExact(params);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException("Cannot read query field " + field.name, t);
+            }
+            if (value != null) {
+                field.writer.write(urlBuilder, field.name, value);
+            }
+        }
+    }
+
+    private static QueryEncoder build(Class<?> type) {
+        List<Class<?>> hierarchy = new ArrayList<>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            hierarchy.add(0, c);
+        }
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        List<FieldEncoder> encoders = new ArrayList<>();
+        for (Class<?> c : hierarchy) {
+            for (Field field : c.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                    continue;
+                }
+                SerializedName annotation = field.getAnnotation(SerializedName.class);
+                String name = annotation != null ? annotation.value() : field.getName();
+                ValueWriter writer = writerFor(field.getType());
+                if (writer == null) {
+                    throw new IllegalArgumentException(String.format(
+                            "Unsupported query parameter type %s for field %s.%s",
+                            field.getType().getName(), c.getName(), field.getName()));
+                }
+                MethodHandle getter;
+                try {
+                    field.setAccessible(true);
+                    getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+                } catch (IllegalAccessException | RuntimeException e) {
+                    throw new IllegalArgumentException("Cannot access query field " + c.getName() + "." + field.getName(), e);
+                }
+                encoders.add(new FieldEncoder(name, getter, writer));
+            }
+        }
+        return new QueryEncoder(encoders.toArray(new FieldEncoder[0]));
+    }
+
+    private static ValueWriter writerFor(Class<?> type) {
+        if (Collection.class.isAssignableFrom(type)) {
+            return MultiValueWriter.INSTANCE;
+        }
+        if (type.isArray()) {
+            return scalarWriter(type.getComponentType()) != null ? MultiValueWriter.INSTANCE : null;
+        }
+        return scalarWriter(type);
+    }
+
+    /**
+     * Returns the writer for a single value of the type, or null if the type is not supported
+     */
+    private static ValueWriter scalarWriter(Class<?> type) {
+        ValueWriter writer = SCALAR_WRITERS.get(type);
+        return writer != UnsupportedWriter.INSTANCE ? writer : null;
+    }
+
+    private static ValueWriter createScalarWriter(Class<?> type) {
+        if (type == String.class) {
+            return StringValueWriter.INSTANCE;
+        }
+        if (type == BigDecimal.class) {
+            return BigDecimalWriter.INSTANCE;
+        }
+        if (type.isPrimitive() || Number.class.isAssignableFrom(type)
+                || type == Boolean.class || type == Character.class) {
+            return PlainValueWriter.INSTANCE;
+        }
+        if (Enum.class.isAssignableFrom(type)) {
+            // Constants with bodies are subclasses of the enum type
+            return new EnumWriter(type.isEnum() ? type : type.getSuperclass());
+        }
+        return UnsupportedWriter.INSTANCE;
+    }
+
+    private static final class FieldEncoder {
+        final String name;
+        final MethodHandle getter;
+        final ValueWriter writer;
+
+        FieldEncoder(String name, MethodHandle getter, ValueWriter writer) {
+            this.name = name;
+            this.getter = getter;
+            this.writer = writer;
+        }
+    }
+
+    private interface ValueWriter {
+        void write(HttpUrl.Builder urlBuilder, String name, Object value);
+    }
+
+    private static final class UnsupportedWriter implements ValueWriter {
+        static final UnsupportedWriter INSTANCE = new UnsupportedWriter();
+
+        @Override
+        public void write(HttpUrl.Builder urlBuilder, String name, Object value) {
+            throw new IllegalArgumentException("Unsupported query parameter type " + value.getClass().getName());
+        }
+    }
+
+    private static final class StringValueWriter implements ValueWriter {
+        static final StringValueWriter INSTANCE = new StringValueWriter();
+
+        @Override
+        public void write(HttpUrl.Builder urlBuilder, String name, Object value) {
+            String s = value.toString();
+            // Skip empty strings
+            if (!s.isEmpty()) {
+                urlBuilder.addQueryParameter(name, s);
+            }
+        }
+    }
+
+    private static final class PlainValueWriter implements ValueWriter {
+        static final PlainValueWriter INSTANCE = new PlainValueWriter();
+
+        @Override
+        public void write(HttpUrl.Builder urlBuilder, String name, Object value) {
+            urlBuilder.addQueryParameter(name, String.valueOf(value));
+        }
+    }
+
+    private static final class BigDecimalWriter implements ValueWriter {
+        static final BigDecimalWriter INSTANCE = new BigDecimalWriter();
+
+        @Override
+        public void write(HttpUrl.Builder urlBuilder, String name, Object value) {
+            urlBuilder.addQueryParameter(name, ((BigDecimal) value).toPlainString());
+        }
+    }
+
+    private static final class EnumWriter implements ValueWriter {
+        /** Wire value per ordinal */
+        private final String[] values;
+
+        EnumWriter(Class<?> enumType) {
+            Object[] constants = enumType.getEnumConstants();
+            values = new String[constants.length];
+            for (Object constant : constants) {
+                Enum<?> e = (Enum<?>) constant;
+                String value = e.name();
+                try {
+                    SerializedName annotation = enumType.getField(e.name()).getAnnotation(SerializedName.class);
+                    if (annotation != null) {
+                        value = annotation.value();
+                    }
+                } catch (NoSuchFieldException ignored) {
+                    // Constant fields always exist; keep the name
+                }
+                values[e.ordinal()] = value;
+            }
+        }
+
+        @Override
+        public void write(HttpUrl.Builder urlBuilder, String name, Object value) {
+            urlBuilder.addQueryParameter(name, values[((Enum<?>) value).ordinal()]);
+        }
+    }
+
+    /**
+     * Writes each element of a collection or array as a repeated parameter. Element writers are
+     * resolved from the element's runtime class since generic element types are erased.
+     */
+    private static final class MultiValueWriter implements ValueWriter {
+        static final MultiValueWriter INSTANCE = new MultiValueWriter();
+
+        @Override
+        public void write(HttpUrl.Builder urlBuilder, String name, Object value) {
+            if (value instanceof Collection) {
+                for (Object element : (Collection<?>) value) {
+                    writeElement(urlBuilder, name, element);
+                }
+            } else {
+                int length = Array.getLength(value);
+                for (int i = 0; i < length; i++) {
+                    writeElement(urlBuilder, name, Array.get(value, i));
+                }
+            }
+        }
+
+        private static void writeElement(HttpUrl.Builder urlBuilder, String name, Object element) {
+            if (element == null) {
+                return;
+            }
+            ValueWriter writer = scalarWriter(element.getClass());
+            if (writer == null) {
+                throw new IllegalArgumentException(String.format(
+                        "Unsupported query parameter element type %s for %s", element.getClass().getName(), name));
+            }
+            writer.write(urlBuilder, name, element);
+        }
+    }
+}
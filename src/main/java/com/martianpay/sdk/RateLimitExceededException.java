@@ -0,0 +1,30 @@
+package com.martianpay.sdk;
+
+/**
+ * RateLimitExceededException reports a call rejected by the client-side {@link RateLimiter}
+ * before it was sent.
+ *
+ * It carries status 429 and error code {@value #ERROR_CODE} so that handlers for server throttling
+ * also cover it, and {@link #getRetryAfterMillis()} tells when a token will be available.
+ */
+public class RateLimitExceededException extends CallRejectedException {
+    private static final long serialVersionUID = 1L;
+
+    /** Error code of local rejections */
+    public static final String ERROR_CODE = "client_rate_limited";
+
+    private final RateLimitGroup group;
+
+    public RateLimitExceededException(RateLimitGroup group, long retryAfterMillis) {
+        super("Client rate limit exceeded for " + group + " calls; retry in " + retryAfterMillis + "ms",
+                429, ERROR_CODE, retryAfterMillis);
+        this.group = group;
+    }
+
+    /**
+     * Returns the endpoint group whose limit was exceeded
+     */
+    public RateLimitGroup getGroup() {
+        return group;
+    }
+}
@@ -0,0 +1,49 @@
+package com.martianpay.sdk;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * RateLimitGroup is the endpoint class a call is paced under by a {@link RateLimiter}
+ */
+public enum RateLimitGroup {
+    /**
+     * GET calls of every resource
+     */
+    READS,
+
+    /**
+     * Other calls, such as creates and updates, and POST queries such as {@code previewPayout}
+     */
+    WRITES,
+
+    /**
+     * Calls that create, confirm, approve, reject or cancel payouts and payrolls, which decide
+     * whether funds move out of the account; see {@link #PAYOUT_OPERATIONS}
+     */
+    PAYOUTS;
+
+    /** Operations paced as {@link #PAYOUTS}, named as in traces */
+    public static final Set<String> PAYOUT_OPERATIONS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "createPayout", "cancelPayout", "approvePayout", "rejectPayout",
+            "approveApproval", "rejectApproval",
+            "createDirectPayroll", "confirmPayroll")));
+
+    /**
+     * Returns the group a request belongs to
+     *
+     * @param request API request
+     * @return Rate limit group
+     */
+    public static RateLimitGroup of(ApiRequest request) {
+        if ("GET".equals(request.getMethod())) {
+            return READS;
+        }
+        if (PAYOUT_OPERATIONS.contains(request.getOperation())) {
+            return PAYOUTS;
+        }
+        return WRITES;
+    }
+}
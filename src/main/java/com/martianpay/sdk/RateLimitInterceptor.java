@@ -0,0 +1,91 @@
+package com.martianpay.sdk;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RateLimitInterceptor takes a token from the caller's {@link RateLimiter} bucket before each attempt.
+ *
+ * The buckets of the pipeline's API key are resolved once, so a call only indexes an array and
+ * runs the bucket's compare-and-set.
+ */
+final class RateLimitInterceptor implements ApiInterceptor {
+    private final RateLimiter limiter;
+    private final RateLimiter.Bucket[] buckets;
+
+    RateLimitInterceptor(RateLimiter limiter, String apiKey) {
+        this.limiter = limiter;
+        this.buckets = limiter.bucketsFor(apiKey);
+    }
+
+    @Override
+    public Object intercept(Chain chain) throws IOException {
+        ApiRequest request = chain.request();
+        RateLimitGroup group = RateLimitGroup.of(request);
+        RateLimiter.Bucket bucket = buckets[group.ordinal()];
+        if (bucket != null) {
+            long wait = limiter.acquire(bucket, group);
+            if (wait > 0) {
+                limiter.waitStarted(group);
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted waiting for a rate limit token");
+                } finally {
+                    limiter.waitEnded(group);
+                }
+            }
+        }
+        return chain.proceed(request);
+    }
+
+    @Override
+    public CompletableFuture<Object> interceptAsync(Chain chain) {
+        ApiRequest request = chain.request();
+        RateLimitGroup group = RateLimitGroup.of(request);
+        RateLimiter.Bucket bucket = buckets[group.ordinal()];
+        if (bucket == null) {
+            return chain.proceedAsync(request);
+        }
+        long wait;
+        try {
+            wait = limiter.acquire(bucket, group);
+        } catch (RateLimitExceededException e) {
+            return RequestPipeline.failedFuture(e);
+        }
+        if (wait == 0) {
+            return chain.proceedAsync(request);
+        }
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        limiter.waitStarted(group);
+        SdkTimer.schedule(() -> {
+            limiter.waitEnded(group);
+            if (result.isDone()) {
+                return;
+            }
+            CompletableFuture<Object> inFlight;
+            try {
+                inFlight = chain.proceedAsync(request);
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            result.whenComplete((value, error) -> {
+                if (result.isCancelled()) {
+                    inFlight.cancel(false);
+                }
+            });
+            inFlight.whenComplete((value, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(RequestPipeline.unwrap(error));
+                } else {
+                    result.complete(value);
+                }
+            });
+        }, wait);
+        return result;
+    }
+}
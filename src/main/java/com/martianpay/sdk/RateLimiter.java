@@ -0,0 +1,311 @@
+package com.martianpay.sdk;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RateLimiter paces outgoing calls with a token bucket per API key and {@link RateLimitGroup}.
+ *
+ * Each bucket refills at {@code permitsPerSecond} and holds up to {@code burst} tokens, so a
+ * client can send a burst after an idle period and then settles at the configured rate instead
+ * of alternating between bursts and HTTP 429s. Limits are set per group for every API key, and
+ * may be overridden for individual keys; groups without a limit are not paced.
+ *
+ * A call that finds its bucket empty reserves the next free slot and waits for it, up to
+ * {@code maxWait}. Waiting calls are served in reservation order. Blocking calls sleep on the
+ * calling thread; asynchronous calls are resumed from a timer and never block. A call that would
+ * wait longer than {@code maxWait} fails at once with {@link RateLimitExceededException}; a
+ * {@code maxWait} of zero rejects every call that finds the bucket empty.
+ *
+ * Buckets are lock-free: taking a token is a single compare-and-set. The limiter runs inside the
+ * retry stage, so every attempt takes a token. Install it with
+ * {@link TransportContext.Builder#rateLimiter(RateLimiter)}; clients sharing the context share
+ * the buckets of their API key.
+ */
+public final class RateLimiter {
+    private final Map<RateLimitGroup, Limit> defaults;
+    private final Map<String, Map<RateLimitGroup, Limit>> overrides;
+    private final long maxWaitNanos;
+    private final ConcurrentMap<String, Bucket[]> buckets = new ConcurrentHashMap<>();
+    private final GroupStats[] stats = new GroupStats[RateLimitGroup.values().length];
+
+    private RateLimiter(Builder builder) {
+        this.defaults = new EnumMap<>(builder.defaults);
+        this.overrides = new HashMap<>();
+        for (Map.Entry<String, Map<RateLimitGroup, Limit>> entry : builder.overrides.entrySet()) {
+            this.overrides.put(entry.getKey(), new EnumMap<>(entry.getValue()));
+        }
+        this.maxWaitNanos = builder.maxWaitNanos;
+        for (int i = 0; i < stats.length; i++) {
+            stats[i] = new GroupStats();
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public long getMaxWaitNanos() { return maxWaitNanos; }
+
+    /**
+     * Returns the buckets of an API key, indexed by group ordinal; null where a group is not limited
+     */
+    Bucket[] bucketsFor(String apiKey) {
+        String key = apiKey != null ? apiKey : "";
+        Bucket[] result = buckets.get(key);
+        if (result == null) {
+            result = buckets.computeIfAbsent(key, this::createBuckets);
+        }
+        return result;
+    }
+
+    private Bucket[] createBuckets(String apiKey) {
+        Map<RateLimitGroup, Limit> keyLimits = overrides.get(apiKey);
+        Bucket[] result = new Bucket[RateLimitGroup.values().length];
+        for (RateLimitGroup group : RateLimitGroup.values()) {
+            Limit limit = keyLimits != null && keyLimits.containsKey(group) ? keyLimits.get(group) : defaults.get(group);
+            if (limit != null) {
+                result[group.ordinal()] = new Bucket(limit);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Takes a token from a bucket, reserving the next free slot if it is empty
+     *
+     * @return Nanoseconds to wait before sending, 0 if a token was available
+     * @throws RateLimitExceededException if the wait would exceed maxWait
+     */
+    long acquire(Bucket bucket, RateLimitGroup group) throws RateLimitExceededException {
+        GroupStats groupStats = stats[group.ordinal()];
+        long wait = bucket.reserve(System.nanoTime(), maxWaitNanos);
+        if (wait < 0) {
+            groupStats.rejected.increment();
+            throw new RateLimitExceededException(group, TimeUnit.NANOSECONDS.toMillis(-wait));
+        }
+        groupStats.permitted.increment();
+        if (wait > 0) {
+            groupStats.delayed.increment();
+            groupStats.waitNanos.add(wait);
+        }
+        return wait;
+    }
+
+    void waitStarted(RateLimitGroup group) {
+        stats[group.ordinal()].waiting.incrementAndGet();
+    }
+
+    void waitEnded(RateLimitGroup group) {
+        stats[group.ordinal()].waiting.decrementAndGet();
+    }
+
+    /**
+     * Returns a snapshot of the counters of a group, summed over all API keys
+     *
+     * @param group Endpoint group
+     * @return Group statistics
+     */
+    public Stats getStats(RateLimitGroup group) {
+        GroupStats groupStats = stats[group.ordinal()];
+        return new Stats(group, groupStats.permitted.sum(), groupStats.delayed.sum(), groupStats.rejected.sum(),
+                groupStats.waiting.get(), groupStats.waitNanos.sum());
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimiter{limits=" + defaults + ", overrides=" + overrides.keySet().size()
+                + ", maxWait=" + TimeUnit.NANOSECONDS.toMillis(maxWaitNanos) + "ms}";
+    }
+
+    /**
+     * Token bucket kept as the theoretical arrival time of the next call (GCRA): the bucket is
+     * empty up to that instant, and each call pushes it forward by one emission interval.
+     */
+    static final class Bucket {
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final AtomicLong nextFree;
+
+        Bucket(Limit limit) {
+            this.intervalNanos = limit.intervalNanos;
+            this.burstNanos = limit.intervalNanos * limit.burst;
+            this.nextFree = new AtomicLong(System.nanoTime());
+        }
+
+        /**
+         * Returns the wait for a token, or the negated wait if it exceeds maxWait (nothing is reserved then)
+         */
+        long reserve(long now, long maxWaitNanos) {
+            for (;;) {
+                long current = nextFree.get();
+                long next = (current - now > 0 ? current : now) + intervalNanos;
+                long wait = next - now - burstNanos;
+                if (wait > maxWaitNanos) {
+                    return -wait;
+                }
+                if (nextFree.compareAndSet(current, next)) {
+                    return Math.max(0, wait);
+                }
+            }
+        }
+    }
+
+    private static final class Limit {
+        final long intervalNanos;
+        final int burst;
+        final double permitsPerSecond;
+
+        Limit(double permitsPerSecond, int burst) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+            this.burst = burst;
+        }
+
+        @Override
+        public String toString() {
+            return permitsPerSecond + "/s burst " + burst;
+        }
+    }
+
+    private static final class GroupStats {
+        final LongAdder permitted = new LongAdder();
+        final LongAdder delayed = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder waitNanos = new LongAdder();
+        final AtomicInteger waiting = new AtomicInteger();
+    }
+
+    /**
+     * Stats is a point-in-time snapshot of the limiter counters of one endpoint group
+     */
+    public static final class Stats {
+        private final RateLimitGroup group;
+        private final long permitted;
+        private final long delayed;
+        private final long rejected;
+        private final int waiting;
+        private final long waitNanos;
+
+        Stats(RateLimitGroup group, long permitted, long delayed, long rejected, int waiting, long waitNanos) {
+            this.group = group;
+            this.permitted = permitted;
+            this.delayed = delayed;
+            this.rejected = rejected;
+            this.waiting = waiting;
+            this.waitNanos = waitNanos;
+        }
+
+        public RateLimitGroup getGroup() { return group; }
+
+        /** Number of calls let through, immediately or after waiting */
+        public long getPermitted() { return permitted; }
+
+        /** Number of calls that waited for a token */
+        public long getDelayed() { return delayed; }
+
+        /** Number of calls rejected with RateLimitExceededException */
+        public long getRejected() { return rejected; }
+
+        /** Number of calls currently waiting for a token */
+        public int getWaiting() { return waiting; }
+
+        /** Total time calls spent waiting for tokens, in nanoseconds */
+        public long getWaitNanos() { return waitNanos; }
+
+        @Override
+        public String toString() {
+            return "RateLimiter.Stats{group=" + group +
+                    ", permitted=" + permitted +
+                    ", delayed=" + delayed +
+                    ", rejected=" + rejected +
+                    ", waiting=" + waiting +
+                    ", waitMs=" + TimeUnit.NANOSECONDS.toMillis(waitNanos) + "}";
+        }
+    }
+
+    /**
+     * Builder for RateLimiter
+     */
+    public static final class Builder {
+        private final Map<RateLimitGroup, Limit> defaults = new EnumMap<>(RateLimitGroup.class);
+        private final Map<String, Map<RateLimitGroup, Limit>> overrides = new HashMap<>();
+        private long maxWaitNanos = TimeUnit.SECONDS.toNanos(5);
+
+        private Builder() {
+        }
+
+        /**
+         * Limits a group for every API key
+         *
+         * @param group            Endpoint group
+         * @param permitsPerSecond Sustained rate
+         * @param burst            Calls allowed at once after an idle period
+         */
+        public Builder limit(RateLimitGroup group, double permitsPerSecond, int burst) {
+            defaults.put(checkGroup(group), new Limit(checkRate(permitsPerSecond), checkBurst(burst)));
+            return this;
+        }
+
+        /**
+         * Limits a group for one API key, overriding the limit set for all keys
+         *
+         * @param apiKey           API key the limit applies to
+         * @param group            Endpoint group
+         * @param permitsPerSecond Sustained rate
+         * @param burst            Calls allowed at once after an idle period
+         */
+        public Builder limit(String apiKey, RateLimitGroup group, double permitsPerSecond, int burst) {
+            if (apiKey == null) {
+                throw new IllegalArgumentException("apiKey == null");
+            }
+            overrides.computeIfAbsent(apiKey, k -> new EnumMap<>(RateLimitGroup.class))
+                    .put(checkGroup(group), new Limit(checkRate(permitsPerSecond), checkBurst(burst)));
+            return this;
+        }
+
+        /**
+         * Sets how long a call may wait for a token before it is rejected; defaults to 5 seconds.
+         * Zero rejects calls as soon as their bucket is empty.
+         */
+        public Builder maxWait(long maxWait, TimeUnit unit) {
+            if (maxWait < 0) {
+                throw new IllegalArgumentException("maxWait < 0");
+            }
+            this.maxWaitNanos = unit.toNanos(maxWait);
+            return this;
+        }
+
+        public RateLimiter build() {
+            return new RateLimiter(this);
+        }
+
+        private static RateLimitGroup checkGroup(RateLimitGroup group) {
+            if (group == null) {
+                throw new IllegalArgumentException("group == null");
+            }
+            return group;
+        }
+
+        private static double checkRate(double permitsPerSecond) {
+            if (!(permitsPerSecond > 0)) {
+                throw new IllegalArgumentException("permitsPerSecond must be positive: " + permitsPerSecond);
+            }
+            return permitsPerSecond;
+        }
+
+        private static int checkBurst(int burst) {
+            if (burst < 1) {
+                throw new IllegalArgumentException("burst < 1: " + burst);
+            }
+            return burst;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.martianpay.sdk;
 
+import com.martianpay.developer.Refund;
 import com.martianpay.developer.RefundCreateRequest;
 import com.martianpay.developer.RefundCreateResponse;
 import com.martianpay.developer.RefundGetResp;
@@ -7,11 +8,17 @@ import com.martianpay.developer.RefundListRequest;
 import com.martianpay.developer.RefundListResponse;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * RefundService provides methods for managing refunds
  */
 public class RefundService extends MartianPayClient {
+    private static final PathTemplate REFUNDS_ID = PathTemplate.of("/v1/refunds/%s")
+            .operation("GET", "getRefund");
+    private static final PathTemplate REFUNDS = PathTemplate.of("/v1/refunds")
+            .operation("GET", "listRefunds")
+            .operation("POST", "createRefund");
 
     public RefundService(String apiKey) {
         super(apiKey);
@@ -21,15 +28,65 @@ public class RefundService extends MartianPayClient {
         super(apiKey, baseUrl);
     }
 
+    public RefundService(String apiKey, String baseUrl, TransportContext transport) {
+        super(apiKey, baseUrl, transport);
+    }
+
+    public RefundService(MartianPayClient client) {
+        super(client);
+    }
+
     /**
      * Creates a refund for a payment
      *
+     * A new idempotency key is generated for the call, so a retried attempt cannot create a
+     * second refund.
+     *
      * @param request Refund creation parameters
      * @return Refund creation response
      * @throws IOException if request fails
      */
     public RefundCreateResponse createRefund(RefundCreateRequest request) throws IOException {
-        return sendRequest("POST", "/v1/refunds", request, RefundCreateResponse.class);
+        return sendIdempotentRequest("POST", REFUNDS.expand(), request, RefundCreateResponse.class, null);
+    }
+
+    /**
+     * Creates a refund for a payment asynchronously
+     *
+     * @param request Refund creation parameters
+     * @return Future completing with the refund creation response
+     * @see #createRefund
+     */
+    public CompletableFuture<RefundCreateResponse> createRefundAsync(RefundCreateRequest request) {
+        return sendIdempotentRequestAsync("POST", REFUNDS.expand(), request, RefundCreateResponse.class, null);
+    }
+
+    /**
+     * Creates a refund with a caller-supplied idempotency key
+     *
+     * The key is sent in the Idempotency-Key header; a server that deduplicates on it returns the
+     * original result to a repeat instead of creating another refund. Derive the key from your own
+     * operation id so that repeats after process restarts and redeliveries carry it too.
+     *
+     * @param request        Creation parameters
+     * @param idempotencyKey Idempotency key of this logical operation, or null to generate one
+     * @return Same response as {@link #createRefund(RefundCreateRequest)}
+     * @throws IOException if request fails
+     */
+    public RefundCreateResponse createRefund(RefundCreateRequest request, String idempotencyKey) throws IOException {
+        return sendIdempotentRequest("POST", REFUNDS.expand(), request, RefundCreateResponse.class, idempotencyKey);
+    }
+
+    /**
+     * Creates a refund with a caller-supplied idempotency key asynchronously
+     *
+     * @param request        Creation parameters
+     * @param idempotencyKey Idempotency key of this logical operation, or null to generate one
+     * @return Future completing with the same response as {@link #createRefundAsync(RefundCreateRequest)}
+     * @see #createRefund(RefundCreateRequest, String)
+     */
+    public CompletableFuture<RefundCreateResponse> createRefundAsync(RefundCreateRequest request, String idempotencyKey) {
+        return sendIdempotentRequestAsync("POST", REFUNDS.expand(), request, RefundCreateResponse.class, idempotencyKey);
     }
 
     /**
@@ -40,8 +97,18 @@ public class RefundService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public RefundGetResp getRefund(String refundID) throws IOException {
-        String path = String.format("/v1/refunds/%s", refundID);
-        return sendRequest("GET", path, null, RefundGetResp.class);
+        return sendRequest("GET", REFUNDS_ID.expand(refundID), null, RefundGetResp.class);
+    }
+
+    /**
+     * Retrieves a specific refund by ID asynchronously
+     *
+     * @param refundID Refund ID
+     * @return Future completing with the refund details
+     * @see #getRefund
+     */
+    public CompletableFuture<RefundGetResp> getRefundAsync(String refundID) {
+        return sendRequestAsync("GET", REFUNDS_ID.expand(refundID), null, RefundGetResp.class);
     }
 
     /**
@@ -52,6 +119,32 @@ public class RefundService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public RefundListResponse listRefunds(RefundListRequest request) throws IOException {
-        return sendRequestWithQuery("GET", "/v1/refunds", request, RefundListResponse.class);
+        return sendRequestWithQuery("GET", REFUNDS.expand(), request, RefundListResponse.class);
+    }
+
+    /**
+     * Lists all refunds with optional filters asynchronously
+     *
+     * @param request Refund list request parameters
+     * @return Future completing with the refund list response
+     * @see #listRefunds
+     */
+    public CompletableFuture<RefundListResponse> listRefundsAsync(RefundListRequest request) {
+        return sendRequestWithQueryAsync("GET", REFUNDS.expand(), request, RefundListResponse.class);
+    }
+
+    /**
+     * Iterates over all refunds matching the list parameters, fetching pages lazily
+     *
+     * The walk starts at the request's page and uses its page size (or {@link Pager#DEFAULT_PAGE_SIZE}).
+     *
+     * @param request List parameters; the paging fields are not modified
+     * @return Pager over the matching refunds
+     * @see #listRefunds
+     */
+    public Pager<Refund> paginateRefunds(RefundListRequest request) {
+        return Pager.byPage(this, REFUNDS.expand(), request,
+                request != null ? request.getPage() : null, request != null ? request.getPageSize() : null,
+                RefundListResponse.class, RefundListResponse::getRefunds, RefundListResponse::getTotal);
     }
 }
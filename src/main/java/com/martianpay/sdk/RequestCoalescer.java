@@ -0,0 +1,232 @@
+package com.martianpay.sdk;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RequestCoalescer merges concurrent identical reads into one HTTP call (single-flight).
+ *
+ * While a GET of a covered operation is in flight, identical calls made with the same API key
+ * and base URL wait for its result instead of sending their own request. Calls are identical when
+ * their path and response type match; calls with query parameters are never merged. Once the
+ * shared request completes it is forgotten, so a later call always goes to the network. A failure
+ * is delivered to every waiting caller.
+ *
+ * The operations covered by default are {@code getPaymentIntent}, {@code getSubscription} and
+ * {@code getAllAssets}. Each caller receives its own copy of the response unless
+ * {@link Builder#copyResults(boolean)} is turned off. Cancelling one caller's future does not
+ * cancel the shared request; it is cancelled once every caller has cancelled.
+ *
+ * Instances hold the in-flight calls of every client using them, and are installed with
+ * {@link TransportContext.Builder#requestCoalescer(RequestCoalescer)}.
+ */
+public final class RequestCoalescer {
+    /** Operations coalesced by default */
+    public static final Set<String> DEFAULT_OPERATIONS = Collections.unmodifiableSet(new HashSet<>(
+            Arrays.asList("getPaymentIntent", "getSubscription", "getAllAssets")));
+
+    private final Set<String> operations;
+    private final boolean copyResults;
+    private final ConcurrentMap<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    private RequestCoalescer(Builder builder) {
+        this.operations = Collections.unmodifiableSet(new HashSet<>(builder.operations));
+        this.copyResults = builder.copyResults;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Set<String> getOperations() { return operations; }
+
+    public boolean isCopyResults() { return copyResults; }
+
+    /**
+     * Returns true if concurrent identical calls of a request may be merged
+     */
+    public boolean appliesTo(ApiRequest request) {
+        return "GET".equals(request.getMethod()) && request.getQuery() == null
+                && operations.contains(request.getOperation());
+    }
+
+    /**
+     * Registers a call under its key
+     *
+     * @return The flight already in flight, which the caller has joined, or null if the caller
+     * must send the request and complete {@code own}
+     */
+    Flight join(String key, Flight own) {
+        for (;;) {
+            Flight existing = inFlight.putIfAbsent(key, own);
+            if (existing == null) {
+                sent.increment();
+                return null;
+            }
+            if (existing.addCaller()) {
+                coalesced.increment();
+                return existing;
+            }
+            // Completing or abandoned: it no longer takes callers
+            inFlight.remove(key, existing);
+        }
+    }
+
+    /**
+     * Forgets a completed call, so that later calls send a new request
+     */
+    void leave(String key, Flight own) {
+        inFlight.remove(key, own);
+    }
+
+    /**
+     * Returns a snapshot of the coalescing counters
+     */
+    public Stats getStats() {
+        return new Stats(sent.sum(), coalesced.sum(), inFlight.size());
+    }
+
+    @Override
+    public String toString() {
+        return "RequestCoalescer{operations=" + operations + ", copyResults=" + copyResults + "}";
+    }
+
+    /**
+     * Flight is one shared request and the callers waiting for it
+     */
+    static final class Flight {
+        /** Completes with the response as decoded, which no caller receives directly */
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+        private CompletableFuture<?> call;
+        private int callers = 1;
+        private boolean closed;
+        private boolean shared;
+
+        /**
+         * Adds a caller, unless the flight has completed or been abandoned
+         */
+        synchronized boolean addCaller() {
+            if (closed) {
+                return false;
+            }
+            callers++;
+            return true;
+        }
+
+        /**
+         * Sets the asynchronous call to cancel once every caller has cancelled
+         */
+        void setCall(CompletableFuture<?> call) {
+            synchronized (this) {
+                if (callers > 0) {
+                    this.call = call;
+                    return;
+                }
+            }
+            call.cancel(false);
+        }
+
+        /**
+         * Stops admitting callers before the result is set
+         */
+        synchronized void close() {
+            closed = true;
+            shared = callers > 1;
+        }
+
+        /**
+         * Returns true if more than one caller receives the result; valid once it is set
+         */
+        synchronized boolean isShared() {
+            return shared;
+        }
+
+        /**
+         * Drops a caller that stopped waiting, and cancels the request when none is left
+         */
+        void release() {
+            CompletableFuture<?> abandoned = null;
+            synchronized (this) {
+                if (--callers == 0 && !closed) {
+                    closed = true;
+                    abandoned = call;
+                }
+            }
+            if (abandoned != null) {
+                abandoned.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Stats is a point-in-time snapshot of the coalescing counters
+     */
+    public static final class Stats {
+        private final long sent;
+        private final long coalesced;
+        private final int inFlight;
+
+        Stats(long sent, long coalesced, int inFlight) {
+            this.sent = sent;
+            this.coalesced = coalesced;
+            this.inFlight = inFlight;
+        }
+
+        /** Number of covered calls that sent their own request */
+        public long getSent() { return sent; }
+
+        /** Number of covered calls answered by another call's request */
+        public long getCoalesced() { return coalesced; }
+
+        /** Number of shared requests currently in flight */
+        public int getInFlight() { return inFlight; }
+
+        @Override
+        public String toString() {
+            return "RequestCoalescer.Stats{sent=" + sent +
+                    ", coalesced=" + coalesced +
+                    ", inFlight=" + inFlight + "}";
+        }
+    }
+
+    /**
+     * Builder for RequestCoalescer
+     */
+    public static final class Builder {
+        private Set<String> operations = DEFAULT_OPERATIONS;
+        private boolean copyResults = true;
+
+        private Builder() {
+        }
+
+        /**
+         * Replaces the coalesced operations, named as in traces (for example {@code getPayout});
+         * only their GET calls without query parameters are merged
+         */
+        public Builder operations(String... operations) {
+            this.operations = new HashSet<>(Arrays.asList(operations));
+            return this;
+        }
+
+        /**
+         * Sets whether each merged caller receives its own copy of the response (the default).
+         * Turn it off only if callers never modify responses; they then share one object.
+         */
+        public Builder copyResults(boolean copyResults) {
+            this.copyResults = copyResults;
+            return this;
+        }
+
+        public RequestCoalescer build() {
+            return new RequestCoalescer(this);
+        }
+    }
+}
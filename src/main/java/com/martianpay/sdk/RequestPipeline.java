@@ -0,0 +1,370 @@
+package com.martianpay.sdk;
+
+import com.google.gson.Gson;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RequestPipeline is the single execution path for every MartianPay API call.
+ *
+ * A call runs through the interceptors registered on the TransportContext, then the built-in
+ * coalescing, metrics, hedging, retry, rate limit, circuit breaker and bulkhead stages when configured, and ends in the
+ * exchange stage, which performs, in order: authentication, serialization, the HTTP call, error
+ * mapping and envelope decoding. Blocking and asynchronous calls share every stage.
+ */
+final class RequestPipeline {
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    private static final RequestBody EMPTY_BODY = RequestBody.create(new byte[0], JSON);
+
+    private final RequestTemplate template;
+    private final OkHttpClient httpClient;
+    private final Gson gson;
+    private final EnvelopeDecoder envelopeDecoder;
+    private final ApiInterceptor[] interceptors;
+    private final Executor callbackExecutor;
+    private final CallTraceListener traceListener;
+
+    RequestPipeline(String apiKey, String baseUrl, TransportContext transport) {
+        this.template = new RequestTemplate(apiKey, baseUrl);
+        this.httpClient = transport.getHttpClient();
+        this.gson = transport.getGson();
+        this.envelopeDecoder = new EnvelopeDecoder(gson);
+        List<ApiInterceptor> configured = new ArrayList<>(transport.getInterceptors());
+        if (transport.getRequestCoalescer() != null) {
+            configured.add(new CoalescingInterceptor(transport.getRequestCoalescer(), gson, apiKey, baseUrl));
+        }
+        MetricsRecorder metrics = transport.getMetricsRecorder();
+        if (metrics != MetricsRecorder.NOOP) {
+            configured.add(new MetricsInterceptor(metrics));
+        }
+        if (transport.getHedgingPolicy() != null) {
+            configured.add(new HedgingInterceptor(transport.getHedgingPolicy()));
+        }
+        if (transport.getRetryPolicy().isEnabled()) {
+            configured.add(new RetryInterceptor(transport.getRetryPolicy(), metrics));
+        }
+        if (transport.getRateLimiter() != null) {
+            configured.add(new RateLimitInterceptor(transport.getRateLimiter(), apiKey));
+        }
+        if (transport.getCircuitBreaker() != null) {
+            configured.add(new CircuitBreakerInterceptor(transport.getCircuitBreaker()));
+        }
+        if (transport.getBulkhead() != null) {
+            configured.add(new BulkheadInterceptor(transport.getBulkhead()));
+        }
+        this.interceptors = configured.toArray(new ApiInterceptor[0]);
+        this.callbackExecutor = transport.getCallbackExecutor();
+        this.traceListener = transport.getCallTraceListener();
+    }
+
+    /**
+     * Executes a request on the calling thread
+     */
+    Object execute(ApiRequest request) throws IOException {
+        if (interceptors.length == 0) {
+            return exchange(request);
+        }
+        return new RealChain(0, request).proceed(request);
+    }
+
+    /**
+     * Executes a request without blocking; the result is delivered on the callback executor.
+     * If the executor rejects the callback, the future fails with RejectedExecutionException on
+     * the completing thread. Cancelling the returned future cancels the in-flight stage.
+     */
+    CompletableFuture<Object> executeAsync(ApiRequest request) {
+        CompletableFuture<Object> inner = startAsync(request);
+        if (callbackExecutor == null) {
+            return inner;
+        }
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        inner.whenComplete((value, error) -> {
+            try {
+                callbackExecutor.execute(() -> {
+                    if (error != null) {
+                        result.completeExceptionally(unwrap(error));
+                    } else {
+                        result.complete(value);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // The executor was shut down or is full: fail here rather than never completing
+                if (error != null) {
+                    e.addSuppressed(unwrap(error));
+                }
+                result.completeExceptionally(e);
+            }
+        });
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                inner.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    private CompletableFuture<Object> startAsync(ApiRequest request) {
+        try {
+            if (interceptors.length == 0) {
+                return exchangeAsync(request);
+            }
+            return new RealChain(0, request).proceedAsync(request);
+        } catch (RuntimeException e) {
+            return failedFuture(e);
+        }
+    }
+
+    private final class RealChain implements ApiInterceptor.Chain {
+        private final int index;
+        private final ApiRequest request;
+
+        RealChain(int index, ApiRequest request) {
+            this.index = index;
+            this.request = request;
+        }
+
+        @Override
+        public ApiRequest request() {
+            return request;
+        }
+
+        @Override
+        public Object proceed(ApiRequest request) throws IOException {
+            if (index == interceptors.length) {
+                return exchange(request);
+            }
+            return interceptors[index].intercept(new RealChain(index + 1, request));
+        }
+
+        @Override
+        public CompletableFuture<Object> proceedAsync(ApiRequest request) {
+            if (index == interceptors.length) {
+                return exchangeAsync(request);
+            }
+            return interceptors[index].interceptAsync(new RealChain(index + 1, request));
+        }
+    }
+
+    // Exchange stage
+
+    private Object exchange(ApiRequest request) throws IOException {
+        Request httpRequest = toHttpRequest(request);
+        CallTrace trace = httpRequest.tag(CallTrace.class);
+        if (trace == null) {
+            try (Response response = httpClient.newCall(httpRequest).execute()) {
+                return decode(response, request);
+            }
+        }
+        try (Response response = httpClient.newCall(httpRequest).execute()) {
+            Object result = decode(response, request);
+            trace.finish(null);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            trace.finish(e);
+            throw e;
+        }
+    }
+
+    private CompletableFuture<Object> exchangeAsync(ApiRequest request) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        Request httpRequest = toHttpRequest(request);
+        CallTrace trace = httpRequest.tag(CallTrace.class);
+        Call call = httpClient.newCall(httpRequest);
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(e);
+                if (trace != null) {
+                    trace.finish(e);
+                }
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                Object result;
+                try (Response r = response) {
+                    result = decode(r, request);
+                } catch (IOException | RuntimeException e) {
+                    future.completeExceptionally(e);
+                    if (trace != null) {
+                        trace.finish(e);
+                    }
+                    return;
+                }
+                // Complete first, so that a listener can never hold up or lose the result
+                future.complete(result);
+                if (trace != null) {
+                    trace.finish(null);
+                }
+            }
+        });
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Authentication and serialization: turns the logical request into an OkHttp request.
+     * The base URL and common headers (including Authorization) come precomputed from the template.
+     */
+    private Request toHttpRequest(ApiRequest request) {
+        HttpUrl url;
+        if (request.getQuery() != null) {
+            HttpUrl.Builder urlBuilder = template.urlBuilder(request.getApiPath());
+            QueryEncoder.encode(urlBuilder, request.getQuery());
+            url = urlBuilder.build();
+        } else {
+            url = template.url(request.getApiPath());
+        }
+
+        // Tagged so that event listeners can attribute network events to the logical call
+        Request.Builder requestBuilder = template.newRequest(url).tag(ApiRequest.class, request);
+        if (traceListener != null) {
+            requestBuilder.tag(CallTrace.class, new CallTrace(traceListener, request));
+        }
+        if (request.getIdempotencyKey() != null) {
+            requestBuilder.header(ApiRequest.IDEMPOTENCY_KEY_HEADER, request.getIdempotencyKey());
+        }
+
+        RequestBody body = request.getBody() != null
+                ? RequestBody.create(gson.toJson(request.getBody()), JSON)
+                : null;
+        switch (request.getMethod()) {
+            case "GET":
+                requestBuilder.get();
+                break;
+            case "DELETE":
+                requestBuilder.delete(body);
+                break;
+            default:
+                requestBuilder.method(request.getMethod(), body != null ? body : EMPTY_BODY);
+                break;
+        }
+        return requestBuilder.build();
+    }
+
+    /**
+     * Error mapping and decoding: checks the HTTP status, then streams the response envelope
+     */
+    private Object decode(Response response, ApiRequest request) throws IOException {
+        ResponseBody body = response.body();
+
+        // Check HTTP status code
+        if (!response.isSuccessful()) {
+            throw mapHttpError(response.code(), body != null ? body.string() : "", retryAfterMillis(response));
+        }
+
+        if (body == null) {
+            throw new MalformedResponseException("Malformed API response: empty body");
+        }
+        CallTrace trace = response.request().tag(CallTrace.class);
+        if (trace != null) {
+            // Read the whole body first so that network read and decode are timed apart
+            body.source().request(Long.MAX_VALUE);
+            long startNanos = System.nanoTime();
+            Object data = envelopeDecoder.decode(body.charStream(), request.getResponseType());
+            trace.record(CallTrace.Phase.JSON_DECODE, System.nanoTime() - startNanos);
+            return data;
+        }
+        return envelopeDecoder.decode(body.charStream(), request.getResponseType());
+    }
+
+    private MartianPayException mapHttpError(int statusCode, String responseBody, long retryAfterMillis) {
+        String statusText = getHTTPStatusText(statusCode);
+        String message = responseBody.isEmpty()
+                ? String.format("HTTP %d %s", statusCode, statusText)
+                : String.format("HTTP %d %s: %s", statusCode, statusText, responseBody);
+        String errorCode = null;
+        if (responseBody.startsWith("{")) {
+            try {
+                MartianPayClient.CommonResponse envelope =
+                        gson.fromJson(responseBody, MartianPayClient.CommonResponse.class);
+                if (envelope != null) {
+                    errorCode = envelope.getErrorCode();
+                }
+            } catch (RuntimeException e) {
+                // Not an envelope; keep the raw body only
+            }
+        }
+        return new MartianPayException(message, statusCode, errorCode, responseBody, retryAfterMillis);
+    }
+
+    /**
+     * Parses Retry-After as delay-seconds or an HTTP date; returns -1 if absent or malformed
+     */
+    static long retryAfterMillis(Response response) {
+        String value = response.header("Retry-After");
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Math.max(0, TimeUnit.SECONDS.toMillis(Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            Date date = response.headers().getDate("Retry-After");
+            return date != null ? Math.max(0, date.getTime() - System.currentTimeMillis()) : -1;
+        }
+    }
+
+    /**
+     * Returns human-readable text for HTTP status codes
+     */
+    static String getHTTPStatusText(int statusCode) {
+        switch (statusCode) {
+            case 400: return "Bad Request";
+            case 401: return "Unauthorized";
+            case 402: return "Payment Required";
+            case 403: return "Forbidden";
+            case 404: return "Not Found";
+            case 405: return "Method Not Allowed";
+            case 409: return "Conflict";
+            case 422: return "Unprocessable Entity";
+            case 429: return "Too Many Requests";
+            case 500: return "Internal Server Error";
+            case 502: return "Bad Gateway";
+            case 503: return "Service Unavailable";
+            case 504: return "Gateway Timeout";
+            default:
+                if (statusCode >= 400 && statusCode < 500) {
+                    return "Client Error";
+                } else if (statusCode >= 500) {
+                    return "Server Error";
+                }
+                return "Unknown Status";
+        }
+    }
+
+    static <T> CompletableFuture<T> failedFuture(Throwable error) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(error);
+        return future;
+    }
+
+    /**
+     * Strips the CompletionException wrapper added by dependent stages
+     */
+    static Throwable unwrap(Throwable error) {
+        if (error instanceof java.util.concurrent.CompletionException && error.getCause() != null) {
+            return error.getCause();
+        }
+        return error;
+    }
+}
@@ -0,0 +1,57 @@
+package com.martianpay.sdk;
+
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * RequestTemplate holds the per-client parts of every request, computed once: the parsed base
+ * URL and the common headers, including the Base64-encoded Authorization header.
+ */
+final class RequestTemplate {
+    private final HttpUrl baseUrl;
+    private final Headers headers;
+
+    RequestTemplate(String apiKey, String baseUrl) {
+        HttpUrl parsed = HttpUrl.parse(baseUrl);
+        if (parsed == null) {
+            throw new IllegalArgumentException("Invalid base URL: " + baseUrl);
+        }
+        this.baseUrl = parsed;
+
+        String auth = apiKey + ":";
+        String encodedAuth = Base64.getEncoder().encodeToString(auth.getBytes(StandardCharsets.UTF_8));
+        this.headers = new Headers.Builder()
+                .add("Authorization", "Basic " + encodedAuth)
+                .add("Content-Type", "application/json")
+                .build();
+    }
+
+    /**
+     * Builds the URL for a path relative to the base URL
+     */
+    HttpUrl url(ApiPath path) {
+        HttpUrl.Builder urlBuilder = baseUrl.newBuilder();
+        path.appendTo(urlBuilder);
+        return urlBuilder.build();
+    }
+
+    /**
+     * Returns a URL builder positioned at the given path, for appending query parameters
+     */
+    HttpUrl.Builder urlBuilder(ApiPath path) {
+        HttpUrl.Builder urlBuilder = baseUrl.newBuilder();
+        path.appendTo(urlBuilder);
+        return urlBuilder;
+    }
+
+    /**
+     * Returns a request builder for the URL with the common headers applied
+     */
+    Request.Builder newRequest(HttpUrl url) {
+        return new Request.Builder().url(url).headers(headers);
+    }
+}
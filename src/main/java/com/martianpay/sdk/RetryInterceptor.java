@@ -0,0 +1,119 @@
+package com.martianpay.sdk;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RetryInterceptor applies a {@link RetryPolicy} to every call of a TransportContext.
+ *
+ * It runs after the user, coalescing, metrics and hedging stages, so interceptors added with
+ * {@link TransportContext.Builder#addInterceptor} see one logical call however many attempts it
+ * takes. The rate limit, circuit breaker and bulkhead stages run inside it, once per attempt. Blocking calls sleep on the calling thread between attempts; asynchronous calls are
+ * re-submitted from a shared timer thread and never block a dispatcher thread.
+ */
+final class RetryInterceptor implements ApiInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger(RetryInterceptor.class);
+
+    private final RetryPolicy policy;
+    private final MetricsRecorder metrics;
+
+    RetryInterceptor(RetryPolicy policy, MetricsRecorder metrics) {
+        this.policy = policy;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Object intercept(Chain chain) throws IOException {
+        ApiRequest request = chain.request();
+        if (!policy.canRetry(request)) {
+            return chain.proceed(request);
+        }
+        long startNanos = System.nanoTime();
+        for (int retry = 1; ; retry++) {
+            try {
+                return chain.proceed(request);
+            } catch (IOException e) {
+                long delay = nextDelay(request, retry, e, startNanos);
+                if (delay < 0) {
+                    throw e;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    @Override
+    public CompletableFuture<Object> interceptAsync(Chain chain) {
+        ApiRequest request = chain.request();
+        if (!policy.canRetry(request)) {
+            return chain.proceedAsync(request);
+        }
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        attempt(chain, request, result, 1, System.nanoTime());
+        return result;
+    }
+
+    private void attempt(Chain chain, ApiRequest request, CompletableFuture<Object> result, int retry, long startNanos) {
+        CompletableFuture<Object> inFlight;
+        try {
+            inFlight = chain.proceedAsync(request);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            return;
+        }
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                inFlight.cancel(false);
+            }
+        });
+        inFlight.whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = RequestPipeline.unwrap(error);
+            long delay = result.isDone() ? -1 : nextDelay(request, retry, cause, startNanos);
+            if (delay < 0) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            SdkTimer.schedule(() -> {
+                if (!result.isDone()) {
+                    attempt(chain, request, result, retry + 1, startNanos);
+                }
+            }, delay);
+        });
+    }
+
+    /**
+     * Returns the delay before the given retry, or -1 if the call must fail with this error
+     */
+    private long nextDelay(ApiRequest request, int retry, Throwable error, long startNanos) {
+        if (retry > policy.getMaxRetries() || !policy.isRetryable(error) || Thread.currentThread().isInterrupted()) {
+            return -1;
+        }
+        long delay = policy.delayNanos(retry, error);
+        if (delay < 0 || System.nanoTime() + delay - startNanos > policy.getMaxElapsedNanos()) {
+            return -1;
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Retrying {} in {}ms (retry {}/{}): {}", request, TimeUnit.NANOSECONDS.toMillis(delay),
+                    retry, policy.getMaxRetries(), error.getMessage());
+        }
+        try {
+            metrics.recordRetry(request.getEndpoint());
+        } catch (RuntimeException e) {
+            logger.warn("MetricsRecorder failed for {}", request.getEndpoint(), e);
+        }
+        return delay;
+    }
+}
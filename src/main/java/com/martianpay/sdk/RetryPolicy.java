@@ -0,0 +1,268 @@
+package com.martianpay.sdk;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RetryPolicy decides whether and when a failed call is attempted again.
+ *
+ * A call is retried when it failed with a retryable HTTP status (by default 408, 429, 502, 503
+ * and 504) or with a network error before any response was received, and when its method is
+ * idempotent (GET, PUT, DELETE). POST calls that carry an idempotency key are only retried if
+ * {@link Builder#retryIdempotencyKeyed(boolean)} is set, and other POST calls only if
+ * {@link Builder#retryNonIdempotent(boolean)} is set.
+ *
+ * Delays grow exponentially from {@code initialBackoff} by {@code multiplier} up to
+ * {@code maxBackoff}, with random jitter so that clients failing together do not retry together.
+ * A {@code Retry-After} header from the server raises the delay to at least the requested wait.
+ * Each call has a budget: at most {@code maxRetries} retries, and no retry is started if its
+ * delay would end after {@code maxElapsed} has passed since the first attempt. A Retry-After
+ * longer than {@code maxRetryAfter} ends the call instead of parking it.
+ *
+ * Instances are immutable and shared by every call of a TransportContext.
+ */
+public final class RetryPolicy {
+    /** Policy that never retries */
+    public static final RetryPolicy NONE = builder().maxRetries(0).build();
+
+    /** Default policy: up to 2 retries of idempotent calls within 30 seconds */
+    public static final RetryPolicy DEFAULT = builder().build();
+
+    private final int maxRetries;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final double multiplier;
+    private final double jitter;
+    private final long maxElapsedNanos;
+    private final long maxRetryAfterNanos;
+    private final int[] retryableStatuses;
+    private final boolean retryIdempotencyKeyed;
+    private final boolean retryNonIdempotent;
+
+    private RetryPolicy(Builder builder) {
+        this.maxRetries = builder.maxRetries;
+        this.initialBackoffNanos = builder.initialBackoffNanos;
+        this.maxBackoffNanos = Math.max(builder.maxBackoffNanos, builder.initialBackoffNanos);
+        this.multiplier = builder.multiplier;
+        this.jitter = builder.jitter;
+        this.maxElapsedNanos = builder.maxElapsedNanos;
+        this.maxRetryAfterNanos = builder.maxRetryAfterNanos;
+        this.retryableStatuses = builder.retryableStatuses.clone();
+        Arrays.sort(this.retryableStatuses);
+        this.retryIdempotencyKeyed = builder.retryIdempotencyKeyed;
+        this.retryNonIdempotent = builder.retryNonIdempotent;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Builder toBuilder() {
+        Builder builder = new Builder();
+        builder.maxRetries = maxRetries;
+        builder.initialBackoffNanos = initialBackoffNanos;
+        builder.maxBackoffNanos = maxBackoffNanos;
+        builder.multiplier = multiplier;
+        builder.jitter = jitter;
+        builder.maxElapsedNanos = maxElapsedNanos;
+        builder.maxRetryAfterNanos = maxRetryAfterNanos;
+        builder.retryableStatuses = retryableStatuses.clone();
+        builder.retryIdempotencyKeyed = retryIdempotencyKeyed;
+        builder.retryNonIdempotent = retryNonIdempotent;
+        return builder;
+    }
+
+    public int getMaxRetries() { return maxRetries; }
+
+    public long getMaxElapsedNanos() { return maxElapsedNanos; }
+
+    /**
+     * Returns true if the policy may retry at all
+     */
+    public boolean isEnabled() {
+        return maxRetries > 0;
+    }
+
+    /**
+     * Returns true if the request may be sent more than once
+     */
+    public boolean canRetry(ApiRequest request) {
+        return request.isIdempotent() || retryNonIdempotent
+                || (retryIdempotencyKeyed && request.getIdempotencyKey() != null);
+    }
+
+    /**
+     * Returns true if the failure is transient: a retryable HTTP status, or a network error
+     * before a response was received. API errors reported in a 2xx envelope, responses that could
+     * not be decoded ({@link MalformedResponseException}) and calls rejected on the client
+     * ({@link CallRejectedException}) are never retried.
+     */
+    public boolean isRetryable(Throwable error) {
+        if (error instanceof CallRejectedException || error instanceof MalformedResponseException) {
+            return false;
+        }
+        if (error instanceof MartianPayException) {
+            MartianPayException e = (MartianPayException) error;
+            return e.isHttpError() && Arrays.binarySearch(retryableStatuses, e.getStatusCode()) >= 0;
+        }
+        return error instanceof IOException;
+    }
+
+    /**
+     * Returns the delay before retry number {@code retry} (1-based), in nanoseconds, or -1 if
+     * the server asked for a longer wait than {@code maxRetryAfter}
+     *
+     * @param retry Retry number, starting at 1
+     * @param error Failure of the previous attempt
+     */
+    public long delayNanos(int retry, Throwable error) {
+        double exponential = initialBackoffNanos * Math.pow(multiplier, retry - 1);
+        long backoff = (long) Math.min(exponential, maxBackoffNanos);
+        // Keep (1 - jitter) of the backoff and randomize the rest
+        long fixed = (long) (backoff * (1 - jitter));
+        long delay = fixed + (backoff > fixed ? ThreadLocalRandom.current().nextLong(backoff - fixed + 1) : 0);
+
+        if (error instanceof MartianPayException) {
+            long retryAfterMillis = ((MartianPayException) error).getRetryAfterMillis();
+            if (retryAfterMillis >= 0) {
+                long retryAfter = TimeUnit.MILLISECONDS.toNanos(retryAfterMillis);
+                if (retryAfter > maxRetryAfterNanos) {
+                    return -1;
+                }
+                delay = Math.max(delay, retryAfter);
+            }
+        }
+        return delay;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RetryPolicy{maxRetries=%d, initialBackoff=%dms, maxBackoff=%dms, multiplier=%.1f, "
+                        + "jitter=%.2f, maxElapsed=%dms, retryableStatuses=%s, retryIdempotencyKeyed=%s, "
+                        + "retryNonIdempotent=%s}",
+                maxRetries, TimeUnit.NANOSECONDS.toMillis(initialBackoffNanos),
+                TimeUnit.NANOSECONDS.toMillis(maxBackoffNanos), multiplier, jitter,
+                TimeUnit.NANOSECONDS.toMillis(maxElapsedNanos), Arrays.toString(retryableStatuses),
+                retryIdempotencyKeyed, retryNonIdempotent);
+    }
+
+    /**
+     * Builder for RetryPolicy
+     */
+    public static final class Builder {
+        private int maxRetries = 2;
+        private long initialBackoffNanos = TimeUnit.MILLISECONDS.toNanos(200);
+        private long maxBackoffNanos = TimeUnit.SECONDS.toNanos(5);
+        private double multiplier = 2.0;
+        private double jitter = 1.0;
+        private long maxElapsedNanos = TimeUnit.SECONDS.toNanos(30);
+        private long maxRetryAfterNanos = TimeUnit.SECONDS.toNanos(30);
+        private int[] retryableStatuses = {408, 429, 502, 503, 504};
+        private boolean retryIdempotencyKeyed;
+        private boolean retryNonIdempotent;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the maximum number of retries per call; 0 disables retrying
+         */
+        public Builder maxRetries(int maxRetries) {
+            if (maxRetries < 0) {
+                throw new IllegalArgumentException("maxRetries < 0: " + maxRetries);
+            }
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        /**
+         * Sets the backoff before the first retry and the cap on later ones
+         */
+        public Builder backoff(long initial, long max, TimeUnit unit) {
+            if (initial < 0 || max < 0) {
+                throw new IllegalArgumentException("backoff < 0");
+            }
+            this.initialBackoffNanos = unit.toNanos(initial);
+            this.maxBackoffNanos = unit.toNanos(max);
+            return this;
+        }
+
+        /**
+         * Sets the factor applied to the backoff after each retry
+         */
+        public Builder multiplier(double multiplier) {
+            if (!(multiplier >= 1)) {
+                throw new IllegalArgumentException("multiplier must be >= 1: " + multiplier);
+            }
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        /**
+         * Sets the randomized fraction of each backoff, between 0 (none) and 1 (full jitter, the default)
+         */
+        public Builder jitter(double jitter) {
+            if (!(jitter >= 0 && jitter <= 1)) {
+                throw new IllegalArgumentException("jitter must be between 0 and 1: " + jitter);
+            }
+            this.jitter = jitter;
+            return this;
+        }
+
+        /**
+         * Sets the time budget of a call, measured from its first attempt; no retry is started
+         * if its delay would end after it
+         */
+        public Builder maxElapsed(long maxElapsed, TimeUnit unit) {
+            if (maxElapsed < 0) {
+                throw new IllegalArgumentException("maxElapsed < 0");
+            }
+            this.maxElapsedNanos = unit.toNanos(maxElapsed);
+            return this;
+        }
+
+        /**
+         * Sets the longest Retry-After the client will honour; longer requested waits fail the call
+         */
+        public Builder maxRetryAfter(long maxRetryAfter, TimeUnit unit) {
+            if (maxRetryAfter < 0) {
+                throw new IllegalArgumentException("maxRetryAfter < 0");
+            }
+            this.maxRetryAfterNanos = unit.toNanos(maxRetryAfter);
+            return this;
+        }
+
+        /**
+         * Replaces the HTTP statuses that are retried
+         */
+        public Builder retryableStatuses(int... statuses) {
+            this.retryableStatuses = statuses.clone();
+            return this;
+        }
+
+        /**
+         * Allows retrying POST calls that carry an idempotency key. Only enable this against a
+         * server that applies a key once and replays its first response; otherwise a retried
+         * create may be applied twice.
+         */
+        public Builder retryIdempotencyKeyed(boolean retryIdempotencyKeyed) {
+            this.retryIdempotencyKeyed = retryIdempotencyKeyed;
+            return this;
+        }
+
+        /**
+         * Allows retrying every POST call, including those that carry no idempotency key. They may
+         * then be applied twice if the first attempt reached the server.
+         */
+        public Builder retryNonIdempotent(boolean retryNonIdempotent) {
+            this.retryNonIdempotent = retryNonIdempotent;
+            return this;
+        }
+
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+}
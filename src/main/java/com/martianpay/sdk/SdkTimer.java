@@ -0,0 +1,34 @@
+package com.martianpay.sdk;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SdkTimer is the daemon timer shared by all clients to resume delayed asynchronous calls.
+ *
+ * Tasks only re-submit calls and never block, so a single thread serves every context.
+ */
+final class SdkTimer {
+    private static final ScheduledExecutorService INSTANCE = create();
+
+    private SdkTimer() {
+    }
+
+    /**
+     * Runs a task after a delay
+     */
+    static void schedule(Runnable task, long delayNanos) {
+        INSTANCE.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static ScheduledExecutorService create() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "martianpay-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+}
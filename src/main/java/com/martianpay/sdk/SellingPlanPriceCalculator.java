@@ -0,0 +1,263 @@
+package com.martianpay.sdk;
+
+import com.martianpay.developer.AssetAmount;
+import com.martianpay.developer.BillingPolicyConfig;
+import com.martianpay.developer.CalculatePriceResponse;
+import com.martianpay.developer.PricingPolicyItem;
+import com.martianpay.developer.PricingTier;
+import com.martianpay.developer.ProductVariant;
+import com.martianpay.developer.SellingPlan;
+import com.martianpay.developer.SellingPlanPricing;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * SellingPlanPriceCalculator prices a product variant under a selling plan locally, giving the
+ * results of {@link SellingPlanService#calculateSellingPlanPrice} without a call per variant and
+ * plan.
+ *
+ * The plan's pricing policy is turned into tiers of billing cycles. A FIXED policy prices the
+ * first cycle; a RECURRING policy prices the cycles after its {@code after_cycle}, until the next
+ * policy takes over. Cycles no policy covers are charged the base price. Each tier's discount is
+ * computed from the variant price:
+ * <ul>
+ *   <li>PERCENTAGE: the price times the value, as a percentage</li>
+ *   <li>FIXED_AMOUNT: the value, at most the price</li>
+ *   <li>PRICE: the price minus the value, which replaces the price</li>
+ * </ul>
+ * Amounts are rounded half up to the price's decimal digits, 2 by default, and formatted as
+ * plain decimal strings.
+ *
+ * Only RECURRING plans are priced locally, since PREPAID plans charge several cycles upfront
+ * according to server-side rules; {@link #isSupported} tells which plans can be priced. Use
+ * {@link #sameResult} to cross-check a local result against the server's.
+ */
+public final class SellingPlanPriceCalculator {
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+    private static final int DEFAULT_DECIMALS = 2;
+
+    private SellingPlanPriceCalculator() {
+    }
+
+    /**
+     * Returns true if the plan can be priced locally
+     */
+    public static boolean isSupported(SellingPlan plan) {
+        return plan != null && !SellingPlan.BILLING_POLICY_TYPE_PREPAID.equals(plan.getBillingPolicyType());
+    }
+
+    /**
+     * Prices the first billing cycle of a variant under a plan, as calculateSellingPlanPrice does
+     *
+     * @throws IllegalArgumentException if the plan is not supported or its policy is malformed
+     */
+    public static CalculatePriceResponse calculate(SellingPlan plan, ProductVariant variant) {
+        return calculate(plan, variant.getPrice());
+    }
+
+    /**
+     * Prices the first billing cycle of a base price under a plan, as calculateSellingPlanPrice does
+     *
+     * @param price Base price per cycle with its currency
+     * @throws IllegalArgumentException if the plan is not supported or its policy is malformed
+     */
+    public static CalculatePriceResponse calculate(SellingPlan plan, AssetAmount price) {
+        SellingPlanPricing pricing = price(plan, price);
+        PricingTier first = pricing.getPricingTiers().get(0);
+        CalculatePriceResponse response = new CalculatePriceResponse();
+        response.setBasePrice(first.getBasePrice());
+        response.setTotalCycles(parseInt(plan.getBillingPolicy() != null ? plan.getBillingPolicy().getMinCycles() : null,
+                "min_cycles"));
+        response.setSubtotalBeforePolicy(first.getSubtotalBeforePolicy());
+        response.setSellingPlanDiscount(first.getSellingPlanDiscount());
+        response.setSubtotalAfterPolicy(first.getSubtotalAfterPolicy());
+        response.setCurrency(pricing.getCurrency());
+        response.setBillingCycle(pricing.getBillingCycle());
+        response.setTrialPeriodDays(pricing.getTrialPeriodDays());
+        return response;
+    }
+
+    /**
+     * Prices every tier of billing cycles of a base price under a plan
+     *
+     * @param price Base price per cycle with its currency
+     * @return Pricing with at least one tier, ordered by first cycle
+     * @throws IllegalArgumentException if the plan is not supported or its policy is malformed
+     */
+    public static SellingPlanPricing price(SellingPlan plan, AssetAmount price) {
+        if (!isSupported(plan)) {
+            throw new IllegalArgumentException("Selling plan " + (plan != null ? plan.getId() : null)
+                    + " cannot be priced locally");
+        }
+        if (price == null || price.getAmount() == null || price.getAmount().signum() < 0) {
+            throw new IllegalArgumentException("A non-negative price is required");
+        }
+        int decimals = price.getDecimalDigits() != null ? price.getDecimalDigits() : DEFAULT_DECIMALS;
+        BigDecimal base = price.getAmount().setScale(decimals, RoundingMode.HALF_UP);
+
+        // First cycle of each tier -> policy pricing it (null for the base price)
+        TreeMap<Integer, PricingPolicyItem> tiers = new TreeMap<>();
+        List<PricingPolicyItem> policies = plan.getPricingPolicy() != null
+                ? plan.getPricingPolicy() : new ArrayList<PricingPolicyItem>();
+        boolean hasFixed = false;
+        for (PricingPolicyItem policy : policies) {
+            if (SellingPlan.POLICY_TYPE_FIXED.equals(policy.getPolicyType()) && !hasFixed) {
+                tiers.put(1, policy);
+                hasFixed = true;
+            }
+        }
+        for (PricingPolicyItem policy : policies) {
+            if (SellingPlan.POLICY_TYPE_RECURRING.equals(policy.getPolicyType())) {
+                Integer afterCycle = parseInt(policy.getAfterCycle(), "after_cycle");
+                int start = (afterCycle != null ? Math.max(afterCycle, 0) : 0) + 1;
+                if (hasFixed) {
+                    start = Math.max(start, 2);
+                }
+                tiers.putIfAbsent(start, policy);
+            }
+        }
+        tiers.putIfAbsent(1, null);
+        if (hasFixed) {
+            // A FIXED policy only prices the first cycle
+            tiers.putIfAbsent(2, null);
+        }
+
+        List<PricingTier> pricingTiers = new ArrayList<>(tiers.size());
+        for (Integer start : tiers.keySet()) {
+            Integer next = tiers.higherKey(start);
+            PricingPolicyItem policy = tiers.get(start);
+            BigDecimal after = apply(policy, base, decimals);
+
+            PricingTier tier = new PricingTier();
+            tier.setBasePrice(base.toPlainString());
+            tier.setTotalCycles(next != null ? next - start : null);
+            tier.setSubtotalBeforePolicy(base.toPlainString());
+            tier.setSellingPlanDiscount(base.subtract(after).toPlainString());
+            tier.setSubtotalAfterPolicy(after.toPlainString());
+            tier.setPolicyType(policy != null ? policy.getPolicyType() : null);
+            tier.setAfterCycle(start - 1);
+            tier.setCycleDescription(describe(start, next));
+            pricingTiers.add(tier);
+        }
+
+        SellingPlanPricing pricing = new SellingPlanPricing();
+        pricing.setSellingPlanId(plan.getId());
+        pricing.setSellingPlanName(plan.getName());
+        pricing.setBillingCycle(billingCycle(plan.getBillingPolicy()));
+        pricing.setCurrency(price.getAssetId());
+        pricing.setTrialPeriodDays(parseInt(plan.getTrialPeriodDays(), "trial_period_days"));
+        pricing.setPricingTiers(pricingTiers);
+        return pricing;
+    }
+
+    /**
+     * Returns true if two price calculations agree: amounts are compared by value, so "10" and
+     * "10.00" match
+     */
+    public static boolean sameResult(CalculatePriceResponse local, CalculatePriceResponse server) {
+        return sameAmount(local.getBasePrice(), server.getBasePrice())
+                && sameAmount(local.getSubtotalBeforePolicy(), server.getSubtotalBeforePolicy())
+                && sameAmount(local.getSellingPlanDiscount(), server.getSellingPlanDiscount())
+                && sameAmount(local.getSubtotalAfterPolicy(), server.getSubtotalAfterPolicy())
+                && Objects.equals(local.getCurrency(), server.getCurrency());
+    }
+
+    /**
+     * Returns the price of a cycle after the policy's adjustment
+     */
+    private static BigDecimal apply(PricingPolicyItem policy, BigDecimal base, int decimals) {
+        if (policy == null) {
+            return base;
+        }
+        BigDecimal value = parseDecimal(policy.getAdjustmentValue(), "adjustment_value");
+        String type = policy.getAdjustmentType();
+        BigDecimal after;
+        if (SellingPlan.ADJUSTMENT_TYPE_PERCENTAGE.equals(type)) {
+            if (value.compareTo(HUNDRED) > 0) {
+                throw new IllegalArgumentException("Percentage adjustment above 100: " + value.toPlainString());
+            }
+            after = base.subtract(base.multiply(value).divide(HUNDRED, decimals, RoundingMode.HALF_UP));
+        } else if (SellingPlan.ADJUSTMENT_TYPE_FIXED_AMOUNT.equals(type)) {
+            after = base.subtract(value.min(base));
+        } else if (SellingPlan.ADJUSTMENT_TYPE_PRICE.equals(type)) {
+            after = value;
+        } else {
+            throw new IllegalArgumentException("Unknown adjustment type: " + type);
+        }
+        return after.setScale(decimals, RoundingMode.HALF_UP);
+    }
+
+    private static String describe(int start, Integer next) {
+        if (next == null) {
+            return start == 1 ? "Every cycle" : "From cycle " + start;
+        }
+        int end = next - 1;
+        return start == end ? "Cycle " + start : "Cycles " + start + "-" + end;
+    }
+
+    /**
+     * Formats a billing policy as "monthly", "every 3 months" and so on
+     */
+    private static String billingCycle(BillingPolicyConfig policy) {
+        if (policy == null || policy.getInterval() == null) {
+            return null;
+        }
+        String interval = policy.getInterval();
+        Integer count = parseInt(policy.getIntervalCount(), "interval_count");
+        if (count == null || count == 1) {
+            switch (interval) {
+                case SellingPlan.BILLING_INTERVAL_DAY:
+                    return "daily";
+                case SellingPlan.BILLING_INTERVAL_WEEK:
+                    return "weekly";
+                case SellingPlan.BILLING_INTERVAL_MONTH:
+                    return "monthly";
+                case SellingPlan.BILLING_INTERVAL_YEAR:
+                    return "yearly";
+                default:
+                    return interval;
+            }
+        }
+        return "every " + count + " " + interval + "s";
+    }
+
+    private static boolean sameAmount(String a, String b) {
+        if (a == null || b == null) {
+            return a == null && b == null;
+        }
+        try {
+            return new BigDecimal(a).compareTo(new BigDecimal(b)) == 0;
+        } catch (NumberFormatException e) {
+            return a.equals(b);
+        }
+    }
+
+    private static Integer parseInt(String value, String name) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+
+    private static BigDecimal parseDecimal(String value, String name) {
+        BigDecimal decimal;
+        try {
+            decimal = value != null ? new BigDecimal(value.trim()) : null;
+        } catch (NumberFormatException e) {
+            decimal = null;
+        }
+        if (decimal == null || decimal.signum() < 0) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+        return decimal;
+    }
+}
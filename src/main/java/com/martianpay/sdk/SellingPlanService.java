@@ -13,11 +13,28 @@ import com.martianpay.developer.CalculatePriceResponse;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * SellingPlanService provides methods for managing selling plans and selling plan groups
  */
 public class SellingPlanService extends MartianPayClient {
+    private static final PathTemplate SELLING_PLAN_GROUPS_ID = PathTemplate.of("/v1/selling_plan_groups/%s")
+            .operation("GET", "getSellingPlanGroup")
+            .operation("POST", "updateSellingPlanGroup")
+            .operation("DELETE", "deleteSellingPlanGroup");
+    private static final PathTemplate SELLING_PLANS_ID = PathTemplate.of("/v1/selling_plans/%s")
+            .operation("GET", "getSellingPlan")
+            .operation("POST", "updateSellingPlan")
+            .operation("DELETE", "deleteSellingPlan");
+    private static final PathTemplate SELLING_PLAN_GROUPS = PathTemplate.of("/v1/selling_plan_groups")
+            .operation("GET", "listSellingPlanGroups")
+            .operation("POST", "createSellingPlanGroup");
+    private static final PathTemplate SELLING_PLANS = PathTemplate.of("/v1/selling_plans")
+            .operation("GET", "listSellingPlans")
+            .operation("POST", "createSellingPlan");
+    private static final PathTemplate SELLING_PLANS_CALCULATE_PRICE = PathTemplate.of("/v1/selling_plans/calculate_price")
+            .operation("POST", "calculateSellingPlanPrice");
 
     public SellingPlanService(String apiKey) {
         super(apiKey);
@@ -27,6 +44,14 @@ public class SellingPlanService extends MartianPayClient {
         super(apiKey, baseUrl);
     }
 
+    public SellingPlanService(String apiKey, String baseUrl, TransportContext transport) {
+        super(apiKey, baseUrl, transport);
+    }
+
+    public SellingPlanService(MartianPayClient client) {
+        super(client);
+    }
+
     /**
      * Lists selling plan groups
      *
@@ -35,7 +60,33 @@ public class SellingPlanService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public ListSellingPlanGroupsResponse listSellingPlanGroups(Pagination params) throws IOException {
-        return sendRequestWithQuery("GET", "/v1/selling_plan_groups", params, ListSellingPlanGroupsResponse.class);
+        return sendRequestWithQuery("GET", SELLING_PLAN_GROUPS.expand(), params, ListSellingPlanGroupsResponse.class);
+    }
+
+    /**
+     * Lists selling plan groups asynchronously
+     *
+     * @param params Pagination parameters
+     * @return Future completing with the selling plan group list response
+     * @see #listSellingPlanGroups
+     */
+    public CompletableFuture<ListSellingPlanGroupsResponse> listSellingPlanGroupsAsync(Pagination params) {
+        return sendRequestWithQueryAsync("GET", SELLING_PLAN_GROUPS.expand(), params, ListSellingPlanGroupsResponse.class);
+    }
+
+    /**
+     * Iterates over all selling plan groups matching the list parameters, fetching pages lazily
+     *
+     * The walk starts at the request's page and uses its page size (or {@link Pager#DEFAULT_PAGE_SIZE}).
+     *
+     * @param params List parameters; the paging fields are not modified
+     * @return Pager over the matching selling plan groups
+     * @see #listSellingPlanGroups
+     */
+    public Pager<SellingPlanGroupResponse> paginateSellingPlanGroups(Pagination params) {
+        return Pager.byPage(this, SELLING_PLAN_GROUPS.expand(), params,
+                params != null ? params.getPage() : null, params != null ? params.getPageSize() : null,
+                ListSellingPlanGroupsResponse.class, ListSellingPlanGroupsResponse::getData, ListSellingPlanGroupsResponse::getTotal);
     }
 
     /**
@@ -46,7 +97,18 @@ public class SellingPlanService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public SellingPlanGroupResponse createSellingPlanGroup(CreateSellingPlanGroupRequest params) throws IOException {
-        return sendRequest("POST", "/v1/selling_plan_groups", params, SellingPlanGroupResponse.class);
+        return sendRequest("POST", SELLING_PLAN_GROUPS.expand(), params, SellingPlanGroupResponse.class);
+    }
+
+    /**
+     * Creates a selling plan group asynchronously
+     *
+     * @param params Creation parameters
+     * @return Future completing with the created selling plan group
+     * @see #createSellingPlanGroup
+     */
+    public CompletableFuture<SellingPlanGroupResponse> createSellingPlanGroupAsync(CreateSellingPlanGroupRequest params) {
+        return sendRequestAsync("POST", SELLING_PLAN_GROUPS.expand(), params, SellingPlanGroupResponse.class);
     }
 
     /**
@@ -57,8 +119,18 @@ public class SellingPlanService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public SellingPlanGroupResponse getSellingPlanGroup(String groupID) throws IOException {
-        String path = String.format("/v1/selling_plan_groups/%s", groupID);
-        return sendRequest("GET", path, null, SellingPlanGroupResponse.class);
+        return sendRequest("GET", SELLING_PLAN_GROUPS_ID.expand(groupID), null, SellingPlanGroupResponse.class);
+    }
+
+    /**
+     * Gets a selling plan group asynchronously
+     *
+     * @param groupID Selling plan group ID
+     * @return Future completing with the selling plan group details
+     * @see #getSellingPlanGroup
+     */
+    public CompletableFuture<SellingPlanGroupResponse> getSellingPlanGroupAsync(String groupID) {
+        return sendRequestAsync("GET", SELLING_PLAN_GROUPS_ID.expand(groupID), null, SellingPlanGroupResponse.class);
     }
 
     /**
@@ -70,8 +142,19 @@ public class SellingPlanService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public SellingPlanGroupResponse updateSellingPlanGroup(String groupID, UpdateSellingPlanGroupRequest params) throws IOException {
-        String path = String.format("/v1/selling_plan_groups/%s", groupID);
-        return sendRequest("POST", path, params, SellingPlanGroupResponse.class);
+        return sendRequest("POST", SELLING_PLAN_GROUPS_ID.expand(groupID), params, SellingPlanGroupResponse.class);
+    }
+
+    /**
+     * Updates a selling plan group asynchronously
+     *
+     * @param groupID Selling plan group ID
+     * @param params Update parameters
+     * @return Future completing with the updated selling plan group
+     * @see #updateSellingPlanGroup
+     */
+    public CompletableFuture<SellingPlanGroupResponse> updateSellingPlanGroupAsync(String groupID, UpdateSellingPlanGroupRequest params) {
+        return sendRequestAsync("POST", SELLING_PLAN_GROUPS_ID.expand(groupID), params, SellingPlanGroupResponse.class);
     }
 
     /**
@@ -81,8 +164,18 @@ public class SellingPlanService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public void deleteSellingPlanGroup(String groupID) throws IOException {
-        String path = String.format("/v1/selling_plan_groups/%s", groupID);
-        sendRequest("DELETE", path, null, Void.class);
+        sendRequest("DELETE", SELLING_PLAN_GROUPS_ID.expand(groupID), null, Void.class);
+    }
+
+    /**
+     * Deletes a selling plan group asynchronously
+     *
+     * @param groupID Selling plan group ID
+     * @return Future completing when the request succeeds
+     * @see #deleteSellingPlanGroup
+     */
+    public CompletableFuture<Void> deleteSellingPlanGroupAsync(String groupID) {
+        return sendRequestAsync("DELETE", SELLING_PLAN_GROUPS_ID.expand(groupID), null, Void.class);
     }
 
     /**
@@ -93,7 +186,33 @@ public class SellingPlanService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public ListSellingPlansResponse listSellingPlans(Pagination params) throws IOException {
-        return sendRequestWithQuery("GET", "/v1/selling_plans", params, ListSellingPlansResponse.class);
+        return sendRequestWithQuery("GET", SELLING_PLANS.expand(), params, ListSellingPlansResponse.class);
+    }
+
+    /**
+     * Lists selling plans asynchronously
+     *
+     * @param params Pagination parameters
+     * @return Future completing with the selling plan list response
+     * @see #listSellingPlans
+     */
+    public CompletableFuture<ListSellingPlansResponse> listSellingPlansAsync(Pagination params) {
+        return sendRequestWithQueryAsync("GET", SELLING_PLANS.expand(), params, ListSellingPlansResponse.class);
+    }
+
+    /**
+     * Iterates over all selling plans matching the list parameters, fetching pages lazily
+     *
+     * The walk starts at the request's page and uses its page size (or {@link Pager#DEFAULT_PAGE_SIZE}).
+     *
+     * @param params List parameters; the paging fields are not modified
+     * @return Pager over the matching selling plans
+     * @see #listSellingPlans
+     */
+    public Pager<SellingPlanResponse> paginateSellingPlans(Pagination params) {
+        return Pager.byPage(this, SELLING_PLANS.expand(), params,
+                params != null ? params.getPage() : null, params != null ? params.getPageSize() : null,
+                ListSellingPlansResponse.class, ListSellingPlansResponse::getData, ListSellingPlansResponse::getTotal);
     }
 
     /**
@@ -104,7 +223,18 @@ public class SellingPlanService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public SellingPlanResponse createSellingPlan(CreateSellingPlanRequest params) throws IOException {
-        return sendRequest("POST", "/v1/selling_plans", params, SellingPlanResponse.class);
+        return sendRequest("POST", SELLING_PLANS.expand(), params, SellingPlanResponse.class);
+    }
+
+    /**
+     * Creates a selling plan asynchronously
+     *
+     * @param params Creation parameters
+     * @return Future completing with the created selling plan
+     * @see #createSellingPlan
+     */
+    public CompletableFuture<SellingPlanResponse> createSellingPlanAsync(CreateSellingPlanRequest params) {
+        return sendRequestAsync("POST", SELLING_PLANS.expand(), params, SellingPlanResponse.class);
     }
 
     /**
@@ -115,7 +245,18 @@ public class SellingPlanService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public CalculatePriceResponse calculateSellingPlanPrice(Map<String, Object> params) throws IOException {
-        return sendRequest("POST", "/v1/selling_plans/calculate_price", params, CalculatePriceResponse.class);
+        return sendRequest("POST", SELLING_PLANS_CALCULATE_PRICE.expand(), params, CalculatePriceResponse.class);
+    }
+
+    /**
+     * Calculates selling plan price asynchronously
+     *
+     * @param params Calculation parameters
+     * @return Future completing with the price calculation response
+     * @see #calculateSellingPlanPrice
+     */
+    public CompletableFuture<CalculatePriceResponse> calculateSellingPlanPriceAsync(Map<String, Object> params) {
+        return sendRequestAsync("POST", SELLING_PLANS_CALCULATE_PRICE.expand(), params, CalculatePriceResponse.class);
     }
 
     /**
@@ -126,8 +267,18 @@ public class SellingPlanService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public SellingPlanResponse getSellingPlan(String planID) throws IOException {
-        String path = String.format("/v1/selling_plans/%s", planID);
-        return sendRequest("GET", path, null, SellingPlanResponse.class);
+        return sendRequest("GET", SELLING_PLANS_ID.expand(planID), null, SellingPlanResponse.class);
+    }
+
+    /**
+     * Gets a selling plan asynchronously
+     *
+     * @param planID Selling plan ID
+     * @return Future completing with the selling plan details
+     * @see #getSellingPlan
+     */
+    public CompletableFuture<SellingPlanResponse> getSellingPlanAsync(String planID) {
+        return sendRequestAsync("GET", SELLING_PLANS_ID.expand(planID), null, SellingPlanResponse.class);
     }
 
     /**
@@ -139,8 +290,19 @@ public class SellingPlanService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public SellingPlanResponse updateSellingPlan(String planID, UpdateSellingPlanRequest params) throws IOException {
-        String path = String.format("/v1/selling_plans/%s", planID);
-        return sendRequest("POST", path, params, SellingPlanResponse.class);
+        return sendRequest("POST", SELLING_PLANS_ID.expand(planID), params, SellingPlanResponse.class);
+    }
+
+    /**
+     * Updates a selling plan asynchronously
+     *
+     * @param planID Selling plan ID
+     * @param params Update parameters
+     * @return Future completing with the updated selling plan
+     * @see #updateSellingPlan
+     */
+    public CompletableFuture<SellingPlanResponse> updateSellingPlanAsync(String planID, UpdateSellingPlanRequest params) {
+        return sendRequestAsync("POST", SELLING_PLANS_ID.expand(planID), params, SellingPlanResponse.class);
     }
 
     /**
@@ -150,7 +312,17 @@ public class SellingPlanService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public void deleteSellingPlan(String planID) throws IOException {
-        String path = String.format("/v1/selling_plans/%s", planID);
-        sendRequest("DELETE", path, null, Void.class);
+        sendRequest("DELETE", SELLING_PLANS_ID.expand(planID), null, Void.class);
+    }
+
+    /**
+     * Deletes a selling plan asynchronously
+     *
+     * @param planID Selling plan ID
+     * @return Future completing when the request succeeds
+     * @see #deleteSellingPlan
+     */
+    public CompletableFuture<Void> deleteSellingPlanAsync(String planID) {
+        return sendRequestAsync("DELETE", SELLING_PLANS_ID.expand(planID), null, Void.class);
     }
 }
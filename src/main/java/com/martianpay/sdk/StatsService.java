@@ -3,11 +3,14 @@ package com.martianpay.sdk;
 import com.martianpay.developer.BalanceResponse;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * StatsService provides methods for querying merchant statistics and balance
  */
 public class StatsService extends MartianPayClient {
+    private static final PathTemplate STATS_BALANCE = PathTemplate.of("/v1/stats/balance")
+            .operation("GET", "getBalance");
 
     public StatsService(String apiKey) {
         super(apiKey);
@@ -17,6 +20,14 @@ public class StatsService extends MartianPayClient {
         super(apiKey, baseUrl);
     }
 
+    public StatsService(String apiKey, String baseUrl, TransportContext transport) {
+        super(apiKey, baseUrl, transport);
+    }
+
+    public StatsService(MartianPayClient client) {
+        super(client);
+    }
+
     /**
      * Retrieves the merchant's balance
      *
@@ -24,6 +35,16 @@ public class StatsService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public BalanceResponse getBalance() throws IOException {
-        return sendRequest("GET", "/v1/stats/balance", null, BalanceResponse.class);
+        return sendRequest("GET", STATS_BALANCE.expand(), null, BalanceResponse.class);
+    }
+
+    /**
+     * Retrieves the merchant's balance asynchronously
+     *
+     * @return Future completing with the merchant balance
+     * @see #getBalance
+     */
+    public CompletableFuture<BalanceResponse> getBalanceAsync() {
+        return sendRequestAsync("GET", STATS_BALANCE.expand(), null, BalanceResponse.class);
     }
 }
@@ -8,11 +8,27 @@ import com.martianpay.developer.PauseMerchantSubscriptionRequest;
 import com.martianpay.developer.UpdateSubscriptionPlanRequest;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * SubscriptionService provides methods for managing subscriptions
  */
 public class SubscriptionService extends MartianPayClient {
+    private static final PathTemplate SUBSCRIPTIONS_ID = PathTemplate.of("/v1/subscriptions/%s")
+            .operation("GET", "getSubscription")
+            .operation("POST", "updateSubscription");
+    private static final PathTemplate SUBSCRIPTIONS_ID_CANCEL = PathTemplate.of("/v1/subscriptions/%s/cancel")
+            .operation("POST", "cancelSubscription");
+    private static final PathTemplate SUBSCRIPTIONS_ID_PAUSE = PathTemplate.of("/v1/subscriptions/%s/pause")
+            .operation("POST", "pauseSubscription");
+    private static final PathTemplate SUBSCRIPTIONS_ID_RESUME = PathTemplate.of("/v1/subscriptions/%s/resume")
+            .operation("POST", "resumeSubscription");
+    private static final PathTemplate SUBSCRIPTIONS_ID_PREVIEW = PathTemplate.of("/v1/subscriptions/%s/preview")
+            .operation("POST", "previewSubscriptionUpdate");
+    private static final PathTemplate SUBSCRIPTIONS_ID_REVOKE_CANCEL = PathTemplate.of("/v1/subscriptions/%s/revoke-cancel")
+            .operation("POST", "revokeCancelSubscription");
+    private static final PathTemplate SUBSCRIPTIONS = PathTemplate.of("/v1/subscriptions")
+            .operation("GET", "listSubscriptions");
 
     public SubscriptionService(String apiKey) {
         super(apiKey);
@@ -22,6 +38,14 @@ public class SubscriptionService extends MartianPayClient {
         super(apiKey, baseUrl);
     }
 
+    public SubscriptionService(String apiKey, String baseUrl, TransportContext transport) {
+        super(apiKey, baseUrl, transport);
+    }
+
+    public SubscriptionService(MartianPayClient client) {
+        super(client);
+    }
+
     /**
      * Lists subscriptions
      *
@@ -30,7 +54,33 @@ public class SubscriptionService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public ListSubscriptionsResponse listSubscriptions(ListMerchantSubscriptionsRequest params) throws IOException {
-        return sendRequestWithQuery("GET", "/v1/subscriptions", params, ListSubscriptionsResponse.class);
+        return sendRequestWithQuery("GET", SUBSCRIPTIONS.expand(), params, ListSubscriptionsResponse.class);
+    }
+
+    /**
+     * Lists subscriptions asynchronously
+     *
+     * @param params Subscription list request parameters
+     * @return Future completing with the subscription list response
+     * @see #listSubscriptions
+     */
+    public CompletableFuture<ListSubscriptionsResponse> listSubscriptionsAsync(ListMerchantSubscriptionsRequest params) {
+        return sendRequestWithQueryAsync("GET", SUBSCRIPTIONS.expand(), params, ListSubscriptionsResponse.class);
+    }
+
+    /**
+     * Iterates over all subscriptions matching the list parameters, fetching pages lazily
+     *
+     * The walk starts at the request's offset and fetches {@code limit} items per call (or {@link Pager#DEFAULT_PAGE_SIZE}).
+     *
+     * @param params List parameters; the paging fields are not modified
+     * @return Pager over the matching subscriptions
+     * @see #listSubscriptions
+     */
+    public Pager<SubscriptionDetails> paginateSubscriptions(ListMerchantSubscriptionsRequest params) {
+        return Pager.byOffset(this, SUBSCRIPTIONS.expand(), params,
+                params != null ? params.getOffset() : null, params != null ? params.getLimit() : null,
+                ListSubscriptionsResponse.class, ListSubscriptionsResponse::getData, ListSubscriptionsResponse::getTotal);
     }
 
     /**
@@ -41,8 +91,18 @@ public class SubscriptionService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public SubscriptionDetails getSubscription(String subscriptionID) throws IOException {
-        String path = String.format("/v1/subscriptions/%s", subscriptionID);
-        return sendRequest("GET", path, null, SubscriptionDetails.class);
+        return sendRequest("GET", SUBSCRIPTIONS_ID.expand(subscriptionID), null, SubscriptionDetails.class);
+    }
+
+    /**
+     * Gets subscription details asynchronously
+     *
+     * @param subscriptionID Subscription ID
+     * @return Future completing with the subscription details
+     * @see #getSubscription
+     */
+    public CompletableFuture<SubscriptionDetails> getSubscriptionAsync(String subscriptionID) {
+        return sendRequestAsync("GET", SUBSCRIPTIONS_ID.expand(subscriptionID), null, SubscriptionDetails.class);
     }
 
     /**
@@ -54,8 +114,19 @@ public class SubscriptionService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public SubscriptionDetails cancelSubscription(String subscriptionID, CancelMerchantSubscriptionRequest params) throws IOException {
-        String path = String.format("/v1/subscriptions/%s/cancel", subscriptionID);
-        return sendRequest("POST", path, params, SubscriptionDetails.class);
+        return sendRequest("POST", SUBSCRIPTIONS_ID_CANCEL.expand(subscriptionID), params, SubscriptionDetails.class);
+    }
+
+    /**
+     * Cancels a subscription asynchronously
+     *
+     * @param subscriptionID Subscription ID
+     * @param params Cancellation parameters
+     * @return Future completing with the updated subscription details
+     * @see #cancelSubscription
+     */
+    public CompletableFuture<SubscriptionDetails> cancelSubscriptionAsync(String subscriptionID, CancelMerchantSubscriptionRequest params) {
+        return sendRequestAsync("POST", SUBSCRIPTIONS_ID_CANCEL.expand(subscriptionID), params, SubscriptionDetails.class);
     }
 
     /**
@@ -67,8 +138,19 @@ public class SubscriptionService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public SubscriptionDetails pauseSubscription(String subscriptionID, PauseMerchantSubscriptionRequest params) throws IOException {
-        String path = String.format("/v1/subscriptions/%s/pause", subscriptionID);
-        return sendRequest("POST", path, params, SubscriptionDetails.class);
+        return sendRequest("POST", SUBSCRIPTIONS_ID_PAUSE.expand(subscriptionID), params, SubscriptionDetails.class);
+    }
+
+    /**
+     * Pauses a subscription asynchronously
+     *
+     * @param subscriptionID Subscription ID
+     * @param params Pause parameters
+     * @return Future completing with the updated subscription details
+     * @see #pauseSubscription
+     */
+    public CompletableFuture<SubscriptionDetails> pauseSubscriptionAsync(String subscriptionID, PauseMerchantSubscriptionRequest params) {
+        return sendRequestAsync("POST", SUBSCRIPTIONS_ID_PAUSE.expand(subscriptionID), params, SubscriptionDetails.class);
     }
 
     /**
@@ -79,8 +161,18 @@ public class SubscriptionService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public SubscriptionDetails resumeSubscription(String subscriptionID) throws IOException {
-        String path = String.format("/v1/subscriptions/%s/resume", subscriptionID);
-        return sendRequest("POST", path, null, SubscriptionDetails.class);
+        return sendRequest("POST", SUBSCRIPTIONS_ID_RESUME.expand(subscriptionID), null, SubscriptionDetails.class);
+    }
+
+    /**
+     * Resumes a subscription asynchronously
+     *
+     * @param subscriptionID Subscription ID
+     * @return Future completing with the updated subscription details
+     * @see #resumeSubscription
+     */
+    public CompletableFuture<SubscriptionDetails> resumeSubscriptionAsync(String subscriptionID) {
+        return sendRequestAsync("POST", SUBSCRIPTIONS_ID_RESUME.expand(subscriptionID), null, SubscriptionDetails.class);
     }
 
     /**
@@ -102,8 +194,19 @@ public class SubscriptionService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public SubscriptionDetails updateSubscription(String subscriptionID, UpdateSubscriptionPlanRequest params) throws IOException {
-        String path = String.format("/v1/subscriptions/%s", subscriptionID);
-        return sendRequest("POST", path, params, SubscriptionDetails.class);
+        return sendRequest("POST", SUBSCRIPTIONS_ID.expand(subscriptionID), params, SubscriptionDetails.class);
+    }
+
+    /**
+     * Updates a subscription's plan (upgrade or downgrade) asynchronously
+     *
+     * @param subscriptionID Subscription ID
+     * @param params Update parameters including new selling plan, proration behavior, etc.
+     * @return Future completing with the updated subscription details with proration info
+     * @see #updateSubscription
+     */
+    public CompletableFuture<SubscriptionDetails> updateSubscriptionAsync(String subscriptionID, UpdateSubscriptionPlanRequest params) {
+        return sendRequestAsync("POST", SUBSCRIPTIONS_ID.expand(subscriptionID), params, SubscriptionDetails.class);
     }
 
     /**
@@ -118,8 +221,19 @@ public class SubscriptionService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public SubscriptionDetails previewSubscriptionUpdate(String subscriptionID, UpdateSubscriptionPlanRequest params) throws IOException {
-        String path = String.format("/v1/subscriptions/%s/preview", subscriptionID);
-        return sendRequest("POST", path, params, SubscriptionDetails.class);
+        return sendRequest("POST", SUBSCRIPTIONS_ID_PREVIEW.expand(subscriptionID), params, SubscriptionDetails.class);
+    }
+
+    /**
+     * Previews a subscription plan change without applying it asynchronously
+     *
+     * @param subscriptionID Subscription ID
+     * @param params Preview parameters (same as updateSubscription)
+     * @return Future completing with the preview with proration calculation (applied=false)
+     * @see #previewSubscriptionUpdate
+     */
+    public CompletableFuture<SubscriptionDetails> previewSubscriptionUpdateAsync(String subscriptionID, UpdateSubscriptionPlanRequest params) {
+        return sendRequestAsync("POST", SUBSCRIPTIONS_ID_PREVIEW.expand(subscriptionID), params, SubscriptionDetails.class);
     }
 
     /**
@@ -132,7 +246,17 @@ public class SubscriptionService extends MartianPayClient {
      * @throws IOException if request fails
      */
     public SubscriptionDetails revokeCancelSubscription(String subscriptionID) throws IOException {
-        String path = String.format("/v1/subscriptions/%s/revoke-cancel", subscriptionID);
-        return sendRequest("POST", path, null, SubscriptionDetails.class);
+        return sendRequest("POST", SUBSCRIPTIONS_ID_REVOKE_CANCEL.expand(subscriptionID), null, SubscriptionDetails.class);
+    }
+
+    /**
+     * Revokes a pending cancellation for a subscription asynchronously
+     *
+     * @param subscriptionID Subscription ID
+     * @return Future completing with the updated subscription details with cancellation revoked
+     * @see #revokeCancelSubscription
+     */
+    public CompletableFuture<SubscriptionDetails> revokeCancelSubscriptionAsync(String subscriptionID) {
+        return sendRequestAsync("POST", SUBSCRIPTIONS_ID_REVOKE_CANCEL.expand(subscriptionID), null, SubscriptionDetails.class);
     }
 }
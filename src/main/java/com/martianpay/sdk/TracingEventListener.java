@@ -0,0 +1,120 @@
+package com.martianpay.sdk;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+/**
+ * TracingEventListener turns the OkHttp events of one traced call into {@link CallTrace} phases.
+ *
+ * It is created per call, only for calls carrying a CallTrace tag, and forwards every event it
+ * handles to the context's shared listener so that pool statistics and byte counts still apply.
+ */
+final class TracingEventListener extends EventListener {
+    private final EventListener delegate;
+    private final CallTrace trace;
+
+    TracingEventListener(EventListener delegate, CallTrace trace) {
+        this.delegate = delegate;
+        this.trace = trace;
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        delegate.dnsStart(call, domainName);
+        trace.start(CallTrace.Phase.DNS);
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        delegate.dnsEnd(call, domainName, inetAddressList);
+        trace.end(CallTrace.Phase.DNS);
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        delegate.connectStart(call, inetSocketAddress, proxy);
+        trace.start(CallTrace.Phase.CONNECT);
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+        delegate.secureConnectStart(call);
+        trace.start(CallTrace.Phase.TLS);
+    }
+
+    @Override
+    public void secureConnectEnd(Call call, Handshake handshake) {
+        delegate.secureConnectEnd(call, handshake);
+        trace.end(CallTrace.Phase.TLS);
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        delegate.connectEnd(call, inetSocketAddress, proxy, protocol);
+        trace.end(CallTrace.Phase.CONNECT);
+    }
+
+    @Override
+    public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol,
+                              IOException ioe) {
+        delegate.connectFailed(call, inetSocketAddress, proxy, protocol, ioe);
+        trace.end(CallTrace.Phase.CONNECT);
+    }
+
+    @Override
+    public void connectionAcquired(Call call, Connection connection) {
+        delegate.connectionAcquired(call, connection);
+    }
+
+    @Override
+    public void requestHeadersStart(Call call) {
+        delegate.requestHeadersStart(call);
+        trace.start(CallTrace.Phase.REQUEST_WRITE);
+    }
+
+    @Override
+    public void requestHeadersEnd(Call call, Request request) {
+        delegate.requestHeadersEnd(call, request);
+        trace.requestWritten();
+    }
+
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+        delegate.requestBodyEnd(call, byteCount);
+        trace.requestWritten();
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        delegate.responseHeadersStart(call);
+        trace.end(CallTrace.Phase.TIME_TO_FIRST_BYTE);
+    }
+
+    @Override
+    public void responseHeadersEnd(Call call, Response response) {
+        delegate.responseHeadersEnd(call, response);
+    }
+
+    @Override
+    public void responseBodyStart(Call call) {
+        delegate.responseBodyStart(call);
+        trace.start(CallTrace.Phase.BODY_READ);
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        delegate.responseBodyEnd(call, byteCount);
+        trace.end(CallTrace.Phase.BODY_READ);
+    }
+}
@@ -0,0 +1,640 @@
+package com.martianpay.sdk;
+
+import com.google.gson.Gson;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TransportContext holds the HTTP transport (connection pool, dispatcher and Gson instance)
+ * shared by a root MartianPayClient and every service created from it.
+ *
+ * Building an OkHttpClient allocates a connection pool and a dispatcher thread pool, and every
+ * new pool means new TCP connections and TLS handshakes. Clients created without an explicit
+ * context use {@link #getDefault()}, so services obtained from {@code MartianPayClient.getXxxService()}
+ * reuse the same connections. Create a dedicated context with {@link #builder()} to size the pool.
+ */
+public final class TransportContext {
+    private static final Logger logger = LoggerFactory.getLogger(TransportContext.class);
+
+    /** Default number of idle connections kept alive in the pool */
+    public static final int DEFAULT_MAX_IDLE_CONNECTIONS = 32;
+    /** Default time an idle connection is kept alive, in seconds */
+    public static final long DEFAULT_KEEP_ALIVE_SECONDS = 300;
+    /** Default maximum number of concurrent asynchronous calls */
+    public static final int DEFAULT_MAX_REQUESTS = 256;
+    /** Default maximum number of concurrent asynchronous calls per host */
+    public static final int DEFAULT_MAX_REQUESTS_PER_HOST = 64;
+    /** Default connect, read and write timeout, in seconds */
+    public static final long DEFAULT_TIMEOUT_SECONDS = 30;
+    /**
+     * System property selecting the execution mode of the default context (PLATFORM,
+     * VIRTUAL_THREADS or AUTO, in any case); unknown or unsupported values fall back to PLATFORM
+     */
+    public static final String EXECUTION_MODE_PROPERTY = "martianpay.executionMode";
+    /** Default bound on in-flight calls per host when running on virtual threads */
+    public static final int DEFAULT_VIRTUAL_MAX_CONCURRENCY_PER_HOST = 1024;
+
+    private final OkHttpClient httpClient;
+    private final Gson gson;
+    private final ConnectionPool connectionPool;
+    private final Dispatcher dispatcher;
+    private final ConnectionStatsListener connectionStats;
+    private final Executor callbackExecutor;
+    private final ExecutionMode executionMode;
+    private final int maxConcurrencyPerHost;
+    private final List<ApiInterceptor> interceptors;
+    private final RetryPolicy retryPolicy;
+    private final HedgingPolicy hedgingPolicy;
+    private final RequestCoalescer requestCoalescer;
+    private final RateLimiter rateLimiter;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final MetricsRecorder metricsRecorder;
+    private final CallTraceListener callTraceListener;
+
+    private TransportContext(Builder builder) {
+        this.executionMode = resolve(builder.executionMode);
+        this.connectionPool = new ConnectionPool(builder.maxIdleConnections,
+                builder.keepAliveDuration, builder.keepAliveUnit);
+        this.metricsRecorder = builder.metricsRecorder;
+        this.connectionStats = new ConnectionStatsListener(metricsRecorder);
+        this.callTraceListener = builder.callTraceListener;
+        OkHttpClient.Builder clientBuilder = new OkHttpClient.Builder()
+                .connectionPool(connectionPool)
+                .eventListenerFactory(call -> {
+                    CallTrace trace = call.request().tag(CallTrace.class);
+                    return trace != null ? new TracingEventListener(connectionStats, trace) : connectionStats;
+                })
+                .connectTimeout(builder.connectTimeoutMillis, TimeUnit.MILLISECONDS)
+                .readTimeout(builder.readTimeoutMillis, TimeUnit.MILLISECONDS)
+                .writeTimeout(builder.writeTimeoutMillis, TimeUnit.MILLISECONDS);
+
+        int maxConcurrencyPerHost = builder.maxConcurrencyPerHost;
+        if (executionMode == ExecutionMode.VIRTUAL_THREADS) {
+            // One virtual thread per call: the dispatcher never queues, the per-host semaphore bounds concurrency
+            this.dispatcher = new Dispatcher(VirtualThreads.newVirtualThreadPerTaskExecutor());
+            this.dispatcher.setMaxRequests(Integer.MAX_VALUE);
+            this.dispatcher.setMaxRequestsPerHost(Integer.MAX_VALUE);
+            if (maxConcurrencyPerHost == 0) {
+                maxConcurrencyPerHost = DEFAULT_VIRTUAL_MAX_CONCURRENCY_PER_HOST;
+            }
+        } else {
+            this.dispatcher = new Dispatcher();
+            this.dispatcher.setMaxRequests(builder.maxRequests);
+            this.dispatcher.setMaxRequestsPerHost(builder.maxRequestsPerHost);
+        }
+        clientBuilder.dispatcher(dispatcher);
+        if (maxConcurrencyPerHost > 0) {
+            clientBuilder.addInterceptor(new HostConcurrencyLimiter(maxConcurrencyPerHost));
+        }
+        this.maxConcurrencyPerHost = maxConcurrencyPerHost;
+        this.httpClient = clientBuilder.build();
+        this.gson = ModelGson.create();
+        this.callbackExecutor = builder.callbackExecutor;
+        this.interceptors = Collections.unmodifiableList(new ArrayList<>(builder.interceptors));
+        this.retryPolicy = builder.retryPolicy;
+        this.hedgingPolicy = builder.hedgingPolicy;
+        this.requestCoalescer = builder.requestCoalescer;
+        this.rateLimiter = builder.rateLimiter;
+        this.circuitBreaker = builder.circuitBreaker;
+        this.bulkhead = builder.bulkhead;
+    }
+
+    /**
+     * Returns the process-wide context used by clients created without an explicit context
+     *
+     * @return Default transport context
+     */
+    public static TransportContext getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    /**
+     * Creates a builder for a dedicated transport context
+     *
+     * @return New builder with default pool sizing
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public OkHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    public Gson getGson() {
+        return gson;
+    }
+
+    /**
+     * Returns the executor used to complete futures returned by the asynchronous service methods.
+     * When null, futures are completed on the OkHttp dispatcher thread that received the response.
+     *
+     * @return Callback executor, or null
+     */
+    public Executor getCallbackExecutor() {
+        return callbackExecutor;
+    }
+
+    /**
+     * Returns the interceptors every call made through this context passes through, in order
+     *
+     * @return Unmodifiable interceptor list
+     */
+    public List<ApiInterceptor> getInterceptors() {
+        return interceptors;
+    }
+
+    /**
+     * Returns the policy applied to failed calls; the retry stage runs inside all interceptors
+     *
+     * @return Retry policy, {@link RetryPolicy#NONE} if retrying is disabled
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Returns the policy hedging slow idempotent reads, or null if hedging is disabled
+     *
+     * @return Hedging policy, or null
+     */
+    public HedgingPolicy getHedgingPolicy() {
+        return hedgingPolicy;
+    }
+
+    /**
+     * Returns the coalescer merging concurrent identical reads, or null if none is installed
+     *
+     * @return Request coalescer, or null
+     */
+    public RequestCoalescer getRequestCoalescer() {
+        return requestCoalescer;
+    }
+
+    /**
+     * Returns the client-side rate limiter applied to each attempt, or null if calls are not paced
+     *
+     * @return Rate limiter, or null
+     */
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * Returns the circuit breaker applied per resource, or null if none is installed
+     *
+     * @return Circuit breaker, or null
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Returns the bulkhead bounding calls in flight per resource, or null if none is installed
+     *
+     * @return Bulkhead, or null
+     */
+    public Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    /**
+     * Returns the recorder receiving per-endpoint call metrics
+     *
+     * @return Metrics recorder, {@link MetricsRecorder#NOOP} if metrics are disabled
+     */
+    public MetricsRecorder getMetricsRecorder() {
+        return metricsRecorder;
+    }
+
+    /**
+     * Returns the listener receiving per-attempt phase timings, or null if tracing is disabled
+     *
+     * @return Trace listener, or null
+     */
+    public CallTraceListener getCallTraceListener() {
+        return callTraceListener;
+    }
+
+    /**
+     * Returns the resolved execution mode, either PLATFORM or VIRTUAL_THREADS
+     *
+     * @return Execution mode in effect
+     */
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    /**
+     * Returns the bound on in-flight calls per host, or 0 if only the dispatcher limits apply
+     *
+     * @return Maximum concurrent calls per host
+     */
+    public int getMaxConcurrencyPerHost() {
+        return maxConcurrencyPerHost;
+    }
+
+    /**
+     * Returns a snapshot of the connection pool and dispatcher state
+     *
+     * @return Pool statistics
+     */
+    public PoolStats getPoolStats() {
+        return new PoolStats(
+                connectionPool.connectionCount(),
+                connectionPool.idleConnectionCount(),
+                dispatcher.runningCallsCount(),
+                dispatcher.queuedCallsCount(),
+                connectionStats.acquired.sum(),
+                connectionStats.connected.sum());
+    }
+
+    /**
+     * Evicts pooled connections and stops the dispatcher threads.
+     * The default context is shared process-wide and cannot be shut down.
+     */
+    public void shutdown() {
+        if (this == DefaultHolder.INSTANCE) {
+            throw new IllegalStateException("The default transport context cannot be shut down");
+        }
+        dispatcher.executorService().shutdown();
+        connectionPool.evictAll();
+    }
+
+    private static ExecutionMode resolve(ExecutionMode requested) {
+        if (requested == ExecutionMode.AUTO) {
+            return VirtualThreads.isSupported() ? ExecutionMode.VIRTUAL_THREADS : ExecutionMode.PLATFORM;
+        }
+        return requested;
+    }
+
+    /**
+     * Returns the execution mode named by {@link #EXECUTION_MODE_PROPERTY}. It runs while the
+     * default context is initialized, so a bad value is logged instead of thrown: an exception
+     * there would make every later {@link #getDefault()} fail.
+     */
+    static ExecutionMode defaultExecutionMode() {
+        String value = System.getProperty(EXECUTION_MODE_PROPERTY);
+        if (value == null || value.trim().isEmpty()) {
+            return ExecutionMode.PLATFORM;
+        }
+        ExecutionMode mode;
+        try {
+            mode = ExecutionMode.valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring unknown {}={}, using PLATFORM", EXECUTION_MODE_PROPERTY, value);
+            return ExecutionMode.PLATFORM;
+        }
+        if (mode == ExecutionMode.VIRTUAL_THREADS && !VirtualThreads.isSupported()) {
+            logger.warn("{}={} requires JDK 21 or later, using PLATFORM", EXECUTION_MODE_PROPERTY, value);
+            return ExecutionMode.PLATFORM;
+        }
+        return mode;
+    }
+
+    private static final class DefaultHolder {
+        static final TransportContext INSTANCE = new Builder()
+                .executionMode(defaultExecutionMode())
+                .build();
+    }
+
+    /**
+     * Builder configures connection pool sizing, dispatcher limits and timeouts
+     */
+    public static final class Builder {
+        private int maxIdleConnections = DEFAULT_MAX_IDLE_CONNECTIONS;
+        private long keepAliveDuration = DEFAULT_KEEP_ALIVE_SECONDS;
+        private TimeUnit keepAliveUnit = TimeUnit.SECONDS;
+        private int maxRequests = DEFAULT_MAX_REQUESTS;
+        private int maxRequestsPerHost = DEFAULT_MAX_REQUESTS_PER_HOST;
+        private long connectTimeoutMillis = TimeUnit.SECONDS.toMillis(DEFAULT_TIMEOUT_SECONDS);
+        private long readTimeoutMillis = TimeUnit.SECONDS.toMillis(DEFAULT_TIMEOUT_SECONDS);
+        private long writeTimeoutMillis = TimeUnit.SECONDS.toMillis(DEFAULT_TIMEOUT_SECONDS);
+        private Executor callbackExecutor;
+        private ExecutionMode executionMode = ExecutionMode.PLATFORM;
+        private int maxConcurrencyPerHost;
+        private final List<ApiInterceptor> interceptors = new ArrayList<>();
+        private RetryPolicy retryPolicy = RetryPolicy.DEFAULT;
+        private HedgingPolicy hedgingPolicy;
+        private RequestCoalescer requestCoalescer;
+        private RateLimiter rateLimiter;
+        private CircuitBreaker circuitBreaker;
+        private Bulkhead bulkhead;
+        private MetricsRecorder metricsRecorder = MetricsRecorder.NOOP;
+        private CallTraceListener callTraceListener;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the maximum number of idle connections kept in the pool
+         */
+        public Builder maxIdleConnections(int maxIdleConnections) {
+            if (maxIdleConnections < 0) {
+                throw new IllegalArgumentException("maxIdleConnections < 0: " + maxIdleConnections);
+            }
+            this.maxIdleConnections = maxIdleConnections;
+            return this;
+        }
+
+        /**
+         * Sets how long an idle connection is kept alive before it is evicted
+         */
+        public Builder keepAlive(long duration, TimeUnit unit) {
+            if (duration <= 0) {
+                throw new IllegalArgumentException("keepAlive duration <= 0: " + duration);
+            }
+            this.keepAliveDuration = duration;
+            this.keepAliveUnit = unit;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of concurrent asynchronous calls
+         */
+        public Builder maxRequests(int maxRequests) {
+            if (maxRequests < 1) {
+                throw new IllegalArgumentException("maxRequests < 1: " + maxRequests);
+            }
+            this.maxRequests = maxRequests;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of concurrent asynchronous calls to a single host
+         */
+        public Builder maxRequestsPerHost(int maxRequestsPerHost) {
+            if (maxRequestsPerHost < 1) {
+                throw new IllegalArgumentException("maxRequestsPerHost < 1: " + maxRequestsPerHost);
+            }
+            this.maxRequestsPerHost = maxRequestsPerHost;
+            return this;
+        }
+
+        public Builder connectTimeout(long timeout, TimeUnit unit) {
+            this.connectTimeoutMillis = unit.toMillis(timeout);
+            return this;
+        }
+
+        public Builder readTimeout(long timeout, TimeUnit unit) {
+            this.readTimeoutMillis = unit.toMillis(timeout);
+            return this;
+        }
+
+        public Builder writeTimeout(long timeout, TimeUnit unit) {
+            this.writeTimeoutMillis = unit.toMillis(timeout);
+            return this;
+        }
+
+        /**
+         * Sets the executor that completes futures returned by the asynchronous service methods.
+         * Use it to keep dependent stages off the OkHttp dispatcher threads.
+         */
+        public Builder callbackExecutor(Executor callbackExecutor) {
+            this.callbackExecutor = callbackExecutor;
+            return this;
+        }
+
+        /**
+         * Selects platform or virtual threads for running calls.
+         * VIRTUAL_THREADS fails at build time on JVMs older than 21; AUTO falls back to PLATFORM.
+         */
+        public Builder executionMode(ExecutionMode executionMode) {
+            if (executionMode == null) {
+                throw new IllegalArgumentException("executionMode == null");
+            }
+            this.executionMode = executionMode;
+            return this;
+        }
+
+        /**
+         * Bounds in-flight calls per host with a semaphore, covering blocking and asynchronous calls.
+         * Defaults to {@link #DEFAULT_VIRTUAL_MAX_CONCURRENCY_PER_HOST} on virtual threads and to
+         * no bound (dispatcher limits only) on platform threads.
+         */
+        public Builder maxConcurrencyPerHost(int maxConcurrencyPerHost) {
+            if (maxConcurrencyPerHost < 1) {
+                throw new IllegalArgumentException("maxConcurrencyPerHost < 1: " + maxConcurrencyPerHost);
+            }
+            this.maxConcurrencyPerHost = maxConcurrencyPerHost;
+            return this;
+        }
+
+        /**
+         * Adds a stage to the request pipeline. Interceptors run in the order they are added,
+         * the first one outermost.
+         */
+        public Builder addInterceptor(ApiInterceptor interceptor) {
+            if (interceptor == null) {
+                throw new IllegalArgumentException("interceptor == null");
+            }
+            this.interceptors.add(interceptor);
+            return this;
+        }
+
+        /**
+         * Sets the retry policy for failed calls. Defaults to {@link RetryPolicy#DEFAULT}, which
+         * retries idempotent calls on transient failures; pass {@link RetryPolicy#NONE} to disable.
+         */
+        public Builder retryPolicy(RetryPolicy retryPolicy) {
+            if (retryPolicy == null) {
+                throw new IllegalArgumentException("retryPolicy == null");
+            }
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        /**
+         * Sends a second request for slow idempotent reads and takes the first answer. Not set by
+         * default; pass null to remove a policy set earlier.
+         */
+        public Builder hedging(HedgingPolicy hedgingPolicy) {
+            this.hedgingPolicy = hedgingPolicy;
+            return this;
+        }
+
+        /**
+         * Merges concurrent identical reads into one HTTP call. Not set by default; pass null to
+         * remove a coalescer set earlier.
+         */
+        public Builder requestCoalescer(RequestCoalescer requestCoalescer) {
+            this.requestCoalescer = requestCoalescer;
+            return this;
+        }
+
+        /**
+         * Paces calls with a client-side token bucket per API key and endpoint group. Not set by
+         * default; pass null to remove a limiter set earlier.
+         */
+        public Builder rateLimiter(RateLimiter rateLimiter) {
+            this.rateLimiter = rateLimiter;
+            return this;
+        }
+
+        /**
+         * Fails calls fast while their resource is unhealthy. Not set by default; pass null to
+         * remove a breaker set earlier.
+         */
+        public Builder circuitBreaker(CircuitBreaker circuitBreaker) {
+            this.circuitBreaker = circuitBreaker;
+            return this;
+        }
+
+        /**
+         * Bounds the calls in flight per resource, isolating services from each other's
+         * slowdowns. Not set by default; pass null to remove a bulkhead set earlier.
+         */
+        public Builder bulkhead(Bulkhead bulkhead) {
+            this.bulkhead = bulkhead;
+            return this;
+        }
+
+        /**
+         * Sets the recorder receiving per-endpoint latency, error, retry and byte counts.
+         * Defaults to {@link MetricsRecorder#NOOP}; use {@link InMemoryMetricsRecorder} or an
+         * adapter to your metrics registry.
+         */
+        public Builder metricsRecorder(MetricsRecorder metricsRecorder) {
+            if (metricsRecorder == null) {
+                throw new IllegalArgumentException("metricsRecorder == null");
+            }
+            this.metricsRecorder = metricsRecorder;
+            return this;
+        }
+
+        /**
+         * Reports the DNS, connect, TLS, request write, time to first byte, body read and JSON
+         * decode timings of every attempt, named by operation. Not set by default; pass null to
+         * disable tracing.
+         */
+        public Builder callTraceListener(CallTraceListener callTraceListener) {
+            this.callTraceListener = callTraceListener;
+            return this;
+        }
+
+        public TransportContext build() {
+            return new TransportContext(this);
+        }
+    }
+
+    /**
+     * PoolStats is a point-in-time snapshot of connection pool and dispatcher usage
+     */
+    public static final class PoolStats {
+        private final int connectionCount;
+        private final int idleConnectionCount;
+        private final int runningCalls;
+        private final int queuedCalls;
+        private final long connectionsAcquired;
+        private final long connectionsOpened;
+
+        PoolStats(int connectionCount, int idleConnectionCount, int runningCalls, int queuedCalls,
+                  long connectionsAcquired, long connectionsOpened) {
+            this.connectionCount = connectionCount;
+            this.idleConnectionCount = idleConnectionCount;
+            this.runningCalls = runningCalls;
+            this.queuedCalls = queuedCalls;
+            this.connectionsAcquired = connectionsAcquired;
+            this.connectionsOpened = connectionsOpened;
+        }
+
+        /** Total number of open connections in the pool */
+        public int getConnectionCount() { return connectionCount; }
+
+        /** Number of idle connections in the pool */
+        public int getIdleConnectionCount() { return idleConnectionCount; }
+
+        /** Number of asynchronous calls currently executing */
+        public int getRunningCalls() { return runningCalls; }
+
+        /** Number of asynchronous calls waiting for a dispatcher slot */
+        public int getQueuedCalls() { return queuedCalls; }
+
+        /** Number of times a call acquired a connection since the context was created */
+        public long getConnectionsAcquired() { return connectionsAcquired; }
+
+        /** Number of new connections opened since the context was created */
+        public long getConnectionsOpened() { return connectionsOpened; }
+
+        /** Number of connection acquisitions served by an already open connection */
+        public long getConnectionsReused() { return Math.max(0, connectionsAcquired - connectionsOpened); }
+
+        @Override
+        public String toString() {
+            return "PoolStats{connections=" + connectionCount +
+                    ", idle=" + idleConnectionCount +
+                    ", running=" + runningCalls +
+                    ", queued=" + queuedCalls +
+                    ", acquired=" + connectionsAcquired +
+                    ", opened=" + connectionsOpened +
+                    ", reused=" + getConnectionsReused() + "}";
+        }
+    }
+
+    /**
+     * Counts connection acquisitions and new connections to derive the reuse ratio, and reports
+     * body sizes to the metrics recorder
+     */
+    private static final class ConnectionStatsListener extends EventListener {
+        final LongAdder acquired = new LongAdder();
+        final LongAdder connected = new LongAdder();
+        private final MetricsRecorder metrics;
+
+        ConnectionStatsListener(MetricsRecorder metrics) {
+            this.metrics = metrics;
+        }
+
+        // Counted on success only: connectStart also fires for failed attempts and retried routes
+        @Override
+        public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+            connected.increment();
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            acquired.increment();
+        }
+
+        @Override
+        public void requestBodyEnd(Call call, long byteCount) {
+            ApiRequest request = call.request().tag(ApiRequest.class);
+            if (request != null) {
+                try {
+                    metrics.recordBytesSent(request.getEndpoint(), byteCount);
+                } catch (RuntimeException e) {
+                    logger.warn("MetricsRecorder failed for {}", request.getEndpoint(), e);
+                }
+            }
+        }
+
+        @Override
+        public void responseBodyEnd(Call call, long byteCount) {
+            ApiRequest request = call.request().tag(ApiRequest.class);
+            if (request != null) {
+                try {
+                    metrics.recordBytesReceived(request.getEndpoint(), byteCount);
+                } catch (RuntimeException e) {
+                    logger.warn("MetricsRecorder failed for {}", request.getEndpoint(), e);
+                }
+            }
+        }
+    }
+}
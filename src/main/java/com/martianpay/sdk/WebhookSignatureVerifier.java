@@ -0,0 +1,292 @@
+package com.martianpay.sdk;
+
+import com.martianpay.developer.Event;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebhookSignatureVerifier checks the {@link Event#MARTIAN_PAY_SIGNATURE} header of a webhook
+ * delivery.
+ *
+ * The header has the form {@code t=<unix seconds>,v1=<hex>}, where the v1 value is the
+ * HMAC-SHA256 of {@code timestamp + "." + payload} keyed with the endpoint's secret. A delivery
+ * is valid when one of its v1 signatures matches and its timestamp is within the tolerance of the
+ * current time, which defaults to {@link Event#DEFAULT_TOLERANCE_SECONDS}.
+ *
+ * The payload is verified as received, from a byte array or a ByteBuffer, without decoding it
+ * to a String. Mac instances are initialized once and pooled, so a verification allocates
+ * nothing; signatures are decoded from hex once and compared in constant time.
+ *
+ * Instances are thread-safe; create one per secret and share it.
+ *
+ * <pre>{@code
+ * WebhookSignatureVerifier verifier = new WebhookSignatureVerifier(webhookSecret);
+ * if (!verifier.verify(body, request.getHeader(Event.MARTIAN_PAY_SIGNATURE))) {
+ *     return 400;
+ * }
+ * }</pre>
+ */
+public final class WebhookSignatureVerifier {
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    private final long toleranceSeconds;
+    private final ConcurrentLinkedQueue<Signer> pool = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Creates a verifier with the default timestamp tolerance
+     *
+     * @param secret Webhook signing secret of the endpoint
+     */
+    public WebhookSignatureVerifier(String secret) {
+        this(secret, Event.DEFAULT_TOLERANCE_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Creates a verifier rejecting signatures whose timestamp is further than the tolerance from
+     * the current time
+     *
+     * @param secret    Webhook signing secret of the endpoint
+     * @param tolerance Largest accepted clock difference
+     * @param unit      Unit of the tolerance
+     */
+    public WebhookSignatureVerifier(String secret, long tolerance, TimeUnit unit) {
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalArgumentException("secret is required");
+        }
+        if (tolerance < 0) {
+            throw new IllegalArgumentException("tolerance < 0");
+        }
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.toleranceSeconds = unit.toSeconds(tolerance);
+        // Fail on a missing algorithm now rather than on the first delivery
+        pool.offer(new Signer(newMac()));
+    }
+
+    public long getToleranceSeconds() { return toleranceSeconds; }
+
+    /**
+     * Returns true if the header carries a valid signature of the payload
+     *
+     * @param payload         Request body as received
+     * @param signatureHeader Value of the Martian-Pay-Signature header; may be null
+     */
+    public boolean verify(byte[] payload, String signatureHeader) {
+        return verify(payload, 0, payload.length, signatureHeader);
+    }
+
+    /**
+     * Returns true if the header carries a valid signature of {@code payload[offset, offset + length)}
+     *
+     * @param payload         Buffer holding the request body
+     * @param offset          Offset of the body in the buffer
+     * @param length          Length of the body
+     * @param signatureHeader Value of the Martian-Pay-Signature header; may be null
+     */
+    public boolean verify(byte[] payload, int offset, int length, String signatureHeader) {
+        if (offset < 0 || length < 0 || offset > payload.length - length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length);
+        }
+        return verify(signatureHeader, currentSeconds(), payload, offset, length, null);
+    }
+
+    /**
+     * Returns true if the header carries a valid signature of the buffer's remaining bytes; the
+     * buffer's position is left unchanged
+     *
+     * @param payload         Request body as received
+     * @param signatureHeader Value of the Martian-Pay-Signature header; may be null
+     */
+    public boolean verify(ByteBuffer payload, String signatureHeader) {
+        return verify(signatureHeader, currentSeconds(), null, 0, 0, payload);
+    }
+
+    /**
+     * Returns true if the header carries a valid signature of the UTF-8 encoded payload
+     *
+     * @param payload         Request body
+     * @param signatureHeader Value of the Martian-Pay-Signature header; may be null
+     */
+    public boolean verify(String payload, String signatureHeader) {
+        return verify(payload.getBytes(StandardCharsets.UTF_8), signatureHeader);
+    }
+
+    private static long currentSeconds() {
+        return TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+    }
+
+    private boolean verify(String header, long nowSeconds, byte[] array, int offset, int length, ByteBuffer buffer) {
+        if (header == null) {
+            return false;
+        }
+        long timestamp = timestamp(header);
+        if (timestamp <= 0 || Math.abs(nowSeconds - timestamp) > toleranceSeconds) {
+            return false;
+        }
+        Signer signer = pool.poll();
+        if (signer == null) {
+            signer = new Signer(newMac());
+        }
+        try {
+            signer.sign(timestamp, array, offset, length, buffer);
+            return signer.matchesAny(header);
+        } finally {
+            pool.offer(signer);
+        }
+    }
+
+    /**
+     * Returns the header's t value, or -1 if it is missing or malformed
+     */
+    private static long timestamp(String header) {
+        for (int start = 0; start < header.length(); ) {
+            int end = entryEnd(header, start);
+            int eq = header.indexOf('=', start);
+            if (eq > start && eq < end && keyEquals(header, start, eq, "t")) {
+                return parseSeconds(header, eq + 1, end);
+            }
+            start = end + 1;
+        }
+        return -1;
+    }
+
+    private static long parseSeconds(String header, int start, int end) {
+        start = skipSpaces(header, start, end);
+        end = trimSpaces(header, start, end);
+        // 18 digits cannot overflow a long
+        if (start == end || end - start > 18) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char c = header.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int entryEnd(String header, int start) {
+        int end = header.indexOf(',', start);
+        return end < 0 ? header.length() : end;
+    }
+
+    private static boolean keyEquals(String header, int start, int end, String key) {
+        start = skipSpaces(header, start, end);
+        end = trimSpaces(header, start, end);
+        return end - start == key.length() && header.regionMatches(start, key, 0, key.length());
+    }
+
+    private static int skipSpaces(String s, int start, int end) {
+        while (start < end && s.charAt(start) == ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimSpaces(String s, int start, int end) {
+        while (end > start && s.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    /**
+     * An initialized Mac with scratch buffers, used by one verification at a time
+     */
+    private static final class Signer {
+        private final Mac mac;
+        private final byte[] expected;
+        private final byte[] received;
+        private final byte[] digits = new byte[20];
+
+        Signer(Mac mac) {
+            this.mac = mac;
+            this.expected = new byte[mac.getMacLength()];
+            this.received = new byte[mac.getMacLength()];
+        }
+
+        void sign(long timestamp, byte[] array, int offset, int length, ByteBuffer buffer) {
+            int start = digits.length;
+            do {
+                digits[--start] = (byte) ('0' + timestamp % 10);
+                timestamp /= 10;
+            } while (timestamp > 0);
+            mac.update(digits, start, digits.length - start);
+            mac.update((byte) '.');
+            if (buffer != null) {
+                int position = buffer.position();
+                mac.update(buffer);
+                // Cast for Java 8, where ByteBuffer does not override position(int)
+                ((Buffer) buffer).position(position);
+            } else {
+                mac.update(array, offset, length);
+            }
+            try {
+                mac.doFinal(expected, 0);
+            } catch (ShortBufferException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * Returns true if one of the header's v1 signatures equals the computed one
+         */
+        boolean matchesAny(String header) {
+            boolean matched = false;
+            for (int start = 0; start < header.length(); ) {
+                int end = entryEnd(header, start);
+                int eq = header.indexOf('=', start);
+                if (eq > start && eq < end && keyEquals(header, start, eq, Event.SIGNING_VERSION)
+                        && decodeHex(header, eq + 1, end)) {
+                    // Keep comparing after a match so the time taken does not reveal which entry matched
+                    matched |= MessageDigest.isEqual(expected, received);
+                }
+                start = end + 1;
+            }
+            return matched;
+        }
+
+        /**
+         * Decodes a hex signature into {@code received}; returns false unless it has exactly the
+         * Mac's length
+         */
+        private boolean decodeHex(String header, int start, int end) {
+            start = skipSpaces(header, start, end);
+            end = trimSpaces(header, start, end);
+            if (end - start != received.length * 2) {
+                return false;
+            }
+            for (int i = 0; i < received.length; i++) {
+                int high = Character.digit(header.charAt(start + 2 * i), 16);
+                int low = Character.digit(header.charAt(start + 2 * i + 1), 16);
+                if (high < 0 || low < 0) {
+                    return false;
+                }
+                received[i] = (byte) ((high << 4) | low);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.martianpay.testing;
+
+/**
+ * ApiError aborts a fake endpoint with an error envelope and HTTP status.
+ */
+final class ApiError extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int status;
+    private final String errorCode;
+
+    ApiError(int status, String errorCode, String message) {
+        super(message, null, false, false);
+        this.status = status;
+        this.errorCode = errorCode;
+    }
+
+    static ApiError notFound(String resource, String id) {
+        return new ApiError(404, "resource_missing", "No such " + resource + ": " + id);
+    }
+
+    static ApiError invalid(String message) {
+        return new ApiError(400, "invalid_request", message);
+    }
+
+    int getStatus() {
+        return status;
+    }
+
+    String getErrorCode() {
+        return errorCode;
+    }
+}
@@ -0,0 +1,40 @@
+package com.martianpay.testing;
+
+import com.martianpay.developer.AssetListResponse;
+import com.martianpay.developer.NetworkFeesResponse;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+/**
+ * Fake {@code /v1/assets} endpoints: enabled assets, all assets and payout network fees.
+ */
+final class AssetEndpoints {
+    private final FakeStore store;
+
+    AssetEndpoints(FakeStore store) {
+        this.store = store;
+    }
+
+    void register(Router router) {
+        router.get("/v1/assets", this::enabled)
+                .get("/v1/assets/all", this::all)
+                .get("/v1/assets/fees", this::fees);
+    }
+
+    private Object enabled(FakeRequest request) {
+        AssetListResponse response = new AssetListResponse();
+        response.setAssets(new ArrayList<>(store.assets.values()));
+        return response;
+    }
+
+    private Object all(FakeRequest request) {
+        return new ArrayList<>(store.assets.values());
+    }
+
+    private Object fees(FakeRequest request) {
+        NetworkFeesResponse response = new NetworkFeesResponse();
+        response.setNetworkFees(new LinkedHashMap<>(store.networkFees));
+        return response;
+    }
+}
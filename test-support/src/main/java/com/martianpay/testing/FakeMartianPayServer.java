@@ -0,0 +1,481 @@
+package com.martianpay.testing;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * FakeMartianPayServer is an embeddable, in-memory MartianPay API for load and integration tests.
+ *
+ * It serves the payment intent, refund, payout, payroll, subscription and asset endpoints the SDK
+ * services call, on the loopback interface, with the same response envelope as the real API.
+ * Point any service at {@link #getBaseUrl()}; any non-empty API key is accepted.
+ *
+ * <pre>{@code
+ * try (FakeMartianPayServer server = FakeMartianPayServer.builder()
+ *         .faults(FaultProfile.builder().latency(20, TimeUnit.MILLISECONDS).throttleRate(0.01).build())
+ *         .build()
+ *         .start()) {
+ *     PaymentIntentService service = new PaymentIntentService("sk_test", server.getBaseUrl());
+ *     ...
+ * }
+ * }</pre>
+ *
+ * Latency, HTTP 500 and HTTP 429 (with {@code Retry-After}) can be injected through a
+ * {@link FaultProfile}, and changed while the server runs. Resources live in a
+ * {@link FakeStore} that tests can seed and inspect.
+ *
+ * Like the real API, a POST carrying an {@code Idempotency-Key} header is applied once: later
+ * requests with the same key, method and path get the first response replayed, and a different
+ * body with the same key is rejected with HTTP 422 {@code idempotency_key_reused}. Injected
+ * faults happen before this step, so a throttled attempt can be retried with its key. Keys are
+ * remembered for {@code idempotencyKeyTtl} and at most {@code maxIdempotencyKeys} are kept, the
+ * oldest being forgotten first, so long load tests run in bounded memory.
+ */
+public final class FakeMartianPayServer implements AutoCloseable {
+    /** Default number of threads serving requests */
+    public static final int DEFAULT_WORKER_THREADS = 64;
+    /** Default number of idempotency keys remembered */
+    public static final int DEFAULT_MAX_IDEMPOTENCY_KEYS = 10_000;
+    /** Default time an idempotency key is remembered, in seconds */
+    public static final long DEFAULT_IDEMPOTENCY_KEY_TTL_SECONDS = 600;
+
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    static {
+        // The JDK server writes headers and body separately; without TCP_NODELAY every response
+        // stalls ~40ms on the client's delayed ACK, which would dwarf any injected latency.
+        // Read once when the server implementation loads, so it must be set before HttpServer.create.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final int requestedPort;
+    private final int workerThreads;
+    private final int maxIdempotencyKeys;
+    private final long idempotencyKeyTtlNanos;
+    private final Gson gson = new Gson();
+    private final FakeStore store = new FakeStore(gson);
+    private final Router router = new Router();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder injectedErrors = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    /** First response per idempotency key, completed once the endpoint has run */
+    private final Map<String, CompletableFuture<StoredResponse>> idempotent = new ConcurrentHashMap<>();
+    /** Idempotency keys in the order they were first used, for expiry */
+    private final Queue<IdempotencyKey> idempotencyOrder = new ConcurrentLinkedQueue<>();
+
+    private volatile FaultProfile faults;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    private FakeMartianPayServer(Builder builder) {
+        this.requestedPort = builder.port;
+        this.workerThreads = builder.workerThreads;
+        this.maxIdempotencyKeys = builder.maxIdempotencyKeys;
+        this.idempotencyKeyTtlNanos = builder.idempotencyKeyTtlNanos;
+        this.faults = builder.faults;
+        new PaymentIntentEndpoints(store).register(router);
+        new RefundEndpoints(store).register(router);
+        new PayoutEndpoints(store).register(router);
+        new PayrollEndpoints(store).register(router);
+        new SubscriptionEndpoints(store).register(router);
+        new AssetEndpoints(store).register(router);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Binds the server and starts serving requests
+     *
+     * @return This server
+     * @throws IOException if the port cannot be bound
+     */
+    public synchronized FakeMartianPayServer start() throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Server already started");
+        }
+        HttpServer http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), requestedPort), 0);
+        executor = Executors.newFixedThreadPool(workerThreads, new WorkerThreadFactory());
+        http.setExecutor(executor);
+        http.createContext("/", this::handle);
+        http.start();
+        server = http;
+        return this;
+    }
+
+    /**
+     * Stops the server; requests in flight are abandoned
+     */
+    @Override
+    public synchronized void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+
+    /**
+     * Returns the base URL to pass to the SDK services, such as {@code http://127.0.0.1:54321}
+     */
+    public String getBaseUrl() {
+        return "http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + getPort();
+    }
+
+    public synchronized int getPort() {
+        if (server == null) {
+            throw new IllegalStateException("Server not started");
+        }
+        return server.getAddress().getPort();
+    }
+
+    public FakeStore getStore() {
+        return store;
+    }
+
+    public FaultProfile getFaults() {
+        return faults;
+    }
+
+    /**
+     * Replaces the fault profile; applies to requests received from now on
+     */
+    public void setFaults(FaultProfile faults) {
+        if (faults == null) {
+            throw new IllegalArgumentException("faults == null");
+        }
+        this.faults = faults;
+    }
+
+    /** Returns the number of requests received */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /** Returns the number of requests answered with an injected HTTP 429 */
+    public long getThrottledCount() {
+        return throttled.sum();
+    }
+
+    /** Returns the number of requests answered with an injected HTTP 500 */
+    public long getInjectedErrorCount() {
+        return injectedErrors.sum();
+    }
+
+    /** Returns the number of requests answered by replaying the response of an earlier one with the same idempotency key */
+    public long getReplayedCount() {
+        return replayed.sum();
+    }
+
+    /**
+     * Resets the request counters
+     */
+    public void resetCounters() {
+        requests.reset();
+        throttled.reset();
+        injectedErrors.reset();
+        replayed.reset();
+    }
+
+    /**
+     * Forgets the stored responses of idempotency keys
+     */
+    public void clearIdempotencyKeys() {
+        idempotencyOrder.clear();
+        idempotent.clear();
+    }
+
+    /**
+     * Forgets keys older than the TTL, and the oldest keys beyond the maximum
+     */
+    private void expireIdempotencyKeys(long now) {
+        IdempotencyKey oldest;
+        while ((oldest = idempotencyOrder.peek()) != null
+                && (now - oldest.firstUsedNanos > idempotencyKeyTtlNanos || idempotent.size() > maxIdempotencyKeys)) {
+            if (idempotencyOrder.remove(oldest)) {
+                idempotent.remove(oldest.key, oldest.response);
+            }
+        }
+    }
+
+    static long now() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.increment();
+        try {
+            String body = readBody(exchange.getRequestBody());
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            if (authorization == null || authorization.isEmpty()) {
+                sendError(exchange, new ApiError(401, "unauthorized", "Missing API key"));
+                return;
+            }
+
+            FaultProfile profile = faults;
+            long latency = profile.nextLatencyNanos();
+            if (latency > 0) {
+                TimeUnit.NANOSECONDS.sleep(latency);
+            }
+            if (profile.nextThrottled()) {
+                throttled.increment();
+                exchange.getResponseHeaders().set("Retry-After", String.valueOf(profile.getRetryAfterSeconds()));
+                sendError(exchange, new ApiError(429, "rate_limited", "Too many requests"));
+                return;
+            }
+            if (profile.nextFailed()) {
+                injectedErrors.increment();
+                sendError(exchange, new ApiError(500, "internal_error", "Injected failure"));
+                return;
+            }
+
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            Router.Match match = router.match(method, path);
+            if (match == null) {
+                sendError(exchange, new ApiError(404, "not_found", "Unknown endpoint: " + method + " " + path));
+                return;
+            }
+            FakeRequest request = new FakeRequest(gson, match.args, exchange.getRequestURI().getRawQuery(), body);
+            String key = exchange.getRequestHeaders().getFirst(IDEMPOTENCY_KEY);
+            if (key != null && "POST".equals(method)) {
+                send(exchange, handleIdempotent(method + " " + path + " " + key, match, request, body));
+            } else {
+                send(exchange, dispatch(match, request));
+            }
+        } catch (ApiError e) {
+            sendError(exchange, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.close();
+        } catch (RuntimeException e) {
+            sendError(exchange, new ApiError(500, "internal_error", String.valueOf(e)));
+        }
+    }
+
+    /**
+     * Runs the endpoint and renders its result; API errors are rendered too, so that they are
+     * replayed like successes
+     */
+    private StoredResponse dispatch(Router.Match match, FakeRequest request) {
+        try {
+            JsonObject envelope = new JsonObject();
+            envelope.addProperty("code", 0);
+            envelope.addProperty("msg", "success");
+            envelope.add("data", gson.toJsonTree(match.endpoint.handle(request)));
+            return render(200, envelope);
+        } catch (ApiError e) {
+            return renderError(e);
+        }
+    }
+
+    /**
+     * Runs the endpoint once per key; concurrent and later requests with the key wait for and
+     * replay the first response
+     */
+    private StoredResponse handleIdempotent(String key, Router.Match match, FakeRequest request, String body)
+            throws InterruptedException {
+        CompletableFuture<StoredResponse> created = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> first = idempotent.putIfAbsent(key, created);
+        if (first == null) {
+            long now = System.nanoTime();
+            idempotencyOrder.add(new IdempotencyKey(key, created, now));
+            expireIdempotencyKeys(now);
+            try {
+                StoredResponse response = dispatch(match, request);
+                response.requestBody = body;
+                created.complete(response);
+                return response;
+            } catch (RuntimeException e) {
+                // Unexpected failures are not stored, so the key can be used again
+                idempotent.remove(key, created);
+                created.completeExceptionally(e);
+                throw e;
+            }
+        }
+        StoredResponse response;
+        try {
+            response = first.get();
+        } catch (ExecutionException e) {
+            throw new ApiError(500, "internal_error", "Concurrent request with the same idempotency key failed");
+        }
+        if (!body.equals(response.requestBody)) {
+            throw new ApiError(422, "idempotency_key_reused",
+                    "Idempotency key was already used with different parameters");
+        }
+        replayed.increment();
+        return response;
+    }
+
+    private void sendError(HttpExchange exchange, ApiError error) throws IOException {
+        send(exchange, renderError(error));
+    }
+
+    private StoredResponse renderError(ApiError error) {
+        JsonObject envelope = new JsonObject();
+        envelope.addProperty("code", error.getStatus());
+        envelope.addProperty("error_code", error.getErrorCode());
+        envelope.addProperty("msg", error.getMessage());
+        return render(error.getStatus(), envelope);
+    }
+
+    private StoredResponse render(int status, JsonObject envelope) {
+        return new StoredResponse(status, gson.toJson(envelope).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, StoredResponse response) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(response.status, response.body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response.body);
+        }
+    }
+
+    private static String readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[4096];
+        int n;
+        while ((n = in.read(chunk)) != -1) {
+            buffer.write(chunk, 0, n);
+        }
+        return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Rendered response, kept for idempotency key replay with the body of the request that produced it
+     */
+    private static final class IdempotencyKey {
+        final String key;
+        final CompletableFuture<StoredResponse> response;
+        final long firstUsedNanos;
+
+        IdempotencyKey(String key, CompletableFuture<StoredResponse> response, long firstUsedNanos) {
+            this.key = key;
+            this.response = response;
+            this.firstUsedNanos = firstUsedNanos;
+        }
+    }
+
+    private static final class StoredResponse {
+        final int status;
+        final byte[] body;
+        String requestBody;
+
+        StoredResponse(int status, byte[] body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "fake-martianpay-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * Builder for FakeMartianPayServer
+     */
+    public static final class Builder {
+        private int port;
+        private int workerThreads = DEFAULT_WORKER_THREADS;
+        private FaultProfile faults = FaultProfile.NONE;
+        private int maxIdempotencyKeys = DEFAULT_MAX_IDEMPOTENCY_KEYS;
+        private long idempotencyKeyTtlNanos = TimeUnit.SECONDS.toNanos(DEFAULT_IDEMPOTENCY_KEY_TTL_SECONDS);
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the port to listen on; 0 (the default) picks a free port
+         */
+        public Builder port(int port) {
+            if (port < 0 || port > 65535) {
+                throw new IllegalArgumentException("Invalid port: " + port);
+            }
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * Sets the number of threads serving requests, which bounds the requests handled at once
+         */
+        public Builder workerThreads(int workerThreads) {
+            if (workerThreads <= 0) {
+                throw new IllegalArgumentException("workerThreads must be positive");
+            }
+            this.workerThreads = workerThreads;
+            return this;
+        }
+
+        /**
+         * Sets the initial fault profile
+         */
+        public Builder faults(FaultProfile faults) {
+            if (faults == null) {
+                throw new IllegalArgumentException("faults == null");
+            }
+            this.faults = faults;
+            return this;
+        }
+
+        /**
+         * Sets how many idempotency keys are remembered; beyond it the oldest are forgotten
+         */
+        public Builder maxIdempotencyKeys(int maxIdempotencyKeys) {
+            if (maxIdempotencyKeys <= 0) {
+                throw new IllegalArgumentException("maxIdempotencyKeys must be positive");
+            }
+            this.maxIdempotencyKeys = maxIdempotencyKeys;
+            return this;
+        }
+
+        /**
+         * Sets how long an idempotency key is remembered after its first use
+         */
+        public Builder idempotencyKeyTtl(long ttl, TimeUnit unit) {
+            if (ttl <= 0) {
+                throw new IllegalArgumentException("ttl must be positive");
+            }
+            this.idempotencyKeyTtlNanos = unit.toNanos(ttl);
+            return this;
+        }
+
+        public FakeMartianPayServer build() {
+            return new FakeMartianPayServer(this);
+        }
+    }
+}
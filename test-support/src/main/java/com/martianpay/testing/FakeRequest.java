@@ -0,0 +1,85 @@
+package com.martianpay.testing;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FakeRequest is one request as seen by a fake endpoint: path arguments, query and JSON body.
+ */
+final class FakeRequest {
+    private final Gson gson;
+    private final List<String> pathArgs;
+    private final Map<String, String> query;
+    private final String body;
+
+    FakeRequest(Gson gson, List<String> pathArgs, String rawQuery, String body) {
+        this.gson = gson;
+        this.pathArgs = pathArgs;
+        this.query = parseQuery(rawQuery);
+        this.body = body;
+    }
+
+    /** Path argument matched by the n-th {@code {}} of the route */
+    String arg(int index) {
+        return pathArgs.get(index);
+    }
+
+    /** Query parameter, or null if absent or empty */
+    String query(String name) {
+        String value = query.get(name);
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    int queryInt(String name, int defaultValue) {
+        String value = query(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw ApiError.invalid("Invalid " + name + ": " + value);
+        }
+    }
+
+    /** Binds the JSON body; an empty body yields a new instance */
+    <T> T body(Class<T> type) {
+        try {
+            T value = body == null || body.isEmpty() ? null : gson.fromJson(body, type);
+            return value != null ? value : type.getDeclaredConstructor().newInstance();
+        } catch (JsonParseException e) {
+            throw ApiError.invalid("Malformed JSON body: " + e.getMessage());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> params = new HashMap<>();
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(decode(name), decode(value));
+        }
+        return params;
+    }
+
+    private static String decode(String s) {
+        try {
+            return URLDecoder.decode(s, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
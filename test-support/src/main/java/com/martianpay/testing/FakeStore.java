@@ -0,0 +1,202 @@
+package com.martianpay.testing;
+
+import com.google.gson.Gson;
+import com.martianpay.developer.Asset;
+import com.martianpay.developer.NetworkFee;
+import com.martianpay.developer.PaymentIntent;
+import com.martianpay.developer.Payout;
+import com.martianpay.developer.Payroll;
+import com.martianpay.developer.PayrollItems;
+import com.martianpay.developer.Refund;
+import com.martianpay.developer.SubscriptionDetails;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * FakeStore holds the in-memory resources behind a FakeMartianPayServer.
+ *
+ * Resources are stored as SDK model objects keyed by id. Ids carry a zero-padded sequence, so
+ * iterating a map in reverse lists the newest resources first, as the API does. Stored objects
+ * are never mutated in place: updates replace them with a modified copy, so a request can
+ * serialize a resource while another one updates it.
+ *
+ * Subscriptions and assets have no create endpoint; seed them with {@link #putSubscription} and
+ * {@link #putAsset}.
+ */
+public final class FakeStore {
+    private final Gson gson;
+    private final AtomicLong sequence = new AtomicLong();
+
+    final ConcurrentNavigableMap<String, PaymentIntent> paymentIntents = new ConcurrentSkipListMap<>();
+    final ConcurrentNavigableMap<String, Refund> refunds = new ConcurrentSkipListMap<>();
+    final ConcurrentNavigableMap<String, Payout> payouts = new ConcurrentSkipListMap<>();
+    final ConcurrentNavigableMap<String, Payroll> payrolls = new ConcurrentSkipListMap<>();
+    final ConcurrentNavigableMap<String, PayrollItems> payrollItems = new ConcurrentSkipListMap<>();
+    final ConcurrentNavigableMap<String, SubscriptionDetails> subscriptions = new ConcurrentSkipListMap<>();
+    final ConcurrentNavigableMap<String, Asset> assets = new ConcurrentSkipListMap<>();
+    final Map<String, NetworkFee> networkFees = new ConcurrentHashMap<>();
+
+    FakeStore(Gson gson) {
+        this.gson = gson;
+        seedDefaultAssets();
+    }
+
+    /**
+     * Returns a new id such as {@code pi_0000000000000042}
+     */
+    String nextId(String prefix) {
+        return String.format("%s%016d", prefix, sequence.incrementAndGet());
+    }
+
+    /**
+     * Replaces a stored resource with an updated copy
+     *
+     * @return The new value
+     * @throws ApiError 404 if the id is unknown
+     */
+    <T> T update(ConcurrentNavigableMap<String, T> map, String resource, String id, Class<T> type, Consumer<T> change) {
+        T updated = map.computeIfPresent(id, (key, current) -> {
+            T copy = copy(current, type);
+            change.accept(copy);
+            return copy;
+        });
+        if (updated == null) {
+            throw ApiError.notFound(resource, id);
+        }
+        return updated;
+    }
+
+    /**
+     * Returns a deep copy of a stored resource
+     */
+    <T> T copy(T value, Class<T> type) {
+        return gson.fromJson(gson.toJsonTree(value), type);
+    }
+
+    static <T> T require(Map<String, T> map, String resource, String id) {
+        T value = map.get(id);
+        if (value == null) {
+            throw ApiError.notFound(resource, id);
+        }
+        return value;
+    }
+
+    public PaymentIntent getPaymentIntent(String id) { return paymentIntents.get(id); }
+
+    public Refund getRefund(String id) { return refunds.get(id); }
+
+    public Payout getPayout(String id) { return payouts.get(id); }
+
+    public Payroll getPayroll(String id) { return payrolls.get(id); }
+
+    public SubscriptionDetails getSubscription(String id) { return subscriptions.get(id); }
+
+    /**
+     * Adds or replaces a subscription; an id is assigned when missing
+     *
+     * @return Subscription id
+     */
+    public String putSubscription(SubscriptionDetails subscription) {
+        if (subscription.getId() == null) {
+            subscription.setId(nextId("sub_"));
+        }
+        subscriptions.put(subscription.getId(), subscription);
+        return subscription.getId();
+    }
+
+    /**
+     * Adds or replaces an asset and its payout fee
+     */
+    public void putAsset(Asset asset, NetworkFee fee) {
+        assets.put(asset.getId(), asset);
+        if (fee != null) {
+            networkFees.put(asset.getId(), fee);
+        } else {
+            networkFees.remove(asset.getId());
+        }
+    }
+
+    public int countPaymentIntents() { return paymentIntents.size(); }
+
+    public int countRefunds() { return refunds.size(); }
+
+    public int countPayouts() { return payouts.size(); }
+
+    public int countPayrolls() { return payrolls.size(); }
+
+    public int countSubscriptions() { return subscriptions.size(); }
+
+    /**
+     * Removes every resource and restores the default assets
+     */
+    public void clear() {
+        paymentIntents.clear();
+        refunds.clear();
+        payouts.clear();
+        payrolls.clear();
+        payrollItems.clear();
+        subscriptions.clear();
+        assets.clear();
+        networkFees.clear();
+        seedDefaultAssets();
+    }
+
+    /**
+     * Returns one page of values, newest first
+     *
+     * @param page     Zero-based page number
+     * @param pageSize Page size
+     */
+    static <T> List<T> page(List<T> newestFirst, int page, int pageSize) {
+        return slice(newestFirst, (long) Math.max(page, 0) * Math.max(pageSize, 0), pageSize);
+    }
+
+    static <T> List<T> slice(List<T> values, long offset, int limit) {
+        if (offset >= values.size() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        int from = (int) offset;
+        return new ArrayList<>(values.subList(from, Math.min(values.size(), from + limit)));
+    }
+
+    private void seedDefaultAssets() {
+        putAsset(asset("USDC-Ethereum-TEST", "USDC", "Ethereum Sepolia", 6, 11155111L),
+                fee("1.5", "10"));
+        putAsset(asset("USDT-Ethereum-TEST", "USDT", "Ethereum Sepolia", 6, 11155111L),
+                fee("1.5", "10"));
+        putAsset(asset("USDT-TRON-TEST", "USDT", "Tron Shasta", 6, null),
+                fee("1", "5"));
+        putAsset(asset("ETH-Ethereum-TEST", "ETH", "Ethereum Sepolia", 18, 11155111L),
+                fee("0.0005", "0.005"));
+    }
+
+    private static Asset asset(String id, String coin, String network, int decimals, Long chainId) {
+        Asset asset = new Asset();
+        asset.setId(id);
+        asset.setDisplayName(coin + " (" + network + ")");
+        asset.setCoin(coin);
+        asset.setSymbol(coin);
+        asset.setNetwork(network);
+        asset.setDecimals(decimals);
+        asset.setIsFiat(false);
+        asset.setPayable(true);
+        asset.setIsMainnet(false);
+        asset.setChainId(chainId);
+        return asset;
+    }
+
+    private static NetworkFee fee(String feeAmount, String minPayoutAmount) {
+        NetworkFee fee = new NetworkFee();
+        fee.setFeeAmount(new BigDecimal(feeAmount));
+        fee.setMinPayoutAmount(new BigDecimal(minPayoutAmount));
+        return fee;
+    }
+}
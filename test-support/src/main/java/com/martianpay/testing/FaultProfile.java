@@ -0,0 +1,154 @@
+package com.martianpay.testing;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FaultProfile describes the latency and failures a FakeMartianPayServer injects.
+ *
+ * Every request first waits the configured latency (a fixed part plus uniform jitter). It is then
+ * answered with HTTP 429 and a {@code Retry-After} header with probability {@code throttleRate},
+ * otherwise with HTTP 500 with probability {@code errorRate}, otherwise normally. Instances are
+ * immutable; swap them on a running server with {@link FakeMartianPayServer#setFaults}.
+ */
+public final class FaultProfile {
+    /** No latency and no injected failures */
+    public static final FaultProfile NONE = builder().build();
+
+    private final long latencyNanos;
+    private final long jitterNanos;
+    private final double errorRate;
+    private final double throttleRate;
+    private final int retryAfterSeconds;
+
+    private FaultProfile(Builder builder) {
+        this.latencyNanos = builder.latencyNanos;
+        this.jitterNanos = builder.jitterNanos;
+        this.errorRate = builder.errorRate;
+        this.throttleRate = builder.throttleRate;
+        this.retryAfterSeconds = builder.retryAfterSeconds;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Builder toBuilder() {
+        Builder builder = new Builder();
+        builder.latencyNanos = latencyNanos;
+        builder.jitterNanos = jitterNanos;
+        builder.errorRate = errorRate;
+        builder.throttleRate = throttleRate;
+        builder.retryAfterSeconds = retryAfterSeconds;
+        return builder;
+    }
+
+    public long getLatencyNanos() { return latencyNanos; }
+
+    public long getJitterNanos() { return jitterNanos; }
+
+    public double getErrorRate() { return errorRate; }
+
+    public double getThrottleRate() { return throttleRate; }
+
+    public int getRetryAfterSeconds() { return retryAfterSeconds; }
+
+    /**
+     * Draws the latency for one request, in nanoseconds
+     */
+    long nextLatencyNanos() {
+        if (jitterNanos == 0) {
+            return latencyNanos;
+        }
+        return latencyNanos + ThreadLocalRandom.current().nextLong(jitterNanos + 1);
+    }
+
+    boolean nextThrottled() {
+        return throttleRate > 0 && ThreadLocalRandom.current().nextDouble() < throttleRate;
+    }
+
+    boolean nextFailed() {
+        return errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("FaultProfile{latency=%dms, jitter=%dms, errorRate=%.3f, throttleRate=%.3f, retryAfter=%ds}",
+                TimeUnit.NANOSECONDS.toMillis(latencyNanos), TimeUnit.NANOSECONDS.toMillis(jitterNanos),
+                errorRate, throttleRate, retryAfterSeconds);
+    }
+
+    /**
+     * Builder for FaultProfile
+     */
+    public static final class Builder {
+        private long latencyNanos;
+        private long jitterNanos;
+        private double errorRate;
+        private double throttleRate;
+        private int retryAfterSeconds = 1;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the fixed latency added to every request
+         */
+        public Builder latency(long latency, TimeUnit unit) {
+            if (latency < 0) {
+                throw new IllegalArgumentException("latency < 0");
+            }
+            this.latencyNanos = unit.toNanos(latency);
+            return this;
+        }
+
+        /**
+         * Sets the maximum random latency added on top of the fixed latency
+         */
+        public Builder jitter(long jitter, TimeUnit unit) {
+            if (jitter < 0) {
+                throw new IllegalArgumentException("jitter < 0");
+            }
+            this.jitterNanos = unit.toNanos(jitter);
+            return this;
+        }
+
+        /**
+         * Sets the fraction of requests answered with HTTP 500, between 0 and 1
+         */
+        public Builder errorRate(double errorRate) {
+            this.errorRate = checkRate("errorRate", errorRate);
+            return this;
+        }
+
+        /**
+         * Sets the fraction of requests answered with HTTP 429, between 0 and 1
+         */
+        public Builder throttleRate(double throttleRate) {
+            this.throttleRate = checkRate("throttleRate", throttleRate);
+            return this;
+        }
+
+        /**
+         * Sets the Retry-After value sent with HTTP 429 responses, in seconds
+         */
+        public Builder retryAfterSeconds(int retryAfterSeconds) {
+            if (retryAfterSeconds < 0) {
+                throw new IllegalArgumentException("retryAfterSeconds < 0");
+            }
+            this.retryAfterSeconds = retryAfterSeconds;
+            return this;
+        }
+
+        public FaultProfile build() {
+            return new FaultProfile(this);
+        }
+
+        private static double checkRate(String name, double rate) {
+            if (!(rate >= 0 && rate <= 1)) {
+                throw new IllegalArgumentException(name + " must be between 0 and 1: " + rate);
+            }
+            return rate;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.martianpay.testing;
+
+import com.martianpay.developer.AssetAmount;
+import com.martianpay.developer.Customer;
+import com.martianpay.developer.PaymentIntent;
+import com.martianpay.developer.PaymentIntentCancelRequest;
+import com.martianpay.developer.PaymentIntentCreateRequest;
+import com.martianpay.developer.PaymentIntentListResponse;
+import com.martianpay.developer.PaymentIntentUpdateRequest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Fake {@code /v1/payment_intents} endpoints: create, update, get, list and cancel.
+ */
+final class PaymentIntentEndpoints {
+    private final FakeStore store;
+
+    PaymentIntentEndpoints(FakeStore store) {
+        this.store = store;
+    }
+
+    void register(Router router) {
+        router.post("/v1/payment_intents", this::create)
+                .get("/v1/payment_intents", this::list)
+                .get("/v1/payment_intents/{}", this::get)
+                .post("/v1/payment_intents/{}", this::update)
+                .post("/v1/payment_intents/{}/cancel", this::cancel);
+    }
+
+    private Object create(FakeRequest request) {
+        PaymentIntentCreateRequest params = request.body(PaymentIntentCreateRequest.class);
+        if (params.getAmount() == null || params.getCurrency() == null) {
+            throw ApiError.invalid("amount and currency are required");
+        }
+        BigDecimal amount;
+        try {
+            amount = new BigDecimal(params.getAmount());
+        } catch (NumberFormatException e) {
+            throw ApiError.invalid("Invalid amount: " + params.getAmount());
+        }
+
+        long now = FakeMartianPayServer.now();
+        PaymentIntent intent = new PaymentIntent();
+        intent.setId(store.nextId("pi_"));
+        intent.setObject(PaymentIntent.PAYMENT_INTENT_OBJECT);
+        intent.setAmount(new AssetAmount(amount, params.getCurrency(), null));
+        intent.setCurrency(params.getCurrency());
+        if (params.getCustomer() != null) {
+            Customer customer = new Customer();
+            customer.setId(params.getCustomer());
+            intent.setCustomer(customer);
+        }
+        intent.setDescription(params.getDescription());
+        if (params.getMetadata() != null) {
+            Map<String, Object> metadata = new LinkedHashMap<>();
+            metadata.putAll(params.getMetadata());
+            intent.setMetadata(metadata);
+        }
+        intent.setMerchantOrderId(params.getMerchantOrderId());
+        intent.setReceiptEmail(params.getReceiptEmail());
+        intent.setReturnUrl(params.getReturnUrl());
+        intent.setClientSecret(intent.getId() + "_secret_" + UUID.randomUUID().toString().replace("-", ""));
+        intent.setStatus(PaymentIntent.STATUS_CREATED);
+        intent.setLivemode(false);
+        intent.setCreated(now);
+        intent.setUpdated(now);
+        store.paymentIntents.put(intent.getId(), intent);
+        return intent;
+    }
+
+    private Object list(FakeRequest request) {
+        String customer = request.query("customer");
+        String merchantOrderId = request.query("merchant_order_id");
+        List<PaymentIntent> matches = new ArrayList<>();
+        for (PaymentIntent intent : store.paymentIntents.descendingMap().values()) {
+            if (customer != null && (intent.getCustomer() == null || !customer.equals(intent.getCustomer().getId()))) {
+                continue;
+            }
+            if (merchantOrderId != null && !merchantOrderId.equals(intent.getMerchantOrderId())) {
+                continue;
+            }
+            matches.add(intent);
+        }
+        int page = request.queryInt("page", 0);
+        int pageSize = request.queryInt("page_size", 10);
+        PaymentIntentListResponse response = new PaymentIntentListResponse();
+        response.setPaymentIntents(FakeStore.page(matches, page, pageSize));
+        response.setTotal((long) matches.size());
+        response.setPage(page);
+        response.setPageSize(pageSize);
+        return response;
+    }
+
+    private Object get(FakeRequest request) {
+        return FakeStore.require(store.paymentIntents, "payment_intent", request.arg(0));
+    }
+
+    private Object update(FakeRequest request) {
+        PaymentIntentUpdateRequest params = request.body(PaymentIntentUpdateRequest.class);
+        return store.update(store.paymentIntents, "payment_intent", request.arg(0), PaymentIntent.class, intent -> {
+            if (params.getPaymentMethodType() != null && PaymentIntent.STATUS_CREATED.equals(intent.getStatus())) {
+                intent.setStatus(PaymentIntent.STATUS_WAITING);
+            }
+            intent.setUpdated(FakeMartianPayServer.now());
+        });
+    }
+
+    private Object cancel(FakeRequest request) {
+        PaymentIntentCancelRequest params = request.body(PaymentIntentCancelRequest.class);
+        return store.update(store.paymentIntents, "payment_intent", request.arg(0), PaymentIntent.class, intent -> {
+            String status = intent.getStatus();
+            if (PaymentIntent.STATUS_PAID.equals(status) || PaymentIntent.STATUS_COMPLETED.equals(status)
+                    || PaymentIntent.STATUS_CANCELLED.equals(status)) {
+                throw new ApiError(400, "payment_intent_unexpected_state",
+                        "Payment intent " + intent.getId() + " cannot be canceled in status " + status);
+            }
+            long now = FakeMartianPayServer.now();
+            intent.setStatus(PaymentIntent.STATUS_CANCELLED);
+            intent.setCancellationReason(params.getReason());
+            intent.setCanceledAt(now);
+            intent.setUpdated(now);
+        });
+    }
+}
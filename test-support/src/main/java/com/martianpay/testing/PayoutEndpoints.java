@@ -0,0 +1,150 @@
+package com.martianpay.testing;
+
+import com.martianpay.developer.NetworkFee;
+import com.martianpay.developer.Payout;
+import com.martianpay.developer.PayoutListResp;
+import com.martianpay.developer.PayoutParams;
+import com.martianpay.developer.PayoutPreviewRequest;
+import com.martianpay.developer.PayoutCreateRequest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fake {@code /v1/payouts} endpoints: preview, create, get, list and cancel.
+ *
+ * Fees come from the store's network fees for the receive asset; the receive amount is the
+ * source amount less the fee, at an exchange rate of 1.
+ */
+final class PayoutEndpoints {
+    private static final String MERCHANT_ID = "merchant_fake";
+
+    private final FakeStore store;
+
+    PayoutEndpoints(FakeStore store) {
+        this.store = store;
+    }
+
+    void register(Router router) {
+        router.post("/v1/payouts/preview", this::preview)
+                .post("/v1/payouts", this::create)
+                .get("/v1/payouts", this::list)
+                .get("/v1/payouts/{}", this::get)
+                .post("/v1/payouts/{}/cancel", this::cancel);
+    }
+
+    private Object preview(FakeRequest request) {
+        return quote(request.body(PayoutPreviewRequest.class));
+    }
+
+    private Object create(FakeRequest request) {
+        Payout payout = quote(request.body(PayoutCreateRequest.class));
+        long now = FakeMartianPayServer.now();
+        payout.setId(store.nextId(Payout.PAYOUT_ID_PREFIX));
+        payout.setStatus(Payout.STATUS_PENDING);
+        payout.setApprovalStatus(Payout.STATUS_PENDING);
+        payout.setCreated(now);
+        payout.setUpdated(now);
+        store.payouts.put(payout.getId(), payout);
+        return payout;
+    }
+
+    private Object list(FakeRequest request) {
+        String status = request.query("status");
+        String merchantId = request.query("merchant_id");
+        String externalId = request.query("external_id");
+        List<Payout> matches = new ArrayList<>();
+        for (Payout payout : store.payouts.descendingMap().values()) {
+            if ((status == null || status.equals(payout.getStatus()))
+                    && (merchantId == null || merchantId.equals(payout.getMerchantId()))
+                    && (externalId == null || externalId.equals(payout.getExternalId()))) {
+                matches.add(payout);
+            }
+        }
+        int page = request.queryInt("page", 0);
+        int pageSize = request.queryInt("page_size", 10);
+        PayoutListResp response = new PayoutListResp();
+        response.setPayouts(FakeStore.page(matches, page, pageSize));
+        response.setTotal(matches.size());
+        response.setPage(page);
+        response.setPageSize(pageSize);
+        return response;
+    }
+
+    private Object get(FakeRequest request) {
+        return FakeStore.require(store.payouts, "payout", request.arg(0));
+    }
+
+    private Object cancel(FakeRequest request) {
+        return store.update(store.payouts, "payout", request.arg(0), Payout.class, payout -> {
+            if (!Payout.STATUS_PENDING.equals(payout.getStatus())) {
+                throw new ApiError(400, "payout_unexpected_state",
+                        "Payout " + payout.getId() + " cannot be canceled in status " + payout.getStatus());
+            }
+            payout.setStatus(Payout.STATUS_CANCELED);
+            payout.setUpdated(FakeMartianPayServer.now());
+        });
+    }
+
+    private Payout quote(PayoutParams params) {
+        String assetId = params.getDestinationAssetId();
+        if (assetId == null || params.getSourceCoin() == null) {
+            throw ApiError.invalid("source_coin and receive_asset_id are required");
+        }
+        FakeStore.require(store.assets, "asset", assetId);
+        NetworkFee fee = store.networkFees.get(assetId);
+        BigDecimal feeAmount = fee != null && fee.getFeeAmount() != null ? fee.getFeeAmount() : BigDecimal.ZERO;
+        BigDecimal minimum = fee != null && fee.getMinPayoutAmount() != null ? fee.getMinPayoutAmount() : BigDecimal.ZERO;
+
+        BigDecimal source;
+        BigDecimal receive;
+        if (params.getSourceAmount() != null) {
+            source = decimal("source_amount", params.getSourceAmount());
+            receive = source.subtract(feeAmount);
+        } else if (params.getDestinationAmount() != null) {
+            receive = decimal("receive_amount", params.getDestinationAmount());
+            source = receive.add(feeAmount);
+        } else {
+            throw ApiError.invalid("source_amount or receive_amount is required");
+        }
+        if (source.compareTo(minimum) < 0) {
+            throw new ApiError(400, "amount_too_small",
+                    "Payout amount " + source.toPlainString() + " is below the minimum " + minimum.toPlainString()
+                            + " for " + assetId);
+        }
+        if (receive.signum() <= 0) {
+            throw new ApiError(400, "amount_too_small", "Payout amount does not cover the network fee");
+        }
+
+        Payout payout = new Payout();
+        payout.setObject(Payout.PAYOUT_OBJECT);
+        payout.setLivemode(false);
+        payout.setMerchantId(MERCHANT_ID);
+        payout.setSourceCoin(params.getSourceCoin());
+        payout.setSourceAmount(source);
+        payout.setExchangeRate(BigDecimal.ONE);
+        payout.setReceiveAssetId(assetId);
+        payout.setReceiveCoin(store.assets.get(assetId).getCoin());
+        payout.setReceiveAccountType(params.getDestinationAccountType());
+        payout.setReceiveAmount(receive);
+        payout.setReceiveAmountMin(receive);
+        payout.setPaymentNetworkFee(feeAmount);
+        payout.setPaymentServiceFee(BigDecimal.ZERO);
+        payout.setPaymentTotalFee(feeAmount);
+        payout.setPaymentNetAmount(receive);
+        payout.setInternalNote(params.getInternalNote());
+        payout.setStatementDescriptor(params.getStatementDescriptor());
+        payout.setExternalId(params.getExternalId());
+        payout.setMetadata(params.getMetadata());
+        return payout;
+    }
+
+    private static BigDecimal decimal(String name, String value) {
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw ApiError.invalid("Invalid " + name + ": " + value);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.martianpay.testing;
+
+import com.martianpay.developer.Payroll;
+import com.martianpay.developer.PayrollConfirmResponse;
+import com.martianpay.developer.PayrollDirectCreateRequest;
+import com.martianpay.developer.PayrollDirectCreateResponse;
+import com.martianpay.developer.PayrollDirectItem;
+import com.martianpay.developer.PayrollGetResponse;
+import com.martianpay.developer.PayrollItems;
+import com.martianpay.developer.PayrollItemsListResponse;
+import com.martianpay.developer.PayrollListResponse;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fake {@code /v1/payrolls} endpoints: direct create, confirm, get, list and item list.
+ */
+final class PayrollEndpoints {
+    static final String STATUS_PENDING = "pending";
+    static final String STATUS_APPROVED = "approved";
+    static final String STATUS_PROCESSING = "processing";
+
+    private static final String MERCHANT_ID = "merchant_fake";
+
+    private final FakeStore store;
+
+    PayrollEndpoints(FakeStore store) {
+        this.store = store;
+    }
+
+    void register(Router router) {
+        router.post("/v1/payrolls/direct", this::createDirect)
+                .get("/v1/payrolls", this::list)
+                .get("/v1/payrolls/items/list", this::listItems)
+                .get("/v1/payrolls/{}", this::get)
+                .post("/v1/payrolls/{}/confirm", this::confirm);
+    }
+
+    private Object createDirect(FakeRequest request) {
+        PayrollDirectCreateRequest params = request.body(PayrollDirectCreateRequest.class);
+        if (params.getExternalId() == null || params.getItems() == null || params.getItems().isEmpty()) {
+            throw ApiError.invalid("external_id and items are required");
+        }
+        boolean approved = Boolean.TRUE.equals(params.getAutoApprove());
+        long now = FakeMartianPayServer.now();
+        String payrollId = store.nextId("payroll_");
+
+        List<PayrollItems> items = new ArrayList<>(params.getItems().size());
+        BigDecimal total = BigDecimal.ZERO;
+        String currency = null;
+        for (PayrollDirectItem source : params.getItems()) {
+            BigDecimal amount;
+            try {
+                amount = new BigDecimal(source.getAmount());
+            } catch (NumberFormatException | NullPointerException e) {
+                throw ApiError.invalid("Invalid item amount: " + source.getAmount());
+            }
+            total = total.add(amount);
+            currency = currency != null ? currency : source.getCoin();
+
+            PayrollItems item = new PayrollItems();
+            item.setId(store.nextId(PayrollItems.PAYROLL_ITEM_ID_PREFIX));
+            item.setPayrollId(payrollId);
+            item.setExternalId(source.getExternalId());
+            item.setName(source.getName());
+            item.setEmail(source.getEmail());
+            item.setPhone(source.getPhone());
+            item.setAmount(source.getAmount());
+            item.setCoin(source.getCoin());
+            item.setNetwork(source.getNetwork());
+            item.setAddress(source.getAddress());
+            item.setPaymentMethod(source.getPaymentMethod());
+            item.setStatus(approved ? STATUS_PROCESSING : STATUS_PENDING);
+            item.setCreatedAt(now);
+            item.setUpdatedAt(now);
+            items.add(item);
+        }
+
+        Payroll payroll = new Payroll();
+        payroll.setId(payrollId);
+        payroll.setMerchantID(MERCHANT_ID);
+        payroll.setExternalID(params.getExternalId());
+        payroll.setApprovalStatus(approved ? STATUS_APPROVED : STATUS_PENDING);
+        payroll.setStatus(approved ? STATUS_PROCESSING : STATUS_PENDING);
+        payroll.setTotalItemNum((long) items.size());
+        payroll.setTotalAmount(total.toPlainString());
+        payroll.setTotalServiceFee("0");
+        payroll.setCurrency(currency);
+        payroll.setCreatedAt(now);
+        payroll.setUpdatedAt(now);
+
+        for (PayrollItems item : items) {
+            store.payrollItems.put(item.getId(), item);
+        }
+        store.payrolls.put(payrollId, payroll);
+
+        PayrollDirectCreateResponse response = new PayrollDirectCreateResponse();
+        response.setPayroll(payroll);
+        response.setItems(items);
+        return response;
+    }
+
+    private Object confirm(FakeRequest request) {
+        Payroll payroll = store.update(store.payrolls, "payroll", request.arg(0), Payroll.class, p -> {
+            if (!STATUS_PENDING.equals(p.getApprovalStatus())) {
+                throw new ApiError(400, "payroll_unexpected_state",
+                        "Payroll " + p.getId() + " cannot be confirmed in status " + p.getApprovalStatus());
+            }
+            p.setApprovalStatus(STATUS_APPROVED);
+            p.setStatus(STATUS_PROCESSING);
+            p.setUpdatedAt(FakeMartianPayServer.now());
+        });
+        List<PayrollItems> items = itemsOf(payroll.getId());
+        for (PayrollItems item : items) {
+            store.update(store.payrollItems, "payroll_item", item.getId(), PayrollItems.class,
+                    i -> i.setStatus(STATUS_PROCESSING));
+        }
+        PayrollConfirmResponse response = new PayrollConfirmResponse();
+        response.setPayroll(payroll);
+        response.setItems(itemsOf(payroll.getId()));
+        return response;
+    }
+
+    private Object get(FakeRequest request) {
+        Payroll payroll = FakeStore.require(store.payrolls, "payroll", request.arg(0));
+        PayrollGetResponse response = new PayrollGetResponse();
+        response.setPayroll(payroll);
+        response.setItems(itemsOf(payroll.getId()));
+        return response;
+    }
+
+    private Object list(FakeRequest request) {
+        String externalId = request.query("external_id");
+        String payrollId = request.query("payroll_id");
+        String status = request.query("status");
+        List<Payroll> matches = new ArrayList<>();
+        for (Payroll payroll : store.payrolls.descendingMap().values()) {
+            if ((externalId == null || externalId.equals(payroll.getExternalID()))
+                    && (payrollId == null || payrollId.equals(payroll.getId()))
+                    && (status == null || status.equals(payroll.getStatus()))) {
+                matches.add(payroll);
+            }
+        }
+        PayrollListResponse response = new PayrollListResponse();
+        response.setPayrolls(FakeStore.page(matches, request.queryInt("page", 0), request.queryInt("page_size", 10)));
+        response.setTotal((long) matches.size());
+        return response;
+    }
+
+    private Object listItems(FakeRequest request) {
+        String payrollId = request.query("payroll_id");
+        String itemExternalId = request.query("item_external_id");
+        String employeeName = request.query("employee_name");
+        List<PayrollItems> matches = new ArrayList<>();
+        for (PayrollItems item : store.payrollItems.descendingMap().values()) {
+            if ((payrollId == null || payrollId.equals(item.getPayrollId()))
+                    && (itemExternalId == null || itemExternalId.equals(item.getExternalId()))
+                    && (employeeName == null || employeeName.equals(item.getName()))) {
+                matches.add(item);
+            }
+        }
+        PayrollItemsListResponse response = new PayrollItemsListResponse();
+        response.setPayrollItems(FakeStore.page(matches, request.queryInt("page", 0), request.queryInt("page_size", 10)));
+        response.setTotal((long) matches.size());
+        return response;
+    }
+
+    private List<PayrollItems> itemsOf(String payrollId) {
+        List<PayrollItems> items = new ArrayList<>();
+        for (PayrollItems item : store.payrollItems.values()) {
+            if (payrollId.equals(item.getPayrollId())) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+}
@@ -0,0 +1,91 @@
+package com.martianpay.testing;
+
+import com.martianpay.developer.AssetAmount;
+import com.martianpay.developer.PaymentIntent;
+import com.martianpay.developer.Refund;
+import com.martianpay.developer.RefundCreateRequest;
+import com.martianpay.developer.RefundCreateResponse;
+import com.martianpay.developer.RefundListResponse;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Fake {@code /v1/refunds} endpoints: create, get and list.
+ */
+final class RefundEndpoints {
+    static final String STATUS_PENDING = "pending";
+
+    private final FakeStore store;
+
+    RefundEndpoints(FakeStore store) {
+        this.store = store;
+    }
+
+    void register(Router router) {
+        router.post("/v1/refunds", this::create)
+                .get("/v1/refunds", this::list)
+                .get("/v1/refunds/{}", this::get);
+    }
+
+    private Object create(FakeRequest request) {
+        RefundCreateRequest params = request.body(RefundCreateRequest.class);
+        if (params.getPaymentIntent() == null) {
+            throw ApiError.invalid("payment_intent_id is required");
+        }
+        PaymentIntent intent = FakeStore.require(store.paymentIntents, "payment_intent", params.getPaymentIntent());
+        AssetAmount charged = intent.getAmount();
+        BigDecimal amount;
+        try {
+            amount = params.getAmount() != null ? new BigDecimal(params.getAmount()) : charged.getAmount();
+        } catch (NumberFormatException e) {
+            throw ApiError.invalid("Invalid amount: " + params.getAmount());
+        }
+        if (charged != null && charged.getAmount() != null && amount.compareTo(charged.getAmount()) > 0) {
+            throw ApiError.invalid("Refund amount exceeds payment intent amount");
+        }
+
+        String assetId = charged != null ? charged.getAssetId() : intent.getCurrency();
+        Refund refund = new Refund();
+        refund.setId(store.nextId("re_"));
+        refund.setObject(Refund.REFUND_OBJECT);
+        refund.setAmount(new AssetAmount(amount, assetId, null));
+        refund.setNetworkFee(new AssetAmount(BigDecimal.ZERO, assetId, null));
+        refund.setNetAmount(new AssetAmount(amount, assetId, null));
+        refund.setPaymentIntent(intent.getId());
+        refund.setReason(params.getReason());
+        refund.setDescription(params.getDescription());
+        refund.setMetadata(params.getMetadata());
+        refund.setStatus(STATUS_PENDING);
+        refund.setCreated(FakeMartianPayServer.now());
+        store.refunds.put(refund.getId(), refund);
+
+        RefundCreateResponse response = new RefundCreateResponse();
+        response.setRefunds(Collections.singletonList(refund));
+        return response;
+    }
+
+    private Object list(FakeRequest request) {
+        String paymentIntent = request.query("payment_intent");
+        List<Refund> matches = new ArrayList<>();
+        for (Refund refund : store.refunds.descendingMap().values()) {
+            if (paymentIntent == null || paymentIntent.equals(refund.getPaymentIntent())) {
+                matches.add(refund);
+            }
+        }
+        int page = request.queryInt("page", 0);
+        int pageSize = request.queryInt("page_size", 10);
+        RefundListResponse response = new RefundListResponse();
+        response.setRefunds(FakeStore.page(matches, page, pageSize));
+        response.setTotal((long) matches.size());
+        response.setPage(page);
+        response.setPageSize(pageSize);
+        return response;
+    }
+
+    private Object get(FakeRequest request) {
+        return FakeStore.require(store.refunds, "refund", request.arg(0));
+    }
+}
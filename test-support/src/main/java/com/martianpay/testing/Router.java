@@ -0,0 +1,124 @@
+package com.martianpay.testing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Router maps a method and path to a fake endpoint.
+ *
+ * Routes are patterns such as {@code /v1/payment_intents/{}}, where {@code {}} matches one path
+ * segment. When several routes match, the one with the most literal segments wins, so
+ * {@code /v1/payment_intents/link} is preferred over {@code /v1/payment_intents/{}}.
+ */
+final class Router {
+    /** Endpoint implementation; returns the envelope's data (null for none) or throws ApiError */
+    interface Endpoint {
+        Object handle(FakeRequest request);
+    }
+
+    /** Result of a lookup: the endpoint and the path arguments it matched */
+    static final class Match {
+        final Endpoint endpoint;
+        final List<String> args;
+
+        Match(Endpoint endpoint, List<String> args) {
+            this.endpoint = endpoint;
+            this.args = args;
+        }
+    }
+
+    private static final class Route {
+        final String method;
+        final String[] segments;
+        final int literals;
+        final Endpoint endpoint;
+
+        Route(String method, String[] segments, Endpoint endpoint) {
+            this.method = method;
+            this.segments = segments;
+            this.endpoint = endpoint;
+            int count = 0;
+            for (String segment : segments) {
+                if (!"{}".equals(segment)) {
+                    count++;
+                }
+            }
+            this.literals = count;
+        }
+    }
+
+    private final List<Route> routes = new ArrayList<>();
+
+    Router get(String pattern, Endpoint endpoint) {
+        return add("GET", pattern, endpoint);
+    }
+
+    Router post(String pattern, Endpoint endpoint) {
+        return add("POST", pattern, endpoint);
+    }
+
+    Router add(String method, String pattern, Endpoint endpoint) {
+        routes.add(new Route(method, split(pattern), endpoint));
+        return this;
+    }
+
+    /**
+     * Finds the endpoint for a request
+     *
+     * @return Match, or null if no route has the path; throws 405 if only the method differs
+     */
+    Match match(String method, String path) {
+        String[] segments = split(path);
+        Route best = null;
+        List<String> bestArgs = null;
+        boolean pathKnown = false;
+        for (Route route : routes) {
+            List<String> args = matchSegments(route.segments, segments);
+            if (args == null) {
+                continue;
+            }
+            pathKnown = true;
+            if (route.method.equals(method) && (best == null || route.literals > best.literals)) {
+                best = route;
+                bestArgs = args;
+            }
+        }
+        if (best == null) {
+            if (pathKnown) {
+                throw new ApiError(405, "method_not_allowed", method + " not allowed on " + path);
+            }
+            return null;
+        }
+        return new Match(best.endpoint, bestArgs);
+    }
+
+    private static List<String> matchSegments(String[] pattern, String[] segments) {
+        if (pattern.length != segments.length) {
+            return null;
+        }
+        List<String> args = null;
+        for (int i = 0; i < pattern.length; i++) {
+            if ("{}".equals(pattern[i])) {
+                if (args == null) {
+                    args = new ArrayList<>(2);
+                }
+                args.add(segments[i]);
+            } else if (!pattern[i].equals(segments[i])) {
+                return null;
+            }
+        }
+        return args != null ? args : Collections.<String>emptyList();
+    }
+
+    private static String[] split(String path) {
+        String trimmed = path;
+        while (trimmed.startsWith("/")) {
+            trimmed = trimmed.substring(1);
+        }
+        while (trimmed.endsWith("/")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1);
+        }
+        return trimmed.isEmpty() ? new String[0] : trimmed.split("/");
+    }
+}
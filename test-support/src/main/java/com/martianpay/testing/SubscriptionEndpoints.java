@@ -0,0 +1,154 @@
+package com.martianpay.testing;
+
+import com.martianpay.developer.CancelMerchantSubscriptionRequest;
+import com.martianpay.developer.ListSubscriptionsResponse;
+import com.martianpay.developer.PauseMerchantSubscriptionRequest;
+import com.martianpay.developer.SubscriptionDetails;
+import com.martianpay.developer.UpdateSubscriptionPlanRequest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fake {@code /v1/subscriptions} endpoints: list, get, cancel, pause, resume, update, preview and
+ * revoke-cancel.
+ *
+ * Subscriptions are seeded with {@link FakeStore#putSubscription}. Lists use offset/limit paging.
+ */
+final class SubscriptionEndpoints {
+    static final String STATUS_ACTIVE = "active";
+    static final String STATUS_PAUSED = "paused";
+    static final String STATUS_CANCELLED = "cancelled";
+
+    private final FakeStore store;
+
+    SubscriptionEndpoints(FakeStore store) {
+        this.store = store;
+    }
+
+    void register(Router router) {
+        router.get("/v1/subscriptions", this::list)
+                .get("/v1/subscriptions/{}", this::get)
+                .post("/v1/subscriptions/{}", this::update)
+                .post("/v1/subscriptions/{}/preview", this::preview)
+                .post("/v1/subscriptions/{}/cancel", this::cancel)
+                .post("/v1/subscriptions/{}/revoke-cancel", this::revokeCancel)
+                .post("/v1/subscriptions/{}/pause", this::pause)
+                .post("/v1/subscriptions/{}/resume", this::resume);
+    }
+
+    private Object list(FakeRequest request) {
+        String customerId = request.query("customer_id");
+        String status = request.query("status");
+        String externalId = request.query("external_id");
+        List<SubscriptionDetails> matches = new ArrayList<>();
+        for (SubscriptionDetails subscription : store.subscriptions.descendingMap().values()) {
+            if ((customerId == null || customerId.equals(subscription.getCustomerId()))
+                    && (status == null || status.equals(subscription.getStatus()))
+                    && (externalId == null || externalId.equals(subscription.getExternalId()))) {
+                matches.add(subscription);
+            }
+        }
+        int offset = Math.max(request.queryInt("offset", 0), 0);
+        int limit = request.queryInt("limit", 10);
+        ListSubscriptionsResponse response = new ListSubscriptionsResponse();
+        response.setData(FakeStore.slice(matches, offset, limit));
+        response.setTotal((long) matches.size());
+        response.setOffset(offset);
+        response.setLimit(limit);
+        return response;
+    }
+
+    private Object get(FakeRequest request) {
+        return FakeStore.require(store.subscriptions, "subscription", request.arg(0));
+    }
+
+    private Object update(FakeRequest request) {
+        UpdateSubscriptionPlanRequest params = request.body(UpdateSubscriptionPlanRequest.class);
+        return store.update(store.subscriptions, "subscription", request.arg(0), SubscriptionDetails.class,
+                subscription -> applyUpdate(subscription, params));
+    }
+
+    private Object preview(FakeRequest request) {
+        UpdateSubscriptionPlanRequest params = request.body(UpdateSubscriptionPlanRequest.class);
+        SubscriptionDetails current = FakeStore.require(store.subscriptions, "subscription", request.arg(0));
+        SubscriptionDetails preview = store.copy(current, SubscriptionDetails.class);
+        applyUpdate(preview, params);
+        return preview;
+    }
+
+    private Object cancel(FakeRequest request) {
+        CancelMerchantSubscriptionRequest params = request.body(CancelMerchantSubscriptionRequest.class);
+        return store.update(store.subscriptions, "subscription", request.arg(0), SubscriptionDetails.class, subscription -> {
+            requireNotCancelled(subscription);
+            long now = FakeMartianPayServer.now();
+            subscription.setCancelReason(params.getCancelReason());
+            if (Boolean.TRUE.equals(params.getCancelAtPeriodEnd())) {
+                subscription.setCancelAtPeriodEnd(true);
+            } else {
+                subscription.setStatus(STATUS_CANCELLED);
+                subscription.setCanceledAt(now);
+            }
+            subscription.setUpdatedAt(now);
+        });
+    }
+
+    private Object revokeCancel(FakeRequest request) {
+        return store.update(store.subscriptions, "subscription", request.arg(0), SubscriptionDetails.class, subscription -> {
+            if (!Boolean.TRUE.equals(subscription.getCancelAtPeriodEnd())) {
+                throw new ApiError(400, "subscription_unexpected_state",
+                        "Subscription " + subscription.getId() + " has no scheduled cancellation");
+            }
+            subscription.setCancelAtPeriodEnd(false);
+            subscription.setCancelReason(null);
+            subscription.setUpdatedAt(FakeMartianPayServer.now());
+        });
+    }
+
+    private Object pause(FakeRequest request) {
+        PauseMerchantSubscriptionRequest params = request.body(PauseMerchantSubscriptionRequest.class);
+        return store.update(store.subscriptions, "subscription", request.arg(0), SubscriptionDetails.class, subscription -> {
+            requireNotCancelled(subscription);
+            long now = FakeMartianPayServer.now();
+            subscription.setStatus(STATUS_PAUSED);
+            subscription.setPauseCollectionBehavior(params.getBehavior());
+            subscription.setPausedAt(now);
+            subscription.setResumesAt(params.getResumesAt());
+            subscription.setUpdatedAt(now);
+        });
+    }
+
+    private Object resume(FakeRequest request) {
+        return store.update(store.subscriptions, "subscription", request.arg(0), SubscriptionDetails.class, subscription -> {
+            if (!STATUS_PAUSED.equals(subscription.getStatus())) {
+                throw new ApiError(400, "subscription_unexpected_state",
+                        "Subscription " + subscription.getId() + " is not paused");
+            }
+            subscription.setStatus(STATUS_ACTIVE);
+            subscription.setPauseCollectionBehavior(null);
+            subscription.setPausedAt(null);
+            subscription.setResumesAt(null);
+            subscription.setUpdatedAt(FakeMartianPayServer.now());
+        });
+    }
+
+    private static void applyUpdate(SubscriptionDetails subscription, UpdateSubscriptionPlanRequest params) {
+        requireNotCancelled(subscription);
+        if (params.getMetadata() != null) {
+            Map<String, Object> metadata = subscription.getMetadata() != null
+                    ? new LinkedHashMap<>(subscription.getMetadata()) : new LinkedHashMap<String, Object>();
+            metadata.putAll(params.getMetadata());
+            subscription.setMetadata(metadata);
+        }
+        subscription.setUpdatedAt(FakeMartianPayServer.now());
+    }
+
+    private static void requireNotCancelled(SubscriptionDetails subscription) {
+        if (STATUS_CANCELLED.equals(subscription.getStatus())) {
+            throw new ApiError(400, "subscription_unexpected_state",
+                    "Subscription " + subscription.getId() + " is cancelled");
+        }
+    }
+}
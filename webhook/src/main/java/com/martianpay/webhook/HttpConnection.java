@@ -0,0 +1,249 @@
+package com.martianpay.webhook;
+
+import com.martianpay.developer.Event;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HttpConnection reads HTTP/1.1 requests from one non-blocking socket and holds the response
+ * being written back.
+ *
+ * Requests must carry a {@code Content-Length}; chunked bodies are refused, which MartianPay
+ * deliveries never use. Keep-alive and pipelined requests are served in order, one at a time.
+ */
+final class HttpConnection {
+    /** Largest request line plus headers accepted */
+    static final int MAX_HEADER_BYTES = 8192;
+    private static final int INITIAL_BUFFER = 4096;
+    private static final byte[] CONTINUE = "HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    final SocketChannel channel;
+    long lastActiveNanos;
+
+    /** Bytes received and not yet consumed, in write mode */
+    private ByteBuffer in = ByteBuffer.allocate(INITIAL_BUFFER);
+    /** Offset of the body in {@code in}, or -1 while the headers are incomplete */
+    private int bodyStart = -1;
+    private int contentLength;
+    private String method;
+    private String path;
+    private String signature;
+    private boolean keepAlive;
+    private boolean continuePending;
+
+    private ByteBuffer out;
+    private boolean closeAfterWrite;
+
+    HttpConnection(SocketChannel channel, long nowNanos) {
+        this.channel = channel;
+        this.lastActiveNanos = nowNanos;
+    }
+
+    /**
+     * Reads available bytes
+     *
+     * @return false if the peer closed the connection
+     */
+    boolean read() throws IOException {
+        if (!in.hasRemaining()) {
+            // Headers are bounded by MAX_HEADER_BYTES and bodies are sized up front, so a full
+            // buffer only happens with pipelined requests queued behind the current one
+            return true;
+        }
+        return channel.read(in) >= 0;
+    }
+
+    /**
+     * Returns the next complete request, or null if more bytes are needed
+     *
+     * @throws HttpError if the request is malformed or too large
+     */
+    Request poll(int maxBodyBytes) throws HttpError {
+        if (bodyStart < 0 && !parseHeaders(maxBodyBytes)) {
+            return null;
+        }
+        int end = bodyStart + contentLength;
+        if (in.position() < end) {
+            return null;
+        }
+        byte[] body = new byte[contentLength];
+        System.arraycopy(in.array(), bodyStart, body, 0, contentLength);
+        Request request = new Request(method, path, signature, body, keepAlive);
+
+        // Keep any pipelined bytes for the next request
+        int leftover = in.position() - end;
+        System.arraycopy(in.array(), end, in.array(), 0, leftover);
+        // Cast for Java 8, where ByteBuffer does not override position(int)
+        ((Buffer) in).position(leftover);
+        bodyStart = -1;
+        signature = null;
+        continuePending = false;
+        return request;
+    }
+
+    /**
+     * Returns true once if the client asked to be told to send the body
+     */
+    boolean takeContinue() {
+        if (continuePending && in.position() < bodyStart + contentLength) {
+            continuePending = false;
+            return true;
+        }
+        return false;
+    }
+
+    static byte[] continueResponse() {
+        return CONTINUE;
+    }
+
+    void send(byte[] response, boolean close) {
+        out = ByteBuffer.wrap(response);
+        closeAfterWrite = close;
+    }
+
+    boolean isWriting() {
+        return out != null;
+    }
+
+    /**
+     * Writes as much of the pending response as the socket accepts
+     *
+     * @return true once the response is fully written
+     */
+    boolean flush() throws IOException {
+        channel.write(out);
+        if (out.hasRemaining()) {
+            return false;
+        }
+        out = null;
+        return true;
+    }
+
+    boolean isCloseAfterWrite() {
+        return closeAfterWrite;
+    }
+
+    private boolean parseHeaders(int maxBodyBytes) throws HttpError {
+        byte[] data = in.array();
+        int limit = in.position();
+        int headerEnd = -1;
+        for (int i = 3; i < limit; i++) {
+            if (data[i] == '\n' && data[i - 1] == '\r' && data[i - 2] == '\n' && data[i - 3] == '\r') {
+                headerEnd = i + 1;
+                break;
+            }
+        }
+        if (headerEnd < 0) {
+            if (limit >= MAX_HEADER_BYTES) {
+                throw new HttpError(431, "Request Header Fields Too Large");
+            }
+            if (limit == in.capacity()) {
+                grow(MAX_HEADER_BYTES);
+            }
+            return false;
+        }
+
+        String[] lines = new String(data, 0, headerEnd - 4, StandardCharsets.ISO_8859_1).split("\r\n");
+        String[] requestLine = lines[0].split(" ");
+        if (requestLine.length != 3 || !requestLine[2].startsWith("HTTP/1.")) {
+            throw new HttpError(400, "Bad Request");
+        }
+        method = requestLine[0];
+        int query = requestLine[1].indexOf('?');
+        path = query >= 0 ? requestLine[1].substring(0, query) : requestLine[1];
+        keepAlive = "HTTP/1.1".equals(requestLine[2]);
+        long length = -1;
+        boolean expectContinue = false;
+        for (int i = 1; i < lines.length; i++) {
+            String line = lines[i];
+            int colon = line.indexOf(':');
+            if (colon <= 0) {
+                throw new HttpError(400, "Bad Request");
+            }
+            String name = line.substring(0, colon).trim();
+            String value = line.substring(colon + 1).trim();
+            if (name.equalsIgnoreCase("Content-Length")) {
+                try {
+                    length = Long.parseLong(value);
+                } catch (NumberFormatException e) {
+                    throw new HttpError(400, "Bad Request");
+                }
+                if (length < 0) {
+                    throw new HttpError(400, "Bad Request");
+                }
+            } else if (name.equalsIgnoreCase("Transfer-Encoding")) {
+                throw new HttpError(411, "Length Required");
+            } else if (name.equalsIgnoreCase(Event.MARTIAN_PAY_SIGNATURE)) {
+                signature = value;
+            } else if (name.equalsIgnoreCase("Connection")) {
+                if (value.equalsIgnoreCase("close")) {
+                    keepAlive = false;
+                } else if (value.equalsIgnoreCase("keep-alive")) {
+                    keepAlive = true;
+                }
+            } else if (name.equalsIgnoreCase("Expect") && value.equalsIgnoreCase("100-continue")) {
+                expectContinue = true;
+            }
+        }
+        if (length < 0) {
+            // No Content-Length: the request has no body
+            length = 0;
+        }
+        if (length > maxBodyBytes) {
+            throw new HttpError(413, "Payload Too Large");
+        }
+        contentLength = (int) length;
+        bodyStart = headerEnd;
+        continuePending = expectContinue;
+        if (in.capacity() < bodyStart + contentLength) {
+            grow(bodyStart + contentLength);
+        }
+        return true;
+    }
+
+    private void grow(int capacity) {
+        ByteBuffer larger = ByteBuffer.allocate(capacity);
+        ((Buffer) in).flip();
+        larger.put(in);
+        in = larger;
+    }
+
+    /**
+     * One request read from the connection
+     */
+    static final class Request {
+        final String method;
+        final String path;
+        final String signature;
+        final byte[] body;
+        final boolean keepAlive;
+
+        Request(String method, String path, String signature, byte[] body, boolean keepAlive) {
+            this.method = method;
+            this.path = path;
+            this.signature = signature;
+            this.body = body;
+            this.keepAlive = keepAlive;
+        }
+    }
+
+    /**
+     * A request the connection cannot serve; the connection is closed after the error response
+     */
+    static final class HttpError extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+        final String reason;
+
+        HttpError(int status, String reason) {
+            super(status + " " + reason, null, false, false);
+            this.status = status;
+            this.reason = reason;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.martianpay.webhook;
+
+import com.martianpay.developer.Event;
+
+/**
+ * WebhookHandler processes one type of event delivered to a {@link WebhookReceiver}.
+ *
+ * Handlers run on the receiver's worker threads after the delivery has been acknowledged, so an
+ * exception is logged and counted but does not cause MartianPay to redeliver the event. Events
+ * may be delivered more than once and in any order; use the event id to skip duplicates.
+ *
+ * @param <T> Type the event's {@code data.object} is bound to
+ */
+@FunctionalInterface
+public interface WebhookHandler<T> {
+    /**
+     * Handles an event
+     *
+     * @param event  Event envelope: id, type, created and the raw data
+     * @param object The event's {@code data.object}, bound to the handler's type; may be null
+     */
+    void handle(Event event, T object) throws Exception;
+}
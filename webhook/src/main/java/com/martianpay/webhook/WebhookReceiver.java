@@ -0,0 +1,659 @@
+package com.martianpay.webhook;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.martianpay.developer.Event;
+import com.martianpay.sdk.TransportContext;
+import com.martianpay.sdk.WebhookSignatureVerifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * WebhookReceiver accepts MartianPay webhook deliveries over HTTP and dispatches verified events
+ * to handlers registered per event type.
+ *
+ * One selector thread accepts connections, reads requests and checks the
+ * {@code Martian-Pay-Signature} header. A verified delivery is queued for the worker pool and
+ * acknowledged with HTTP 200 at once; handlers run afterwards on the workers, which decode the
+ * event and bind its {@code data.object} to the handler's type. Responses:
+ * <ul>
+ *   <li>200 once the event is queued, including events no handler is registered for</li>
+ *   <li>400 for a missing or invalid signature or a malformed request</li>
+ *   <li>404 and 405 for other paths and methods</li>
+ *   <li>413 for bodies above {@code maxBodyBytes}</li>
+ *   <li>503 when the worker queue is full, so that MartianPay delivers the event again later</li>
+ * </ul>
+ *
+ * <pre>{@code
+ * WebhookReceiver receiver = WebhookReceiver.builder(webhookSecret)
+ *         .port(8080)
+ *         .path("/webhooks/martianpay")
+ *         .on(Event.EVENT_TYPE_PAYMENT_INTENT_SUCCEEDED, PaymentIntent.class,
+ *                 (event, intent) -> orders.markPaid(intent.getId()))
+ *         .on(Event.EVENT_TYPE_REFUND_SUCCEEDED, Refund.class, (event, refund) -> ...)
+ *         .build()
+ *         .start();
+ * }</pre>
+ *
+ * Since events are acknowledged before they are handled, {@link #close()} stops accepting
+ * deliveries and then waits up to {@code shutdownTimeout} for the queued events to be handled.
+ */
+public final class WebhookReceiver implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(WebhookReceiver.class);
+
+    /** Default largest accepted body */
+    public static final int DEFAULT_MAX_BODY_BYTES = 1024 * 1024;
+    /** Default number of acknowledged events waiting for a worker */
+    public static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+
+    private static final byte[] OK = response(200, "OK", "{\"code\":0,\"msg\":\"success\"}", false);
+    private static final byte[] OK_CLOSE = response(200, "OK", "{\"code\":0,\"msg\":\"success\"}", true);
+
+    private final InetAddress bindAddress;
+    private final int requestedPort;
+    private final String path;
+    private final WebhookSignatureVerifier verifier;
+    private final int maxBodyBytes;
+    private final int workerThreads;
+    private final int queueCapacity;
+    private final long idleTimeoutNanos;
+    private final long shutdownTimeoutNanos;
+    private final Gson gson;
+    private final Map<String, List<Route<?>>> routes;
+    private final Route<?> defaultRoute;
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder acknowledged = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder overloaded = new LongAdder();
+    private final LongAdder handled = new LongAdder();
+    private final LongAdder unhandled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private ServerSocketChannel server;
+    private Selector selector;
+    private Thread selectorThread;
+    private ThreadPoolExecutor workers;
+    private volatile boolean running;
+
+    private WebhookReceiver(Builder builder) {
+        this.bindAddress = builder.bindAddress;
+        this.requestedPort = builder.port;
+        this.path = builder.path;
+        this.verifier = new WebhookSignatureVerifier(builder.secret, builder.toleranceSeconds, TimeUnit.SECONDS);
+        this.maxBodyBytes = builder.maxBodyBytes;
+        this.workerThreads = builder.workerThreads;
+        this.queueCapacity = builder.queueCapacity;
+        this.idleTimeoutNanos = builder.idleTimeoutNanos;
+        this.shutdownTimeoutNanos = builder.shutdownTimeoutNanos;
+        this.gson = builder.gson != null ? builder.gson : TransportContext.getDefault().getGson();
+        Map<String, List<Route<?>>> copy = new HashMap<>();
+        for (Map.Entry<String, List<Route<?>>> entry : builder.routes.entrySet()) {
+            copy.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+        }
+        this.routes = copy;
+        this.defaultRoute = builder.defaultRoute;
+    }
+
+    /**
+     * Creates a builder for a receiver verifying deliveries with the endpoint's signing secret
+     *
+     * @param secret Webhook signing secret of the endpoint
+     */
+    public static Builder builder(String secret) {
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalArgumentException("secret is required");
+        }
+        return new Builder(secret);
+    }
+
+    /**
+     * Binds the port and starts serving deliveries
+     *
+     * @return This receiver
+     * @throws IOException if the port cannot be bound
+     */
+    public synchronized WebhookReceiver start() throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Receiver already started");
+        }
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        try {
+            channel.bind(new InetSocketAddress(bindAddress, requestedPort), 1024);
+            channel.configureBlocking(false);
+            selector = Selector.open();
+            channel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        server = channel;
+        workers = new ThreadPoolExecutor(workerThreads, workerThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity), new NamedThreadFactory("martianpay-webhook-worker-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        running = true;
+        selectorThread = new Thread(this::serve, "martianpay-webhook-selector");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+        return this;
+    }
+
+    /**
+     * Stops accepting deliveries, then waits up to the shutdown timeout for acknowledged events
+     * to be handled
+     */
+    @Override
+    public synchronized void close() {
+        if (server == null) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        try {
+            selectorThread.join(TimeUnit.NANOSECONDS.toMillis(shutdownTimeoutNanos));
+            workers.shutdown();
+            if (!workers.awaitTermination(shutdownTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                logger.warn("{} acknowledged webhook events were not handled before shutdown", workers.getQueue().size());
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.shutdownNow();
+        }
+        server = null;
+    }
+
+    public synchronized int getPort() {
+        if (server == null) {
+            throw new IllegalStateException("Receiver not started");
+        }
+        return server.socket().getLocalPort();
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Returns a snapshot of the delivery counters
+     */
+    public Stats getStats() {
+        ThreadPoolExecutor pool = workers;
+        return new Stats(received.sum(), acknowledged.sum(), rejected.sum(), overloaded.sum(), handled.sum(),
+                unhandled.sum(), failed.sum(), pool != null ? pool.getQueue().size() : 0);
+    }
+
+    private void serve() {
+        long lastSweep = System.nanoTime();
+        try {
+            while (running) {
+                selector.select(1000);
+                long now = System.nanoTime();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept(now);
+                        } else {
+                            HttpConnection connection = (HttpConnection) key.attachment();
+                            connection.lastActiveNanos = now;
+                            if (key.isReadable() && !connection.read()) {
+                                close(key);
+                                continue;
+                            }
+                            process(key, connection);
+                        }
+                    } catch (IOException e) {
+                        close(key);
+                    }
+                }
+                if (now - lastSweep > TimeUnit.SECONDS.toNanos(1)) {
+                    closeIdle(now);
+                    lastSweep = now;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Webhook receiver stopped", e);
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                close(key);
+            }
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+                // Closing anyway
+            }
+        }
+    }
+
+    private void accept(long now) throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.register(selector, SelectionKey.OP_READ, new HttpConnection(channel, now));
+        }
+    }
+
+    /**
+     * Writes the pending response, then serves buffered requests until one needs more bytes
+     */
+    private void process(SelectionKey key, HttpConnection connection) throws IOException {
+        for (;;) {
+            if (connection.isWriting()) {
+                if (!connection.flush()) {
+                    key.interestOps(SelectionKey.OP_WRITE);
+                    return;
+                }
+                if (connection.isCloseAfterWrite()) {
+                    close(key);
+                    return;
+                }
+                key.interestOps(SelectionKey.OP_READ);
+            }
+            HttpConnection.Request request;
+            try {
+                request = connection.poll(maxBodyBytes);
+            } catch (HttpConnection.HttpError e) {
+                rejected.increment();
+                connection.send(response(e.status, e.reason, error(e.status, e.reason), true), true);
+                continue;
+            }
+            if (request == null) {
+                if (connection.takeContinue()) {
+                    connection.send(HttpConnection.continueResponse(), false);
+                    continue;
+                }
+                return;
+            }
+            received.increment();
+            connection.send(handle(request), !request.keepAlive);
+        }
+    }
+
+    /**
+     * Verifies and queues one delivery, and returns the response to send
+     */
+    private byte[] handle(HttpConnection.Request request) {
+        boolean close = !request.keepAlive;
+        if (!path.equals(request.path)) {
+            rejected.increment();
+            return response(404, "Not Found", error(404, "Not Found"), close);
+        }
+        if (!"POST".equals(request.method)) {
+            rejected.increment();
+            return response(405, "Method Not Allowed", error(405, "Method Not Allowed"), close);
+        }
+        if (request.signature == null || request.signature.isEmpty()) {
+            rejected.increment();
+            return response(400, "Bad Request", error(400, "Missing signature header"), close);
+        }
+        if (!verifier.verify(request.body, request.signature)) {
+            rejected.increment();
+            return response(400, "Bad Request", error(400, "Invalid signature"), close);
+        }
+        byte[] body = request.body;
+        try {
+            workers.execute(() -> dispatch(body));
+        } catch (RejectedExecutionException e) {
+            overloaded.increment();
+            return response(503, "Service Unavailable", error(503, "Receiver overloaded"), close);
+        }
+        acknowledged.increment();
+        return close ? OK_CLOSE : OK;
+    }
+
+    /**
+     * Decodes an acknowledged delivery and runs its handlers, on a worker thread
+     */
+    private void dispatch(byte[] body) {
+        Event event = null;
+        try {
+            JsonObject json = JsonParser.parseReader(
+                    new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8)).getAsJsonObject();
+            event = gson.fromJson(json, Event.class);
+            JsonElement data = json.get("data");
+            JsonElement object = data != null && data.isJsonObject() ? data.getAsJsonObject().get("object") : null;
+            List<Route<?>> matches = routes.get(event.getType());
+            if (matches == null) {
+                if (defaultRoute == null) {
+                    unhandled.increment();
+                    return;
+                }
+                matches = Collections.<Route<?>>singletonList(defaultRoute);
+            }
+            for (Route<?> route : matches) {
+                route.run(gson, event, object);
+            }
+            handled.increment();
+        } catch (Exception e) {
+            failed.increment();
+            logger.error("Webhook handler failed for event {} ({})", event != null ? event.getId() : null,
+                    event != null ? event.getType() : "undecodable", e);
+        }
+    }
+
+    private void closeIdle(long now) {
+        for (SelectionKey key : selector.keys()) {
+            Object attachment = key.attachment();
+            if (attachment instanceof HttpConnection
+                    && now - ((HttpConnection) attachment).lastActiveNanos > idleTimeoutNanos) {
+                close(key);
+            }
+        }
+    }
+
+    private static void close(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ignored) {
+            // Already closed by the peer
+        }
+    }
+
+    private static String error(int code, String message) {
+        return "{\"code\":" + code + ",\"msg\":\"" + message + "\"}";
+    }
+
+    private static byte[] response(int status, String reason, String json, boolean close) {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        String head = "HTTP/1.1 " + status + " " + reason + "\r\n"
+                + "Content-Type: application/json\r\n"
+                + "Content-Length: " + body.length + "\r\n"
+                + (status == 503 ? "Retry-After: 1\r\n" : "")
+                + (close ? "Connection: close\r\n" : "")
+                + "\r\n";
+        byte[] headBytes = head.getBytes(StandardCharsets.US_ASCII);
+        byte[] response = new byte[headBytes.length + body.length];
+        System.arraycopy(headBytes, 0, response, 0, headBytes.length);
+        System.arraycopy(body, 0, response, headBytes.length, body.length);
+        return response;
+    }
+
+    /**
+     * A handler with the type its event object is bound to
+     */
+    private static final class Route<T> {
+        private final Class<T> objectType;
+        private final WebhookHandler<? super T> handler;
+
+        Route(Class<T> objectType, WebhookHandler<? super T> handler) {
+            this.objectType = objectType;
+            this.handler = handler;
+        }
+
+        void run(Gson gson, Event event, JsonElement object) throws Exception {
+            T value = object != null && !object.isJsonNull() ? gson.fromJson(object, objectType) : null;
+            handler.handle(event, value);
+        }
+    }
+
+    private static final class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * Stats is a point-in-time snapshot of the delivery counters
+     */
+    public static final class Stats {
+        private final long received;
+        private final long acknowledged;
+        private final long rejected;
+        private final long overloaded;
+        private final long handled;
+        private final long unhandled;
+        private final long failed;
+        private final int queued;
+
+        Stats(long received, long acknowledged, long rejected, long overloaded, long handled, long unhandled,
+              long failed, int queued) {
+            this.received = received;
+            this.acknowledged = acknowledged;
+            this.rejected = rejected;
+            this.overloaded = overloaded;
+            this.handled = handled;
+            this.unhandled = unhandled;
+            this.failed = failed;
+            this.queued = queued;
+        }
+
+        /** Complete requests read */
+        public long getReceived() { return received; }
+
+        /** Deliveries verified, queued and answered with 200 */
+        public long getAcknowledged() { return acknowledged; }
+
+        /** Requests refused with a 4xx status */
+        public long getRejected() { return rejected; }
+
+        /** Deliveries refused with 503 because the worker queue was full */
+        public long getOverloaded() { return overloaded; }
+
+        /** Events whose handlers completed */
+        public long getHandled() { return handled; }
+
+        /** Events of a type with no handler */
+        public long getUnhandled() { return unhandled; }
+
+        /** Events that could not be decoded or whose handler threw */
+        public long getFailed() { return failed; }
+
+        /** Acknowledged events waiting for a worker */
+        public int getQueued() { return queued; }
+
+        @Override
+        public String toString() {
+            return "WebhookReceiver.Stats{received=" + received +
+                    ", acknowledged=" + acknowledged +
+                    ", rejected=" + rejected +
+                    ", overloaded=" + overloaded +
+                    ", handled=" + handled +
+                    ", unhandled=" + unhandled +
+                    ", failed=" + failed +
+                    ", queued=" + queued + "}";
+        }
+    }
+
+    /**
+     * Builder for WebhookReceiver
+     */
+    public static final class Builder {
+        private final String secret;
+        private InetAddress bindAddress;
+        private int port = 8080;
+        private String path = "/";
+        private long toleranceSeconds = Event.DEFAULT_TOLERANCE_SECONDS;
+        private int maxBodyBytes = DEFAULT_MAX_BODY_BYTES;
+        private int workerThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+        private long idleTimeoutNanos = TimeUnit.SECONDS.toNanos(60);
+        private long shutdownTimeoutNanos = TimeUnit.SECONDS.toNanos(10);
+        private Gson gson;
+        private final Map<String, List<Route<?>>> routes = new HashMap<>();
+        private Route<?> defaultRoute;
+
+        private Builder(String secret) {
+            this.secret = secret;
+        }
+
+        /**
+         * Sets the local address to listen on; defaults to all interfaces
+         */
+        public Builder bindAddress(InetAddress bindAddress) {
+            this.bindAddress = bindAddress;
+            return this;
+        }
+
+        /**
+         * Sets the port to listen on; defaults to 8080, and 0 picks a free port
+         */
+        public Builder port(int port) {
+            if (port < 0 || port > 65535) {
+                throw new IllegalArgumentException("Invalid port: " + port);
+            }
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * Sets the request path deliveries are posted to; defaults to "/"
+         */
+        public Builder path(String path) {
+            if (path == null || !path.startsWith("/")) {
+                throw new IllegalArgumentException("path must start with '/'");
+            }
+            this.path = path;
+            return this;
+        }
+
+        /**
+         * Sets how far a signature's timestamp may be from the current time; defaults to
+         * {@link Event#DEFAULT_TOLERANCE_SECONDS}
+         */
+        public Builder tolerance(long tolerance, TimeUnit unit) {
+            if (tolerance < 0) {
+                throw new IllegalArgumentException("tolerance < 0");
+            }
+            this.toleranceSeconds = unit.toSeconds(tolerance);
+            return this;
+        }
+
+        /**
+         * Sets the largest accepted body; defaults to 1 MiB
+         */
+        public Builder maxBodyBytes(int maxBodyBytes) {
+            if (maxBodyBytes < 1) {
+                throw new IllegalArgumentException("maxBodyBytes < 1: " + maxBodyBytes);
+            }
+            this.maxBodyBytes = maxBodyBytes;
+            return this;
+        }
+
+        /**
+         * Sets the number of threads running handlers; defaults to the number of processors
+         */
+        public Builder workerThreads(int workerThreads) {
+            if (workerThreads < 1) {
+                throw new IllegalArgumentException("workerThreads < 1: " + workerThreads);
+            }
+            this.workerThreads = workerThreads;
+            return this;
+        }
+
+        /**
+         * Sets how many acknowledged events may wait for a worker before deliveries are refused
+         * with 503; defaults to {@link #DEFAULT_QUEUE_CAPACITY}
+         */
+        public Builder queueCapacity(int queueCapacity) {
+            if (queueCapacity < 1) {
+                throw new IllegalArgumentException("queueCapacity < 1: " + queueCapacity);
+            }
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * Sets how long an idle keep-alive connection stays open; defaults to 60 seconds
+         */
+        public Builder idleTimeout(long idleTimeout, TimeUnit unit) {
+            if (idleTimeout <= 0) {
+                throw new IllegalArgumentException("idleTimeout <= 0");
+            }
+            this.idleTimeoutNanos = unit.toNanos(idleTimeout);
+            return this;
+        }
+
+        /**
+         * Sets how long {@link #close()} waits for queued events; defaults to 10 seconds
+         */
+        public Builder shutdownTimeout(long shutdownTimeout, TimeUnit unit) {
+            if (shutdownTimeout < 0) {
+                throw new IllegalArgumentException("shutdownTimeout < 0");
+            }
+            this.shutdownTimeoutNanos = unit.toNanos(shutdownTimeout);
+            return this;
+        }
+
+        /**
+         * Sets the Gson instance decoding events; defaults to the SDK's
+         */
+        public Builder gson(Gson gson) {
+            this.gson = gson;
+            return this;
+        }
+
+        /**
+         * Registers a handler for an event type, such as {@link Event#EVENT_TYPE_PAYOUT_FAILED};
+         * handlers of the same type run in registration order
+         *
+         * @param eventType  Event type constant
+         * @param objectType Type the event's {@code data.object} is bound to, such as {@code Payout.class}
+         * @param handler    Handler
+         */
+        public <T> Builder on(String eventType, Class<T> objectType, WebhookHandler<? super T> handler) {
+            if (eventType == null || objectType == null || handler == null) {
+                throw new IllegalArgumentException("eventType, objectType and handler are required");
+            }
+            routes.computeIfAbsent(eventType, type -> new ArrayList<>()).add(new Route<>(objectType, handler));
+            return this;
+        }
+
+        /**
+         * Registers the handler of event types that have none, receiving {@code data.object} as a
+         * JSON tree; without it such events are acknowledged and counted as unhandled
+         */
+        public Builder otherwise(WebhookHandler<? super JsonObject> handler) {
+            this.defaultRoute = handler != null ? new Route<>(JsonObject.class, handler) : null;
+            return this;
+        }
+
+        public WebhookReceiver build() {
+            return new WebhookReceiver(this);
+        }
+    }
+}